@@ -21,8 +21,10 @@ package org.apache.pinot.broker.broker;
 import com.google.common.base.Preconditions;
 import com.yammer.metrics.core.MetricsRegistry;
 import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.pinot.broker.broker.helix.LiveInstancesChangeListenerImpl;
+import org.apache.pinot.broker.cache.BrokerResultCache;
 import org.apache.pinot.broker.queryquota.TableQueryQuotaManager;
 import org.apache.pinot.broker.requesthandler.BrokerRequestHandler;
 import org.apache.pinot.broker.requesthandler.ConnectionPoolBrokerRequestHandler;
@@ -65,6 +67,8 @@ public class BrokerServerBuilder {
   private final AccessControlFactory _accessControlFactory;
   private final MetricsRegistry _metricsRegistry;
   private final BrokerMetrics _brokerMetrics;
+  // Null if the broker result cache is disabled
+  private final BrokerResultCache _brokerResultCache;
   private final BrokerRequestHandler _brokerRequestHandler;
   private final BrokerAdminApiApplication _brokerAdminApplication;
 
@@ -83,20 +87,34 @@ public class BrokerServerBuilder {
     MetricsHelper.registerMetricsRegistry(_metricsRegistry);
     _brokerMetrics = new BrokerMetrics(_metricsRegistry, !_config.getBoolean(TABLE_LEVEL_METRICS_CONFIG, true));
     _brokerMetrics.initializeGlobalMeters();
+    _brokerResultCache = buildResultCache();
     _brokerRequestHandler = buildRequestHandler();
     _brokerAdminApplication = new BrokerAdminApiApplication(this);
   }
 
+  @Nullable
+  private BrokerResultCache buildResultCache() {
+    long maxSizeInBytes = _config.getLong(CommonConstants.Broker.CONFIG_OF_BROKER_RESULT_CACHE_SIZE_IN_BYTES,
+        CommonConstants.Broker.DEFAULT_BROKER_RESULT_CACHE_SIZE_IN_BYTES);
+    if (maxSizeInBytes > 0) {
+      LOGGER.info("Initializing broker result cache with max size: {} bytes", maxSizeInBytes);
+      return new BrokerResultCache(maxSizeInBytes, _brokerMetrics);
+    } else {
+      LOGGER.info("Broker result cache is disabled");
+      return null;
+    }
+  }
+
   private BrokerRequestHandler buildRequestHandler() {
     String requestHandlerType = _config.getString(REQUEST_HANDLER_TYPE_CONFIG, DEFAULT_REQUEST_HANDLER_TYPE);
     if (requestHandlerType.equalsIgnoreCase(SINGLE_CONNECTION_REQUEST_HANDLER_TYPE)) {
       LOGGER.info("Using SingleConnectionBrokerRequestHandler");
       return new SingleConnectionBrokerRequestHandler(_config, _routingTable, _timeBoundaryService,
-          _accessControlFactory, _tableQueryQuotaManager, _brokerMetrics);
+          _accessControlFactory, _tableQueryQuotaManager, _brokerMetrics, _brokerResultCache);
     } else {
       LOGGER.info("Using ConnectionPoolBrokerRequestHandler");
       return new ConnectionPoolBrokerRequestHandler(_config, _routingTable, _timeBoundaryService, _accessControlFactory,
-          _tableQueryQuotaManager, _brokerMetrics, _liveInstanceChangeListener, _metricsRegistry);
+          _tableQueryQuotaManager, _brokerMetrics, _brokerResultCache, _liveInstanceChangeListener, _metricsRegistry);
     }
   }
 
@@ -158,6 +176,14 @@ public class BrokerServerBuilder {
     return _brokerMetrics;
   }
 
+  /**
+   * Returns the broker result cache, or {@code null} if it is disabled.
+   */
+  @Nullable
+  public BrokerResultCache getBrokerResultCache() {
+    return _brokerResultCache;
+  }
+
   public BrokerRequestHandler getBrokerRequestHandler() {
     return _brokerRequestHandler;
   }
@@ -19,6 +19,8 @@
 package org.apache.pinot.broker.broker.helix;
 
 import java.util.List;
+import javax.annotation.Nullable;
+import org.I0Itec.zkclient.IZkDataListener;
 import org.apache.helix.HelixAdmin;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixManager;
@@ -32,11 +34,14 @@ import org.apache.helix.participant.statemachine.StateModelFactory;
 import org.apache.helix.participant.statemachine.StateModelInfo;
 import org.apache.helix.participant.statemachine.Transition;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.pinot.broker.cache.BrokerResultCache;
 import org.apache.pinot.broker.queryquota.TableQueryQuotaManager;
 import org.apache.pinot.broker.routing.HelixExternalViewBasedRouting;
 import org.apache.pinot.common.Utils;
 import org.apache.pinot.common.config.TableConfig;
+import org.apache.pinot.common.config.TableNameBuilder;
 import org.apache.pinot.common.metadata.ZKMetadataProvider;
+import org.apache.pinot.common.utils.CommonConstants;
 import org.apache.pinot.common.utils.helix.HelixHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,23 +62,65 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
   private final HelixAdmin _helixAdmin;
   private final HelixExternalViewBasedRouting _helixExternalViewBasedRouting;
   private final TableQueryQuotaManager _tableQueryQuotaManager;
+  // Null if the broker result cache is disabled
+  private final BrokerResultCache _brokerResultCache;
 
   private ZkHelixPropertyStore<ZNRecord> _propertyStore;
 
+  // Applies the table config changes (including removing the table config) of the OFFLINE tables to the broker result
+  // cache, which otherwise only reads the table config when the table becomes ONLINE. Only registered when the broker
+  // result cache is enabled.
+  private final IZkDataListener _tableConfigChangeListener = new IZkDataListener() {
+    @Override
+    public void handleDataChange(String dataPath, Object data) {
+      String tableNameWithType = getTableNameWithType(dataPath);
+      TableConfig tableConfig = ZKMetadataProvider.getTableConfig(_propertyStore, tableNameWithType);
+      if (tableConfig != null) {
+        _brokerResultCache.updateTableConfig(tableConfig);
+      } else {
+        _brokerResultCache.setTableTtlMs(tableNameWithType, 0L);
+      }
+    }
+
+    @Override
+    public void handleDataDeleted(String dataPath) {
+      _brokerResultCache.setTableTtlMs(getTableNameWithType(dataPath), 0L);
+    }
+
+    private String getTableNameWithType(String dataPath) {
+      return dataPath.substring(dataPath.lastIndexOf('/') + 1);
+    }
+  };
+
   public BrokerResourceOnlineOfflineStateModelFactory(HelixManager helixManager,
       ZkHelixPropertyStore<ZNRecord> propertyStore, HelixExternalViewBasedRouting helixExternalViewBasedRouting,
-      TableQueryQuotaManager tableQueryQuotaManager) {
+      TableQueryQuotaManager tableQueryQuotaManager, @Nullable BrokerResultCache brokerResultCache) {
     _helixManager = helixManager;
     _propertyStore = propertyStore;
     _helixAdmin = helixManager.getClusterManagmentTool();
     _helixExternalViewBasedRouting = helixExternalViewBasedRouting;
     _tableQueryQuotaManager = tableQueryQuotaManager;
+    _brokerResultCache = brokerResultCache;
   }
 
   public static String getStateModelDef() {
     return "BrokerResourceOnlineOfflineStateModel";
   }
 
+  private void watchTableConfig(String tableNameWithType) {
+    if (_brokerResultCache != null && TableNameBuilder.getTableTypeFromTableName(tableNameWithType) == CommonConstants.Helix.TableType.OFFLINE) {
+      _propertyStore.subscribeDataChanges(ZKMetadataProvider.constructPropertyStorePathForResourceConfig(
+          tableNameWithType), _tableConfigChangeListener);
+    }
+  }
+
+  private void unwatchTableConfig(String tableNameWithType) {
+    if (_brokerResultCache != null && TableNameBuilder.getTableTypeFromTableName(tableNameWithType) == CommonConstants.Helix.TableType.OFFLINE) {
+      _propertyStore.unsubscribeDataChanges(ZKMetadataProvider.constructPropertyStorePathForResourceConfig(
+          tableNameWithType), _tableConfigChangeListener);
+    }
+  }
+
   @Override
   public StateModel createNewStateModel(String resourceName) {
     return new BrokerResourceOnlineOfflineStateModel();
@@ -90,6 +137,8 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
         String tableName = message.getPartitionName();
         HelixDataAccessor helixDataAccessor = _helixManager.getHelixDataAccessor();
         List<InstanceConfig> instanceConfigList = helixDataAccessor.getChildValues(keyBuilder.instanceConfigs());
+        // Watch the table config before reading it so that no change is missed
+        watchTableConfig(tableName);
         TableConfig tableConfig = ZKMetadataProvider.getTableConfig(_propertyStore, tableName);
 
         _helixExternalViewBasedRouting.markDataResourceOnline(tableConfig,
@@ -97,6 +146,9 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
             instanceConfigList);
         _tableQueryQuotaManager.initTableQueryQuota(tableConfig, HelixHelper
             .getExternalViewForResource(_helixAdmin, _helixManager.getClusterName(), BROKER_RESOURCE_INSTANCE));
+        if (_brokerResultCache != null) {
+          _brokerResultCache.updateTableConfig(tableConfig);
+        }
       } catch (Exception e) {
         LOGGER.error("Caught exception during OFFLINE -> ONLINE transition", e);
         Utils.rethrowException(e);
@@ -109,6 +161,7 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
       try {
         LOGGER.info("BrokerResourceOnlineOfflineStateModel.onBecomeOfflineFromOnline() : " + message);
         String tableName = message.getPartitionName();
+        unwatchTableConfig(tableName);
         _helixExternalViewBasedRouting.markDataResourceOffline(tableName);
         _tableQueryQuotaManager.dropTableQueryQuota(tableName);
       } catch (Exception e) {
@@ -123,6 +176,7 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
       try {
         LOGGER.info("BrokerResourceOnlineOfflineStateModel.onBecomeDroppedFromOffline() : " + message);
         String tableName = message.getPartitionName();
+        unwatchTableConfig(tableName);
         _helixExternalViewBasedRouting.markDataResourceOffline(tableName);
         _tableQueryQuotaManager.dropTableQueryQuota(tableName);
       } catch (Exception e) {
@@ -137,6 +191,7 @@ public class BrokerResourceOnlineOfflineStateModelFactory extends StateModelFact
       try {
         LOGGER.info("BrokerResourceOnlineOfflineStateModel.onBecomeDroppedFromOnline() : " + message);
         String tableName = message.getPartitionName();
+        unwatchTableConfig(tableName);
         _helixExternalViewBasedRouting.markDataResourceOffline(tableName);
         _tableQueryQuotaManager.dropTableQueryQuota(tableName);
       } catch (Exception e) {
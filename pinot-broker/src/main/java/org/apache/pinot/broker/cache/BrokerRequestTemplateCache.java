@@ -0,0 +1,447 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.apache.pinot.common.metrics.BrokerMeter;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.request.FilterOperator;
+import org.apache.pinot.common.request.FilterQuery;
+import org.apache.pinot.pql.parsers.PQL2Lexer;
+import org.apache.pinot.pql.parsers.Pql2CompilationException;
+import org.apache.pinot.pql.parsers.Pql2Compiler;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TFieldIdEnum;
+import org.apache.thrift.meta_data.FieldMetaData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code BrokerRequestTemplateCache} class is a per-broker, size-bounded LRU cache of the compiled broker requests
+ * keyed by the query shape (query text with the literals parameterized), so that the queries with the same shape but
+ * different literals do not need to be parsed again.
+ * <p>The query is tokenized with the PQL2 lexer (much cheaper than parsing) to extract the shape and the literals. For
+ * each shape, the template is compiled from the query with the literals replaced by unique markers, and the broker
+ * request of a query is instantiated by replacing the markers in a copy of the template with the literals of the query.
+ * <p>To not compile the one-off queries twice, the template is only created when the shape is seen for the second
+ * time. The template is verified against the directly compiled broker request when it is created, and the shapes that
+ * cannot be templated are always compiled directly.
+ * <p>Literals in the LIMIT and TOP clauses are kept as part of the shape because they are consumed as numbers. Queries
+ * with literals not in the canonical form (e.g. {@code +1}, {@code 1.50}, {@code 'it''s'}) are compiled directly
+ * because the literal text differs from its compiled value.
+ */
+@ThreadSafe
+public class BrokerRequestTemplateCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerRequestTemplateCache.class);
+
+  // Markers are fixed-width so that the literal index can be extracted from them
+  private static final int MAX_NUM_LITERALS = 10_000;
+  private static final int MARKER_INDEX_LENGTH = 4;
+  // NOTE: integer marker must fit into a long, and floating point marker must be in the canonical form of a double
+  private static final String INTEGER_MARKER_PREFIX = "800000000000000";
+  private static final String FLOATING_POINT_MARKER_PREFIX = "987654.3";
+  private static final String FLOATING_POINT_MARKER_SUFFIX = "7";
+  // NOTE: queries containing this character are not templated so that the string markers never collide
+  private static final String STRING_MARKER_DELIMITER = "\0";
+
+  private static final Template PENDING = new Template(null);
+  private static final Template NOT_TEMPLATABLE = new Template(null);
+
+  private static final BaseErrorListener ERROR_LISTENER = new BaseErrorListener() {
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+        String msg, RecognitionException e) {
+      throw new Pql2CompilationException(msg, offendingSymbol, line, charPositionInLine, e);
+    }
+  };
+
+  private final Pql2Compiler _compiler;
+  private final Cache<String, Template> _cache;
+  private final BrokerMetrics _brokerMetrics;
+
+  public BrokerRequestTemplateCache(Pql2Compiler compiler, int maxNumTemplates, @Nullable BrokerMetrics brokerMetrics) {
+    Preconditions.checkArgument(maxNumTemplates > 0, "Invalid maxNumTemplates: %s", maxNumTemplates);
+    _compiler = compiler;
+    _cache = CacheBuilder.newBuilder().maximumSize(maxNumTemplates).build();
+    _brokerMetrics = brokerMetrics;
+  }
+
+  /**
+   * Compiles the given query into {@link BrokerRequest}, from the cached template if possible. The returned broker
+   * request is not shared and can be modified.
+   */
+  public BrokerRequest compileToBrokerRequest(String query)
+      throws Pql2CompilationException {
+    TokenizedQuery tokenizedQuery = tokenize(query);
+    if (tokenizedQuery == null) {
+      addMeteredValue(BrokerMeter.REQUEST_TEMPLATE_CACHE_MISSES);
+      return _compiler.compileToBrokerRequest(query);
+    }
+    String shape = tokenizedQuery._shape;
+    Template template = _cache.getIfPresent(shape);
+    if (template != null && template._brokerRequest != null) {
+      addMeteredValue(BrokerMeter.REQUEST_TEMPLATE_CACHE_HITS);
+      return template.instantiate(tokenizedQuery._literals);
+    }
+
+    addMeteredValue(BrokerMeter.REQUEST_TEMPLATE_CACHE_MISSES);
+    BrokerRequest brokerRequest = _compiler.compileToBrokerRequest(query);
+    if (template == null) {
+      _cache.put(shape, PENDING);
+    } else if (template == PENDING) {
+      _cache.put(shape, createTemplate(tokenizedQuery, brokerRequest));
+    }
+    return brokerRequest;
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  @VisibleForTesting
+  boolean hasTemplate(String query) {
+    TokenizedQuery tokenizedQuery = tokenize(query);
+    if (tokenizedQuery == null) {
+      return false;
+    }
+    Template template = _cache.getIfPresent(tokenizedQuery._shape);
+    return template != null && template._brokerRequest != null;
+  }
+
+  /**
+   * Creates the template for the tokenized query, or returns {@link #NOT_TEMPLATABLE} if the broker request
+   * instantiated from the template does not match the directly compiled one.
+   */
+  private Template createTemplate(TokenizedQuery tokenizedQuery, BrokerRequest expectedBrokerRequest) {
+    try {
+      Template template = new Template(_compiler.compileToBrokerRequest(tokenizedQuery._markedQuery));
+      BrokerRequest brokerRequest = template.instantiate(tokenizedQuery._literals);
+      if (sortInPredicateValues(brokerRequest).equals(sortInPredicateValues(expectedBrokerRequest.deepCopy()))) {
+        return template;
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Caught exception while creating template for query shape: {}", tokenizedQuery._shape, e);
+    }
+    return NOT_TEMPLATABLE;
+  }
+
+  private void addMeteredValue(BrokerMeter meter) {
+    if (_brokerMetrics != null) {
+      _brokerMetrics.addMeteredGlobalValue(meter, 1L);
+    }
+  }
+
+  /**
+   * Tokenizes the query into the shape, the marked query and the literals, or returns {@code null} if the query cannot
+   * be templated.
+   */
+  @VisibleForTesting
+  @Nullable
+  static TokenizedQuery tokenize(String query) {
+    if (query.indexOf(STRING_MARKER_DELIMITER) >= 0) {
+      return null;
+    }
+    PQL2Lexer lexer = new PQL2Lexer(new ANTLRInputStream(query));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(ERROR_LISTENER);
+
+    StringBuilder shape = new StringBuilder(query.length());
+    StringBuilder markedQuery = new StringBuilder(query.length());
+    List<String> literals = new ArrayList<>();
+    int start = 0;
+    boolean inLimitOrTop = false;
+    try {
+      for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+        if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+          continue;
+        }
+        int tokenType = token.getType();
+        String text = token.getText();
+        String placeholder;
+        String marker;
+        String literal;
+        switch (tokenType) {
+          case PQL2Lexer.INTEGER_LITERAL:
+            if (inLimitOrTop) {
+              // Keep the literals in the LIMIT and TOP clauses as part of the shape
+              continue;
+            }
+            if (!Long.toString(Long.parseLong(text)).equals(text)) {
+              return null;
+            }
+            placeholder = "I";
+            marker = getMarker(INTEGER_MARKER_PREFIX, literals.size(), "");
+            literal = text;
+            break;
+          case PQL2Lexer.FLOATING_POINT_LITERAL:
+            if (!Double.toString(Double.parseDouble(text)).equals(text)) {
+              return null;
+            }
+            placeholder = "F";
+            marker = getMarker(FLOATING_POINT_MARKER_PREFIX, literals.size(), FLOATING_POINT_MARKER_SUFFIX);
+            literal = text;
+            break;
+          case PQL2Lexer.STRING_LITERAL:
+            String quote = text.substring(0, 1);
+            literal = text.substring(1, text.length() - 1);
+            if (literal.contains(quote)) {
+              return null;
+            }
+            placeholder = quote;
+            marker = quote + getMarker(STRING_MARKER_DELIMITER, literals.size(), STRING_MARKER_DELIMITER) + quote;
+            break;
+          default:
+            inLimitOrTop =
+                tokenType == PQL2Lexer.LIMIT || tokenType == PQL2Lexer.TOP || (inLimitOrTop && ",".equals(text));
+            continue;
+        }
+        if (literals.size() == MAX_NUM_LITERALS) {
+          return null;
+        }
+        int tokenStart = token.getStartIndex();
+        shape.append(query, start, tokenStart).append(STRING_MARKER_DELIMITER).append(placeholder);
+        markedQuery.append(query, start, tokenStart).append(marker);
+        literals.add(literal);
+        start = token.getStopIndex() + 1;
+      }
+    } catch (Exception e) {
+      // Let the compiler report the error
+      return null;
+    }
+    shape.append(query, start, query.length());
+    markedQuery.append(query, start, query.length());
+    return new TokenizedQuery(shape.toString(), markedQuery.toString(), literals.toArray(new String[0]));
+  }
+
+  private static String getMarker(String prefix, int index, String suffix) {
+    return prefix + String.format("%0" + MARKER_INDEX_LENGTH + "d", index) + suffix;
+  }
+
+  /**
+   * Returns the prefix of the marker at the given position of the value, or {@code null} if there is no marker.
+   */
+  @Nullable
+  private static String getMarkerPrefix(String value, int position) {
+    String prefix;
+    if (value.startsWith(INTEGER_MARKER_PREFIX, position)) {
+      prefix = INTEGER_MARKER_PREFIX;
+    } else if (value.startsWith(FLOATING_POINT_MARKER_PREFIX, position)) {
+      prefix = FLOATING_POINT_MARKER_PREFIX;
+    } else if (value.startsWith(STRING_MARKER_DELIMITER, position)) {
+      prefix = STRING_MARKER_DELIMITER;
+    } else {
+      return null;
+    }
+    int indexStart = position + prefix.length();
+    int indexEnd = indexStart + MARKER_INDEX_LENGTH;
+    if (indexEnd > value.length()) {
+      return null;
+    }
+    for (int i = indexStart; i < indexEnd; i++) {
+      if (!Character.isDigit(value.charAt(i))) {
+        return null;
+      }
+    }
+    return value.startsWith(getMarkerSuffix(prefix), indexEnd) ? prefix : null;
+  }
+
+  private static String getMarkerSuffix(String prefix) {
+    switch (prefix) {
+      case FLOATING_POINT_MARKER_PREFIX:
+        return FLOATING_POINT_MARKER_SUFFIX;
+      case STRING_MARKER_DELIMITER:
+        return STRING_MARKER_DELIMITER;
+      default:
+        return "";
+    }
+  }
+
+  /**
+   * Replaces all the markers in the value with the literals.
+   * <p>NOTE: the value is scanned only once so that the markers are never searched in the replaced literals.
+   */
+  @VisibleForTesting
+  static String replaceMarkers(String value, String[] literals) {
+    StringBuilder stringBuilder = null;
+    int start = 0;
+    int length = value.length();
+    int position = 0;
+    while (position < length) {
+      String prefix = getMarkerPrefix(value, position);
+      if (prefix == null) {
+        position++;
+        continue;
+      }
+      int indexStart = position + prefix.length();
+      int indexEnd = indexStart + MARKER_INDEX_LENGTH;
+      int index = Integer.parseInt(value.substring(indexStart, indexEnd));
+      if (stringBuilder == null) {
+        stringBuilder = new StringBuilder(length);
+      }
+      stringBuilder.append(value, start, position).append(literals[index]);
+      position = indexEnd + getMarkerSuffix(prefix).length();
+      start = position;
+    }
+    if (stringBuilder == null) {
+      return value;
+    }
+    return stringBuilder.append(value, start, length).toString();
+  }
+
+  /**
+   * Replaces all the markers in the string fields (including the ones in the nested structs and collections) of the
+   * Thrift struct with the literals.
+   */
+  @SuppressWarnings("unchecked")
+  private static void replaceMarkers(TBase struct, String[] literals) {
+    for (TFieldIdEnum field : FieldMetaData.getStructMetaDataMap(struct.getClass()).keySet()) {
+      if (struct.isSet(field)) {
+        Object value = struct.getFieldValue(field);
+        Object replacedValue = replaceMarkers(value, literals);
+        if (replacedValue != value) {
+          struct.setFieldValue(field, replacedValue);
+        }
+      }
+    }
+  }
+
+  private static Object replaceMarkers(Object value, String[] literals) {
+    if (value instanceof String) {
+      return replaceMarkers((String) value, literals);
+    }
+    if (value instanceof TBase) {
+      replaceMarkers((TBase) value, literals);
+      return value;
+    }
+    if (value instanceof List) {
+      List<Object> list = new ArrayList<>(((List) value).size());
+      for (Object element : (List) value) {
+        list.add(replaceMarkers(element, literals));
+      }
+      return list;
+    }
+    if (value instanceof Set) {
+      Set<Object> set = new HashSet<>();
+      for (Object element : (Set) value) {
+        set.add(replaceMarkers(element, literals));
+      }
+      return set;
+    }
+    if (value instanceof Map) {
+      Map<Object, Object> map = new HashMap<>();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        map.put(replaceMarkers(entry.getKey(), literals), replaceMarkers(entry.getValue(), literals));
+      }
+      return map;
+    }
+    return value;
+  }
+
+  /**
+   * Returns all the filter queries of the broker request (the root and the ones in the sub-query map are different
+   * objects).
+   */
+  private static List<FilterQuery> getFilterQueries(BrokerRequest brokerRequest) {
+    List<FilterQuery> filterQueries = new ArrayList<>();
+    if (brokerRequest.getFilterQuery() != null) {
+      filterQueries.add(brokerRequest.getFilterQuery());
+    }
+    if (brokerRequest.getFilterSubQueryMap() != null) {
+      filterQueries.addAll(brokerRequest.getFilterSubQueryMap().getFilterQueryMap().values());
+    }
+    return filterQueries;
+  }
+
+  private static boolean isInPredicate(FilterQuery filterQuery) {
+    FilterOperator operator = filterQuery.getOperator();
+    return (operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) && filterQuery.getValue() != null;
+  }
+
+  /**
+   * Sorts the values of the IN/NOT_IN predicates, whose order depends on the hash of the values.
+   */
+  @VisibleForTesting
+  static BrokerRequest sortInPredicateValues(BrokerRequest brokerRequest) {
+    for (FilterQuery filterQuery : getFilterQueries(brokerRequest)) {
+      if (isInPredicate(filterQuery)) {
+        filterQuery.setValue(new ArrayList<>(new TreeSet<>(filterQuery.getValue())));
+      }
+    }
+    return brokerRequest;
+  }
+
+  @VisibleForTesting
+  static class TokenizedQuery {
+    final String _shape;
+    final String _markedQuery;
+    final String[] _literals;
+
+    TokenizedQuery(String shape, String markedQuery, String[] literals) {
+      _shape = shape;
+      _markedQuery = markedQuery;
+      _literals = literals;
+    }
+  }
+
+  private static class Template {
+    final BrokerRequest _brokerRequest;
+
+    Template(@Nullable BrokerRequest brokerRequest) {
+      _brokerRequest = brokerRequest;
+    }
+
+    BrokerRequest instantiate(String[] literals) {
+      BrokerRequest brokerRequest = _brokerRequest.deepCopy();
+      replaceMarkers(brokerRequest, literals);
+      // NOTE: the same literal might be used multiple times in the IN/NOT_IN predicates, de-duplicate them as the
+      // compiler does
+      for (FilterQuery filterQuery : getFilterQueries(brokerRequest)) {
+        if (isInPredicate(filterQuery)) {
+          Collection<String> values = new LinkedHashSet<>(filterQuery.getValue());
+          if (values.size() != filterQuery.getValue().size()) {
+            filterQuery.setValue(new ArrayList<>(values));
+          }
+        }
+      }
+      return brokerRequest;
+    }
+  }
+}
@@ -0,0 +1,303 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.config.TableConfig;
+import org.apache.pinot.common.config.TableCustomConfig;
+import org.apache.pinot.common.config.TableNameBuilder;
+import org.apache.pinot.common.metrics.BrokerGauge;
+import org.apache.pinot.common.metrics.BrokerMeter;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.response.ServerInstance;
+import org.apache.pinot.common.utils.CommonConstants;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.common.datatable.DataTableFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code BrokerResultCache} class is a per-broker, size-bounded LRU cache of the server responses for the OFFLINE
+ * tables, so that identical queries within a short window do not need to be scattered to the servers again.
+ * <p>The cache is opt-in per OFFLINE table through the {@link TableCustomConfig#BROKER_RESULT_CACHE_TTL_MS_KEY} custom
+ * config, and is keyed by the optimized OFFLINE broker request. For hybrid tables, only the OFFLINE half of the query
+ * is cached and the REALTIME half is always queried. Because the OFFLINE request carries the time boundary filter, a
+ * time boundary change automatically results in a different key.
+ * <p>The cached entries of a table are invalidated when its routing table is rebuilt (e.g. segments added, replaced or
+ * moved) or its table config changes, and each entry expires after the TTL configured for the table. The broker
+ * watches the table config of each OFFLINE table it serves, so changing or removing the TTL takes effect without
+ * restarting the broker.
+ * <p>The cache is disabled by default, and is enabled by configuring its max size
+ * ({@link CommonConstants.Broker#CONFIG_OF_BROKER_RESULT_CACHE_SIZE_IN_BYTES}). The broker creates one instance, which
+ * is shared by the request handler, the routing table and the broker resource state model.
+ */
+public class BrokerResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResultCache.class);
+
+  // Rough estimation of the on-heap size of the cache entry excluding the broker request and the data tables
+  private static final int ENTRY_OVERHEAD_IN_BYTES = 512;
+  private static final int SERVER_OVERHEAD_IN_BYTES = 128;
+
+  private final Cache<Key, CachedResult> _cache;
+  private final Map<String, Long> _tableTtlMs = new ConcurrentHashMap<>();
+  private final Map<String, Long> _tableVersions = new ConcurrentHashMap<>();
+  private final AtomicLong _sizeInBytes = new AtomicLong();
+  private final BrokerMetrics _brokerMetrics;
+
+  public BrokerResultCache(long maxSizeInBytes, @Nullable BrokerMetrics brokerMetrics) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Invalid maxSizeInBytes: %s", maxSizeInBytes);
+    _brokerMetrics = brokerMetrics;
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((Key key, CachedResult result) -> result._sizeInBytes)
+        .removalListener(notification -> updateSizeInBytes(-notification.getValue()._sizeInBytes)).build();
+  }
+
+  /**
+   * Updates the TTL of the given table based on its table config. Only OFFLINE tables are cacheable.
+   */
+  public void updateTableConfig(@Nullable TableConfig tableConfig) {
+    if (tableConfig == null) {
+      return;
+    }
+    String tableNameWithType = tableConfig.getTableName();
+    long ttlMs = 0L;
+    Map<String, String> customConfigs = tableConfig.getCustomConfig().getCustomConfigs();
+    if (customConfigs != null && customConfigs.containsKey(TableCustomConfig.BROKER_RESULT_CACHE_TTL_MS_KEY)) {
+      try {
+        ttlMs = Long.parseLong(customConfigs.get(TableCustomConfig.BROKER_RESULT_CACHE_TTL_MS_KEY));
+      } catch (NumberFormatException e) {
+        LOGGER.warn("Invalid broker result cache TTL: {} for table: {}, disabling the cache for the table",
+            customConfigs.get(TableCustomConfig.BROKER_RESULT_CACHE_TTL_MS_KEY), tableNameWithType);
+      }
+    }
+    setTableTtlMs(tableNameWithType, ttlMs);
+  }
+
+  /**
+   * Sets the TTL of the cached results for the given OFFLINE table, or disables the cache for the table if the TTL is
+   * not positive.
+   */
+  public void setTableTtlMs(String tableNameWithType, long ttlMs) {
+    if (ttlMs > 0 && TableNameBuilder.getTableTypeFromTableName(tableNameWithType)
+        == CommonConstants.Helix.TableType.OFFLINE) {
+      LOGGER.info("Enabling broker result cache for table: {} with TTL: {}ms", tableNameWithType, ttlMs);
+      _tableTtlMs.put(tableNameWithType, ttlMs);
+    } else {
+      _tableTtlMs.remove(tableNameWithType);
+    }
+    invalidate(tableNameWithType);
+  }
+
+  /**
+   * Returns the TTL of the cached results for the given table, or 0 if the cache is not enabled for the table.
+   */
+  public long getTableTtlMs(String tableNameWithType) {
+    return _tableTtlMs.getOrDefault(tableNameWithType, 0L);
+  }
+
+  /**
+   * Disables the cache for the given table and invalidates its cached results.
+   */
+  public void removeTable(String tableNameWithType) {
+    _tableTtlMs.remove(tableNameWithType);
+    invalidate(tableNameWithType);
+  }
+
+  /**
+   * Returns the cache key for the given optimized OFFLINE broker request, or {@code null} if the results are not
+   * cacheable (table without the cache enabled, or query with trace enabled).
+   */
+  @Nullable
+  public Key getKey(BrokerRequest offlineBrokerRequest) {
+    String tableNameWithType = offlineBrokerRequest.getQuerySource().getTableName();
+    Long ttlMs = _tableTtlMs.get(tableNameWithType);
+    if (ttlMs == null || offlineBrokerRequest.isEnableTrace()) {
+      return null;
+    }
+    // NOTE: the version is captured before querying the servers so that the results computed with a stale routing
+    // table are never served
+    return new Key(tableNameWithType, getTableVersion(tableNameWithType), ttlMs, offlineBrokerRequest.deepCopy());
+  }
+
+  /**
+   * Returns the cached data tables (de-serialized from the cached bytes so that they can be safely reduced) for the
+   * given key, or {@code null} if not cached or expired.
+   */
+  @Nullable
+  public Map<ServerInstance, DataTable> get(Key key) {
+    return get(key, System.currentTimeMillis());
+  }
+
+  @Nullable
+  Map<ServerInstance, DataTable> get(Key key, long currentTimeMs) {
+    CachedResult result = _cache.getIfPresent(key);
+    if (result != null && result._expirationTimeMs <= currentTimeMs) {
+      _cache.invalidate(key);
+      result = null;
+    }
+    if (result == null) {
+      addMeteredValue(BrokerMeter.BROKER_RESULT_CACHE_MISSES);
+      return null;
+    }
+    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
+    try {
+      for (Map.Entry<ServerInstance, byte[]> entry : result._dataTables.entrySet()) {
+        dataTableMap.put(entry.getKey(), DataTableFactory.getDataTable(entry.getValue()));
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while de-serializing cached data tables for table: {}", key._tableNameWithType,
+          e);
+      _cache.invalidate(key);
+      addMeteredValue(BrokerMeter.BROKER_RESULT_CACHE_MISSES);
+      return null;
+    }
+    addMeteredValue(BrokerMeter.BROKER_RESULT_CACHE_HITS);
+    return dataTableMap;
+  }
+
+  /**
+   * Caches the data tables returned by all the OFFLINE servers queried for the given key. Should only be called when
+   * all the servers responded. Data tables with processing exceptions are not cached.
+   */
+  public void put(Key key, Map<ServerInstance, DataTable> dataTableMap) {
+    put(key, dataTableMap, System.currentTimeMillis());
+  }
+
+  void put(Key key, Map<ServerInstance, DataTable> dataTableMap, long currentTimeMs) {
+    // Results computed with a stale routing table can never be served, do not cache them
+    if (key._tableVersion != getTableVersion(key._tableNameWithType)) {
+      return;
+    }
+    int sizeInBytes = ENTRY_OVERHEAD_IN_BYTES;
+    Map<ServerInstance, byte[]> dataTables = new HashMap<>();
+    try {
+      for (Map.Entry<ServerInstance, DataTable> entry : dataTableMap.entrySet()) {
+        DataTable dataTable = entry.getValue();
+        for (String metadataKey : dataTable.getMetadata().keySet()) {
+          if (metadataKey.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+            return;
+          }
+        }
+        byte[] bytes = dataTable.toBytes();
+        dataTables.put(entry.getKey(), bytes);
+        sizeInBytes += SERVER_OVERHEAD_IN_BYTES + bytes.length;
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while serializing data tables for table: {}", key._tableNameWithType, e);
+      return;
+    }
+    CachedResult result = new CachedResult(currentTimeMs + key._ttlMs, dataTables, sizeInBytes);
+    // NOTE: add the size before putting the entry so that the size never goes negative when the entry is evicted
+    updateSizeInBytes(sizeInBytes);
+    _cache.put(key, result);
+    // NOTE: the table might be invalidated after the version check above, in which case the stale entry is removed here
+    if (key._tableVersion != getTableVersion(key._tableNameWithType)) {
+      _cache.invalidate(key);
+    }
+  }
+
+  /**
+   * Invalidates the cached results of the given table. Should be called when the routing table of the table changes.
+   * <p>All the entries cached with a previous version of the table are dropped, so that they do not occupy the cache
+   * until they are evicted.
+   */
+  public void invalidate(String tableNameWithType) {
+    long tableVersion = _tableVersions.merge(tableNameWithType, 1L, Long::sum);
+    _cache.asMap().keySet().removeIf(
+        key -> key._tableNameWithType.equals(tableNameWithType) && key._tableVersion < tableVersion);
+  }
+
+  private long getTableVersion(String tableNameWithType) {
+    return _tableVersions.getOrDefault(tableNameWithType, 0L);
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  public long getSizeInBytes() {
+    return _sizeInBytes.get();
+  }
+
+  private void updateSizeInBytes(long delta) {
+    long sizeInBytes = _sizeInBytes.addAndGet(delta);
+    if (_brokerMetrics != null) {
+      _brokerMetrics.setValueOfGlobalGauge(BrokerGauge.BROKER_RESULT_CACHE_SIZE_IN_BYTES, sizeInBytes);
+    }
+  }
+
+  private void addMeteredValue(BrokerMeter meter) {
+    if (_brokerMetrics != null) {
+      _brokerMetrics.addMeteredGlobalValue(meter, 1L);
+    }
+  }
+
+  public static class Key {
+    final String _tableNameWithType;
+    final long _tableVersion;
+    final long _ttlMs;
+    final BrokerRequest _brokerRequest;
+
+    Key(String tableNameWithType, long tableVersion, long ttlMs, BrokerRequest brokerRequest) {
+      _tableNameWithType = tableNameWithType;
+      _tableVersion = tableVersion;
+      _ttlMs = ttlMs;
+      _brokerRequest = brokerRequest;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _tableVersion == that._tableVersion && _tableNameWithType.equals(that._tableNameWithType)
+          && _brokerRequest.equals(that._brokerRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * _tableNameWithType.hashCode() + Long.hashCode(_tableVersion)) + _brokerRequest.hashCode();
+    }
+  }
+
+  private static class CachedResult {
+    final long _expirationTimeMs;
+    final Map<ServerInstance, byte[]> _dataTables;
+    final int _sizeInBytes;
+
+    CachedResult(long expirationTimeMs, Map<ServerInstance, byte[]> dataTables, int sizeInBytes) {
+      _expirationTimeMs = expirationTimeMs;
+      _dataTables = dataTables;
+      _sizeInBytes = sizeInBytes;
+    }
+  }
+}
@@ -0,0 +1,379 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.pruner;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.pinot.common.config.TableNameBuilder;
+import org.apache.pinot.common.data.Schema;
+import org.apache.pinot.common.data.TimeFieldSpec;
+import org.apache.pinot.common.data.TimeGranularitySpec;
+import org.apache.pinot.common.metadata.ZKMetadataProvider;
+import org.apache.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.request.FilterOperator;
+import org.apache.pinot.common.utils.CommonConstants;
+import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
+import org.apache.pinot.common.utils.request.FilterQueryTree;
+import org.apache.pinot.common.utils.request.RequestUtils;
+import org.apache.pinot.core.common.predicate.RangePredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code TimeSegmentPruner} prunes the segments of a table on the broker side based on the time filter of the query
+ * and the time range (start/end time) of the segments.
+ * <ul>
+ *   <li>
+ *     The time ranges are read from the segment ZK metadata and cached. On external view change, only the metadata for
+ *     the new segments (and the segments without valid time range, e.g. the consuming segments) are read. On segment
+ *     refresh, the metadata for all segments are re-read.
+ *   </li>
+ *   <li>
+ *     Segments without valid time range are never pruned. The segment time ranges are converted into the time unit of
+ *     the time column so that no segment with matching records can be pruned.
+ *   </li>
+ * </ul>
+ */
+@ThreadSafe
+public class TimeSegmentPruner {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TimeSegmentPruner.class);
+
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final String _tableNameWithType;
+  private final boolean _isOfflineTable;
+  private final String _timeColumn;
+  private final TimeUnit _timeUnit;
+
+  // Map from segment name to time range in the time unit of the time column
+  // NOTE: the map is replaced instead of being modified so that queries can read it without locking
+  private volatile Map<String, TimeRange> _segmentTimeRangeMap = new HashMap<>();
+
+  @VisibleForTesting
+  TimeSegmentPruner(ZkHelixPropertyStore<ZNRecord> propertyStore, String tableNameWithType, String timeColumn,
+      TimeUnit timeUnit) {
+    _propertyStore = propertyStore;
+    _tableNameWithType = tableNameWithType;
+    _isOfflineTable = TableNameBuilder.getTableTypeFromTableName(tableNameWithType) == TableType.OFFLINE;
+    _timeColumn = timeColumn;
+    _timeUnit = timeUnit;
+  }
+
+  /**
+   * Creates a time segment pruner for the given table, or returns {@code null} if the table does not have a time column
+   * with values directly comparable to the segment start/end time (epoch time with time unit size 1).
+   */
+  @Nullable
+  public static TimeSegmentPruner create(ZkHelixPropertyStore<ZNRecord> propertyStore, String tableNameWithType) {
+    Schema schema = ZKMetadataProvider.getTableSchema(propertyStore, tableNameWithType);
+    if (schema == null) {
+      return null;
+    }
+    TimeFieldSpec timeFieldSpec = schema.getTimeFieldSpec();
+    if (timeFieldSpec == null) {
+      return null;
+    }
+    TimeGranularitySpec granularitySpec = timeFieldSpec.getOutgoingGranularitySpec();
+    if (!TimeGranularitySpec.TimeFormat.EPOCH.toString().equals(granularitySpec.getTimeFormat())
+        || granularitySpec.getTimeUnitSize() != 1) {
+      return null;
+    }
+    return new TimeSegmentPruner(propertyStore, tableNameWithType, timeFieldSpec.getOutgoingTimeColumnName(),
+        granularitySpec.getTimeType());
+  }
+
+  /**
+   * Updates the cached time ranges for the segments in the external view.
+   */
+  public synchronized void onExternalViewChange(ExternalView externalView) {
+    Set<String> segments = externalView.getPartitionSet();
+    Map<String, TimeRange> oldSegmentTimeRangeMap = _segmentTimeRangeMap;
+    Map<String, TimeRange> newSegmentTimeRangeMap = new HashMap<>();
+    if (oldSegmentTimeRangeMap.isEmpty()) {
+      // Read the metadata for all segments in one pass on the first external view
+      Map<String, TimeRange> allSegmentTimeRangeMap = fetchAllSegmentTimeRanges();
+      for (String segment : segments) {
+        TimeRange timeRange = allSegmentTimeRangeMap.get(segment);
+        newSegmentTimeRangeMap.put(segment, timeRange != null ? timeRange : TimeRange.ALL);
+      }
+    } else {
+      for (String segment : segments) {
+        TimeRange timeRange = oldSegmentTimeRangeMap.get(segment);
+        if (timeRange == null || timeRange == TimeRange.ALL) {
+          timeRange = fetchSegmentTimeRange(segment);
+        }
+        newSegmentTimeRangeMap.put(segment, timeRange);
+      }
+    }
+    _segmentTimeRangeMap = newSegmentTimeRangeMap;
+  }
+
+  /**
+   * Re-reads the time ranges for all the cached segments, should be called when segments are refreshed.
+   */
+  public synchronized void refresh() {
+    Map<String, TimeRange> allSegmentTimeRangeMap = fetchAllSegmentTimeRanges();
+    Map<String, TimeRange> newSegmentTimeRangeMap = new HashMap<>();
+    for (String segment : _segmentTimeRangeMap.keySet()) {
+      TimeRange timeRange = allSegmentTimeRangeMap.get(segment);
+      newSegmentTimeRangeMap.put(segment, timeRange != null ? timeRange : TimeRange.ALL);
+    }
+    _segmentTimeRangeMap = newSegmentTimeRangeMap;
+  }
+
+  /**
+   * Prunes the segments not overlapping with the time filter of the query from the routing table. Returns the original
+   * routing table if the query does not filter on the time column.
+   * <p>NOTE: if all segments are pruned, keeps one segment so that the query still gets an empty response from the
+   * server (e.g. 0 for COUNT) instead of no response.
+   */
+  public Map<String, List<String>> prune(Map<String, List<String>> routingTable, BrokerRequest brokerRequest) {
+    if (brokerRequest.getFilterQuery() == null || routingTable.isEmpty()) {
+      return routingTable;
+    }
+    TimeRange queryTimeRange = getQueryTimeRange(RequestUtils.generateFilterQueryTree(brokerRequest));
+    if (queryTimeRange.isUnbounded()) {
+      return routingTable;
+    }
+
+    Map<String, TimeRange> segmentTimeRangeMap = _segmentTimeRangeMap;
+    Map<String, List<String>> prunedRoutingTable = new HashMap<>();
+    String firstServer = null;
+    String firstSegment = null;
+    for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+      List<String> segments = entry.getValue();
+      List<String> selectedSegments = new ArrayList<>(segments.size());
+      for (String segment : segments) {
+        TimeRange segmentTimeRange = segmentTimeRangeMap.get(segment);
+        if (segmentTimeRange == null || segmentTimeRange.overlaps(queryTimeRange)) {
+          selectedSegments.add(segment);
+        } else if (firstServer == null) {
+          firstServer = entry.getKey();
+          firstSegment = segment;
+        }
+      }
+      if (!selectedSegments.isEmpty()) {
+        prunedRoutingTable.put(entry.getKey(), selectedSegments);
+      }
+    }
+    if (prunedRoutingTable.isEmpty() && firstServer != null) {
+      List<String> selectedSegments = new ArrayList<>(1);
+      selectedSegments.add(firstSegment);
+      prunedRoutingTable.put(firstServer, selectedSegments);
+    }
+    return prunedRoutingTable;
+  }
+
+  /**
+   * Returns the time range of the time column values matching the filter, or {@link TimeRange#ALL} if not bounded.
+   * <ul>
+   *   <li>For 'AND', the time range is the intersection of the time ranges of the children.</li>
+   *   <li>For 'OR', the time range is the union (smallest range covering all) of the time ranges of the children.</li>
+   * </ul>
+   */
+  @VisibleForTesting
+  TimeRange getQueryTimeRange(FilterQueryTree filterQueryTree) {
+    FilterOperator filterOperator = filterQueryTree.getOperator();
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+
+    // Non-leaf node
+    if (children != null && !children.isEmpty()) {
+      TimeRange timeRange;
+      switch (filterOperator) {
+        case AND:
+          timeRange = TimeRange.ALL;
+          for (FilterQueryTree child : children) {
+            timeRange = timeRange.intersect(getQueryTimeRange(child));
+          }
+          return timeRange;
+        case OR:
+          timeRange = TimeRange.EMPTY;
+          for (FilterQueryTree child : children) {
+            timeRange = timeRange.union(getQueryTimeRange(child));
+          }
+          return timeRange;
+        default:
+          return TimeRange.ALL;
+      }
+    }
+
+    // Leaf node
+    if (!_timeColumn.equals(filterQueryTree.getColumn())) {
+      return TimeRange.ALL;
+    }
+    List<String> values = filterQueryTree.getValue();
+    try {
+      switch (filterOperator) {
+        case EQUALITY:
+          long value = Long.parseLong(values.get(0));
+          return new TimeRange(value, value);
+        case IN:
+          long minValue = Long.MAX_VALUE;
+          long maxValue = Long.MIN_VALUE;
+          for (String stringValue : values) {
+            long inValue = Long.parseLong(stringValue);
+            minValue = Math.min(minValue, inValue);
+            maxValue = Math.max(maxValue, inValue);
+          }
+          return new TimeRange(minValue, maxValue);
+        case RANGE:
+          RangePredicate rangePredicate = new RangePredicate(_timeColumn, values);
+          long lowerBound = Long.MIN_VALUE;
+          String lowerBoundary = rangePredicate.getLowerBoundary();
+          if (!lowerBoundary.equals(RangePredicate.UNBOUNDED)) {
+            lowerBound = Long.parseLong(lowerBoundary);
+            if (!rangePredicate.includeLowerBoundary()) {
+              if (lowerBound == Long.MAX_VALUE) {
+                return TimeRange.EMPTY;
+              }
+              lowerBound++;
+            }
+          }
+          long upperBound = Long.MAX_VALUE;
+          String upperBoundary = rangePredicate.getUpperBoundary();
+          if (!upperBoundary.equals(RangePredicate.UNBOUNDED)) {
+            upperBound = Long.parseLong(upperBoundary);
+            if (!rangePredicate.includeUpperBoundary()) {
+              if (upperBound == Long.MIN_VALUE) {
+                return TimeRange.EMPTY;
+              }
+              upperBound--;
+            }
+          }
+          return new TimeRange(lowerBound, upperBound);
+        default:
+          return TimeRange.ALL;
+      }
+    } catch (NumberFormatException e) {
+      // Non-integer time values (should not happen for epoch time), do not prune
+      return TimeRange.ALL;
+    }
+  }
+
+  private Map<String, TimeRange> fetchAllSegmentTimeRanges() {
+    List<? extends SegmentZKMetadata> segmentZKMetadataList;
+    if (_isOfflineTable) {
+      segmentZKMetadataList =
+          ZKMetadataProvider.getOfflineSegmentZKMetadataListForTable(_propertyStore, _tableNameWithType);
+    } else {
+      segmentZKMetadataList =
+          ZKMetadataProvider.getRealtimeSegmentZKMetadataListForTable(_propertyStore, _tableNameWithType);
+    }
+    Map<String, TimeRange> segmentTimeRangeMap = new HashMap<>();
+    for (SegmentZKMetadata segmentZKMetadata : segmentZKMetadataList) {
+      segmentTimeRangeMap.put(segmentZKMetadata.getSegmentName(), getSegmentTimeRange(segmentZKMetadata));
+    }
+    return segmentTimeRangeMap;
+  }
+
+  private TimeRange fetchSegmentTimeRange(String segment) {
+    SegmentZKMetadata segmentZKMetadata;
+    if (_isOfflineTable) {
+      segmentZKMetadata = ZKMetadataProvider.getOfflineSegmentZKMetadata(_propertyStore, _tableNameWithType, segment);
+    } else {
+      segmentZKMetadata = ZKMetadataProvider.getRealtimeSegmentZKMetadata(_propertyStore, _tableNameWithType, segment);
+    }
+    if (segmentZKMetadata == null) {
+      LOGGER.warn("Failed to find segment ZK metadata for segment: {} of table: {}", segment, _tableNameWithType);
+      return TimeRange.ALL;
+    }
+    return getSegmentTimeRange(segmentZKMetadata);
+  }
+
+  /**
+   * Returns the time range of the segment in the time unit of the time column, or {@link TimeRange#ALL} if the segment
+   * does not have valid time range.
+   */
+  @VisibleForTesting
+  TimeRange getSegmentTimeRange(SegmentZKMetadata segmentZKMetadata) {
+    if (segmentZKMetadata instanceof RealtimeSegmentZKMetadata
+        && ((RealtimeSegmentZKMetadata) segmentZKMetadata).getStatus()
+        == CommonConstants.Segment.Realtime.Status.IN_PROGRESS) {
+      return TimeRange.ALL;
+    }
+    TimeUnit segmentTimeUnit = segmentZKMetadata.getTimeUnit();
+    long startTime = segmentZKMetadata.getStartTime();
+    long endTime = segmentZKMetadata.getEndTime();
+    if (segmentTimeUnit == null || startTime < 0 || endTime < startTime || endTime == Long.MAX_VALUE) {
+      return TimeRange.ALL;
+    }
+    // NOTE: when converting into a finer time unit, the end time should cover the whole last coarse time unit
+    if (_timeUnit.compareTo(segmentTimeUnit) < 0) {
+      return new TimeRange(_timeUnit.convert(startTime, segmentTimeUnit),
+          _timeUnit.convert(endTime + 1, segmentTimeUnit) - 1);
+    } else {
+      return new TimeRange(_timeUnit.convert(startTime, segmentTimeUnit), _timeUnit.convert(endTime, segmentTimeUnit));
+    }
+  }
+
+  /**
+   * Inclusive time range, empty if the start is larger than the end.
+   */
+  @VisibleForTesting
+  static final class TimeRange {
+    static final TimeRange ALL = new TimeRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    static final TimeRange EMPTY = new TimeRange(Long.MAX_VALUE, Long.MIN_VALUE);
+
+    final long _start;
+    final long _end;
+
+    TimeRange(long start, long end) {
+      _start = start;
+      _end = end;
+    }
+
+    boolean isUnbounded() {
+      return _start == Long.MIN_VALUE && _end == Long.MAX_VALUE;
+    }
+
+    boolean isEmpty() {
+      return _start > _end;
+    }
+
+    boolean overlaps(TimeRange other) {
+      return _start <= other._end && other._start <= _end;
+    }
+
+    TimeRange intersect(TimeRange other) {
+      return new TimeRange(Math.max(_start, other._start), Math.min(_end, other._end));
+    }
+
+    TimeRange union(TimeRange other) {
+      if (isEmpty()) {
+        return other;
+      }
+      if (other.isEmpty()) {
+        return this;
+      }
+      return new TimeRange(Math.min(_start, other._start), Math.max(_end, other._end));
+    }
+  }
+}
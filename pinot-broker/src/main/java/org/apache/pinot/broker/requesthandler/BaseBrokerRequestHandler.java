@@ -34,6 +34,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.pinot.broker.api.RequestStatistics;
 import org.apache.pinot.broker.api.RequesterIdentity;
 import org.apache.pinot.broker.broker.AccessControlFactory;
+import org.apache.pinot.broker.cache.BrokerRequestTemplateCache;
+import org.apache.pinot.broker.cache.BrokerResultCache;
 import org.apache.pinot.broker.queryquota.TableQueryQuotaManager;
 import org.apache.pinot.broker.routing.RoutingTable;
 import org.apache.pinot.broker.routing.RoutingTableLookupRequest;
@@ -48,8 +50,10 @@ import org.apache.pinot.common.request.FilterOperator;
 import org.apache.pinot.common.request.FilterQuery;
 import org.apache.pinot.common.request.FilterQueryMap;
 import org.apache.pinot.common.response.BrokerResponse;
+import org.apache.pinot.common.response.ServerInstance;
 import org.apache.pinot.common.response.broker.BrokerResponseNative;
 import org.apache.pinot.common.utils.CommonConstants;
+import org.apache.pinot.common.utils.DataTable;
 import org.apache.pinot.core.query.reduce.BrokerReduceService;
 import org.apache.pinot.pql.parsers.Pql2Compiler;
 import org.slf4j.Logger;
@@ -72,10 +76,14 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
   protected final AccessControlFactory _accessControlFactory;
   protected final TableQueryQuotaManager _tableQueryQuotaManager;
   protected final BrokerMetrics _brokerMetrics;
+  // Null if the broker result cache is disabled
+  protected final BrokerResultCache _brokerResultCache;
 
   protected final AtomicLong _requestIdGenerator = new AtomicLong();
   protected final BrokerRequestOptimizer _brokerRequestOptimizer = new BrokerRequestOptimizer();
   protected final BrokerReduceService _brokerReduceService = new BrokerReduceService();
+  // Null if the broker request template cache is disabled
+  protected final BrokerRequestTemplateCache _brokerRequestTemplateCache;
 
   protected final String _brokerId;
   protected final long _brokerTimeoutMs;
@@ -84,13 +92,15 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
 
   public BaseBrokerRequestHandler(Configuration config, RoutingTable routingTable,
       TimeBoundaryService timeBoundaryService, AccessControlFactory accessControlFactory,
-      TableQueryQuotaManager tableQueryQuotaManager, BrokerMetrics brokerMetrics) {
+      TableQueryQuotaManager tableQueryQuotaManager, BrokerMetrics brokerMetrics,
+      @Nullable BrokerResultCache brokerResultCache) {
     _config = config;
     _routingTable = routingTable;
     _timeBoundaryService = timeBoundaryService;
     _accessControlFactory = accessControlFactory;
     _tableQueryQuotaManager = tableQueryQuotaManager;
     _brokerMetrics = brokerMetrics;
+    _brokerResultCache = brokerResultCache;
 
     _brokerId = config.getString(CONFIG_OF_BROKER_ID, getDefaultBrokerId());
     _brokerTimeoutMs = config.getLong(CONFIG_OF_BROKER_TIMEOUT_MS, DEFAULT_BROKER_TIMEOUT_MS);
@@ -99,6 +109,17 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
 
     LOGGER.info("Broker Id: {}, timeout: {}ms, query response limit: {}, query log length: {}", _brokerId,
         _brokerTimeoutMs, _queryResponseLimit, _queryLogLength);
+
+    int brokerRequestTemplateCacheSize =
+        config.getInt(CONFIG_OF_BROKER_REQUEST_TEMPLATE_CACHE_SIZE, DEFAULT_BROKER_REQUEST_TEMPLATE_CACHE_SIZE);
+    if (brokerRequestTemplateCacheSize > 0) {
+      LOGGER.info("Initializing broker request template cache with max size: {}", brokerRequestTemplateCacheSize);
+      _brokerRequestTemplateCache =
+          new BrokerRequestTemplateCache(REQUEST_COMPILER, brokerRequestTemplateCacheSize, brokerMetrics);
+    } else {
+      LOGGER.info("Broker request template cache is disabled");
+      _brokerRequestTemplateCache = null;
+    }
   }
 
   private String getDefaultBrokerId() {
@@ -127,7 +148,11 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
     long compilationStartTimeNs = System.nanoTime();
     BrokerRequest brokerRequest;
     try {
-      brokerRequest = REQUEST_COMPILER.compileToBrokerRequest(query);
+      if (_brokerRequestTemplateCache != null) {
+        brokerRequest = _brokerRequestTemplateCache.compileToBrokerRequest(query);
+      } else {
+        brokerRequest = REQUEST_COMPILER.compileToBrokerRequest(query);
+      }
     } catch (Exception e) {
       LOGGER.info("Caught exception while compiling request {}: {}, {}", requestId, query, e.getMessage());
       _brokerMetrics.addMeteredGlobalValue(BrokerMeter.REQUEST_COMPILATION_EXCEPTIONS, 1);
@@ -241,6 +266,21 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
       requestStatistics.setFanoutType(RequestStatistics.FanoutType.REALTIME);
     }
 
+    // Serve the OFFLINE half of the query from the broker result cache if possible, the REALTIME half (if any) is
+    // always queried
+    BrokerResultCache.Key offlineResultCacheKey = null;
+    Map<ServerInstance, DataTable> cachedOfflineDataTables = null;
+    if (_brokerResultCache != null && offlineBrokerRequest != null) {
+      offlineResultCacheKey = _brokerResultCache.getKey(offlineBrokerRequest);
+      if (offlineResultCacheKey != null) {
+        cachedOfflineDataTables = _brokerResultCache.get(offlineResultCacheKey);
+        if (cachedOfflineDataTables != null) {
+          offlineBrokerRequest = null;
+          offlineResultCacheKey = null;
+        }
+      }
+    }
+
     // Calculate routing table for the query
     long routingStartTimeNs = System.nanoTime();
     Map<String, List<String>> offlineRoutingTable = null;
@@ -251,6 +291,7 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
         LOGGER.debug("No OFFLINE server found for request {}: {}", requestId, query);
         offlineBrokerRequest = null;
         offlineRoutingTable = null;
+        offlineResultCacheKey = null;
       }
     }
     if (realtimeBrokerRequest != null) {
@@ -261,7 +302,7 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
         realtimeRoutingTable = null;
       }
     }
-    if (offlineBrokerRequest == null && realtimeBrokerRequest == null) {
+    if (offlineBrokerRequest == null && realtimeBrokerRequest == null && cachedOfflineDataTables == null) {
       LOGGER.info("No server found for request {}: {}", requestId, query);
       _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.NO_SERVER_FOUND_EXCEPTIONS, 1);
       return BrokerResponseNative.EMPTY_RESULT;
@@ -272,9 +313,15 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
     // Execute the query
     long remainingTimeMs = _brokerTimeoutMs - TimeUnit.NANOSECONDS.toMillis(routingEndTimeNs - compilationStartTimeNs);
     ServerStats serverStats = new ServerStats();
-    BrokerResponse brokerResponse =
-        processBrokerRequest(requestId, brokerRequest, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
-            realtimeRoutingTable, remainingTimeMs, serverStats, requestStatistics);
+    BrokerResponse brokerResponse;
+    if (offlineBrokerRequest == null && realtimeBrokerRequest == null) {
+      brokerResponse = processCachedBrokerRequest(brokerRequest, cachedOfflineDataTables, requestStatistics);
+    } else {
+      brokerResponse =
+          processBrokerRequest(requestId, brokerRequest, offlineBrokerRequest, offlineRoutingTable,
+              realtimeBrokerRequest, realtimeRoutingTable, offlineResultCacheKey, cachedOfflineDataTables,
+              remainingTimeMs, serverStats, requestStatistics);
+    }
     long executionEndTimeNs = System.nanoTime();
     _brokerMetrics
         .addPhaseTiming(rawTableName, BrokerQueryPhase.QUERY_EXECUTION, executionEndTimeNs - routingEndTimeNs);
@@ -418,13 +465,36 @@ public abstract class BaseBrokerRequestHandler implements BrokerRequestHandler {
     }
   }
 
+  /**
+   * Reduces the OFFLINE data tables served from the broker result cache when there is nothing to query on the servers.
+   */
+  private BrokerResponse processCachedBrokerRequest(BrokerRequest originalBrokerRequest,
+      Map<ServerInstance, DataTable> cachedOfflineDataTables, RequestStatistics requestStatistics) {
+    String rawTableName = TableNameBuilder.extractRawTableName(originalBrokerRequest.getQuerySource().getTableName());
+    long reduceStartTimeNs = System.nanoTime();
+    BrokerResponse brokerResponse =
+        _brokerReduceService.reduceOnDataTable(originalBrokerRequest, cachedOfflineDataTables, _brokerMetrics);
+    long reduceTimeNanos = System.nanoTime() - reduceStartTimeNs;
+    requestStatistics.setReduceTimeNanos(reduceTimeNanos);
+    _brokerMetrics.addPhaseTiming(rawTableName, BrokerQueryPhase.REDUCE, reduceTimeNanos);
+    brokerResponse.setNumServersQueried(cachedOfflineDataTables.size());
+    brokerResponse.setNumServersResponded(cachedOfflineDataTables.size());
+    return brokerResponse;
+  }
+
   /**
    * Processes the optimized broker requests for both OFFLINE and REALTIME table.
+   * <p>When the OFFLINE half of the query is served from the broker result cache, the OFFLINE broker request is
+   * {@code null} and the cached OFFLINE data tables should be reduced together with the REALTIME responses. When the
+   * OFFLINE result cache key is not {@code null}, the OFFLINE data tables should be cached if all the OFFLINE servers
+   * responded.
    */
   protected abstract BrokerResponse processBrokerRequest(long requestId, BrokerRequest originalBrokerRequest,
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
-      long timeoutMs, ServerStats serverStats, RequestStatistics requestStatistics)
+      @Nullable BrokerResultCache.Key offlineResultCacheKey,
+      @Nullable Map<ServerInstance, DataTable> cachedOfflineDataTables, long timeoutMs, ServerStats serverStats,
+      RequestStatistics requestStatistics)
       throws Exception;
 
   /**
@@ -37,6 +37,7 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.pinot.broker.api.RequestStatistics;
 import org.apache.pinot.broker.broker.AccessControlFactory;
 import org.apache.pinot.broker.broker.helix.LiveInstancesChangeListenerImpl;
+import org.apache.pinot.broker.cache.BrokerResultCache;
 import org.apache.pinot.broker.queryquota.TableQueryQuotaManager;
 import org.apache.pinot.broker.routing.RoutingTable;
 import org.apache.pinot.broker.routing.TimeBoundaryService;
@@ -90,8 +91,10 @@ public class ConnectionPoolBrokerRequestHandler extends BaseBrokerRequestHandler
   public ConnectionPoolBrokerRequestHandler(Configuration config, RoutingTable routingTable,
       TimeBoundaryService timeBoundaryService, AccessControlFactory accessControlFactory,
       TableQueryQuotaManager tableQueryQuotaManager, BrokerMetrics brokerMetrics,
-      LiveInstancesChangeListenerImpl liveInstanceChangeListener, MetricsRegistry metricsRegistry) {
-    super(config, routingTable, timeBoundaryService, accessControlFactory, tableQueryQuotaManager, brokerMetrics);
+      @Nullable BrokerResultCache brokerResultCache, LiveInstancesChangeListenerImpl liveInstanceChangeListener,
+      MetricsRegistry metricsRegistry) {
+    super(config, routingTable, timeBoundaryService, accessControlFactory, tableQueryQuotaManager, brokerMetrics,
+        brokerResultCache);
     _liveInstanceChangeListener = liveInstanceChangeListener;
 
     TransportClientConf transportClientConf = new TransportClientConf();
@@ -135,7 +138,9 @@ public class ConnectionPoolBrokerRequestHandler extends BaseBrokerRequestHandler
   protected BrokerResponse processBrokerRequest(long requestId, BrokerRequest originalBrokerRequest,
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
-      long timeoutMs, ServerStats serverStats, RequestStatistics requestStatistics)
+      @Nullable BrokerResultCache.Key offlineResultCacheKey,
+      @Nullable Map<ServerInstance, DataTable> cachedOfflineDataTables, long timeoutMs, ServerStats serverStats,
+      RequestStatistics requestStatistics)
       throws Exception {
     ScatterGatherStats scatterGatherStats = new ScatterGatherStats();
     PhaseTimes phaseTimes = new PhaseTimes();
@@ -178,7 +183,7 @@ public class ConnectionPoolBrokerRequestHandler extends BaseBrokerRequestHandler
           gatherServerResponses(realtimeCompositeFuture, scatterGatherStats, false, realtimeTableName,
               processingExceptions);
     }
-    if ((offlineServerResponseMap == null) && (realtimeServerResponseMap == null)) {
+    if (offlineServerResponseMap == null && realtimeServerResponseMap == null && cachedOfflineDataTables == null) {
       // No response gathered
       return new BrokerResponseNative(processingExceptions);
     }
@@ -192,6 +197,11 @@ public class ConnectionPoolBrokerRequestHandler extends BaseBrokerRequestHandler
     Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
     // Add a long variable to sum the total response sizes from both realtime and offline servers.
     long totalServerResponseSize = 0;
+    if (cachedOfflineDataTables != null) {
+      numServersQueried += cachedOfflineDataTables.size();
+      numServersResponded += cachedOfflineDataTables.size();
+      dataTableMap.putAll(cachedOfflineDataTables);
+    }
     if (offlineServerResponseMap != null) {
       numServersResponded += offlineServerResponseMap.size();
       totalServerResponseSize +=
@@ -219,6 +229,21 @@ public class ConnectionPoolBrokerRequestHandler extends BaseBrokerRequestHandler
     brokerResponse.setNumServersQueried(numServersQueried);
     brokerResponse.setNumServersResponded(numServersResponded);
 
+    // Only cache the OFFLINE data tables when all the OFFLINE servers responded
+    if (offlineResultCacheKey != null && _brokerResultCache != null && offlineServerResponseMap != null
+        && offlineServerResponseMap.size() == offlineCompositeFuture.getNumFutures()) {
+      Map<ServerInstance, DataTable> offlineDataTables = new HashMap<>();
+      for (ServerInstance serverInstance : offlineServerResponseMap.keySet()) {
+        DataTable dataTable = dataTableMap.get(serverInstance);
+        if (dataTable != null) {
+          offlineDataTables.put(serverInstance, dataTable);
+        }
+      }
+      if (offlineDataTables.size() == offlineServerResponseMap.size()) {
+        _brokerResultCache.put(offlineResultCacheKey, offlineDataTables);
+      }
+    }
+
     // Update broker metrics
     String rawTableName = TableNameBuilder.extractRawTableName(originalBrokerRequest.getQuerySource().getTableName());
     phaseTimes.addPhaseTimesToBrokerMetrics(rawTableName);
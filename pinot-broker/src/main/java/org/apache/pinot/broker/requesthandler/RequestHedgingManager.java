@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.requesthandler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.configuration.Configuration;
+import org.apache.pinot.broker.routing.RoutingTable;
+import org.apache.pinot.common.config.TableNameBuilder;
+import org.apache.pinot.common.utils.CommonConstants.Broker;
+import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
+import org.apache.pinot.core.transport.RequestHedger;
+import org.apache.pinot.core.transport.Server;
+
+
+/**
+ * The {@code RequestHedgingManager} class decides the hedge delay for each table based on the recent server response
+ * latencies, and provides the {@link RequestHedger} for the queries.
+ * <p>The hedge delay of a table is the configured percentile of its last {@link #NUM_LATENCY_SAMPLES} server response
+ * latencies (but no less than the configured minimum delay). The percentile is re-computed every
+ * {@link #RECOMPUTE_INTERVAL} samples, and the requests are not hedged until {@link #MIN_NUM_LATENCY_SAMPLES} samples
+ * are collected.
+ */
+@ThreadSafe
+public class RequestHedgingManager {
+  static final int NUM_LATENCY_SAMPLES = 1024;
+  static final int MIN_NUM_LATENCY_SAMPLES = 100;
+  static final int RECOMPUTE_INTERVAL = 64;
+
+  private final RoutingTable _routingTable;
+  private final double _percentile;
+  private final long _minDelayMs;
+  private final ConcurrentHashMap<String, LatencyStats> _latencyStatsMap = new ConcurrentHashMap<>();
+
+  public RequestHedgingManager(Configuration config, RoutingTable routingTable) {
+    this(routingTable,
+        config.getDouble(Broker.CONFIG_OF_HEDGED_REQUEST_PERCENTILE, Broker.DEFAULT_HEDGED_REQUEST_PERCENTILE),
+        config.getLong(Broker.CONFIG_OF_HEDGED_REQUEST_MIN_DELAY_MS, Broker.DEFAULT_HEDGED_REQUEST_MIN_DELAY_MS));
+  }
+
+  @VisibleForTesting
+  RequestHedgingManager(RoutingTable routingTable, double percentile, long minDelayMs) {
+    Preconditions.checkArgument(percentile <= 100, "Invalid hedged request percentile: %s", percentile);
+    Preconditions.checkArgument(minDelayMs >= 0, "Invalid hedged request min delay: %s", minDelayMs);
+    _routingTable = routingTable;
+    _percentile = percentile;
+    _minDelayMs = minDelayMs;
+  }
+
+  public boolean isEnabled() {
+    return _percentile >= 0;
+  }
+
+  /**
+   * Records the response latency of a server for the given table.
+   */
+  public void recordLatency(String tableNameWithType, long latencyMs) {
+    if (latencyMs < 0) {
+      return;
+    }
+    _latencyStatsMap.computeIfAbsent(tableNameWithType, k -> new LatencyStats()).record(latencyMs, _percentile);
+  }
+
+  /**
+   * Returns the hedge delay in milliseconds for the given table, or -1 if the requests should not be hedged.
+   */
+  public long getHedgeDelayMs(String tableNameWithType) {
+    if (!isEnabled()) {
+      return -1;
+    }
+    LatencyStats latencyStats = _latencyStatsMap.get(tableNameWithType);
+    if (latencyStats == null) {
+      return -1;
+    }
+    long percentileLatencyMs = latencyStats.getPercentileLatencyMs();
+    if (percentileLatencyMs < 0) {
+      return -1;
+    }
+    return Math.max(percentileLatencyMs, _minDelayMs);
+  }
+
+  /**
+   * Returns the {@link RequestHedger} for a query on the given raw table.
+   */
+  public RequestHedger getRequestHedger(String rawTableName) {
+    return new TableRequestHedger(this, rawTableName);
+  }
+
+  private static class TableRequestHedger implements RequestHedger {
+    private final RequestHedgingManager _requestHedgingManager;
+    private final String _offlineTableName;
+    private final String _realtimeTableName;
+
+    TableRequestHedger(RequestHedgingManager requestHedgingManager, String rawTableName) {
+      _requestHedgingManager = requestHedgingManager;
+      _offlineTableName = TableNameBuilder.OFFLINE.tableNameWithType(rawTableName);
+      _realtimeTableName = TableNameBuilder.REALTIME.tableNameWithType(rawTableName);
+    }
+
+    @Override
+    public long getHedgeDelayMs(TableType tableType) {
+      return _requestHedgingManager.getHedgeDelayMs(getTableNameWithType(tableType));
+    }
+
+    @Nullable
+    @Override
+    public String getAlternateServer(Server server, List<String> segments) {
+      return _requestHedgingManager._routingTable
+          .getAlternateServer(getTableNameWithType(server.getTableType()), server.getInstanceName(), segments);
+    }
+
+    private String getTableNameWithType(TableType tableType) {
+      return tableType == TableType.OFFLINE ? _offlineTableName : _realtimeTableName;
+    }
+  }
+
+  /**
+   * Ring buffer of the recent latencies with the cached percentile latency.
+   */
+  private static class LatencyStats {
+    final long[] _latencies = new long[NUM_LATENCY_SAMPLES];
+    long _numSamples;
+    volatile long _percentileLatencyMs = -1;
+
+    synchronized void record(long latencyMs, double percentile) {
+      _latencies[(int) (_numSamples % NUM_LATENCY_SAMPLES)] = latencyMs;
+      _numSamples++;
+      if (_numSamples >= MIN_NUM_LATENCY_SAMPLES && (_numSamples == MIN_NUM_LATENCY_SAMPLES
+          || _numSamples % RECOMPUTE_INTERVAL == 0)) {
+        int numLatencies = (int) Math.min(_numSamples, NUM_LATENCY_SAMPLES);
+        long[] sortedLatencies = Arrays.copyOf(_latencies, numLatencies);
+        Arrays.sort(sortedLatencies);
+        int index = (int) Math.ceil(percentile / 100 * numLatencies) - 1;
+        _percentileLatencyMs = sortedLatencies[Math.max(Math.min(index, numLatencies - 1), 0)];
+      }
+    }
+
+    long getPercentileLatencyMs() {
+      return _percentileLatencyMs;
+    }
+  }
+}
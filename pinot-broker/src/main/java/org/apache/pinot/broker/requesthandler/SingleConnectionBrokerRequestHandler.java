@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.broker.requesthandler;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,10 +27,12 @@ import javax.annotation.concurrent.ThreadSafe;
 import org.apache.commons.configuration.Configuration;
 import org.apache.pinot.broker.api.RequestStatistics;
 import org.apache.pinot.broker.broker.AccessControlFactory;
+import org.apache.pinot.broker.cache.BrokerResultCache;
 import org.apache.pinot.broker.queryquota.TableQueryQuotaManager;
 import org.apache.pinot.broker.routing.RoutingTable;
 import org.apache.pinot.broker.routing.TimeBoundaryService;
 import org.apache.pinot.common.config.TableNameBuilder;
+import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.metrics.BrokerQueryPhase;
@@ -37,9 +40,12 @@ import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.response.BrokerResponse;
 import org.apache.pinot.common.response.ServerInstance;
 import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.QueryProcessingException;
 import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
 import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.query.reduce.IncrementalBrokerReducer;
 import org.apache.pinot.core.transport.AsyncQueryResponse;
+import org.apache.pinot.core.transport.NettyConfig;
 import org.apache.pinot.core.transport.QueryRouter;
 import org.apache.pinot.core.transport.Server;
 import org.apache.pinot.core.transport.ServerResponse;
@@ -52,12 +58,16 @@ import org.apache.pinot.core.transport.ServerResponse;
 @ThreadSafe
 public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandler {
   private final QueryRouter _queryRouter;
+  private final RequestHedgingManager _requestHedgingManager;
 
   public SingleConnectionBrokerRequestHandler(Configuration config, RoutingTable routingTable,
       TimeBoundaryService timeBoundaryService, AccessControlFactory accessControlFactory,
-      TableQueryQuotaManager tableQueryQuotaManager, BrokerMetrics brokerMetrics) {
-    super(config, routingTable, timeBoundaryService, accessControlFactory, tableQueryQuotaManager, brokerMetrics);
-    _queryRouter = new QueryRouter(_brokerId, brokerMetrics);
+      TableQueryQuotaManager tableQueryQuotaManager, BrokerMetrics brokerMetrics,
+      @Nullable BrokerResultCache brokerResultCache) {
+    super(config, routingTable, timeBoundaryService, accessControlFactory, tableQueryQuotaManager, brokerMetrics,
+        brokerResultCache);
+    _queryRouter = new QueryRouter(_brokerId, brokerMetrics, NettyConfig.fromBrokerConfig(config));
+    _requestHedgingManager = new RequestHedgingManager(config, routingTable);
   }
 
   @Override
@@ -73,49 +83,92 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
   protected BrokerResponse processBrokerRequest(long requestId, BrokerRequest originalBrokerRequest,
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
-      long timeoutMs, ServerStats serverStats, RequestStatistics requestStatistics)
+      @Nullable BrokerResultCache.Key offlineResultCacheKey,
+      @Nullable Map<ServerInstance, DataTable> cachedOfflineDataTables, long timeoutMs, ServerStats serverStats,
+      RequestStatistics requestStatistics)
       throws Exception {
     assert offlineBrokerRequest != null || realtimeBrokerRequest != null;
 
     String rawTableName = TableNameBuilder.extractRawTableName(originalBrokerRequest.getQuerySource().getTableName());
     long scatterGatherStartTimeNs = System.nanoTime();
+    // Reduce the data tables as soon as they arrive so that the reduce overlaps with waiting for the slower servers
+    IncrementalBrokerReducer reducer = _brokerReduceService.getIncrementalReducer(originalBrokerRequest, _brokerMetrics);
+    if (cachedOfflineDataTables != null) {
+      for (Map.Entry<ServerInstance, DataTable> entry : cachedOfflineDataTables.entrySet()) {
+        reducer.reduce(entry.getKey(), entry.getValue());
+      }
+    }
+    // Keep track of the OFFLINE data tables to be cached
+    // NOTE: the data table consumer is invoked on the current thread while waiting for the response
+    Map<ServerInstance, DataTable> offlineDataTables = offlineResultCacheKey != null ? new HashMap<>() : null;
     AsyncQueryResponse asyncQueryResponse = _queryRouter
         .submitQuery(requestId, rawTableName, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
-            realtimeRoutingTable, timeoutMs);
+            realtimeRoutingTable, timeoutMs, (server, dataTable) -> {
+              ServerInstance serverInstance = getServerInstance(server);
+              reducer.reduce(serverInstance, dataTable);
+              if (offlineDataTables != null && server.getTableType() == TableType.OFFLINE) {
+                offlineDataTables.put(serverInstance, dataTable);
+              }
+            }, _requestHedgingManager.isEnabled() ? _requestHedgingManager.getRequestHedger(rawTableName) : null);
     Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
     _brokerMetrics
         .addPhaseTiming(rawTableName, BrokerQueryPhase.SCATTER_GATHER, System.nanoTime() - scatterGatherStartTimeNs);
     // TODO Use scatterGatherStats as serverStats
     serverStats.setServerStats(asyncQueryResponse.getStats());
 
-    // TODO: do not convert Server to ServerInstance
     int numServersQueried = response.size();
+    int numOfflineServersQueried = 0;
     long totalResponseSize = 0;
-    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>(numServersQueried);
+    List<String> serverFailureMessages = null;
     for (Map.Entry<Server, ServerResponse> entry : response.entrySet()) {
+      if (entry.getKey().getTableType() == TableType.OFFLINE) {
+        numOfflineServersQueried++;
+      }
       ServerResponse serverResponse = entry.getValue();
-      DataTable dataTable = serverResponse.getDataTable();
-      if (dataTable != null) {
-        Server server = entry.getKey();
-        if (server.getTableType() == TableType.OFFLINE) {
-          dataTableMap.put(new ServerInstance(server.getHostName(), server.getPort(), 0), dataTable);
-        } else {
-          dataTableMap.put(new ServerInstance(server.getHostName(), server.getPort(), 1), dataTable);
+      String failureMessage = serverResponse.getFailureMessage();
+      if (failureMessage != null) {
+        if (serverFailureMessages == null) {
+          serverFailureMessages = new ArrayList<>();
         }
+        serverFailureMessages.add(failureMessage);
+      }
+      if (serverResponse.isResponseReceived()) {
         totalResponseSize += serverResponse.getResponseSize();
+        if (_requestHedgingManager.isEnabled()) {
+          String tableNameWithType = entry.getKey().getTableType() == TableType.OFFLINE ? TableNameBuilder.OFFLINE
+              .tableNameWithType(rawTableName) : TableNameBuilder.REALTIME.tableNameWithType(rawTableName);
+          _requestHedgingManager.recordLatency(tableNameWithType, serverResponse.getResponseDelayMs());
+        }
       }
     }
-    int numServersResponded = dataTableMap.size();
+    if (cachedOfflineDataTables != null) {
+      numServersQueried += cachedOfflineDataTables.size();
+    }
 
+    // NOTE: the reduce time only includes the time to finish the reduce after all the responses are received
     long reduceStartTimeNs = System.nanoTime();
-    BrokerResponseNative brokerResponse =
-        _brokerReduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, _brokerMetrics);
+    BrokerResponseNative brokerResponse = reducer.finish();
+    int numServersResponded = reducer.getNumDataTablesReduced();
     final long reduceTimeNanos = System.nanoTime() - reduceStartTimeNs;
     requestStatistics.setReduceTimeNanos(reduceTimeNanos);
     _brokerMetrics.addPhaseTiming(rawTableName, BrokerQueryPhase.REDUCE, reduceTimeNanos);
 
     brokerResponse.setNumServersQueried(numServersQueried);
     brokerResponse.setNumServersResponded(numServersResponded);
+    if (serverFailureMessages != null) {
+      for (String failureMessage : serverFailureMessages) {
+        brokerResponse
+            .addToExceptions(new QueryProcessingException(QueryException.BROKER_GATHER_ERROR_CODE, failureMessage));
+      }
+    }
+
+    // Only cache the OFFLINE data tables when all the OFFLINE servers responded
+    // NOTE: cache them after the reduce is finished so that the data tables are not accessed concurrently
+    if (offlineDataTables != null) {
+      if (_brokerResultCache != null && offlineDataTables.size() == numOfflineServersQueried) {
+        _brokerResultCache.put(offlineResultCacheKey, offlineDataTables);
+      }
+    }
 
     if (brokerResponse.getExceptionsSize() > 0) {
       _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.BROKER_RESPONSES_WITH_PROCESSING_EXCEPTIONS, 1);
@@ -127,4 +180,13 @@ public class SingleConnectionBrokerRequestHandler extends BaseBrokerRequestHandl
 
     return brokerResponse;
   }
+
+  // TODO: do not convert Server to ServerInstance
+  private static ServerInstance getServerInstance(Server server) {
+    if (server.getTableType() == TableType.OFFLINE) {
+      return new ServerInstance(server.getHostName(), server.getPort(), 0);
+    } else {
+      return new ServerInstance(server.getHostName(), server.getPort(), 1);
+    }
+  }
 }
@@ -20,6 +20,7 @@ package org.apache.pinot.broker.routing;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.pinot.transport.config.PerTableRoutingConfig;
 import org.apache.pinot.transport.config.RoutingTableConfig;
 import org.slf4j.Logger;
@@ -56,6 +57,12 @@ public class CfgBasedRouting implements RoutingTable {
     return _cfg.getPerTableRoutingCfg().containsKey(tableName);
   }
 
+  @Nullable
+  @Override
+  public String getAlternateServer(String tableName, String server, List<String> segments) {
+    return null;
+  }
+
   @Override
   public String dumpSnapshot(String tableName)
       throws Exception {
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.AccessOption;
 import org.apache.helix.HelixDataAccessor;
@@ -39,6 +40,8 @@ import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
 import org.apache.helix.model.InstanceConfig;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.pinot.broker.cache.BrokerResultCache;
+import org.apache.pinot.broker.pruner.TimeSegmentPruner;
 import org.apache.pinot.broker.routing.builder.RoutingTableBuilder;
 import org.apache.pinot.broker.routing.selector.SegmentSelector;
 import org.apache.pinot.broker.routing.selector.SegmentSelectorProvider;
@@ -74,12 +77,17 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   private final Map<String, InstanceConfig> _lastKnownInstanceConfigs = new ConcurrentHashMap<>();
   private final Map<String, Set<String>> _tablesForInstance = new ConcurrentHashMap<>();
   private final Map<String, SegmentSelector> _segmentSelectorMap = new ConcurrentHashMap<>();
+  private final Map<String, TimeSegmentPruner> _timeSegmentPrunerMap = new ConcurrentHashMap<>();
 
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
   private final HelixManager _helixManager;
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final boolean _timeSegmentPruningEnabled;
   private static final int INVALID_EXTERNAL_VIEW_VERSION = Integer.MIN_VALUE;
 
   private BrokerMetrics _brokerMetrics;
+  // Null if the broker result cache is disabled
+  private BrokerResultCache _brokerResultCache;
 
   private Configuration _configuration;
 
@@ -92,6 +100,9 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     _timeBoundaryService = new HelixExternalViewBasedTimeBoundaryService(propertyStore);
     _routingTableBuilderMap = new HashMap<>();
     _helixManager = helixManager;
+    _propertyStore = propertyStore;
+    _timeSegmentPruningEnabled = configuration.getBoolean(CommonConstants.Broker.CONFIG_OF_TIME_SEGMENT_PRUNING_ENABLED,
+        CommonConstants.Broker.DEFAULT_TIME_SEGMENT_PRUNING_ENABLED);
     _routingTableBuilderFactory = new RoutingTableBuilderFactory(_configuration, propertyStore);
     _segmentSelectorProvider = new SegmentSelectorProvider(propertyStore);
   }
@@ -100,7 +111,13 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   public Map<String, List<String>> getRoutingTable(RoutingTableLookupRequest request) {
     String tableName = request.getTableName();
     RoutingTableBuilder routingTableBuilder = _routingTableBuilderMap.get(tableName);
-    return routingTableBuilder.getRoutingTable(request, _segmentSelectorMap.get(tableName));
+    Map<String, List<String>> routingTable =
+        routingTableBuilder.getRoutingTable(request, _segmentSelectorMap.get(tableName));
+    TimeSegmentPruner timeSegmentPruner = _timeSegmentPrunerMap.get(tableName);
+    if (timeSegmentPruner != null) {
+      return timeSegmentPruner.prune(routingTable, request.getBrokerRequest());
+    }
+    return routingTable;
   }
 
   @Override
@@ -108,10 +125,21 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     return _routingTableBuilderMap.containsKey(tableName);
   }
 
+  @Nullable
+  @Override
+  public String getAlternateServer(String tableName, String server, List<String> segments) {
+    RoutingTableBuilder routingTableBuilder = _routingTableBuilderMap.get(tableName);
+    return routingTableBuilder != null ? routingTableBuilder.getAlternateServer(server, segments) : null;
+  }
+
   public void setBrokerMetrics(BrokerMetrics brokerMetrics) {
     _brokerMetrics = brokerMetrics;
   }
 
+  public void setBrokerResultCache(@Nullable BrokerResultCache brokerResultCache) {
+    _brokerResultCache = brokerResultCache;
+  }
+
   public void markDataResourceOnline(TableConfig tableConfig, ExternalView externalView,
       List<InstanceConfig> instanceConfigList) {
     String tableName = tableConfig.getTableName();
@@ -129,6 +157,19 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       _segmentSelectorMap.put(tableName, segmentSelector);
     }
 
+    // Initialize time segment pruner
+    if (_timeSegmentPruningEnabled && _propertyStore != null) {
+      try {
+        TimeSegmentPruner timeSegmentPruner = TimeSegmentPruner.create(_propertyStore, tableName);
+        if (timeSegmentPruner != null) {
+          LOGGER.info("Initialized time segment pruner for table {}", tableName);
+          _timeSegmentPrunerMap.put(tableName, timeSegmentPruner);
+        }
+      } catch (Exception e) {
+        LOGGER.warn("Failed to initialize time segment pruner for table {}, skipping it", tableName, e);
+      }
+    }
+
     // Build the routing table
     if (externalView == null) {
       // It is possible for us to get a request to serve a table for which there is no external view. In this case, just
@@ -258,6 +299,12 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
         segmentSelector.computeOnExternalViewChange();
       }
 
+      // Update time segment pruner
+      TimeSegmentPruner timeSegmentPruner = _timeSegmentPrunerMap.get(tableNameWithType);
+      if (timeSegmentPruner != null) {
+        timeSegmentPruner.onExternalViewChange(externalView);
+      }
+
       // Keep track of the instance configs that are used in that routing table
       updateInstanceConfigsMapFromExternalView(relevantInstanceConfigs, instanceConfigs, externalView);
 
@@ -335,6 +382,11 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       LOGGER.error("Failed to update the TimeBoundaryService for {}", tableNameWithType, e);
     }
 
+    // The cached results might be computed on the segments no longer served
+    if (_brokerResultCache != null) {
+      _brokerResultCache.invalidate(tableNameWithType);
+    }
+
     long updateTime = System.currentTimeMillis() - startTimeMillis;
 
     if (_brokerMetrics != null) {
@@ -346,6 +398,12 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
 
   public void updateTimeBoundary(String tableName) {
     updateTimeBoundary(tableName, fetchExternalView(tableName));
+
+    // Segments are refreshed, the time ranges of the segments might be changed
+    TimeSegmentPruner timeSegmentPruner = _timeSegmentPrunerMap.get(tableName);
+    if (timeSegmentPruner != null) {
+      timeSegmentPruner.refresh();
+    }
   }
 
   protected void updateTimeBoundary(String tableName, ExternalView externalView) {
@@ -384,7 +442,11 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     _routingTableBuilderMap.remove(tableName);
     _lastKnownExternalViewVersionMap.remove(tableName);
     _lastKnownInstanceConfigsForTable.remove(tableName);
+    _timeSegmentPrunerMap.remove(tableName);
     _timeBoundaryService.remove(tableName);
+    if (_brokerResultCache != null) {
+      _brokerResultCache.removeTable(tableName);
+    }
 
     // Remove table from all instances
     synchronized (_tablesForInstance) {
@@ -20,6 +20,7 @@ package org.apache.pinot.broker.routing;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 
 /**
@@ -43,6 +44,18 @@ public interface RoutingTable {
    */
   boolean routingTableExists(String tableName);
 
+  /**
+   * Get a server other than the given server that serves all the given segments of the table, or {@code null} if there
+   * is no such server.
+   *
+   * @param tableName Table name with type
+   * @param server Server instance name
+   * @param segments Segments to be served
+   * @return Alternate server instance name, or null if not found
+   */
+  @Nullable
+  String getAlternateServer(String tableName, String server, List<String> segments);
+
   /**
    * Dump a snapshot of all the routing tables for the given table.
    *
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
@@ -140,6 +141,36 @@ public abstract class BasePartitionAwareRoutingTableBuilder implements RoutingTa
     throw new UnsupportedOperationException("Partition aware routing table cannot be pre-computed");
   }
 
+  @Nullable
+  @Override
+  public String getAlternateServer(String server, List<String> segments) {
+    Map<String, Map<Integer, String>> segmentToReplicaToServerMap = _segmentToReplicaToServerMap;
+    if (segmentToReplicaToServerMap == null || segments.isEmpty()) {
+      return null;
+    }
+    Map<Integer, String> replicaToServerMap = segmentToReplicaToServerMap.get(segments.get(0));
+    if (replicaToServerMap == null) {
+      return null;
+    }
+    for (String candidate : replicaToServerMap.values()) {
+      if (candidate.equals(server)) {
+        continue;
+      }
+      boolean servesAllSegments = true;
+      for (String segment : segments) {
+        Map<Integer, String> servers = segmentToReplicaToServerMap.get(segment);
+        if (servers == null || !servers.containsValue(candidate)) {
+          servesAllSegments = false;
+          break;
+        }
+      }
+      if (servesAllSegments) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
   protected void handleNoServingHost(String segmentName) {
     LOGGER.error("Found no server hosting segment {} for table {}", segmentName, _tableName);
     if (_brokerMetrics != null) {
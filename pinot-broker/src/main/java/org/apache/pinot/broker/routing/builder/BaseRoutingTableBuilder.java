@@ -18,13 +18,16 @@
  */
 package org.apache.pinot.broker.routing.builder;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
@@ -37,6 +40,7 @@ import org.apache.pinot.common.config.TableConfig;
 import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.utils.CommonConstants;
+import org.apache.pinot.core.transport.ServerLoadTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,10 +51,17 @@ import org.slf4j.LoggerFactory;
 public abstract class BaseRoutingTableBuilder implements RoutingTableBuilder {
   private static final Logger LOGGER = LoggerFactory.getLogger(BaseRoutingTableBuilder.class);
 
+  // Fully rebuild the pre-computed routing tables when the number of segments updated incrementally since the last full
+  // rebuild exceeds this fraction of the segments, so that the routing tables stay balanced
+  private static final double MAX_INCREMENTAL_UPDATE_FRACTION = 0.1;
+
   protected final Random _random = new Random();
   private BrokerMetrics _brokerMetrics;
   private String _tableName;
   private boolean _enableDynamicComputing;
+  private boolean _enableAdaptiveServerSelection;
+  private ServerLoadTracker _serverLoadTracker = ServerLoadTracker.getInstance();
+  private int _numSegmentsUpdatedIncrementally;
 
   // Set variable as volatile so all threads can get the up-to-date routing tables
   // Routing tables are used for storing pre-computed routing table
@@ -73,9 +84,19 @@ public abstract class BaseRoutingTableBuilder implements RoutingTableBuilder {
       if (_enableDynamicComputing) {
         LOGGER.info("Dynamic routing table computation is enabled for table {}", _tableName);
       }
+      _enableAdaptiveServerSelection =
+          Boolean.valueOf(routingOption.get(RoutingConfig.ENABLE_ADAPTIVE_SERVER_SELECTION_KEY));
+      if (_enableAdaptiveServerSelection) {
+        LOGGER.info("Adaptive server selection is enabled for table {}", _tableName);
+      }
     }
   }
 
+  @VisibleForTesting
+  void setServerLoadTracker(ServerLoadTracker serverLoadTracker) {
+    _serverLoadTracker = serverLoadTracker;
+  }
+
   protected static String getServerWithLeastSegmentsAssigned(List<String> servers,
       Map<String, List<String>> routingTable) {
     Collections.shuffle(servers);
@@ -111,24 +132,38 @@ public abstract class BaseRoutingTableBuilder implements RoutingTableBuilder {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>When the routing tables are pre-computed, only the segments added, removed or with serving servers changed are
+   * re-assigned in the existing routing tables (see {@link #updateRoutingTables(Map, Map, List)}). The new routing
+   * tables and mapping are published by replacing the volatile references, so queries never wait for the update.
+   */
   @Override
-  public void computeOnExternalViewChange(String tableName, ExternalView externalView,
+  public synchronized void computeOnExternalViewChange(String tableName, ExternalView externalView,
       List<InstanceConfig> instanceConfigs) {
     Map<String, List<String>> segmentToServersMap =
         computeSegmentToServersMapFromExternalView(externalView, instanceConfigs);
 
-    if (_enableDynamicComputing) {
-      // When dynamic computing is enabled, cache the mapping
-      _segmentToServersMap = segmentToServersMap;
-    } else {
-      // Otherwise, we cache the pre-computed routing tables
-      List<Map<String, List<String>>> routingTables = computeRoutingTablesFromSegmentToServersMap(segmentToServersMap);
+    if (!_enableDynamicComputing && !_enableAdaptiveServerSelection) {
+      // When dynamic computing and adaptive server selection are not enabled, cache the pre-computed routing tables
+      List<Map<String, List<String>>> routingTables = null;
+      if (_routingTables != null && isIncrementalUpdateSupported()) {
+        routingTables = updateRoutingTables(_segmentToServersMap, segmentToServersMap, _routingTables);
+      }
+      if (routingTables == null) {
+        routingTables = computeRoutingTablesFromSegmentToServersMap(segmentToServersMap);
+        _numSegmentsUpdatedIncrementally = 0;
+      }
       _routingTables = routingTables;
     }
+
+    // Always cache the mapping, which is also used to find the alternate servers for the hedge requests
+    // NOTE: publish the mapping after computing the routing tables because the server lists might be shuffled
+    _segmentToServersMap = segmentToServersMap;
   }
 
   public Map<String, List<String>> getRoutingTable(RoutingTableLookupRequest request, SegmentSelector segmentSelector) {
-    if (_enableDynamicComputing) {
+    if (_enableDynamicComputing || _enableAdaptiveServerSelection) {
       // Copy the pointer for snapshot since the pointer for segment to servers map can change at anytime
       Map<String, List<String>> segmentToServersMap = _segmentToServersMap;
 
@@ -139,7 +174,11 @@ public abstract class BaseRoutingTableBuilder implements RoutingTableBuilder {
       }
 
       // Compute the final routing table
-      return computeDynamicRoutingTable(segmentToServersMap, segmentsToQuery);
+      if (_enableAdaptiveServerSelection) {
+        return computeAdaptiveRoutingTable(segmentToServersMap, segmentsToQuery);
+      } else {
+        return computeDynamicRoutingTable(segmentToServersMap, segmentsToQuery);
+      }
     }
 
     // Return a pre-computed routing table if we don't use dynamic computing
@@ -151,6 +190,49 @@ public abstract class BaseRoutingTableBuilder implements RoutingTableBuilder {
     return _routingTables;
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>Among the servers serving all the segments, picks the least loaded one based on the {@link ServerLoadTracker}.
+   */
+  @Nullable
+  @Override
+  public String getAlternateServer(String server, List<String> segments) {
+    Map<String, List<String>> segmentToServersMap = _segmentToServersMap;
+    if (segmentToServersMap == null || segments.isEmpty()) {
+      return null;
+    }
+    List<String> candidates = segmentToServersMap.get(segments.get(0));
+    if (candidates == null) {
+      return null;
+    }
+    String selectedServer = null;
+    double minServerLoad = Double.MAX_VALUE;
+    for (String candidate : candidates) {
+      if (candidate.equals(server) || !servesAllSegments(segmentToServersMap, candidate, segments)) {
+        continue;
+      }
+      ServerLoadTracker.ServerLoad serverLoad = _serverLoadTracker.getServerLoad(candidate);
+      double load = serverLoad != null ? getServerLoad(Math.max(serverLoad.getLatencyEwmaMs(), 0),
+          serverLoad.getNumInFlightRequests()) : 0;
+      if (load < minServerLoad) {
+        minServerLoad = load;
+        selectedServer = candidate;
+      }
+    }
+    return selectedServer;
+  }
+
+  private static boolean servesAllSegments(Map<String, List<String>> segmentToServersMap, String server,
+      List<String> segments) {
+    for (String segment : segments) {
+      List<String> servers = segmentToServersMap.get(segment);
+      if (servers == null || !servers.contains(server)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Computes a routing table on-the-fly using a mapping of segment to servers. Because of the performance concern,
    * the default behavior is to randomly pick a server among available servers for each segment.
@@ -170,6 +252,78 @@ public abstract class BaseRoutingTableBuilder implements RoutingTableBuilder {
     return routingTable;
   }
 
+  /**
+   * Computes a routing table on-the-fly based on the current load of the servers. Each segment is assigned to the
+   * replica with the lowest cost, where the cost of a server is its load multiplied by the number of segments already
+   * assigned to it (plus one). The load of a server is computed from the number of in-flight requests and the EWMA of
+   * the response latency tracked by the {@link ServerLoadTracker}.
+   * <p>The segments are spread across the replicas in inverse proportion to their load, so that a slow or overloaded
+   * server gets fewer segments (instead of none, which keeps its latency tracked), and equally loaded servers get
+   * balanced number of segments.
+   *
+   * @param segmentsToQuery a list of segments that need to be processed for a particular query
+   * @return a routing table
+   */
+  public Map<String, List<String>> computeAdaptiveRoutingTable(Map<String, List<String>> segmentToServersMap,
+      Set<String> segmentsToQuery) {
+    // Snapshot the load of the servers so that all the segments are assigned with the same loads
+    Map<String, Double> serverLoadMap = new HashMap<>();
+    double latencySumMs = 0;
+    int numServersWithLatency = 0;
+    for (String segmentName : segmentsToQuery) {
+      for (String server : segmentToServersMap.get(segmentName)) {
+        if (!serverLoadMap.containsKey(server)) {
+          ServerLoadTracker.ServerLoad serverLoad = _serverLoadTracker.getServerLoad(server);
+          if (serverLoad != null && serverLoad.getLatencyEwmaMs() >= 0) {
+            double latencyMs = serverLoad.getLatencyEwmaMs();
+            latencySumMs += latencyMs;
+            numServersWithLatency++;
+            serverLoadMap.put(server, getServerLoad(latencyMs, serverLoad.getNumInFlightRequests()));
+          } else {
+            // Mark the server without latency, fill the load after gathering the average latency
+            serverLoadMap.put(server, null);
+          }
+        }
+      }
+    }
+    // Use the average latency for the servers without latency so that new servers are not flooded with segments
+    double averageLatencyMs = numServersWithLatency > 0 ? latencySumMs / numServersWithLatency : 0;
+    for (Map.Entry<String, Double> entry : serverLoadMap.entrySet()) {
+      if (entry.getValue() == null) {
+        ServerLoadTracker.ServerLoad serverLoad = _serverLoadTracker.getServerLoad(entry.getKey());
+        int numInFlightRequests = serverLoad != null ? serverLoad.getNumInFlightRequests() : 0;
+        entry.setValue(getServerLoad(averageLatencyMs, numInFlightRequests));
+      }
+    }
+
+    Map<String, List<String>> routingTable = new HashMap<>();
+    for (String segmentName : segmentsToQuery) {
+      List<String> servers = segmentToServersMap.get(segmentName);
+      int numServers = servers.size();
+      // Start from a random replica to break the ties randomly
+      int startIndex = _random.nextInt(numServers);
+      String selectedServer = null;
+      double minCost = Double.MAX_VALUE;
+      for (int i = 0; i < numServers; i++) {
+        String server = servers.get((startIndex + i) % numServers);
+        List<String> segments = routingTable.get(server);
+        int numSegmentsAssigned = segments != null ? segments.size() : 0;
+        double cost = serverLoadMap.get(server) * (numSegmentsAssigned + 1);
+        if (cost < minCost) {
+          minCost = cost;
+          selectedServer = server;
+        }
+      }
+      routingTable.computeIfAbsent(selectedServer, k -> new ArrayList<>()).add(segmentName);
+    }
+    return routingTable;
+  }
+
+  private static double getServerLoad(double latencyEwmaMs, int numInFlightRequests) {
+    // Add 1 to the latency so that the load is always positive
+    return (latencyEwmaMs + 1) * (Math.max(numInFlightRequests, 0) + 1);
+  }
+
   /**
    * Given an external view and a list of instance configs, computes the mapping of segment to servers. The mapping
    * will be cached if we use dynamic routing. By default, this will check ONLINE segments and active servers.
@@ -201,6 +355,116 @@ public abstract class BaseRoutingTableBuilder implements RoutingTableBuilder {
     return segmentToServersMap;
   }
 
+  /**
+   * Returns whether the pre-computed routing tables can be updated incrementally, which requires each segment to be
+   * assigned to exactly one of its serving servers in each routing table.
+   */
+  protected boolean isIncrementalUpdateSupported() {
+    return true;
+  }
+
+  /**
+   * Updates the pre-computed routing tables incrementally by re-assigning only the segments added, removed or with
+   * serving servers changed, or returns {@code null} if the routing tables should be fully rebuilt because too many
+   * segments have been updated incrementally since the last full rebuild.
+   * <p>The given routing tables might be used by the queries and are not modified. Each routing table is shallow copied,
+   * and only the segment lists of the servers touched by the update are copied.
+   */
+  @Nullable
+  private List<Map<String, List<String>>> updateRoutingTables(Map<String, List<String>> oldSegmentToServersMap,
+      Map<String, List<String>> newSegmentToServersMap, List<Map<String, List<String>>> oldRoutingTables) {
+    // Segments removed or with serving servers changed
+    List<String> segmentsToRemove = new ArrayList<>();
+    // Segments added or with serving servers changed
+    List<String> segmentsToAdd = new ArrayList<>();
+    for (Map.Entry<String, List<String>> entry : oldSegmentToServersMap.entrySet()) {
+      String segment = entry.getKey();
+      List<String> oldServers = entry.getValue();
+      List<String> newServers = newSegmentToServersMap.get(segment);
+      if (newServers == null) {
+        segmentsToRemove.add(segment);
+      } else if (oldServers.size() != newServers.size() || !oldServers.containsAll(newServers)) {
+        segmentsToRemove.add(segment);
+        segmentsToAdd.add(segment);
+      }
+    }
+    for (String segment : newSegmentToServersMap.keySet()) {
+      if (!oldSegmentToServersMap.containsKey(segment)) {
+        segmentsToAdd.add(segment);
+      }
+    }
+    if (segmentsToRemove.isEmpty() && segmentsToAdd.isEmpty()) {
+      return oldRoutingTables;
+    }
+    int numSegmentsUpdated = Math.max(segmentsToRemove.size(), segmentsToAdd.size());
+    if (_numSegmentsUpdatedIncrementally + numSegmentsUpdated
+        > MAX_INCREMENTAL_UPDATE_FRACTION * newSegmentToServersMap.size()) {
+      return null;
+    }
+    _numSegmentsUpdatedIncrementally += numSegmentsUpdated;
+    LOGGER.info("Incrementally updating routing tables for table {} with {} segments removed and {} segments added",
+        _tableName, segmentsToRemove.size(), segmentsToAdd.size());
+
+    List<Map<String, List<String>>> newRoutingTables = new ArrayList<>(oldRoutingTables.size());
+    for (Map<String, List<String>> oldRoutingTable : oldRoutingTables) {
+      Map<String, List<String>> routingTable = new HashMap<>(oldRoutingTable);
+      // Servers with the segment list already copied
+      Set<String> copiedServers = new HashSet<>();
+
+      for (String segment : segmentsToRemove) {
+        for (String server : oldSegmentToServersMap.get(segment)) {
+          List<String> segments = routingTable.get(server);
+          if (segments == null) {
+            continue;
+          }
+          int index = segments.indexOf(segment);
+          if (index >= 0) {
+            if (copiedServers.add(server)) {
+              segments = new ArrayList<>(segments);
+              routingTable.put(server, segments);
+            }
+            segments.remove(index);
+            if (segments.isEmpty()) {
+              routingTable.remove(server);
+            }
+            break;
+          }
+        }
+      }
+
+      for (String segment : segmentsToAdd) {
+        // Pick the server with least segments assigned among the servers already in the routing table so that the
+        // number of servers queried does not grow, or a random server if none of the servers is in the routing table
+        List<String> servers = newSegmentToServersMap.get(segment);
+        String selectedServer = null;
+        int minNumSegmentsAssigned = Integer.MAX_VALUE;
+        for (String server : servers) {
+          List<String> segments = routingTable.get(server);
+          if (segments != null && segments.size() < minNumSegmentsAssigned) {
+            minNumSegmentsAssigned = segments.size();
+            selectedServer = server;
+          }
+        }
+        if (selectedServer == null) {
+          selectedServer = servers.get(_random.nextInt(servers.size()));
+        }
+        List<String> segments = routingTable.get(selectedServer);
+        if (segments == null) {
+          segments = new ArrayList<>();
+          routingTable.put(selectedServer, segments);
+          copiedServers.add(selectedServer);
+        } else if (copiedServers.add(selectedServer)) {
+          segments = new ArrayList<>(segments);
+          routingTable.put(selectedServer, segments);
+        }
+        segments.add(segment);
+      }
+
+      newRoutingTables.add(routingTable);
+    }
+    return newRoutingTables;
+  }
+
   /**
    * Given a mapping of segment to servers, compute a list of final routing tables that will be cached when
    * we use pre-computing routing.
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
@@ -134,4 +135,10 @@ public class DefaultOfflineRoutingTableBuilder implements RoutingTableBuilder {
   public List<Map<String, List<String>>> getRoutingTables() {
     return _routingTableBuilder.getRoutingTables();
   }
+
+  @Nullable
+  @Override
+  public String getAlternateServer(String server, List<String> segments) {
+    return _routingTableBuilder.getAlternateServer(server, segments);
+  }
 }
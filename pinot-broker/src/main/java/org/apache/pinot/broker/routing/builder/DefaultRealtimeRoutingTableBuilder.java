@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
@@ -114,4 +115,15 @@ public class DefaultRealtimeRoutingTableBuilder implements RoutingTableBuilder {
       return Collections.emptyList();
     }
   }
+
+  @Nullable
+  @Override
+  public String getAlternateServer(String server, List<String> segments) {
+    // Only hedge the requests for LLC segments, HLC segments are not interchangeable across servers
+    if (_hasLLC) {
+      return _realtimeLLCRoutingTableBuilder.getAlternateServer(server, segments);
+    } else {
+      return null;
+    }
+  }
 }
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.helix.model.ExternalView;
 import org.apache.helix.model.InstanceConfig;
 import org.apache.pinot.common.utils.CommonConstants;
@@ -77,10 +78,30 @@ public class HighLevelConsumerBasedRoutingTableBuilder extends BaseRoutingTableB
     return routingTables;
   }
 
+  @Override
+  protected boolean isIncrementalUpdateSupported() {
+    // Each routing table contains all the segments of a consumer group on all the servers
+    return false;
+  }
+
   @Override
   public Map<String, List<String>> computeDynamicRoutingTable(Map<String, List<String>> segmentToServersMap,
       Set<String> segmentsToQuery) {
     throw new UnsupportedOperationException(
         "Dynamic routing table computation for high level consumer base routing is not supported");
   }
+
+  @Override
+  public Map<String, List<String>> computeAdaptiveRoutingTable(Map<String, List<String>> segmentToServersMap,
+      Set<String> segmentsToQuery) {
+    throw new UnsupportedOperationException(
+        "Adaptive server selection for high level consumer base routing is not supported");
+  }
+
+  @Nullable
+  @Override
+  public String getAlternateServer(String server, List<String> segments) {
+    // Segments with the same name on different servers might contain different data for high level consumer
+    return null;
+  }
 }
@@ -20,6 +20,7 @@ package org.apache.pinot.broker.routing.builder;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
@@ -60,4 +61,11 @@ public interface RoutingTableBuilder {
    * Get all pre-computed routing tables.
    */
   List<Map<String, List<String>>> getRoutingTables();
+
+  /**
+   * Get a server other than the given server that serves all the given segments, or {@code null} if there is no such
+   * server. This is used to hedge the request to a slow server.
+   */
+  @Nullable
+  String getAlternateServer(String server, List<String> segments);
 }
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,10 +38,12 @@ import org.apache.helix.model.IdealState;
 import org.apache.helix.model.InstanceConfig;
 import org.apache.pinot.broker.broker.helix.DefaultHelixBrokerConfig;
 import org.apache.pinot.broker.broker.helix.HelixBrokerStarter;
+import org.apache.pinot.broker.cache.BrokerResultCache;
 import org.apache.pinot.broker.routing.HelixExternalViewBasedRouting;
 import org.apache.pinot.broker.routing.TimeBoundaryService;
 import org.apache.pinot.broker.routing.builder.RoutingTableBuilder;
 import org.apache.pinot.common.config.TableConfig;
+import org.apache.pinot.common.config.TableCustomConfig;
 import org.apache.pinot.common.config.TableNameBuilder;
 import org.apache.pinot.common.data.Schema;
 import org.apache.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
@@ -87,6 +90,8 @@ public class HelixBrokerStarterTest {
     _pinotHelixBrokerProperties.addProperty(CommonConstants.Helix.KEY_OF_BROKER_QUERY_PORT, 8943);
     _pinotHelixBrokerProperties
         .addProperty(CommonConstants.Broker.CONFIG_OF_BROKER_REFRESH_TIMEBOUNDARY_INFO_SLEEP_INTERVAL, 100L);
+    _pinotHelixBrokerProperties
+        .addProperty(CommonConstants.Broker.CONFIG_OF_BROKER_RESULT_CACHE_SIZE_IN_BYTES, 1024 * 1024L);
     _helixBrokerStarter =
         new HelixBrokerStarter(HELIX_CLUSTER_NAME, ZkStarter.DEFAULT_ZK_STR, _pinotHelixBrokerProperties);
 
@@ -296,6 +301,38 @@ public class HelixBrokerStarterTest {
     Assert.assertTrue(currentTimeBoundary < Long.parseLong(tbi.getTimeValue()));
   }
 
+  @Test
+  public void testBrokerResultCacheTableConfigChange()
+      throws Exception {
+    BrokerResultCache brokerResultCache = _helixBrokerStarter.getBrokerServerBuilder().getBrokerResultCache();
+    Assert.assertNotNull(brokerResultCache);
+    TableCustomConfig customConfig = new TableCustomConfig();
+    customConfig.setCustomConfigs(Collections.singletonMap(TableCustomConfig.BROKER_RESULT_CACHE_TTL_MS_KEY, "60000"));
+    _pinotResourceManager
+        .updateMetadataConfigFor(RAW_DINING_TABLE_NAME, CommonConstants.Helix.TableType.OFFLINE, customConfig);
+    waitForPredicate(new Callable<Boolean>() {
+      @Override
+      public Boolean call()
+          throws Exception {
+        return brokerResultCache.getTableTtlMs(DINING_TABLE_NAME) == 60000L;
+      }
+    }, 30000L);
+    Assert.assertEquals(brokerResultCache.getTableTtlMs(DINING_TABLE_NAME), 60000L);
+
+    // Removing the TTL should disable the cache for the table without restarting the broker
+    customConfig.setCustomConfigs(new HashMap<String, String>());
+    _pinotResourceManager
+        .updateMetadataConfigFor(RAW_DINING_TABLE_NAME, CommonConstants.Helix.TableType.OFFLINE, customConfig);
+    waitForPredicate(new Callable<Boolean>() {
+      @Override
+      public Boolean call()
+          throws Exception {
+        return brokerResultCache.getTableTtlMs(DINING_TABLE_NAME) == 0L;
+      }
+    }, 30000L);
+    Assert.assertEquals(brokerResultCache.getTableTtlMs(DINING_TABLE_NAME), 0L);
+  }
+
   private void waitForPredicate(Callable<Boolean> predicate, long timeout) {
     long deadline = System.currentTimeMillis() + timeout;
     while (System.currentTimeMillis() < deadline) {
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.cache;
+
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.pql.parsers.Pql2Compiler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BrokerRequestTemplateCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  // Each group of queries has the same shape with different literals
+  private static final String[][] QUERY_GROUPS = new String[][]{
+      {"SELECT COUNT(*) FROM testTable WHERE a = 1 AND b = 'x'",
+          "SELECT COUNT(*) FROM testTable WHERE a = -25 AND b = 'yy'"},
+      {"SELECT SUM(m) FROM testTable WHERE a BETWEEN 1.5 AND 2.25 OR c <> \"foo\" GROUP BY d TOP 5",
+          "SELECT SUM(m) FROM testTable WHERE a BETWEEN -3.0 AND 100.125 OR c <> \"bar\" GROUP BY d TOP 5"},
+      {"SELECT * FROM testTable WHERE a IN (1, 2, 3) AND b NOT IN ('x', 'y') AND c > 10 AND d <= 'z' LIMIT 20",
+          "SELECT * FROM testTable WHERE a IN (30, 30, 1) AND b NOT IN ('p', 'q') AND c > 0 AND d <= 'a' LIMIT 20"},
+      {"SELECT MAX(add(a, 5)) FROM testTable WHERE REGEXP_LIKE(b, 'abc.*') GROUP BY sub(c, 2.5) TOP 10 "
+          + "OPTION(timeoutMs=1000)",
+          "SELECT MAX(add(a, 7)) FROM testTable WHERE REGEXP_LIKE(b, '^x') GROUP BY sub(c, 0.5) TOP 10 "
+              + "OPTION(timeoutMs=2000)"},
+      {"SELECT a, b FROM testTable WHERE c = '8000000000000000001' ORDER BY a LIMIT 10, 20",
+          "SELECT a, b FROM testTable WHERE c = '987654.300017' ORDER BY a LIMIT 10, 20"}
+  };
+
+  @Test
+  public void testTokenize() {
+    BrokerRequestTemplateCache.TokenizedQuery tokenizedQuery =
+        BrokerRequestTemplateCache.tokenize("SELECT * FROM testTable WHERE a = 1 AND b IN ('x', \"y\") LIMIT 10");
+    Assert.assertNotNull(tokenizedQuery);
+    Assert.assertEquals(tokenizedQuery._literals, new String[]{"1", "x", "y"});
+    BrokerRequestTemplateCache.TokenizedQuery otherTokenizedQuery =
+        BrokerRequestTemplateCache.tokenize("SELECT * FROM testTable WHERE a = 2 AND b IN ('z', \"w\") LIMIT 10");
+    Assert.assertNotNull(otherTokenizedQuery);
+    Assert.assertEquals(otherTokenizedQuery._shape, tokenizedQuery._shape);
+    Assert.assertEquals(otherTokenizedQuery._markedQuery, tokenizedQuery._markedQuery);
+
+    // Different quotes, different limit or different whitespaces should result in different shape
+    for (String query : new String[]{"SELECT * FROM testTable WHERE a = 1 AND b IN (\"x\", \"y\") LIMIT 10",
+        "SELECT * FROM testTable WHERE a = 1 AND b IN ('x', \"y\") LIMIT 20",
+        "SELECT * FROM testTable WHERE a = 1 AND b IN ('x',\"y\") LIMIT 10"}) {
+      otherTokenizedQuery = BrokerRequestTemplateCache.tokenize(query);
+      Assert.assertNotNull(otherTokenizedQuery);
+      Assert.assertNotEquals(otherTokenizedQuery._shape, tokenizedQuery._shape);
+    }
+
+    // Literals not in the canonical form cannot be templated
+    Assert.assertNull(BrokerRequestTemplateCache.tokenize("SELECT * FROM testTable WHERE a = 01"));
+    Assert.assertNull(BrokerRequestTemplateCache.tokenize("SELECT * FROM testTable WHERE a = 1.50"));
+    Assert.assertNull(BrokerRequestTemplateCache.tokenize("SELECT * FROM testTable WHERE a = 'it''s'"));
+  }
+
+  @Test
+  public void testReplaceMarkers() {
+    String[] literals = new String[]{"a", "800000000000000", "c"};
+    Assert.assertEquals(BrokerRequestTemplateCache.replaceMarkers("foo", literals), "foo");
+    // Markers should not be searched in the replaced literals
+    Assert.assertEquals(
+        BrokerRequestTemplateCache.replaceMarkers("add(8000000000000000001,987654.300027)\0" + "0000\0", literals),
+        "add(800000000000000,c)a");
+    // Incomplete markers should not be replaced
+    Assert.assertEquals(BrokerRequestTemplateCache.replaceMarkers("800000000000000x", literals), "800000000000000x");
+  }
+
+  @Test
+  public void testCompile() {
+    BrokerRequestTemplateCache cache = new BrokerRequestTemplateCache(COMPILER, 100, null);
+    for (String[] queries : QUERY_GROUPS) {
+      // Template is created when the shape is seen for the second time
+      Assert.assertFalse(cache.hasTemplate(queries[0]));
+      for (int i = 0; i < 3; i++) {
+        for (String query : queries) {
+          BrokerRequest expected =
+              BrokerRequestTemplateCache.sortInPredicateValues(COMPILER.compileToBrokerRequest(query));
+          BrokerRequest actual =
+              BrokerRequestTemplateCache.sortInPredicateValues(cache.compileToBrokerRequest(query));
+          Assert.assertEquals(actual, expected, query);
+        }
+      }
+      Assert.assertTrue(cache.hasTemplate(queries[0]), queries[0]);
+    }
+    Assert.assertEquals(cache.size(), QUERY_GROUPS.length);
+
+    // Returned broker request should not be shared
+    String query = QUERY_GROUPS[0][0];
+    cache.compileToBrokerRequest(query).getQuerySource().setTableName("otherTable");
+    Assert.assertEquals(cache.compileToBrokerRequest(query).getQuerySource().getTableName(), "testTable");
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.response.ServerInstance;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.common.datatable.DataTableImplV2;
+import org.apache.pinot.pql.parsers.Pql2Compiler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class BrokerResultCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+  private static final String REALTIME_TABLE_NAME = "testTable_REALTIME";
+  private static final long TTL_MS = 60_000L;
+  private static final ServerInstance SERVER_INSTANCE = new ServerInstance("localhost", 1234);
+
+  @Test
+  public void testGetAndPut() {
+    BrokerResultCache cache = new BrokerResultCache(1024 * 1024, null);
+    cache.setTableTtlMs(OFFLINE_TABLE_NAME, TTL_MS);
+    cache.setTableTtlMs(REALTIME_TABLE_NAME, TTL_MS);
+
+    // REALTIME tables and queries with trace enabled are not cacheable
+    Assert.assertNull(cache.getKey(getBrokerRequest(REALTIME_TABLE_NAME, "SELECT COUNT(*) FROM testTable")));
+    BrokerRequest traceRequest = getBrokerRequest(OFFLINE_TABLE_NAME, "SELECT COUNT(*) FROM testTable");
+    traceRequest.setEnableTrace(true);
+    Assert.assertNull(cache.getKey(traceRequest));
+
+    BrokerResultCache.Key key = cache.getKey(getBrokerRequest(OFFLINE_TABLE_NAME, "SELECT COUNT(*) FROM testTable"));
+    Assert.assertNotNull(key);
+    Assert.assertNull(cache.get(key, 0L));
+    cache.put(key, Collections.singletonMap(SERVER_INSTANCE, getDataTable("10")), 0L);
+    Assert.assertEquals(cache.size(), 1);
+    Assert.assertTrue(cache.getSizeInBytes() > 0);
+
+    // Identical query should hit the cache, different query should not
+    BrokerResultCache.Key sameKey =
+        cache.getKey(getBrokerRequest(OFFLINE_TABLE_NAME, "SELECT COUNT(*) FROM testTable"));
+    Map<ServerInstance, DataTable> dataTableMap = cache.get(sameKey, TTL_MS - 1);
+    Assert.assertNotNull(dataTableMap);
+    Assert.assertEquals(dataTableMap.size(), 1);
+    Assert.assertEquals(dataTableMap.get(SERVER_INSTANCE).getMetadata().get(DataTable.TOTAL_DOCS_METADATA_KEY), "10");
+    Assert.assertNull(
+        cache.get(cache.getKey(getBrokerRequest(OFFLINE_TABLE_NAME, "SELECT SUM(m) FROM testTable")), TTL_MS - 1));
+
+    // Expired entry should be removed
+    Assert.assertNull(cache.get(sameKey, TTL_MS));
+    Assert.assertEquals(cache.size(), 0);
+    Assert.assertEquals(cache.getSizeInBytes(), 0);
+
+    // Data tables with processing exceptions should not be cached
+    Map<ServerInstance, DataTable> dataTablesWithException = new HashMap<>();
+    dataTablesWithException.put(SERVER_INSTANCE, getDataTable("10"));
+    DataTable exceptionDataTable = getDataTable("20");
+    exceptionDataTable.addException(QueryException.QUERY_EXECUTION_ERROR);
+    dataTablesWithException.put(new ServerInstance("localhost", 5678), exceptionDataTable);
+    cache.put(key, dataTablesWithException, 0L);
+    Assert.assertEquals(cache.size(), 0);
+  }
+
+  @Test
+  public void testInvalidate() {
+    BrokerResultCache cache = new BrokerResultCache(1024 * 1024, null);
+    cache.setTableTtlMs(OFFLINE_TABLE_NAME, TTL_MS);
+    BrokerRequest brokerRequest = getBrokerRequest(OFFLINE_TABLE_NAME, "SELECT COUNT(*) FROM testTable");
+
+    BrokerResultCache.Key key = cache.getKey(brokerRequest);
+    cache.put(key, Collections.singletonMap(SERVER_INSTANCE, getDataTable("10")), 0L);
+    Assert.assertNotNull(cache.get(cache.getKey(brokerRequest), 0L));
+
+    // Routing table change should invalidate the cached results
+    BrokerResultCache.Key staleKey = cache.getKey(brokerRequest);
+    cache.invalidate(OFFLINE_TABLE_NAME);
+    Assert.assertEquals(cache.size(), 0);
+    Assert.assertNull(cache.get(cache.getKey(brokerRequest), 0L));
+
+    // Results computed before the routing table change should never be cached or served
+    cache.put(staleKey, Collections.singletonMap(SERVER_INSTANCE, getDataTable("10")), 0L);
+    Assert.assertEquals(cache.size(), 0);
+    Assert.assertEquals(cache.getSizeInBytes(), 0);
+    Assert.assertNull(cache.get(cache.getKey(brokerRequest), 0L));
+
+    // Entries of the other tables should not be affected
+    cache.setTableTtlMs("otherTable_OFFLINE", TTL_MS);
+    BrokerResultCache.Key otherKey = cache.getKey(getBrokerRequest("otherTable_OFFLINE", "SELECT COUNT(*) FROM other"));
+    cache.put(otherKey, Collections.singletonMap(SERVER_INSTANCE, getDataTable("10")), 0L);
+    cache.invalidate(OFFLINE_TABLE_NAME);
+    Assert.assertEquals(cache.size(), 1);
+
+    // Removed table should not be cacheable
+    cache.removeTable(OFFLINE_TABLE_NAME);
+    Assert.assertNull(cache.getKey(brokerRequest));
+  }
+
+  private static BrokerRequest getBrokerRequest(String tableNameWithType, String query) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    brokerRequest.getQuerySource().setTableName(tableNameWithType);
+    return brokerRequest;
+  }
+
+  private static DataTable getDataTable(String totalDocs) {
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.TOTAL_DOCS_METADATA_KEY, totalDocs);
+    return dataTable;
+  }
+}
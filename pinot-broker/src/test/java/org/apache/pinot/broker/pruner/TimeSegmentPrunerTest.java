@@ -0,0 +1,252 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.pruner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.helix.AccessOption;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.apache.pinot.common.metadata.ZKMetadataProvider;
+import org.apache.pinot.common.metadata.segment.LLCRealtimeSegmentZKMetadata;
+import org.apache.pinot.common.metadata.segment.OfflineSegmentZKMetadata;
+import org.apache.pinot.common.metadata.segment.RealtimeSegmentZKMetadata;
+import org.apache.pinot.common.utils.CommonConstants.Segment.Realtime.Status;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.common.utils.request.RequestUtils;
+import org.apache.pinot.pql.parsers.Pql2Compiler;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TimeSegmentPrunerTest {
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+  private static final String REALTIME_TABLE_NAME = "testTable_REALTIME";
+  private static final String TIME_COLUMN = "daysSinceEpoch";
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  @Test
+  public void testGetQueryTimeRange() {
+    TimeSegmentPruner timeSegmentPruner = new TimeSegmentPruner(null, OFFLINE_TABLE_NAME, TIME_COLUMN, TimeUnit.DAYS);
+
+    assertQueryTimeRange(timeSegmentPruner, "daysSinceEpoch = 5", 5, 5);
+    assertQueryTimeRange(timeSegmentPruner, "daysSinceEpoch > 5 AND daysSinceEpoch <= 10", 6, 10);
+    assertQueryTimeRange(timeSegmentPruner, "daysSinceEpoch >= 5 AND foo = 'bar' AND daysSinceEpoch < 10", 5, 9);
+    assertQueryTimeRange(timeSegmentPruner, "daysSinceEpoch BETWEEN 3 AND 7 OR daysSinceEpoch IN (20, 15)", 3, 20);
+    assertQueryTimeRange(timeSegmentPruner, "daysSinceEpoch > 5", 6, Long.MAX_VALUE);
+    assertQueryTimeRange(timeSegmentPruner, "(daysSinceEpoch < 5 OR foo = 'bar') AND daysSinceEpoch > 3", 4,
+        Long.MAX_VALUE);
+
+    // Empty time range
+    Assert.assertTrue(getQueryTimeRange(timeSegmentPruner, "daysSinceEpoch < 5 AND daysSinceEpoch > 10").isEmpty());
+
+    // Unbounded time range
+    Assert.assertTrue(getQueryTimeRange(timeSegmentPruner, "foo = 'bar'").isUnbounded());
+    Assert.assertTrue(getQueryTimeRange(timeSegmentPruner, "daysSinceEpoch != 5").isUnbounded());
+    Assert.assertTrue(getQueryTimeRange(timeSegmentPruner, "daysSinceEpoch = 5 OR foo = 'bar'").isUnbounded());
+  }
+
+  @Test
+  public void testGetSegmentTimeRange() {
+    TimeSegmentPruner timeSegmentPruner = new TimeSegmentPruner(null, OFFLINE_TABLE_NAME, TIME_COLUMN, TimeUnit.DAYS);
+
+    // Same time unit
+    assertTimeRange(timeSegmentPruner.getSegmentTimeRange(getOfflineSegmentZKMetadata("s", 10, 20, TimeUnit.DAYS)), 10,
+        20);
+
+    // Finer segment time unit
+    long startTimeMs = TimeUnit.DAYS.toMillis(10) + 1;
+    long endTimeMs = TimeUnit.DAYS.toMillis(21) - 1;
+    assertTimeRange(timeSegmentPruner
+        .getSegmentTimeRange(getOfflineSegmentZKMetadata("s", startTimeMs, endTimeMs, TimeUnit.MILLISECONDS)), 10, 20);
+
+    // Coarser segment time unit, the end time should cover the whole day
+    timeSegmentPruner = new TimeSegmentPruner(null, OFFLINE_TABLE_NAME, TIME_COLUMN, TimeUnit.HOURS);
+    assertTimeRange(timeSegmentPruner.getSegmentTimeRange(getOfflineSegmentZKMetadata("s", 10, 20, TimeUnit.DAYS)),
+        240, 503);
+
+    // Invalid time range
+    Assert.assertTrue(timeSegmentPruner.getSegmentTimeRange(new OfflineSegmentZKMetadata()).isUnbounded());
+    Assert.assertTrue(
+        timeSegmentPruner.getSegmentTimeRange(getOfflineSegmentZKMetadata("s", 20, 10, TimeUnit.DAYS)).isUnbounded());
+
+    // Consuming segment
+    RealtimeSegmentZKMetadata realtimeSegmentZKMetadata = new RealtimeSegmentZKMetadata();
+    realtimeSegmentZKMetadata.setStartTime(10);
+    realtimeSegmentZKMetadata.setTimeUnit(TimeUnit.DAYS);
+    realtimeSegmentZKMetadata.setStatus(Status.IN_PROGRESS);
+    Assert.assertTrue(timeSegmentPruner.getSegmentTimeRange(realtimeSegmentZKMetadata).isUnbounded());
+    realtimeSegmentZKMetadata.setEndTime(20);
+    realtimeSegmentZKMetadata.setStatus(Status.DONE);
+    assertTimeRange(timeSegmentPruner.getSegmentTimeRange(realtimeSegmentZKMetadata), 240, 503);
+  }
+
+  @Test
+  public void testPrune() {
+    Map<String, ZNRecord> znRecordMap = new HashMap<>();
+    ZkHelixPropertyStore<ZNRecord> propertyStore = mockPropertyStore(znRecordMap);
+    for (int i = 0; i < 4; i++) {
+      OfflineSegmentZKMetadata segmentZKMetadata = getOfflineSegmentZKMetadata("segment" + i, i * 10, i * 10 + 9,
+          TimeUnit.DAYS);
+      znRecordMap.put(ZKMetadataProvider.constructPropertyStorePathForSegment(OFFLINE_TABLE_NAME, "segment" + i),
+          segmentZKMetadata.toZNRecord());
+    }
+    TimeSegmentPruner timeSegmentPruner =
+        new TimeSegmentPruner(propertyStore, OFFLINE_TABLE_NAME, TIME_COLUMN, TimeUnit.DAYS);
+    ExternalView externalView = new ExternalView(OFFLINE_TABLE_NAME);
+    for (int i = 0; i < 3; i++) {
+      externalView.setState("segment" + i, "server0", "ONLINE");
+      externalView.setState("segment" + i, "server1", "ONLINE");
+    }
+    timeSegmentPruner.onExternalViewChange(externalView);
+
+    Map<String, List<String>> routingTable = new HashMap<>();
+    routingTable.put("server0", Arrays.asList("segment0", "segment2"));
+    routingTable.put("server1", Collections.singletonList("segment1"));
+
+    // No time filter
+    Assert.assertSame(prune(timeSegmentPruner, routingTable, "foo = 'bar'"), routingTable);
+
+    Map<String, List<String>> prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch > 15");
+    Assert.assertEquals(prunedRoutingTable.size(), 2);
+    Assert.assertEquals(prunedRoutingTable.get("server0"), Collections.singletonList("segment2"));
+    Assert.assertEquals(prunedRoutingTable.get("server1"), Collections.singletonList("segment1"));
+
+    prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch BETWEEN 12 AND 15");
+    Assert.assertEquals(prunedRoutingTable, Collections.singletonMap("server1", Collections.singletonList("segment1")));
+
+    // Should keep one segment when all segments are pruned
+    prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch >= 30");
+    Assert.assertEquals(prunedRoutingTable.size(), 1);
+    Assert.assertEquals(prunedRoutingTable.values().iterator().next().size(), 1);
+
+    // Segments not in the external view should never be pruned
+    routingTable.put("server1", Arrays.asList("segment1", "segment3"));
+    prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch < 5");
+    Assert.assertEquals(prunedRoutingTable.size(), 2);
+    Assert.assertEquals(prunedRoutingTable.get("server0"), Collections.singletonList("segment0"));
+    Assert.assertEquals(prunedRoutingTable.get("server1"), Collections.singletonList("segment3"));
+
+    // New segment in the external view
+    externalView.setState("segment3", "server1", "ONLINE");
+    timeSegmentPruner.onExternalViewChange(externalView);
+    prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch < 5");
+    Assert.assertEquals(prunedRoutingTable, Collections.singletonMap("server0", Collections.singletonList("segment0")));
+
+    // Refreshed segment
+    znRecordMap.put(ZKMetadataProvider.constructPropertyStorePathForSegment(OFFLINE_TABLE_NAME, "segment3"),
+        getOfflineSegmentZKMetadata("segment3", 0, 39, TimeUnit.DAYS).toZNRecord());
+    timeSegmentPruner.refresh();
+    prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch < 5");
+    Assert.assertEquals(prunedRoutingTable.get("server1"), Collections.singletonList("segment3"));
+  }
+
+  @Test
+  public void testConsumingSegment() {
+    Map<String, ZNRecord> znRecordMap = new HashMap<>();
+    ZkHelixPropertyStore<ZNRecord> propertyStore = mockPropertyStore(znRecordMap);
+    String segment0 = new LLCSegmentName("testTable", 0, 0, System.currentTimeMillis()).getSegmentName();
+    String segment1 = new LLCSegmentName("testTable", 0, 1, System.currentTimeMillis()).getSegmentName();
+    String segmentPath = ZKMetadataProvider.constructPropertyStorePathForSegment(REALTIME_TABLE_NAME, segment0);
+    LLCRealtimeSegmentZKMetadata segmentZKMetadata = new LLCRealtimeSegmentZKMetadata();
+    segmentZKMetadata.setSegmentName(segment0);
+    segmentZKMetadata.setStartTime(10);
+    segmentZKMetadata.setTimeUnit(TimeUnit.DAYS);
+    segmentZKMetadata.setStatus(Status.IN_PROGRESS);
+    znRecordMap.put(segmentPath, segmentZKMetadata.toZNRecord());
+    TimeSegmentPruner timeSegmentPruner =
+        new TimeSegmentPruner(propertyStore, REALTIME_TABLE_NAME, TIME_COLUMN, TimeUnit.DAYS);
+    ExternalView externalView = new ExternalView(REALTIME_TABLE_NAME);
+    externalView.setState(segment0, "server0", "CONSUMING");
+    timeSegmentPruner.onExternalViewChange(externalView);
+
+    Map<String, List<String>> routingTable = Collections.singletonMap("server0", Collections.singletonList(segment0));
+    Map<String, List<String>> prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch > 100");
+    Assert.assertEquals(prunedRoutingTable, routingTable);
+
+    // Consuming segment committed, the time range should be updated on the next external view change
+    segmentZKMetadata.setEndTime(20);
+    segmentZKMetadata.setStatus(Status.DONE);
+    znRecordMap.put(segmentPath, segmentZKMetadata.toZNRecord());
+    externalView.setState(segment0, "server0", "ONLINE");
+    externalView.setState(segment1, "server0", "CONSUMING");
+    timeSegmentPruner.onExternalViewChange(externalView);
+    routingTable = Collections.singletonMap("server0", Arrays.asList(segment0, segment1));
+    prunedRoutingTable = prune(timeSegmentPruner, routingTable, "daysSinceEpoch > 100");
+    Assert.assertEquals(prunedRoutingTable, Collections.singletonMap("server0", Collections.singletonList(segment1)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ZkHelixPropertyStore<ZNRecord> mockPropertyStore(Map<String, ZNRecord> znRecordMap) {
+    ZkHelixPropertyStore<ZNRecord> propertyStore = Mockito.mock(ZkHelixPropertyStore.class);
+    Mockito.when(propertyStore.get(Mockito.anyString(), Mockito.any(), Mockito.eq(AccessOption.PERSISTENT)))
+        .thenAnswer(invocation -> znRecordMap.get((String) invocation.getArguments()[0]));
+    Mockito.when(propertyStore.exists(Mockito.anyString(), Mockito.eq(AccessOption.PERSISTENT))).thenReturn(true);
+    Mockito.when(propertyStore.getChildren(Mockito.anyString(), Mockito.any(), Mockito.eq(AccessOption.PERSISTENT)))
+        .thenAnswer(invocation -> {
+          String parentPath = invocation.getArguments()[0] + "/";
+          List<ZNRecord> children = new ArrayList<>();
+          for (Map.Entry<String, ZNRecord> entry : znRecordMap.entrySet()) {
+            if (entry.getKey().startsWith(parentPath)) {
+              children.add(entry.getValue());
+            }
+          }
+          return children;
+        });
+    return propertyStore;
+  }
+
+  private static OfflineSegmentZKMetadata getOfflineSegmentZKMetadata(String segmentName, long startTime, long endTime,
+      TimeUnit timeUnit) {
+    OfflineSegmentZKMetadata segmentZKMetadata = new OfflineSegmentZKMetadata();
+    segmentZKMetadata.setSegmentName(segmentName);
+    segmentZKMetadata.setStartTime(startTime);
+    segmentZKMetadata.setEndTime(endTime);
+    segmentZKMetadata.setTimeUnit(timeUnit);
+    return segmentZKMetadata;
+  }
+
+  private static Map<String, List<String>> prune(TimeSegmentPruner timeSegmentPruner,
+      Map<String, List<String>> routingTable, String filter) {
+    return timeSegmentPruner
+        .prune(routingTable, COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable WHERE " + filter));
+  }
+
+  private static TimeSegmentPruner.TimeRange getQueryTimeRange(TimeSegmentPruner timeSegmentPruner, String filter) {
+    return timeSegmentPruner.getQueryTimeRange(RequestUtils
+        .generateFilterQueryTree(COMPILER.compileToBrokerRequest("SELECT COUNT(*) FROM testTable WHERE " + filter)));
+  }
+
+  private static void assertQueryTimeRange(TimeSegmentPruner timeSegmentPruner, String filter, long expectedStart,
+      long expectedEnd) {
+    assertTimeRange(getQueryTimeRange(timeSegmentPruner, filter), expectedStart, expectedEnd);
+  }
+
+  private static void assertTimeRange(TimeSegmentPruner.TimeRange timeRange, long expectedStart, long expectedEnd) {
+    Assert.assertEquals(timeRange._start, expectedStart);
+    Assert.assertEquals(timeRange._end, expectedEnd);
+  }
+}
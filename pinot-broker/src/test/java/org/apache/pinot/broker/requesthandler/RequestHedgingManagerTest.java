@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.requesthandler;
+
+import java.util.Collections;
+import org.apache.pinot.broker.routing.RoutingTable;
+import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
+import org.apache.pinot.core.transport.RequestHedger;
+import org.apache.pinot.core.transport.Server;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class RequestHedgingManagerTest {
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+  private static final String REALTIME_TABLE_NAME = "testTable_REALTIME";
+
+  @Test
+  public void testHedgeDelay() {
+    RequestHedgingManager requestHedgingManager = new RequestHedgingManager(Mockito.mock(RoutingTable.class), 90, 10);
+    Assert.assertTrue(requestHedgingManager.isEnabled());
+
+    // Should not hedge before collecting enough samples
+    for (int i = 1; i < RequestHedgingManager.MIN_NUM_LATENCY_SAMPLES; i++) {
+      requestHedgingManager.recordLatency(OFFLINE_TABLE_NAME, i);
+    }
+    Assert.assertEquals(requestHedgingManager.getHedgeDelayMs(OFFLINE_TABLE_NAME), -1);
+    requestHedgingManager.recordLatency(OFFLINE_TABLE_NAME, RequestHedgingManager.MIN_NUM_LATENCY_SAMPLES);
+    Assert.assertEquals(requestHedgingManager.getHedgeDelayMs(OFFLINE_TABLE_NAME), 90);
+    Assert.assertEquals(requestHedgingManager.getHedgeDelayMs(REALTIME_TABLE_NAME), -1);
+
+    // Hedge delay should be no less than the min delay
+    for (int i = 0; i < RequestHedgingManager.MIN_NUM_LATENCY_SAMPLES; i++) {
+      requestHedgingManager.recordLatency(REALTIME_TABLE_NAME, 1);
+    }
+    Assert.assertEquals(requestHedgingManager.getHedgeDelayMs(REALTIME_TABLE_NAME), 10);
+
+    // Old samples should be evicted
+    for (int i = 0; i < RequestHedgingManager.NUM_LATENCY_SAMPLES; i++) {
+      requestHedgingManager.recordLatency(OFFLINE_TABLE_NAME, 1000);
+    }
+    Assert.assertEquals(requestHedgingManager.getHedgeDelayMs(OFFLINE_TABLE_NAME), 1000);
+  }
+
+  @Test
+  public void testDisabled() {
+    RequestHedgingManager requestHedgingManager = new RequestHedgingManager(Mockito.mock(RoutingTable.class), -1, 10);
+    Assert.assertFalse(requestHedgingManager.isEnabled());
+    for (int i = 0; i < RequestHedgingManager.MIN_NUM_LATENCY_SAMPLES; i++) {
+      requestHedgingManager.recordLatency(OFFLINE_TABLE_NAME, 100);
+    }
+    Assert.assertEquals(requestHedgingManager.getHedgeDelayMs(OFFLINE_TABLE_NAME), -1);
+  }
+
+  @Test
+  public void testRequestHedger() {
+    RoutingTable routingTable = Mockito.mock(RoutingTable.class);
+    Mockito.when(
+        routingTable.getAlternateServer(REALTIME_TABLE_NAME, "Server_host1_8000", Collections.singletonList("seg")))
+        .thenReturn("Server_host2_8000");
+    RequestHedgingManager requestHedgingManager = new RequestHedgingManager(routingTable, 95, 10);
+    RequestHedger requestHedger = requestHedgingManager.getRequestHedger(RAW_TABLE_NAME);
+    Assert.assertEquals(requestHedger.getHedgeDelayMs(TableType.OFFLINE), -1);
+    Assert.assertEquals(requestHedger.getAlternateServer(new Server("Server_host1_8000", TableType.REALTIME),
+        Collections.singletonList("seg")), "Server_host2_8000");
+    Assert.assertNull(requestHedger.getAlternateServer(new Server("Server_host1_8000", TableType.OFFLINE),
+        Collections.singletonList("seg")));
+  }
+}
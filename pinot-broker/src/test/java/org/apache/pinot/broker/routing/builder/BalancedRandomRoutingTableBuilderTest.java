@@ -19,6 +19,9 @@
 package org.apache.pinot.broker.routing.builder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +32,7 @@ import org.apache.helix.model.ExternalView;
 import org.apache.helix.model.InstanceConfig;
 import org.apache.pinot.broker.routing.RoutingTableLookupRequest;
 import org.apache.pinot.common.config.TableConfig;
+import org.apache.pinot.core.transport.ServerLoadTracker;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -95,6 +99,149 @@ public class BalancedRandomRoutingTableBuilderTest {
     Assert.assertEquals(segmentsInRoutingTable, expectedSegments);
   }
 
+  @Test
+  public void testAdaptiveServerSelection() {
+    String tableNameWithType = "testTable_OFFLINE";
+    BalancedRandomRoutingTableBuilder routingTableBuilder = new BalancedRandomRoutingTableBuilder();
+
+    TableConfig tableConfig = RoutingTableBuilderTestUtil.getAdaptiveServerSelectionTableConfig(tableNameWithType);
+    routingTableBuilder.init(new BaseConfiguration(), tableConfig, null, null);
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker(ServerLoadTracker.DEFAULT_LATENCY_EWMA_ALPHA);
+    routingTableBuilder.setServerLoadTracker(serverLoadTracker);
+
+    // Create external view with 300 segments, each segment served by all 3 servers
+    ExternalView externalView = new ExternalView("dummy");
+    List<InstanceConfig> instanceConfigList = getDummyInstanceConfigs();
+    int numSegments = 300;
+    for (int i = 0; i < numSegments; i++) {
+      for (InstanceConfig instanceConfig : instanceConfigList) {
+        externalView.setState("segment_" + i, instanceConfig.getInstanceName(), "ONLINE");
+      }
+    }
+    routingTableBuilder.computeOnExternalViewChange("dummy", externalView, instanceConfigList);
+    RoutingTableLookupRequest request = new RoutingTableLookupRequest(tableNameWithType);
+
+    // Without any stats, segments should be evenly distributed
+    Map<String, List<String>> routingTable = routingTableBuilder.getRoutingTable(request, null);
+    Assert.assertEquals(routingTable.size(), 3);
+    for (List<String> segments : routingTable.values()) {
+      Assert.assertEquals(segments.size(), numSegments / 3);
+    }
+
+    // Slow server should get much fewer segments, and all segments should still be routed
+    String slowServer = "Server_1.2.3.4_1234";
+    serverLoadTracker.recordRequestSent(slowServer);
+    serverLoadTracker.recordRequestDone(slowServer, 1000);
+    for (String server : new String[]{"Server_1.2.3.5_2345", "Server_1.2.3.6_3456"}) {
+      serverLoadTracker.recordRequestSent(server);
+      serverLoadTracker.recordRequestDone(server, 10);
+    }
+    routingTable = routingTableBuilder.getRoutingTable(request, null);
+    Assert.assertTrue(routingTable.get(slowServer).size() <= 3);
+    Set<String> segmentsInRoutingTable = new HashSet<>();
+    for (List<String> segments : routingTable.values()) {
+      segmentsInRoutingTable.addAll(segments);
+    }
+    Assert.assertEquals(segmentsInRoutingTable, externalView.getPartitionSet());
+
+    // Server with in-flight requests should get fewer segments
+    String busyServer = "Server_1.2.3.5_2345";
+    for (int i = 0; i < 3; i++) {
+      serverLoadTracker.recordRequestSent(busyServer);
+    }
+    routingTable = routingTableBuilder.getRoutingTable(request, null);
+    Assert.assertTrue(
+        routingTable.get(busyServer).size() < routingTable.get("Server_1.2.3.6_3456").size() / 2);
+  }
+
+  @Test
+  public void testGetAlternateServer() {
+    BalancedRandomRoutingTableBuilder routingTableBuilder = new BalancedRandomRoutingTableBuilder();
+    routingTableBuilder.init(new BaseConfiguration(), new TableConfig(), null, null);
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker(ServerLoadTracker.DEFAULT_LATENCY_EWMA_ALPHA);
+    routingTableBuilder.setServerLoadTracker(serverLoadTracker);
+
+    // segment_1 is served by all 3 servers, segment_2 is served by 2 servers
+    ExternalView externalView = new ExternalView("dummy");
+    externalView.setState("segment_1", "Server_1.2.3.4_1234", "ONLINE");
+    externalView.setState("segment_1", "Server_1.2.3.5_2345", "ONLINE");
+    externalView.setState("segment_1", "Server_1.2.3.6_3456", "ONLINE");
+    externalView.setState("segment_2", "Server_1.2.3.4_1234", "ONLINE");
+    externalView.setState("segment_2", "Server_1.2.3.5_2345", "ONLINE");
+    routingTableBuilder.computeOnExternalViewChange("dummy", externalView, getDummyInstanceConfigs());
+
+    // Only the other server serving both segments can be the alternate server
+    Assert.assertEquals(
+        routingTableBuilder.getAlternateServer("Server_1.2.3.4_1234", Arrays.asList("segment_1", "segment_2")),
+        "Server_1.2.3.5_2345");
+    Assert.assertNull(routingTableBuilder.getAlternateServer("Server_1.2.3.4_1234",
+        Arrays.asList("segment_1", "segment_2", "segment_3")));
+
+    // The least loaded server should be picked
+    serverLoadTracker.recordRequestSent("Server_1.2.3.5_2345");
+    Assert.assertEquals(
+        routingTableBuilder.getAlternateServer("Server_1.2.3.4_1234", Collections.singletonList("segment_1")),
+        "Server_1.2.3.6_3456");
+  }
+
+  @Test
+  public void testIncrementalUpdate() {
+    BalancedRandomRoutingTableBuilder routingTableBuilder = new BalancedRandomRoutingTableBuilder();
+    routingTableBuilder.init(new BaseConfiguration(), new TableConfig(), null, null);
+
+    // Create external view with 100 segments, each segment served by all 3 servers
+    ExternalView externalView = new ExternalView("dummy");
+    List<InstanceConfig> instanceConfigList = getDummyInstanceConfigs();
+    int numSegments = 100;
+    for (int i = 0; i < numSegments; i++) {
+      for (InstanceConfig instanceConfig : instanceConfigList) {
+        externalView.setState("segment_" + i, instanceConfig.getInstanceName(), "ONLINE");
+      }
+    }
+    routingTableBuilder.computeOnExternalViewChange("dummy", externalView, instanceConfigList);
+    List<Map<String, List<String>>> oldRoutingTables = routingTableBuilder.getRoutingTables();
+    List<Map<String, List<String>>> oldRoutingTablesCopy = new ArrayList<>();
+    for (Map<String, List<String>> routingTable : oldRoutingTables) {
+      Map<String, List<String>> routingTableCopy = new HashMap<>();
+      for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+        routingTableCopy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+      }
+      oldRoutingTablesCopy.add(routingTableCopy);
+    }
+
+    // Same external view should not change the routing tables
+    routingTableBuilder.computeOnExternalViewChange("dummy", externalView, instanceConfigList);
+    Assert.assertSame(routingTableBuilder.getRoutingTables(), oldRoutingTables);
+
+    // Remove a segment, add a segment and turn a replica of a segment OFFLINE
+    String offlineServer = "Server_1.2.3.4_1234";
+    externalView.getRecord().getMapFields().remove("segment_0");
+    for (InstanceConfig instanceConfig : instanceConfigList) {
+      externalView.setState("segment_" + numSegments, instanceConfig.getInstanceName(), "ONLINE");
+    }
+    externalView.setState("segment_1", offlineServer, "OFFLINE");
+    routingTableBuilder.computeOnExternalViewChange("dummy", externalView, instanceConfigList);
+    List<Map<String, List<String>>> newRoutingTables = routingTableBuilder.getRoutingTables();
+    Assert.assertNotSame(newRoutingTables, oldRoutingTables);
+    Assert.assertEquals(newRoutingTables.size(), oldRoutingTables.size());
+    for (Map<String, List<String>> routingTable : newRoutingTables) {
+      List<String> segmentsInRoutingTable = new ArrayList<>();
+      for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+        segmentsInRoutingTable.addAll(entry.getValue());
+        if (entry.getKey().equals(offlineServer)) {
+          Assert.assertFalse(entry.getValue().contains("segment_1"));
+        }
+        // Segments should still be balanced
+        Assert.assertTrue(Math.abs(entry.getValue().size() - numSegments / 3) <= 2);
+      }
+      Assert.assertEquals(segmentsInRoutingTable.size(), numSegments);
+      Assert.assertEquals(new HashSet<>(segmentsInRoutingTable), externalView.getPartitionSet());
+    }
+
+    // Routing tables published before should not be modified
+    Assert.assertEquals(oldRoutingTables, oldRoutingTablesCopy);
+  }
+
   private ExternalView getDummyExternalView() {
     ExternalView externalView = new ExternalView("dummy");
     externalView.setState("segment_1", "Server_1.2.3.4_1234", "ONLINE");
@@ -41,4 +41,13 @@ public class RoutingTableBuilderTestUtil {
     routingConfig.setRoutingTableBuilderOptions(routingTableBuilderOptions);
     return new TableConfig.Builder(tableType).setTableName(tableName).setRoutingConfig(routingConfig).build();
   }
+
+  public static TableConfig getAdaptiveServerSelectionTableConfig(String tableName) {
+    TableType tableType = TableNameBuilder.getTableTypeFromTableName(tableName);
+    RoutingConfig routingConfig = new RoutingConfig();
+    Map<String, String> routingTableBuilderOptions = new HashMap<>();
+    routingTableBuilderOptions.put(RoutingConfig.ENABLE_ADAPTIVE_SERVER_SELECTION_KEY, "true");
+    routingConfig.setRoutingTableBuilderOptions(routingTableBuilderOptions);
+    return new TableConfig.Builder(tableType).setTableName(tableName).setRoutingConfig(routingConfig).build();
+  }
 }
@@ -49,6 +49,9 @@ public class IndexingConfig {
   @ConfigKey("bloomFilterColumns")
   private List<String> _bloomFilterColumns = new ArrayList<>();
 
+  @ConfigKey("rangeIndexColumns")
+  private List<String> _rangeIndexColumns = new ArrayList<>();
+
   @ConfigKey("loadMode")
   private String _loadMode;
 
@@ -75,6 +78,9 @@ public class IndexingConfig {
   @ConfigKey("onHeapDictionaryColumns")
   private List<String> _onHeapDictionaryColumns;
 
+  @ConfigKey("hashIndexedDictionaryColumns")
+  private List<String> _hashIndexedDictionaryColumns;
+
   @ConfigKey("starTreeIndexSpec")
   private StarTreeIndexSpec _starTreeIndexSpec;
 
@@ -127,6 +133,14 @@ public class IndexingConfig {
     this._bloomFilterColumns = _bloomFilterColumns;
   }
 
+  public List<String> getRangeIndexColumns() {
+    return _rangeIndexColumns;
+  }
+
+  public void setRangeIndexColumns(List<String> rangeIndexColumns) {
+    _rangeIndexColumns = rangeIndexColumns;
+  }
+
   public String getLoadMode() {
     return _loadMode;
   }
@@ -191,6 +205,14 @@ public class IndexingConfig {
     _onHeapDictionaryColumns = onHeapDictionaryColumns;
   }
 
+  public List<String> getHashIndexedDictionaryColumns() {
+    return _hashIndexedDictionaryColumns;
+  }
+
+  public void setHashIndexedDictionaryColumns(List<String> hashIndexedDictionaryColumns) {
+    _hashIndexedDictionaryColumns = hashIndexedDictionaryColumns;
+  }
+
   public void setStarTreeIndexSpec(StarTreeIndexSpec starTreeIndexSpec) {
     _starTreeIndexSpec = starTreeIndexSpec;
   }
@@ -277,9 +299,11 @@ public class IndexingConfig {
         .isEqual(_noDictionaryColumns, that._noDictionaryColumns) && EqualityUtils
         .isEqual(_noDictionaryConfig, that._noDictionaryConfig) && EqualityUtils
         .isEqual(_onHeapDictionaryColumns, that._onHeapDictionaryColumns) && EqualityUtils
+        .isEqual(_hashIndexedDictionaryColumns, that._hashIndexedDictionaryColumns) && EqualityUtils
         .isEqual(_starTreeIndexSpec, that._starTreeIndexSpec) && EqualityUtils
         .isEqual(_segmentPartitionConfig, that._segmentPartitionConfig) && EqualityUtils
-        .isEqual(_bloomFilterColumns, that._bloomFilterColumns);
+        .isEqual(_bloomFilterColumns, that._bloomFilterColumns) && EqualityUtils
+        .isEqual(_rangeIndexColumns, that._rangeIndexColumns);
   }
 
   @Override
@@ -295,9 +319,11 @@ public class IndexingConfig {
     result = EqualityUtils.hashCodeOf(result, _noDictionaryColumns);
     result = EqualityUtils.hashCodeOf(result, _noDictionaryConfig);
     result = EqualityUtils.hashCodeOf(result, _onHeapDictionaryColumns);
+    result = EqualityUtils.hashCodeOf(result, _hashIndexedDictionaryColumns);
     result = EqualityUtils.hashCodeOf(result, _starTreeIndexSpec);
     result = EqualityUtils.hashCodeOf(result, _segmentPartitionConfig);
     result = EqualityUtils.hashCodeOf(result, _bloomFilterColumns);
+    result = EqualityUtils.hashCodeOf(result, _rangeIndexColumns);
     return result;
   }
 }
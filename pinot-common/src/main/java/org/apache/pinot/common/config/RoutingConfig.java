@@ -27,6 +27,7 @@ import org.apache.pinot.common.utils.EqualityUtils;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class RoutingConfig {
   public static final String ENABLE_DYNAMIC_COMPUTING_KEY = "enableDynamicComputing";
+  public static final String ENABLE_ADAPTIVE_SERVER_SELECTION_KEY = "enableAdaptiveServerSelection";
 
   @ConfigKey("routingTableBuilderName")
   private String _routingTableBuilderName;
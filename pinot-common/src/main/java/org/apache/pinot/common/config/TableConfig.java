@@ -405,7 +405,9 @@ public class TableConfig {
     private List<String> _invertedIndexColumns;
     private List<String> _noDictionaryColumns;
     private List<String> _onHeapDictionaryColumns;
+    private List<String> _hashIndexedDictionaryColumns;
     private List<String> _bloomFilterColumns;
+    private List<String> _rangeIndexColumns;
     private Map<String, String> _streamConfigs;
     private String _streamPartitionAssignmentStrategy = DEFAULT_STREAM_PARTITION_ASSIGNMENT_STRATEGY;
 
@@ -525,6 +527,11 @@ public class TableConfig {
       return this;
     }
 
+    public Builder setRangeIndexColumns(List<String> rangeIndexColumns) {
+      _rangeIndexColumns = rangeIndexColumns;
+      return this;
+    }
+
     public Builder setNoDictionaryColumns(List<String> noDictionaryColumns) {
       _noDictionaryColumns = noDictionaryColumns;
       return this;
@@ -535,6 +542,11 @@ public class TableConfig {
       return this;
     }
 
+    public Builder setHashIndexedDictionaryColumns(List<String> hashIndexedDictionaryColumns) {
+      _hashIndexedDictionaryColumns = hashIndexedDictionaryColumns;
+      return this;
+    }
+
     public Builder setStreamPartitionAssignmentStrategy(String streamPartitionAssignmentStrategy) {
       _streamPartitionAssignmentStrategy = streamPartitionAssignmentStrategy;
       return this;
@@ -598,8 +610,10 @@ public class TableConfig {
       indexingConfig.setInvertedIndexColumns(_invertedIndexColumns);
       indexingConfig.setNoDictionaryColumns(_noDictionaryColumns);
       indexingConfig.setOnHeapDictionaryColumns(_onHeapDictionaryColumns);
+      indexingConfig.setHashIndexedDictionaryColumns(_hashIndexedDictionaryColumns);
       indexingConfig.setStreamConfigs(_streamConfigs);
       indexingConfig.setBloomFilterColumns(_bloomFilterColumns);
+      indexingConfig.setRangeIndexColumns(_rangeIndexColumns);
       StreamConsumptionConfig streamConsumptionConfig = new StreamConsumptionConfig();
       streamConsumptionConfig.setStreamPartitionAssignmentStrategy(_streamPartitionAssignmentStrategy);
       indexingConfig.setStreamConsumptionConfig(streamConsumptionConfig);
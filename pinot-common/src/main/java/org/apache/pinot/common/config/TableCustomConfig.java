@@ -31,6 +31,10 @@ public class TableCustomConfig {
   private static final Logger LOGGER = LoggerFactory.getLogger(TableCustomConfig.class);
 
   public static final String MESSAGE_BASED_REFRESH_KEY = "messageBasedRefresh";
+  // Whether to cache the per-segment aggregation results on the servers
+  public static final String SEGMENT_RESULT_CACHE_ENABLED_KEY = "segmentResultCacheEnabled";
+  // Time to live in milliseconds of the OFFLINE table results cached on the brokers
+  public static final String BROKER_RESULT_CACHE_TTL_MS_KEY = "brokerResultCacheTtlMs";
 
   @ConfigKey("customConfigs")
   @UseChildKeyHandler(SimpleMapChildKeyHandler.class)
@@ -97,7 +97,20 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
   // Netty connection metrics
   NETTY_CONNECTION_REQUESTS_SENT("nettyConnection", true),
   NETTY_CONNECTION_BYTES_SENT("nettyConnection", true),
-  NETTY_CONNECTION_BYTES_RECEIVED("nettyConnection", true);
+  NETTY_CONNECTION_BYTES_RECEIVED("nettyConnection", true),
+  // Responses dropped because they exceed the max response size
+  NETTY_CONNECTION_RESPONSES_TOO_LARGE("nettyConnection", true),
+
+  // Broker result cache metrics
+  BROKER_RESULT_CACHE_HITS("queries", true),
+  BROKER_RESULT_CACHE_MISSES("queries", true),
+
+  // Broker request template cache metrics
+  REQUEST_TEMPLATE_CACHE_HITS("queries", true),
+  REQUEST_TEMPLATE_CACHE_MISSES("queries", true),
+
+  // Requests re-sent to another replica because the server did not respond in time
+  HEDGED_REQUESTS_SENT("requests", false);
 
   private final String brokerMeterName;
   private final String unit;
@@ -45,7 +45,9 @@ public enum ServerGauge implements AbstractMetrics.Gauge {
   REALTIME_OFFHEAP_MEMORY_USED("bytes", false),
   RUNNING_QUERIES("runningQueries", false),
   REALTIME_SEGMENT_NUM_PARTITIONS("realtimeSegmentNumPartitions", false),
-  LLC_SIMULTANEOUS_SEGMENT_BUILDS("llcSimultaneousSegmentBuilds", true);
+  LLC_SIMULTANEOUS_SEGMENT_BUILDS("llcSimultaneousSegmentBuilds", true),
+  FILTER_BITMAP_CACHE_SIZE_IN_BYTES("bytes", true),
+  SEGMENT_RESULT_CACHE_SIZE_IN_BYTES("bytes", true);
 
   private final String gaugeName;
   private final String unit;
@@ -59,7 +59,12 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   NUM_SEGMENTS_MATCHED("numSegmentsMatched", false),
   NUM_MISSING_SEGMENTS("segments", false),
   RELOAD_FAILURES("segments", false),
-  REFRESH_FAILURES("segments", false);
+  REFRESH_FAILURES("segments", false),
+  FILTER_BITMAP_CACHE_HITS("hits", true),
+  FILTER_BITMAP_CACHE_MISSES("misses", true),
+  FILTER_BITMAP_CACHE_EVICTIONS("evictions", true),
+  SEGMENT_RESULT_CACHE_HITS("hits", true),
+  SEGMENT_RESULT_CACHE_MISSES("misses", true);
 
   private final String meterName;
   private final String unit;
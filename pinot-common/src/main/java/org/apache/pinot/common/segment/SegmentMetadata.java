@@ -87,6 +87,8 @@ public interface SegmentMetadata {
 
   String getBloomFilterFileName(String column);
 
+  String getRangeIndexFileName(String column);
+
   String getCreatorName();
 
   char getPaddingCharacter();
@@ -122,6 +122,41 @@ public class CommonConstants {
         "pinot.broker.refresh.timeBoundaryInfo.sleepInterval";
     public static final long DEFAULT_BROKER_REFRESH_TIMEBOUNDARY_INFO_SLEEP_INTERVAL_MS = 10000L;
 
+    // Netty configs for the channels between broker and servers
+    public static final String CONFIG_OF_NETTY_NATIVE_TRANSPORT_ENABLED = "pinot.broker.netty.nativeTransportEnabled";
+    public static final boolean DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED = false;
+    // 0 means using the Netty default (2 * number of cores)
+    public static final String CONFIG_OF_NETTY_NUM_EVENT_LOOP_THREADS = "pinot.broker.netty.numEventLoopThreads";
+    public static final int DEFAULT_NETTY_NUM_EVENT_LOOP_THREADS = 0;
+    public static final String CONFIG_OF_NETTY_FLUSH_CONSOLIDATION_ENABLED =
+        "pinot.broker.netty.flushConsolidationEnabled";
+    public static final boolean DEFAULT_NETTY_FLUSH_CONSOLIDATION_ENABLED = false;
+    public static final String CONFIG_OF_NETTY_MAX_RESPONSE_SIZE_BYTES = "pinot.broker.netty.maxResponseSizeBytes";
+    public static final int DEFAULT_NETTY_MAX_RESPONSE_SIZE_BYTES = Integer.MAX_VALUE;
+
+    // Max size of the broker result cache, 0 (default) to disable the cache (the cache is also opt-in per table through
+    // the table custom config)
+    public static final String CONFIG_OF_BROKER_RESULT_CACHE_SIZE_IN_BYTES = "pinot.broker.resultCache.sizeInBytes";
+    public static final long DEFAULT_BROKER_RESULT_CACHE_SIZE_IN_BYTES = 0L;
+
+    // Max number of the compiled query templates (queries with the literals parameterized) to cache, 0 to disable the
+    // cache
+    public static final String CONFIG_OF_BROKER_REQUEST_TEMPLATE_CACHE_SIZE = "pinot.broker.requestTemplateCache.size";
+    public static final int DEFAULT_BROKER_REQUEST_TEMPLATE_CACHE_SIZE = 1000;
+
+    // Hedged requests: when a server has not responded after the configured percentile (e.g. 95) of the recent server
+    // response latencies of the table, send the same request to another replica and take the first response. Negative
+    // percentile disables the request hedging.
+    public static final String CONFIG_OF_HEDGED_REQUEST_PERCENTILE = "pinot.broker.hedgedRequest.percentile";
+    public static final double DEFAULT_HEDGED_REQUEST_PERCENTILE = -1;
+    public static final String CONFIG_OF_HEDGED_REQUEST_MIN_DELAY_MS = "pinot.broker.hedgedRequest.minDelayMs";
+    public static final long DEFAULT_HEDGED_REQUEST_MIN_DELAY_MS = 10L;
+
+    // Whether to prune the segments not overlapping with the time filter of the query on the broker side, based on the
+    // segment start/end time in the segment ZK metadata
+    public static final String CONFIG_OF_TIME_SEGMENT_PRUNING_ENABLED = "pinot.broker.timeSegmentPruning.enabled";
+    public static final boolean DEFAULT_TIME_SEGMENT_PRUNING_ENABLED = true;
+
     public static class Request {
       public static final String PQL = "pql";
       public static final String TRACE = "trace";
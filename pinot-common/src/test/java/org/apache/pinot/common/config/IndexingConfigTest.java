@@ -50,6 +50,8 @@ public class IndexingConfigTest {
     indexingConfig.setOnHeapDictionaryColumns(onHeapDictionaryColumns);
     List<String> bloomFilterColumns = Arrays.asList("a", "b");
     indexingConfig.setBloomFilterColumns(bloomFilterColumns);
+    List<String> rangeIndexColumns = Arrays.asList("c", "d");
+    indexingConfig.setRangeIndexColumns(rangeIndexColumns);
     Map<String, String> noDictionaryConfig = new HashMap<>();
     noDictionaryConfig.put("a", "SNAPPY");
     noDictionaryConfig.put("b", "PASS_THROUGH");
@@ -63,6 +65,7 @@ public class IndexingConfigTest {
     assertEquals(indexingConfig.getSortedColumn(), sortedColumn);
     assertEquals(indexingConfig.getOnHeapDictionaryColumns(), onHeapDictionaryColumns);
     assertEquals(indexingConfig.getBloomFilterColumns(), bloomFilterColumns);
+    assertEquals(indexingConfig.getRangeIndexColumns(), rangeIndexColumns);
     assertEquals(indexingConfig.getNoDictionaryConfig(), noDictionaryConfig);
   }
 
@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.bloom;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+
+
+/**
+ * Blocked bloom filter which can be read directly from the (memory-mapped) {@link PinotDataBuffer} without
+ * deserialization.
+ * <p>The bits are split into blocks of 512 bits (the size of a cache line), and all the bits for an element are set in
+ * the same block, so that checking an element accesses at most one cache line. A single 64-bit hash is computed for
+ * each element: the higher 32 bits select the block, and the lower 32 bits generate the bit positions inside the block
+ * with double hashing.
+ * <p>Serialized format (after the type and version written by the bloom filter creator):
+ * <ul>
+ *   <li>Number of hash functions (int)</li>
+ *   <li>Number of blocks (int)</li>
+ *   <li>Bits of the blocks (8 longs per block, big-endian)</li>
+ * </ul>
+ */
+public class OffHeapBlockedBloomFilter implements BloomFilter {
+  // Increment the version when the bloom filter implementation becomes backward incompatible
+  private static final int VERSION = 1;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+  private static final int NUM_BITS_PER_BLOCK = 512;
+  private static final int NUM_LONGS_PER_BLOCK = NUM_BITS_PER_BLOCK / Long.SIZE;
+  private static final int NUM_BYTES_PER_BLOCK = NUM_BITS_PER_BLOCK / Byte.SIZE;
+  private static final int BIT_MASK = NUM_BITS_PER_BLOCK - 1;
+  // Size of the header (number of hash functions and number of blocks)
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private int _numHashFunctions;
+  private int _numBlocks;
+
+  // Bits on heap, used when creating the bloom filter
+  private long[] _bits;
+
+  // Bits in the data buffer, used when reading the bloom filter
+  private PinotDataBuffer _dataBuffer;
+  private long _bitsOffset;
+
+  public OffHeapBlockedBloomFilter() {
+  }
+
+  public OffHeapBlockedBloomFilter(int cardinality, double maxFalsePosProbability) {
+    Preconditions.checkArgument(maxFalsePosProbability > 0.0 && maxFalsePosProbability < 1.0,
+        "Invalid maxFalsePosProbability: %s", maxFalsePosProbability);
+    cardinality = Math.max(cardinality, 1);
+    long numBits = BloomFilterUtil.computeNumBits(cardinality, maxFalsePosProbability);
+    _numBlocks = (int) Math.max((numBits + NUM_BITS_PER_BLOCK - 1) / NUM_BITS_PER_BLOCK, 1);
+    _numHashFunctions = BloomFilterUtil.computeNumberOfHashFunctions(cardinality, numBits);
+    _bits = new long[_numBlocks * NUM_LONGS_PER_BLOCK];
+  }
+
+  /**
+   * Reads the bloom filter from the data buffer without copying the bits.
+   *
+   * @param dataBuffer Big-endian data buffer
+   * @param offset Offset of the bloom filter (after the type and version) in the data buffer
+   */
+  public OffHeapBlockedBloomFilter(PinotDataBuffer dataBuffer, long offset) {
+    _dataBuffer = dataBuffer;
+    _numHashFunctions = dataBuffer.getInt(offset);
+    _numBlocks = dataBuffer.getInt(offset + Integer.BYTES);
+    _bitsOffset = offset + HEADER_SIZE;
+    Preconditions.checkState(dataBuffer.size() >= _bitsOffset + (long) _numBlocks * NUM_BYTES_PER_BLOCK,
+        "Data buffer is too small for %s blocks", _numBlocks);
+  }
+
+  @Override
+  public int getVersion() {
+    return VERSION;
+  }
+
+  @Override
+  public BloomFilterType getBloomFilterType() {
+    return BloomFilterType.OFF_HEAP_BLOCKED;
+  }
+
+  @Override
+  public void add(Object input) {
+    long hash = hash(input);
+    int blockStartIndex = getBlockIndex(hash) * NUM_LONGS_PER_BLOCK;
+    int hash1 = (int) hash;
+    int hash2 = getSecondHash(hash);
+    for (int i = 0; i < _numHashFunctions; i++) {
+      int bitIndex = (hash1 + i * hash2) & BIT_MASK;
+      _bits[blockStartIndex + (bitIndex >>> 6)] |= 1L << bitIndex;
+    }
+  }
+
+  @Override
+  public boolean mightContain(Object input) {
+    long hash = hash(input);
+    int blockIndex = getBlockIndex(hash);
+    int hash1 = (int) hash;
+    int hash2 = getSecondHash(hash);
+    if (_bits != null) {
+      int blockStartIndex = blockIndex * NUM_LONGS_PER_BLOCK;
+      for (int i = 0; i < _numHashFunctions; i++) {
+        int bitIndex = (hash1 + i * hash2) & BIT_MASK;
+        if ((_bits[blockStartIndex + (bitIndex >>> 6)] & (1L << bitIndex)) == 0) {
+          return false;
+        }
+      }
+    } else {
+      long blockOffset = _bitsOffset + (long) blockIndex * NUM_BYTES_PER_BLOCK;
+      for (int i = 0; i < _numHashFunctions; i++) {
+        int bitIndex = (hash1 + i * hash2) & BIT_MASK;
+        if ((_dataBuffer.getLong(blockOffset + ((bitIndex >>> 6) << 3)) & (1L << bitIndex)) == 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void writeTo(OutputStream out)
+      throws IOException {
+    Preconditions.checkState(_bits != null, "Bloom filter read from data buffer cannot be written");
+    DataOutputStream dataOutputStream = new DataOutputStream(out);
+    dataOutputStream.writeInt(_numHashFunctions);
+    dataOutputStream.writeInt(_numBlocks);
+    for (long bits : _bits) {
+      dataOutputStream.writeLong(bits);
+    }
+    dataOutputStream.flush();
+  }
+
+  @Override
+  public void readFrom(InputStream in)
+      throws IOException {
+    DataInputStream dataInputStream = new DataInputStream(in);
+    _numHashFunctions = dataInputStream.readInt();
+    _numBlocks = dataInputStream.readInt();
+    _bits = new long[_numBlocks * NUM_LONGS_PER_BLOCK];
+    for (int i = 0; i < _bits.length; i++) {
+      _bits[i] = dataInputStream.readLong();
+    }
+    _dataBuffer = null;
+  }
+
+  private static long hash(Object input) {
+    return HASH_FUNCTION.hashUnencodedChars(input.toString()).asLong();
+  }
+
+  /**
+   * Maps the higher 32 bits of the hash into [0, numBlocks) with multiplication instead of modulo.
+   */
+  private int getBlockIndex(long hash) {
+    return (int) (((hash >>> 32) * _numBlocks) >>> 32);
+  }
+
+  /**
+   * Returns an odd second hash so that the bit positions for the hash functions are all different.
+   */
+  private static int getSecondHash(long hash) {
+    return Integer.rotateLeft((int) hash, 16) | 1;
+  }
+}
@@ -31,8 +31,8 @@ public class SegmentBloomFilterFactory {
    * @return a bloom filter
    */
   public static BloomFilter createSegmentBloomFilter(int cardinality, double maxFalsePosProbability) {
-    // TODO: when we add more types of bloom filter, we will need to add a new config and wire in here
-    return new GuavaOnHeapBloomFilter(cardinality, maxFalsePosProbability);
+    // TODO: add a config for the bloom filter type if needed
+    return new OffHeapBlockedBloomFilter(cardinality, maxFalsePosProbability);
   }
 
   /**
@@ -45,6 +45,8 @@ public class SegmentBloomFilterFactory {
     switch (type) {
       case GUAVA_ON_HEAP:
         return new GuavaOnHeapBloomFilter();
+      case OFF_HEAP_BLOCKED:
+        return new OffHeapBlockedBloomFilter();
     }
     throw new RuntimeException("Invalid bloom filter type: " + type.toString());
   }
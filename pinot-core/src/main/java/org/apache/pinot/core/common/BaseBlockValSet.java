@@ -19,6 +19,7 @@
 package org.apache.pinot.core.common;
 
 import org.apache.pinot.common.data.FieldSpec;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
 
 
 /**
@@ -35,6 +36,11 @@ public abstract class BaseBlockValSet implements BlockValSet {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public Dictionary getDictionary() {
+    return null;
+  }
+
   @Override
   public void getDictionaryIds(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outDictionaryIds,
       int outStartPos) {
@@ -32,6 +32,21 @@ public abstract class BlockSingleValIterator implements BlockValIterator {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Reads up to the given number of next int values (or dictionary ids) into the buffer.
+   *
+   * @param buffer Buffer for the values
+   * @param length Maximum number of values to read
+   * @return Number of values read, less than the given length if there are not enough values left
+   */
+  public int nextIntVals(int[] buffer, int length) {
+    int numValuesRead = 0;
+    while (numValuesRead < length && hasNext()) {
+      buffer[numValuesRead++] = nextIntVal();
+    }
+    return numValuesRead;
+  }
+
   public float nextFloatVal() {
     throw new UnsupportedOperationException();
   }
@@ -18,7 +18,9 @@
  */
 package org.apache.pinot.core.common;
 
+import javax.annotation.Nullable;
 import org.apache.pinot.common.data.FieldSpec.DataType;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
 
 
 public interface BlockValSet {
@@ -27,6 +29,13 @@ public interface BlockValSet {
 
   DataType getValueType();
 
+  /**
+   * Returns the dictionary for the dictionary ids returned by the block value set, or {@code null} if the values are not
+   * dictionary-encoded.
+   */
+  @Nullable
+  Dictionary getDictionary();
+
   /**
    * DOCUMENT ID BASED APIs
    */
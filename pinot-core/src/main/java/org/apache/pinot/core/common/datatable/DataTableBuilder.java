@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.common.datatable;
 
+import com.google.common.base.Preconditions;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -80,13 +81,21 @@ import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils
  *
  */
 // TODO: potential optimizations:
-// TODO:   1. Fix float size.
-// TODO:   2. Use one dictionary for all columns (save space).
-// TODO:   3. Given a data schema, write all values one by one instead of using rowId and colId to position (save time).
+// TODO:   1. Use one dictionary for all columns (save space).
+// TODO:   2. Given a data schema, write all values one by one instead of using rowId and colId to position (save time).
 public class DataTableBuilder {
+  private static final int INITIAL_NUM_ROWS_FOR_COLUMNAR_DATA = 16;
+
+  // Highest version of the data tables built on this instance. The version used for a query is negotiated with the
+  // broker, which advertises the highest version it can read in the instance request.
+  private static volatile int _currentVersion = DataTableFactory.VERSION_2;
+
   private final DataSchema _dataSchema;
   private final int[] _columnOffsets;
   private final int _rowSizeInBytes;
+  // Only used for version 3 (column-major fixed size data)
+  private final int[] _columnSizes;
+  private final ByteBuffer[] _columnDataByteBuffers;
   private final Map<String, Map<String, Integer>> _dictionaryMap = new HashMap<>();
   private final Map<String, Map<Integer, String>> _reverseDictionaryMap = new HashMap<>();
   private final ByteArrayOutputStream _fixedSizeDataByteArrayOutputStream = new ByteArrayOutputStream();
@@ -98,58 +107,127 @@ public class DataTableBuilder {
   private ByteBuffer _currentRowDataByteBuffer;
 
   public DataTableBuilder(@Nonnull DataSchema dataSchema) {
+    this(dataSchema, _currentVersion);
+  }
+
+  public DataTableBuilder(@Nonnull DataSchema dataSchema, int version) {
+    checkVersion(version);
     _dataSchema = dataSchema;
-    _columnOffsets = new int[dataSchema.size()];
-    _rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, _columnOffsets);
+    int numColumns = dataSchema.size();
+    _columnOffsets = new int[numColumns];
+    _rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, _columnOffsets, version);
+    if (version >= DataTableFactory.VERSION_3) {
+      _columnSizes = new int[numColumns];
+      _columnDataByteBuffers = new ByteBuffer[numColumns];
+      for (int i = 0; i < numColumns; i++) {
+        int columnSize = (i < numColumns - 1 ? _columnOffsets[i + 1] : _rowSizeInBytes) - _columnOffsets[i];
+        _columnSizes[i] = columnSize;
+        _columnDataByteBuffers[i] = ByteBuffer.allocate(INITIAL_NUM_ROWS_FOR_COLUMNAR_DATA * columnSize);
+      }
+    } else {
+      _columnSizes = null;
+      _columnDataByteBuffers = null;
+    }
+  }
+
+  /**
+   * Sets the highest version of the data tables built on this instance, which applies to the builders created
+   * afterwards.
+   */
+  public static void setCurrentDataTableVersion(int version) {
+    checkVersion(version);
+    _currentVersion = version;
+  }
+
+  public static int getCurrentDataTableVersion() {
+    return _currentVersion;
+  }
+
+  /**
+   * Returns the version of the data table to build for a query, which is the lower one of the highest version built
+   * on this instance and the highest version the broker can read.
+   */
+  public static int negotiateDataTableVersion(int brokerDataTableVersion) {
+    return Math.min(_currentVersion, brokerDataTableVersion);
+  }
+
+  private static void checkVersion(int version) {
+    Preconditions.checkArgument(version == DataTableFactory.VERSION_2 || version == DataTableFactory.VERSION_3,
+        "Unsupported data table version: %s", version);
   }
 
   public void startRow() {
     _numRows++;
-    _currentRowDataByteBuffer = ByteBuffer.allocate(_rowSizeInBytes);
+    if (_columnDataByteBuffers == null) {
+      _currentRowDataByteBuffer = ByteBuffer.allocate(_rowSizeInBytes);
+    } else {
+      // Make sure each column buffer has enough space for the new row
+      int numColumns = _columnDataByteBuffers.length;
+      for (int i = 0; i < numColumns; i++) {
+        byte[] columnData = _columnDataByteBuffers[i].array();
+        if (_numRows * _columnSizes[i] > columnData.length) {
+          _columnDataByteBuffers[i] = ByteBuffer.wrap(Arrays.copyOf(columnData, columnData.length << 1));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the byte buffer positioned to the fixed size value of the given column in the current row.
+   */
+  private ByteBuffer getCurrentValueByteBuffer(int colId) {
+    if (_columnDataByteBuffers == null) {
+      _currentRowDataByteBuffer.position(_columnOffsets[colId]);
+      return _currentRowDataByteBuffer;
+    } else {
+      ByteBuffer columnDataByteBuffer = _columnDataByteBuffers[colId];
+      columnDataByteBuffer.position((_numRows - 1) * _columnSizes[colId]);
+      return columnDataByteBuffer;
+    }
   }
 
   public void setColumn(int colId, boolean value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
     if (value) {
-      _currentRowDataByteBuffer.put((byte) 1);
+      byteBuffer.put((byte) 1);
     } else {
-      _currentRowDataByteBuffer.put((byte) 0);
+      byteBuffer.put((byte) 0);
     }
   }
 
   public void setColumn(int colId, byte value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.put(value);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.put(value);
   }
 
   public void setColumn(int colId, char value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putChar(value);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putChar(value);
   }
 
   public void setColumn(int colId, short value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putShort(value);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putShort(value);
   }
 
   public void setColumn(int colId, int value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(value);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(value);
   }
 
   public void setColumn(int colId, long value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putLong(value);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putLong(value);
   }
 
   public void setColumn(int colId, float value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putFloat(value);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putFloat(value);
   }
 
   public void setColumn(int colId, double value) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putDouble(value);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putDouble(value);
   }
 
   public void setColumn(int colId, @Nonnull String value) {
@@ -161,31 +239,31 @@ public class DataTableBuilder {
       _reverseDictionaryMap.put(columnName, new HashMap<>());
     }
 
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
     Integer dictId = dictionary.get(value);
     if (dictId == null) {
       dictId = dictionary.size();
       dictionary.put(value, dictId);
       _reverseDictionaryMap.get(columnName).put(dictId, value);
     }
-    _currentRowDataByteBuffer.putInt(dictId);
+    byteBuffer.putInt(dictId);
   }
 
   public void setColumn(int colId, @Nonnull Object value)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
     int objectTypeValue = ObjectSerDeUtils.ObjectType.getObjectType(value).getValue();
     byte[] bytes = ObjectSerDeUtils.serialize(value, objectTypeValue);
-    _currentRowDataByteBuffer.putInt(bytes.length);
+    byteBuffer.putInt(bytes.length);
     _variableSizeDataOutputStream.writeInt(objectTypeValue);
     _variableSizeDataByteArrayOutputStream.write(bytes);
   }
 
   public void setColumn(int colId, @Nonnull byte[] values) {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (byte value : values) {
       _variableSizeDataByteArrayOutputStream.write(value);
     }
@@ -193,9 +271,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, @Nonnull char[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (char value : values) {
       _variableSizeDataOutputStream.writeChar(value);
     }
@@ -203,9 +281,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, @Nonnull short[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (short value : values) {
       _variableSizeDataOutputStream.writeShort(value);
     }
@@ -213,9 +291,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, @Nonnull int[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (int value : values) {
       _variableSizeDataOutputStream.writeInt(value);
     }
@@ -223,9 +301,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, @Nonnull long[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (long value : values) {
       _variableSizeDataOutputStream.writeLong(value);
     }
@@ -233,9 +311,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, @Nonnull float[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (float value : values) {
       _variableSizeDataOutputStream.writeFloat(value);
     }
@@ -243,9 +321,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, @Nonnull double[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
     for (double value : values) {
       _variableSizeDataOutputStream.writeDouble(value);
     }
@@ -253,9 +331,9 @@ public class DataTableBuilder {
 
   public void setColumn(int colId, @Nonnull String[] values)
       throws IOException {
-    _currentRowDataByteBuffer.position(_columnOffsets[colId]);
-    _currentRowDataByteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
-    _currentRowDataByteBuffer.putInt(values.length);
+    ByteBuffer byteBuffer = getCurrentValueByteBuffer(colId);
+    byteBuffer.putInt(_variableSizeDataByteArrayOutputStream.size());
+    byteBuffer.putInt(values.length);
 
     String columnName = _dataSchema.getColumnName(colId);
     Map<String, Integer> dictionary = _dictionaryMap.get(columnName);
@@ -278,18 +356,40 @@ public class DataTableBuilder {
 
   public void finishRow()
       throws IOException {
-    _fixedSizeDataByteArrayOutputStream.write(_currentRowDataByteBuffer.array());
+    if (_columnDataByteBuffers == null) {
+      _fixedSizeDataByteArrayOutputStream.write(_currentRowDataByteBuffer.array());
+    }
   }
 
   public DataTable build() {
+    if (_columnDataByteBuffers != null) {
+      // Concatenate the column buffers into the column-major fixed size data
+      int numColumns = _columnDataByteBuffers.length;
+      byte[] fixedSizeDataBytes = new byte[_numRows * _rowSizeInBytes];
+      String[][] dictionaries = new String[numColumns][];
+      for (int i = 0; i < numColumns; i++) {
+        System.arraycopy(_columnDataByteBuffers[i].array(), 0, fixedSizeDataBytes, _numRows * _columnOffsets[i],
+            _numRows * _columnSizes[i]);
+        Map<Integer, String> reverseDictionary = _reverseDictionaryMap.get(_dataSchema.getColumnName(i));
+        if (reverseDictionary != null) {
+          String[] dictionary = new String[reverseDictionary.size()];
+          for (Map.Entry<Integer, String> entry : reverseDictionary.entrySet()) {
+            dictionary[entry.getKey()] = entry.getValue();
+          }
+          dictionaries[i] = dictionary;
+        }
+      }
+      return new DataTableImplV3(_numRows, _dataSchema, dictionaries, fixedSizeDataBytes,
+          _variableSizeDataByteArrayOutputStream.toByteArray());
+    }
     return new DataTableImplV2(_numRows, _dataSchema, _reverseDictionaryMap,
         _fixedSizeDataByteArrayOutputStream.toByteArray(), _variableSizeDataByteArrayOutputStream.toByteArray());
   }
 
   /**
-   * Build an empty data table based on the broker request.
+   * Build an empty data table of the given version based on the broker request.
    */
-  public static DataTable buildEmptyDataTable(BrokerRequest brokerRequest)
+  public static DataTable buildEmptyDataTable(BrokerRequest brokerRequest, int version)
       throws IOException {
     // Selection query.
     if (brokerRequest.isSetSelections()) {
@@ -301,7 +401,7 @@ public class DataTableBuilder {
       Arrays.fill(columnDataTypes, DataSchema.ColumnDataType.STRING);
       DataSchema dataSchema =
           new DataSchema(selectionColumns.toArray(new String[numSelectionColumns]), columnDataTypes);
-      return new DataTableBuilder(dataSchema).build();
+      return new DataTableBuilder(dataSchema, version).build();
     }
 
     // Aggregation query.
@@ -319,7 +419,7 @@ public class DataTableBuilder {
           new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.OBJECT};
 
       // Build the data table.
-      DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes));
+      DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes), version);
       for (int i = 0; i < numAggregations; i++) {
         dataTableBuilder.startRow();
         dataTableBuilder.setColumn(0, aggregationFunctionContexts[i].getAggregationColumnName());
@@ -343,7 +443,8 @@ public class DataTableBuilder {
       }
 
       // Build the data table.
-      DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(aggregationColumnNames, columnDataTypes));
+      DataTableBuilder dataTableBuilder =
+          new DataTableBuilder(new DataSchema(aggregationColumnNames, columnDataTypes), version);
       dataTableBuilder.startRow();
       for (int i = 0; i < numAggregations; i++) {
         switch (columnDataTypes[i]) {
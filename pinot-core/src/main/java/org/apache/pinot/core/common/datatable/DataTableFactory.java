@@ -24,15 +24,25 @@ import org.apache.pinot.common.utils.DataTable;
 
 
 public class DataTableFactory {
+  public static final int VERSION_2 = 2;
+  public static final int VERSION_3 = 3;
+
   private DataTableFactory() {
   }
 
+  /**
+   * Deserializes the data table from the given byte buffer.
+   * <p>NOTE: data table of version 3 reads values directly from the given byte buffer without copying, so the content
+   * of the byte buffer should not be modified after calling this method.
+   */
   public static DataTable getDataTable(ByteBuffer byteBuffer)
       throws IOException {
     int version = byteBuffer.getInt();
     switch (version) {
-      case 2:
+      case VERSION_2:
         return new DataTableImplV2(byteBuffer);
+      case VERSION_3:
+        return new DataTableImplV3(byteBuffer);
       default:
         throw new UnsupportedOperationException("Unsupported data table version: " + version);
     }
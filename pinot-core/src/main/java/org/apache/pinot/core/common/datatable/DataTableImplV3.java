@@ -0,0 +1,499 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.common.datatable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.pinot.common.response.ProcessingException;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.common.utils.StringUtil;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+
+
+/**
+ * Data table of version 3, which differs from version 2 in the following aspects:
+ * <ul>
+ *   <li>
+ *     The fixed size data is stored column-major: all the values of a column are stored contiguously, where the values
+ *     of column <code>colId</code> start at <code>numRows * columnOffsets[colId]</code>.
+ *   </li>
+ *   <li>FLOAT values take 4 bytes instead of 8 bytes.</li>
+ *   <li>
+ *     The string dictionaries are stored per column as arrays indexed by the dictionary id instead of maps keyed by the
+ *     column name.
+ *   </li>
+ *   <li>
+ *     {@link #toBytes()} computes the serialized size up-front and writes all the sections into a single pre-sized
+ *     buffer.
+ *   </li>
+ *   <li>
+ *     The de-serialized data table reads the fixed size and variable size data directly from the given byte buffer
+ *     without copying them. Note that the broker still copies each response out of the network buffer once before
+ *     de-serializing it.
+ *   </li>
+ * </ul>
+ */
+public class DataTableImplV3 implements DataTable {
+  private static final int VERSION = DataTableFactory.VERSION_3;
+
+  // VERSION
+  // NUM_ROWS
+  // NUM_COLUMNS
+  // DICTIONARIES (START|SIZE)
+  // METADATA (START|SIZE)
+  // DATA_SCHEMA (START|SIZE)
+  // FIXED_SIZE_DATA (START|SIZE)
+  // VARIABLE_SIZE_DATA (START|SIZE)
+  private static final int HEADER_SIZE = Integer.BYTES * 13;
+
+  private final int _numRows;
+  private final int _numColumns;
+  private final DataSchema _dataSchema;
+  private final int[] _columnOffsets;
+  private final int[] _columnSizes;
+  private final String[][] _dictionaries;
+  private final ByteBuffer _fixedSizeData;
+  private final ByteBuffer _variableSizeData;
+  private final Map<String, String> _metadata;
+
+  /**
+   * Construct data table with results. (Server side)
+   *
+   * @param numRows Number of rows
+   * @param dataSchema Data schema
+   * @param dictionaries Per column string dictionaries indexed by the dictionary id, <code>null</code> for columns
+   *                     without dictionary
+   * @param fixedSizeDataBytes Column-major fixed size data
+   * @param variableSizeDataBytes Variable size data
+   */
+  public DataTableImplV3(int numRows, @Nonnull DataSchema dataSchema, @Nonnull String[][] dictionaries,
+      @Nonnull byte[] fixedSizeDataBytes, @Nonnull byte[] variableSizeDataBytes) {
+    _numRows = numRows;
+    _numColumns = dataSchema.size();
+    _dataSchema = dataSchema;
+    _columnOffsets = new int[_numColumns];
+    _columnSizes = computeColumnSizes(dataSchema, _columnOffsets);
+    _dictionaries = dictionaries;
+    _fixedSizeData = ByteBuffer.wrap(fixedSizeDataBytes);
+    _variableSizeData = ByteBuffer.wrap(variableSizeDataBytes);
+    _metadata = new HashMap<>();
+  }
+
+  /**
+   * Construct empty data table. (Server side)
+   */
+  public DataTableImplV3() {
+    _numRows = 0;
+    _numColumns = 0;
+    _dataSchema = null;
+    _columnOffsets = null;
+    _columnSizes = null;
+    _dictionaries = null;
+    _fixedSizeData = null;
+    _variableSizeData = null;
+    _metadata = new HashMap<>();
+  }
+
+  /**
+   * Construct data table from byte buffer. (broker side)
+   * <p>NOTE: the fixed size and variable size data are not copied out of the byte buffer, so the content of the byte
+   * buffer should not be modified afterwards.
+   */
+  public DataTableImplV3(@Nonnull ByteBuffer byteBuffer)
+      throws IOException {
+    // Read header.
+    int headerStart = byteBuffer.position() - Integer.BYTES;
+    _numRows = byteBuffer.getInt();
+    _numColumns = byteBuffer.getInt();
+    int dictionariesStart = headerStart + byteBuffer.getInt();
+    int dictionariesLength = byteBuffer.getInt();
+    int metadataStart = headerStart + byteBuffer.getInt();
+    byteBuffer.getInt();
+    int dataSchemaStart = headerStart + byteBuffer.getInt();
+    int dataSchemaLength = byteBuffer.getInt();
+    int fixedSizeDataStart = headerStart + byteBuffer.getInt();
+    int fixedSizeDataLength = byteBuffer.getInt();
+    int variableSizeDataStart = headerStart + byteBuffer.getInt();
+    int variableSizeDataLength = byteBuffer.getInt();
+
+    // Read metadata.
+    byteBuffer.position(metadataStart);
+    int numEntries = byteBuffer.getInt();
+    _metadata = new HashMap<>(numEntries);
+    for (int i = 0; i < numEntries; i++) {
+      String key = decodeString(byteBuffer);
+      String value = decodeString(byteBuffer);
+      _metadata.put(key, value);
+    }
+
+    // Read data schema.
+    if (dataSchemaLength != 0) {
+      byte[] schemaBytes = new byte[dataSchemaLength];
+      byteBuffer.position(dataSchemaStart);
+      byteBuffer.get(schemaBytes);
+      _dataSchema = DataSchema.fromBytes(schemaBytes);
+      _columnOffsets = new int[_numColumns];
+      _columnSizes = computeColumnSizes(_dataSchema, _columnOffsets);
+    } else {
+      _dataSchema = null;
+      _columnOffsets = null;
+      _columnSizes = null;
+    }
+
+    // Read dictionaries.
+    if (dictionariesLength != 0) {
+      byteBuffer.position(dictionariesStart);
+      _dictionaries = new String[_numColumns][];
+      for (int colId = 0; colId < _numColumns; colId++) {
+        int dictionarySize = byteBuffer.getInt();
+        if (dictionarySize != 0) {
+          String[] dictionary = new String[dictionarySize];
+          for (int dictId = 0; dictId < dictionarySize; dictId++) {
+            dictionary[dictId] = decodeString(byteBuffer);
+          }
+          _dictionaries[colId] = dictionary;
+        }
+      }
+    } else {
+      _dictionaries = null;
+    }
+
+    // Slice fixed size and variable size data without copying.
+    _fixedSizeData = fixedSizeDataLength != 0 ? slice(byteBuffer, fixedSizeDataStart, fixedSizeDataLength) : null;
+    _variableSizeData =
+        variableSizeDataLength != 0 ? slice(byteBuffer, variableSizeDataStart, variableSizeDataLength) : null;
+  }
+
+  private static int[] computeColumnSizes(DataSchema dataSchema, int[] columnOffsets) {
+    int numColumns = columnOffsets.length;
+    int rowSizeInBytes = DataTableUtils.computeColumnOffsets(dataSchema, columnOffsets, VERSION);
+    int[] columnSizes = new int[numColumns];
+    for (int i = 0; i < numColumns - 1; i++) {
+      columnSizes[i] = columnOffsets[i + 1] - columnOffsets[i];
+    }
+    if (numColumns > 0) {
+      columnSizes[numColumns - 1] = rowSizeInBytes - columnOffsets[numColumns - 1];
+    }
+    return columnSizes;
+  }
+
+  private static ByteBuffer slice(ByteBuffer byteBuffer, int start, int length) {
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.limit(start + length);
+    duplicate.position(start);
+    return duplicate.slice();
+  }
+
+  private static String decodeString(ByteBuffer byteBuffer) {
+    int length = byteBuffer.getInt();
+    if (length == 0) {
+      return StringUtils.EMPTY;
+    } else {
+      byte[] buffer = new byte[length];
+      byteBuffer.get(buffer);
+      return StringUtil.decodeUtf8(buffer);
+    }
+  }
+
+  @Override
+  public void addException(@Nonnull ProcessingException processingException) {
+    _metadata.put(EXCEPTION_METADATA_KEY + processingException.getErrorCode(), processingException.getMessage());
+  }
+
+  @Nonnull
+  @Override
+  public byte[] toBytes()
+      throws IOException {
+    // Encode all the strings first to compute the size of each section.
+    byte[][][] dictionariesBytes = null;
+    int dictionariesLength = 0;
+    if (_dictionaries != null) {
+      dictionariesBytes = new byte[_numColumns][][];
+      for (int colId = 0; colId < _numColumns; colId++) {
+        dictionariesLength += Integer.BYTES;
+        String[] dictionary = _dictionaries[colId];
+        if (dictionary != null) {
+          int dictionarySize = dictionary.length;
+          byte[][] dictionaryBytes = new byte[dictionarySize][];
+          for (int dictId = 0; dictId < dictionarySize; dictId++) {
+            byte[] valueBytes = StringUtil.encodeUtf8(dictionary[dictId]);
+            dictionaryBytes[dictId] = valueBytes;
+            dictionariesLength += Integer.BYTES + valueBytes.length;
+          }
+          dictionariesBytes[colId] = dictionaryBytes;
+        }
+      }
+    }
+
+    int numEntries = _metadata.size();
+    byte[][] metadataBytes = new byte[numEntries << 1][];
+    int metadataLength = Integer.BYTES;
+    int index = 0;
+    for (Map.Entry<String, String> entry : _metadata.entrySet()) {
+      byte[] keyBytes = StringUtil.encodeUtf8(entry.getKey());
+      byte[] valueBytes = StringUtil.encodeUtf8(entry.getValue());
+      metadataBytes[index++] = keyBytes;
+      metadataBytes[index++] = valueBytes;
+      metadataLength += 2 * Integer.BYTES + keyBytes.length + valueBytes.length;
+    }
+
+    byte[] dataSchemaBytes = null;
+    int dataSchemaLength = 0;
+    if (_dataSchema != null) {
+      dataSchemaBytes = _dataSchema.toBytes();
+      dataSchemaLength = dataSchemaBytes.length;
+    }
+
+    int fixedSizeDataLength = _fixedSizeData != null ? _fixedSizeData.limit() : 0;
+    int variableSizeDataLength = _variableSizeData != null ? _variableSizeData.limit() : 0;
+
+    // Write header.
+    byte[] bytes =
+        new byte[HEADER_SIZE + dictionariesLength + metadataLength + dataSchemaLength + fixedSizeDataLength
+            + variableSizeDataLength];
+    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+    byteBuffer.putInt(VERSION);
+    byteBuffer.putInt(_numRows);
+    byteBuffer.putInt(_numColumns);
+    int dataOffset = HEADER_SIZE;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(dictionariesLength);
+    dataOffset += dictionariesLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(metadataLength);
+    dataOffset += metadataLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(dataSchemaLength);
+    dataOffset += dataSchemaLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(fixedSizeDataLength);
+    dataOffset += fixedSizeDataLength;
+    byteBuffer.putInt(dataOffset);
+    byteBuffer.putInt(variableSizeDataLength);
+
+    // Write dictionaries.
+    if (dictionariesBytes != null) {
+      for (byte[][] dictionaryBytes : dictionariesBytes) {
+        if (dictionaryBytes != null) {
+          byteBuffer.putInt(dictionaryBytes.length);
+          for (byte[] valueBytes : dictionaryBytes) {
+            byteBuffer.putInt(valueBytes.length);
+            byteBuffer.put(valueBytes);
+          }
+        } else {
+          byteBuffer.putInt(0);
+        }
+      }
+    }
+
+    // Write metadata.
+    byteBuffer.putInt(numEntries);
+    for (byte[] keyOrValueBytes : metadataBytes) {
+      byteBuffer.putInt(keyOrValueBytes.length);
+      byteBuffer.put(keyOrValueBytes);
+    }
+
+    // Write data schema.
+    if (dataSchemaBytes != null) {
+      byteBuffer.put(dataSchemaBytes);
+    }
+
+    // Write fixed size and variable size data.
+    if (_fixedSizeData != null) {
+      byteBuffer.put(_fixedSizeData.duplicate());
+    }
+    if (_variableSizeData != null) {
+      byteBuffer.put(_variableSizeData.duplicate());
+    }
+
+    return bytes;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, String> getMetadata() {
+    return _metadata;
+  }
+
+  @Nullable
+  @Override
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  @Override
+  public int getNumberOfRows() {
+    return _numRows;
+  }
+
+  private int getFixedSizeDataOffset(int rowId, int colId) {
+    return _numRows * _columnOffsets[colId] + rowId * _columnSizes[colId];
+  }
+
+  @Override
+  public int getInt(int rowId, int colId) {
+    return _fixedSizeData.getInt(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public long getLong(int rowId, int colId) {
+    return _fixedSizeData.getLong(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public float getFloat(int rowId, int colId) {
+    return _fixedSizeData.getFloat(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public double getDouble(int rowId, int colId) {
+    return _fixedSizeData.getDouble(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Nonnull
+  @Override
+  public String getString(int rowId, int colId) {
+    return _dictionaries[colId][_fixedSizeData.getInt(getFixedSizeDataOffset(rowId, colId))];
+  }
+
+  @Nonnull
+  @Override
+  public <T> T getObject(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int size = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    int objectTypeValue = _variableSizeData.getInt(variableSizeDataOffset);
+    return ObjectSerDeUtils
+        .deserialize(slice(_variableSizeData, variableSizeDataOffset + Integer.BYTES, size), objectTypeValue);
+  }
+
+  @Nonnull
+  @Override
+  public int[] getIntArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      ints[i] = _variableSizeData.getInt(variableSizeDataOffset + i * Integer.BYTES);
+    }
+    return ints;
+  }
+
+  @Nonnull
+  @Override
+  public long[] getLongArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    long[] longs = new long[length];
+    for (int i = 0; i < length; i++) {
+      longs[i] = _variableSizeData.getLong(variableSizeDataOffset + i * Long.BYTES);
+    }
+    return longs;
+  }
+
+  @Nonnull
+  @Override
+  public float[] getFloatArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    float[] floats = new float[length];
+    for (int i = 0; i < length; i++) {
+      floats[i] = _variableSizeData.getFloat(variableSizeDataOffset + i * Float.BYTES);
+    }
+    return floats;
+  }
+
+  @Nonnull
+  @Override
+  public double[] getDoubleArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      doubles[i] = _variableSizeData.getDouble(variableSizeDataOffset + i * Double.BYTES);
+    }
+    return doubles;
+  }
+
+  @Nonnull
+  @Override
+  public String[] getStringArray(int rowId, int colId) {
+    int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+    int variableSizeDataOffset = _fixedSizeData.getInt(fixedSizeDataOffset);
+    int length = _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES);
+    String[] strings = new String[length];
+    String[] dictionary = _dictionaries[colId];
+    for (int i = 0; i < length; i++) {
+      strings[i] = dictionary[_variableSizeData.getInt(variableSizeDataOffset + i * Integer.BYTES)];
+    }
+    return strings;
+  }
+
+  @Override
+  public String toString() {
+    if (_dataSchema == null) {
+      return _metadata.toString();
+    }
+
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(_dataSchema.toString()).append('\n');
+    stringBuilder.append("numRows: ").append(_numRows).append('\n');
+
+    for (int rowId = 0; rowId < _numRows; rowId++) {
+      for (int colId = 0; colId < _numColumns; colId++) {
+        int fixedSizeDataOffset = getFixedSizeDataOffset(rowId, colId);
+        switch (_dataSchema.getColumnDataType(colId)) {
+          case INT:
+            stringBuilder.append(_fixedSizeData.getInt(fixedSizeDataOffset));
+            break;
+          case LONG:
+            stringBuilder.append(_fixedSizeData.getLong(fixedSizeDataOffset));
+            break;
+          case FLOAT:
+            stringBuilder.append(_fixedSizeData.getFloat(fixedSizeDataOffset));
+            break;
+          case DOUBLE:
+            stringBuilder.append(_fixedSizeData.getDouble(fixedSizeDataOffset));
+            break;
+          case STRING:
+            stringBuilder.append(_fixedSizeData.getInt(fixedSizeDataOffset));
+            break;
+          // Object and array.
+          default:
+            stringBuilder.append(String.format("(%s:%s)", _fixedSizeData.getInt(fixedSizeDataOffset),
+                _fixedSizeData.getInt(fixedSizeDataOffset + Integer.BYTES)));
+            break;
+        }
+        stringBuilder.append("\t");
+      }
+      stringBuilder.append("\n");
+    }
+    return stringBuilder.toString();
+  }
+}
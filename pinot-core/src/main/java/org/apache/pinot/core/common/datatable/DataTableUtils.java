@@ -38,6 +38,20 @@ public class DataTableUtils {
    * @return row size in bytes.
    */
   public static int computeColumnOffsets(@Nonnull DataSchema dataSchema, @Nonnull int[] columnOffsets) {
+    return computeColumnOffsets(dataSchema, columnOffsets, DataTableFactory.VERSION_2);
+  }
+
+  /**
+   * Given a {@link DataSchema} and the data table version, compute each column's offset and fill them into the passed
+   * in array, then return the row size in bytes.
+   * <p>Starting from version 3, FLOAT values take 4 bytes instead of 8 bytes.
+   *
+   * @param dataSchema data schema.
+   * @param columnOffsets array of column offsets.
+   * @param version data table version.
+   * @return row size in bytes.
+   */
+  public static int computeColumnOffsets(@Nonnull DataSchema dataSchema, @Nonnull int[] columnOffsets, int version) {
     int numColumns = columnOffsets.length;
     assert numColumns == dataSchema.size();
 
@@ -51,10 +65,9 @@ public class DataTableUtils {
         case LONG:
           rowSizeInBytes += 8;
           break;
-        // TODO: fix float size (should be 4).
-        // For backward compatible, DON'T CHANGE.
+        // NOTE: FLOAT takes 8 bytes in version 2. For backward compatible, DON'T CHANGE.
         case FLOAT:
-          rowSizeInBytes += 8;
+          rowSizeInBytes += version >= DataTableFactory.VERSION_3 ? 4 : 8;
           break;
         case DOUBLE:
           rowSizeInBytes += 8;
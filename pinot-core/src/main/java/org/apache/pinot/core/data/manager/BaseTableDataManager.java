@@ -34,6 +34,9 @@ import org.apache.pinot.common.metrics.ServerMetrics;
 import org.apache.pinot.core.data.manager.config.TableDataManagerConfig;
 import org.apache.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
 import org.apache.pinot.core.indexsegment.immutable.ImmutableSegment;
+import org.apache.pinot.core.operator.filter.FilterBitmapCache;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.segment.index.loader.IndexLoadingConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,6 +75,8 @@ public abstract class BaseTableDataManager implements TableDataManager {
     }
     _logger = LoggerFactory.getLogger(_tableNameWithType + "-" + getClass().getSimpleName());
 
+    SegmentResultCache.setTableEnabled(_tableNameWithType, tableDataManagerConfig.isSegmentResultCacheEnabled());
+
     doInit();
 
     _logger.info("Initialized table data manager for table: {} with data directory: {}", _tableNameWithType,
@@ -93,6 +98,8 @@ public abstract class BaseTableDataManager implements TableDataManager {
   public void shutDown() {
     _logger.info("Shutting down table data manager for table: {}", _tableNameWithType);
     doShutdown();
+    FilterSelectivityStats.removeTableStats(_tableNameWithType);
+    SegmentResultCache.setTableEnabled(_tableNameWithType, false);
     _logger.info("Shut down table data manager for table: {}", _tableNameWithType);
   }
 
@@ -214,6 +221,8 @@ public abstract class BaseTableDataManager implements TableDataManager {
     _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DELETED_SEGMENT_COUNT, 1L);
     _serverMetrics.addValueToTableGauge(_tableNameWithType, ServerGauge.DOCUMENT_COUNT,
         -segmentDataManager.getSegment().getSegmentMetadata().getTotalRawDocs());
+    FilterBitmapCache.invalidateSegment(segmentDataManager.getSegment());
+    SegmentResultCache.invalidateSegment(_tableNameWithType, segmentName);
     segmentDataManager.destroy();
     _logger.info("Closed segment: {} of table: {}", segmentName, _tableNameWithType);
   }
@@ -19,10 +19,12 @@
 package org.apache.pinot.core.data.manager.config;
 
 import com.google.common.base.Preconditions;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.pinot.common.config.TableConfig;
+import org.apache.pinot.common.config.TableCustomConfig;
 import org.apache.pinot.common.config.TableNameBuilder;
 import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
 
@@ -35,6 +37,7 @@ public class TableDataManagerConfig {
   private static final String TABLE_DATA_MANAGER_DATA_DIRECTORY = "directory";
   private static final String TABLE_DATA_MANAGER_CONSUMER_DIRECTORY = "consumerDirectory";
   private static final String TABLE_DATA_MANAGER_NAME = "name";
+  private static final String TABLE_DATA_MANAGER_SEGMENT_RESULT_CACHE_ENABLED = "segmentResultCacheEnabled";
 
   private final Configuration _tableDataManagerConfig;
 
@@ -62,6 +65,10 @@ public class TableDataManagerConfig {
     return _tableDataManagerConfig.getString(TABLE_DATA_MANAGER_NAME);
   }
 
+  public boolean isSegmentResultCacheEnabled() {
+    return _tableDataManagerConfig.getBoolean(TABLE_DATA_MANAGER_SEGMENT_RESULT_CACHE_ENABLED, false);
+  }
+
   public static TableDataManagerConfig getDefaultHelixTableDataManagerConfig(
       @Nonnull InstanceDataManagerConfig instanceDataManagerConfig, @Nonnull String tableNameWithType) {
     Configuration defaultConfig = new PropertiesConfiguration();
@@ -79,9 +86,12 @@ public class TableDataManagerConfig {
   public void overrideConfigs(@Nonnull TableConfig tableConfig) {
     // Override table level configs
 
-    // Currently we do not override any table level configs into TableDataManagerConfig
-    // If we wish to override some table level configs using table config, override them here
     // Note: the configs in TableDataManagerConfig is immutable once the table is created, which mean it will not pick
     // up the latest table config
+    Map<String, String> customConfigs = tableConfig.getCustomConfig().getCustomConfigs();
+    if (customConfigs != null) {
+      _tableDataManagerConfig.setProperty(TABLE_DATA_MANAGER_SEGMENT_RESULT_CACHE_ENABLED,
+          Boolean.parseBoolean(customConfigs.get(TableCustomConfig.SEGMENT_RESULT_CACHE_ENABLED_KEY)));
+    }
   }
 }
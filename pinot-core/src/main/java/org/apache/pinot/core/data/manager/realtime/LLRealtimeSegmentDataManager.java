@@ -25,6 +25,7 @@ import com.yammer.metrics.core.Meter;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
@@ -180,6 +181,8 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   private static final int MSG_COUNT_THRESHOLD_FOR_LOG = 100000;
   private static final int BUILD_TIME_LEASE_SECONDS = 30;
   private static final int MAX_CONSECUTIVE_ERROR_COUNT = 5;
+  // Maximum number of rows indexed into the mutable segment as a batch
+  private static final int MAX_INDEXING_BATCH_SIZE = 1000;
 
   private final LLCRealtimeSegmentZKMetadata _segmentZKMetadata;
   private final TableConfig _tableConfig;
@@ -198,6 +201,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   private volatile int _numRowsIndexed = 0; // Can be different from _numRowsConsumed when metrics update is enabled.
   private volatile int _numRowsErrored = 0;
   private volatile int consecutiveErrorCount = 0;
+  // Reusable buffers for the rows decoded from the stream and the rows to be indexed as a batch (only accessed by the
+  // consumer thread)
+  private final GenericRow[] _decodedRows = new GenericRow[MAX_INDEXING_BATCH_SIZE];
+  private final GenericRow[] _rowsToIndex = new GenericRow[MAX_INDEXING_BATCH_SIZE];
   private long _startTimeMs = 0;
   private final String _segmentNameStr;
   private final SegmentVersion _segmentVersion;
@@ -397,8 +404,8 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
 
     int indexedMessageCount = 0;
     int streamMessageCount = 0;
-    boolean canTakeMore = true;
-    GenericRow decodedRow = null;
+    boolean canTakeMore = _numRowsIndexed < _segmentMaxRowCount;
+    int numRowsToIndex = 0;
     for (int index = 0; index < messagesAndOffsets.getMessageCount(); index++) {
       if (_shouldStop || endCriteriaReached()) {
         break;
@@ -424,14 +431,15 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         throw new RuntimeException("Realtime segment full");
       }
 
-      // Index each message
-      decodedRow = GenericRow.createOrReuseRow(decodedRow);
+      // Decode and transform each message, and buffer the row to be indexed as a batch
+      GenericRow decodedRow = GenericRow.createOrReuseRow(_decodedRows[numRowsToIndex]);
 
       decodedRow = _messageDecoder
           .decode(messagesAndOffsets.getMessageAtIndex(index), messagesAndOffsets.getMessageOffsetAtIndex(index),
               messagesAndOffsets.getMessageLengthAtIndex(index), decodedRow);
 
       if (decodedRow != null) {
+        _decodedRows[numRowsToIndex] = decodedRow;
         try {
           GenericRow transformedRow = _recordTransformer.transform(decodedRow);
 
@@ -439,13 +447,12 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
             realtimeRowsConsumedMeter = _serverMetrics
                 .addMeteredTableValue(_metricKeyName, ServerMeter.REALTIME_ROWS_CONSUMED, 1, realtimeRowsConsumedMeter);
             indexedMessageCount++;
+            _rowsToIndex[numRowsToIndex++] = transformedRow;
           } else {
             realtimeRowsDroppedMeter = _serverMetrics
                 .addMeteredTableValue(_metricKeyName, ServerMeter.INVALID_REALTIME_ROWS_DROPPED, 1,
                     realtimeRowsDroppedMeter);
           }
-
-          canTakeMore = _realtimeSegment.index(transformedRow);
         } catch (Exception e) {
           segmentLogger.debug("Caught exception while transforming the record: {}", decodedRow, e);
           _numRowsErrored++;
@@ -457,9 +464,21 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       }
 
       _currentOffset = messagesAndOffsets.getNextStreamMessageOffsetAtIndex(index);
-      _numRowsIndexed = _realtimeSegment.getNumDocsIndexed();
       _numRowsConsumed++;
       streamMessageCount++;
+
+      // Index the batch when it is full or when it can fill up the segment, so that the row limit is checked against
+      // the accurate number of rows indexed and the segment never goes beyond the row limit in INITIAL_CONSUMING state
+      if (numRowsToIndex == MAX_INDEXING_BATCH_SIZE || _numRowsIndexed + numRowsToIndex >= _segmentMaxRowCount) {
+        canTakeMore = indexRows(numRowsToIndex);
+        numRowsToIndex = 0;
+      }
+    }
+    if (numRowsToIndex > 0 && !indexRows(numRowsToIndex)) {
+      // Should not happen because the batch is indexed as soon as it can fill up the segment
+      segmentLogger.error("Buffer full with {} rows consumed (row limit {}, indexed {})", _numRowsConsumed,
+          _segmentMaxRowCount, _numRowsIndexed);
+      throw new RuntimeException("Realtime segment full");
     }
     updateCurrentDocumentCountMetrics();
     if (streamMessageCount != 0) {
@@ -471,6 +490,16 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     }
   }
 
+  /**
+   * Indexes the buffered rows into the mutable segment as a batch, and returns whether the segment can index more rows.
+   */
+  private boolean indexRows(int numRows) {
+    _numRowsErrored += _realtimeSegment.index(_rowsToIndex, numRows);
+    Arrays.fill(_rowsToIndex, 0, numRows, null);
+    _numRowsIndexed = _realtimeSegment.getNumDocsIndexed();
+    return _numRowsIndexed < _segmentMaxRowCount;
+  }
+
   public class PartitionConsumer implements Runnable {
     public void run() {
       long initialConsumptionEnd = 0L;
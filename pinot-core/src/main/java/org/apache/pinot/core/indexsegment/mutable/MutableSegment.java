@@ -32,6 +32,17 @@ public interface MutableSegment extends IndexSegment {
    */
   boolean index(GenericRow row);
 
+  /**
+   * Indexes a batch of records into the segment. The records of the batch become queryable at the same time.
+   * <p>Records that cannot be indexed are skipped, and the other records are still indexed. Check
+   * {@link #getNumDocsIndexed()} to find out whether the segment can index more records.
+   *
+   * @param rows Array of records represented as {@link GenericRow}s
+   * @param numRows Number of records to index from the beginning of the array
+   * @return The number of records skipped because they cannot be indexed
+   */
+  int index(GenericRow[] rows, int numRows);
+
   /**
    * Returns the number of records already indexed into the segment.
    *
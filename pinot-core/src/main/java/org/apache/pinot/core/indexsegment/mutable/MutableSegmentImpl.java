@@ -20,6 +20,7 @@ package org.apache.pinot.core.indexsegment.mutable;
 
 import com.google.common.base.Preconditions;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -81,10 +82,20 @@ public class MutableSegmentImpl implements MutableSegment {
 
   private final Map<String, MutableDictionary> _dictionaryMap = new HashMap<>();
   private final Map<String, DataFileReader> _indexReaderWriterMap = new HashMap<>();
-  private final Map<String, Integer> _maxNumValuesMap = new HashMap<>();
   private final Map<String, RealtimeInvertedIndexReader> _invertedIndexMap = new HashMap<>();
   private final Map<String, BloomFilterReader> _bloomFilterMap = new HashMap<>();
   private final IdMap<FixedIntArray> _recordIdMap;
+  // Per-column indexing state resolved at construction, in the order of the schema field specs
+  private final IndexContainer[] _indexContainers;
+  private final Map<String, IndexContainer> _indexContainerMap = new HashMap<>();
+  // Positions in _indexContainers of the dimension columns and the time column, which form the metrics aggregation key
+  private final int[] _keyColumnIds;
+  // Scratch buffers reused across rows (only accessed by the consuming thread)
+  private final Object[] _values;
+  private final int[] _dictIds;
+  private final int[][] _multiValueDictIds;
+  // Scratch buffers for batch indexing: dictionary ids of each single-value column for all rows of the batch
+  private final int[][] _batchDictIds;
   private boolean _aggregateMetrics;
 
   private volatile int _numDocsIndexed = 0;
@@ -128,7 +139,6 @@ public class MutableSegmentImpl implements MutableSegment {
     // Initialize for each column
     for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
       String column = fieldSpec.getName();
-      _maxNumValuesMap.put(column, 0);
 
       // Check whether to generate raw index for the column while consuming
       // Only support generating raw index on single-value non-string columns that do not have inverted index while
@@ -177,6 +187,34 @@ public class MutableSegmentImpl implements MutableSegment {
       }
     }
 
+    // Resolve the per-column indexing state once so that indexing a row does not need any map lookup
+    List<FieldSpec> fieldSpecs = new ArrayList<>(_schema.getAllFieldSpecs());
+    int numColumns = fieldSpecs.size();
+    _indexContainers = new IndexContainer[numColumns];
+    for (int i = 0; i < numColumns; i++) {
+      FieldSpec fieldSpec = fieldSpecs.get(i);
+      String column = fieldSpec.getName();
+      IndexContainer indexContainer =
+          new IndexContainer(fieldSpec, _dictionaryMap.get(column), _indexReaderWriterMap.get(column),
+              _invertedIndexMap.get(column));
+      _indexContainers[i] = indexContainer;
+      _indexContainerMap.put(column, indexContainer);
+    }
+    _keyColumnIds = new int[_numKeyColumns];
+    Arrays.fill(_keyColumnIds, -1);
+    int keyColumnId = 0;
+    for (String dimension : _schema.getDimensionNames()) {
+      _keyColumnIds[keyColumnId++] = fieldSpecs.indexOf(_schema.getFieldSpecFor(dimension));
+    }
+    String timeColumnName = _schema.getTimeColumnName();
+    if (timeColumnName != null) {
+      _keyColumnIds[keyColumnId] = fieldSpecs.indexOf(_schema.getFieldSpecFor(timeColumnName));
+    }
+    _values = new Object[numColumns];
+    _dictIds = new int[numColumns];
+    _multiValueDictIds = new int[numColumns][];
+    _batchDictIds = new int[numColumns][];
+
     // Metric aggregation can be enabled only if config is specified, and all dimensions have dictionary,
     // and no metrics have dictionary. If not enabled, the map returned is null.
     _recordIdMap = enableMetricsAggregationIfPossible(config, _schema, noDictionaryColumns);
@@ -197,142 +235,308 @@ public class MutableSegmentImpl implements MutableSegment {
   @Override
   public boolean index(GenericRow row) {
     // Update dictionary first
-    Map<String, Object> dictIdMap = updateDictionary(row);
+    updateDictionary(row);
 
     int numDocs = _numDocsIndexed;
 
     // If metrics aggregation is enabled and if the dimension values were already seen, this will return existing docId,
     // else this will return a new docId.
-    int docId = getOrCreateDocId(dictIdMap);
+    int docId = getOrCreateDocId();
 
     // docId == numDocs implies new docId.
     if (docId == numDocs) {
       // Add forward and inverted indices for new document.
-      addForwardIndex(row, docId, dictIdMap);
-      addInvertedIndex(docId, dictIdMap);
+      addForwardIndex(docId);
+      updateTimeRange();
+      addInvertedIndex(docId);
       // Update number of document indexed at last to make the latest record queryable
       return _numDocsIndexed++ < _capacity;
     } else {
       Preconditions
           .checkState(_aggregateMetrics, "Invalid document-id during indexing: " + docId + " expected: " + numDocs);
       // Update metrics for existing document.
-      return aggregateMetrics(row, docId);
+      return aggregateMetrics(docId);
     }
   }
 
-  private Map<String, Object> updateDictionary(GenericRow row) {
-    Map<String, Object> dictIdMap = new HashMap<>();
-    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
-      String column = fieldSpec.getName();
-      Object value = row.getValue(column);
-      MutableDictionary dictionary = _dictionaryMap.get(column);
+  /**
+   * Reads the values of the row into {@link #_values}, updates the dictionaries and fills the dictionary ids into
+   * {@link #_dictIds} (single-value columns) and {@link #_multiValueDictIds} (multi-value columns).
+   */
+  private void updateDictionary(GenericRow row) {
+    int numColumns = _indexContainers.length;
+    for (int i = 0; i < numColumns; i++) {
+      IndexContainer indexContainer = _indexContainers[i];
+      Object value = row.getValue(indexContainer._column);
+      _values[i] = value;
+      MutableDictionary dictionary = indexContainer._dictionary;
       if (dictionary != null) {
         dictionary.index(value);
       }
-      // Update max number of values for multi-value column
-      if (fieldSpec.isSingleValueField()) {
+      if (indexContainer._isSingleValue) {
         if (dictionary != null) {
-          dictIdMap.put(column, dictionary.indexOf(value));
+          _dictIds[i] = dictionary.indexOf(value);
         }
       } else {
         // No-dictionary not supported for multi-valued columns.
-        int i = 0;
         Object[] values = (Object[]) value;
-        int[] dictIds = new int[values.length];
-        for (Object object : values) {
-          dictIds[i++] = dictionary.indexOf(object);
+        int numValues = values.length;
+        int[] dictIds = getMultiValueDictIds(i, numValues);
+        for (int j = 0; j < numValues; j++) {
+          dictIds[j] = dictionary.indexOf(values[j]);
         }
-        dictIdMap.put(column, dictIds);
-        int numValues = ((Object[]) value).length;
-        if (_maxNumValuesMap.get(column) < numValues) {
-          _maxNumValuesMap.put(column, numValues);
+        _dictIds[i] = numValues;
+        // Update max number of values for multi-value column
+        if (indexContainer._maxNumValues < numValues) {
+          indexContainer._maxNumValues = numValues;
         }
-        continue;
       }
-      // Update min/max value for time column
-      if (fieldSpec.getFieldType().equals(FieldSpec.FieldType.TIME)) {
-        long timeValue;
-        if (value instanceof Number) {
-          timeValue = ((Number) value).longValue();
-        } else {
-          timeValue = Long.valueOf(value.toString());
-        }
+    }
+  }
+
+  /**
+   * Updates the min/max value for the time column with the values read by {@link #updateDictionary(GenericRow)}.
+   * <p>NOTE: this should be called only after the forward indexes are updated, so that the time value of a record that
+   * cannot be indexed does not go into the time range.
+   */
+  private void updateTimeRange() {
+    int numColumns = _indexContainers.length;
+    for (int i = 0; i < numColumns; i++) {
+      if (_indexContainers[i]._isTimeColumn) {
+        long timeValue = getTimeValue(_values[i]);
         _minTime = Math.min(_minTime, timeValue);
         _maxTime = Math.max(_maxTime, timeValue);
       }
     }
-    return dictIdMap;
   }
 
-  private void addForwardIndex(GenericRow row, int docId, Map<String, Object> dictIdMap) {
+  private void addForwardIndex(int docId) {
     // Store dictionary Id(s) for columns with dictionary
-    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
-      String column = fieldSpec.getName();
-      Object value = row.getValue(column);
-      if (fieldSpec.isSingleValueField()) {
-        FixedByteSingleColumnSingleValueReaderWriter indexReaderWriter =
-            (FixedByteSingleColumnSingleValueReaderWriter) _indexReaderWriterMap.get(column);
-        Integer dictId = (Integer) dictIdMap.get(column);
-        if (dictId != null) {
+    int numColumns = _indexContainers.length;
+    for (int i = 0; i < numColumns; i++) {
+      IndexContainer indexContainer = _indexContainers[i];
+      if (indexContainer._isSingleValue) {
+        FixedByteSingleColumnSingleValueReaderWriter indexReaderWriter = indexContainer._singleValueForwardIndex;
+        if (indexContainer._dictionary != null) {
           // Column with dictionary
-          indexReaderWriter.setInt(docId, dictId);
+          indexReaderWriter.setInt(docId, _dictIds[i]);
         } else {
           // No-dictionary column
-          FieldSpec.DataType dataType = fieldSpec.getDataType();
-          switch (dataType) {
-            case INT:
-              indexReaderWriter.setInt(docId, (Integer) value);
-              break;
-            case LONG:
-              indexReaderWriter.setLong(docId, (Long) value);
-              break;
-            case FLOAT:
-              indexReaderWriter.setFloat(docId, (Float) value);
-              break;
-            case DOUBLE:
-              indexReaderWriter.setDouble(docId, (Double) value);
-              break;
-            default:
-              throw new UnsupportedOperationException(
-                  "Unsupported data type: " + dataType + " for no-dictionary column: " + column);
-          }
+          setRawValue(indexContainer, docId, _values[i]);
         }
       } else {
-        int[] dictIds = (int[]) dictIdMap.get(column);
-        ((FixedByteSingleColumnMultiValueReaderWriter) _indexReaderWriterMap.get(column)).setIntArray(docId, dictIds);
+        // For multi-value columns, _dictIds stores the number of values
+        indexContainer._multiValueForwardIndex.setIntArray(docId, _multiValueDictIds[i], _dictIds[i]);
       }
     }
   }
 
-  private void addInvertedIndex(int docId, Map<String, Object> dictIdMap) {
+  private void addInvertedIndex(int docId) {
     // Update inverted index at last
     // NOTE: inverted index have to be updated at last because once it gets updated, the latest record will become
     // queryable
-    for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
-      String column = fieldSpec.getName();
-      RealtimeInvertedIndexReader invertedIndex = _invertedIndexMap.get(column);
+    int numColumns = _indexContainers.length;
+    for (int i = 0; i < numColumns; i++) {
+      IndexContainer indexContainer = _indexContainers[i];
+      RealtimeInvertedIndexReader invertedIndex = indexContainer._invertedIndex;
       if (invertedIndex != null) {
-        if (fieldSpec.isSingleValueField()) {
-          invertedIndex.add(((Integer) dictIdMap.get(column)), docId);
+        if (indexContainer._isSingleValue) {
+          invertedIndex.add(_dictIds[i], docId);
         } else {
-          int[] dictIds = (int[]) dictIdMap.get(column);
-          for (int dictId : dictIds) {
-            invertedIndex.add(dictId, docId);
+          int[] dictIds = _multiValueDictIds[i];
+          int numValues = _dictIds[i];
+          for (int j = 0; j < numValues; j++) {
+            invertedIndex.add(dictIds[j], docId);
           }
         }
       }
     }
   }
 
-  private boolean aggregateMetrics(GenericRow row, int docId) {
-    for (FieldSpec metricSpec : _schema.getMetricFieldSpecs()) {
-      String column = metricSpec.getName();
-      Object value = row.getValue(column);
-      Preconditions.checkState(metricSpec.isSingleValueField(), "Multivalued metrics cannot be updated.");
-      FixedByteSingleColumnSingleValueReaderWriter indexReaderWriter =
-          (FixedByteSingleColumnSingleValueReaderWriter) _indexReaderWriterMap.get(column);
-      Preconditions.checkState(_dictionaryMap.get(column) == null, "Updating metrics not supported with dictionary.");
-      FieldSpec.DataType dataType = metricSpec.getDataType();
+  @Override
+  public int index(GenericRow[] rows, int numRows) {
+    if (_aggregateMetrics) {
+      // With metrics aggregation, rows might be merged into existing documents, so index them one by one
+      return indexOneByOne(rows, numRows);
+    }
+    try {
+      indexBatch(rows, numRows);
+      return 0;
+    } catch (Exception e) {
+      // Nothing is queryable yet, re-index the rows one by one to skip the invalid ones
+      _logger.debug("Caught exception while indexing a batch of {} rows, indexing them one by one", numRows, e);
+      return indexOneByOne(rows, numRows);
+    }
+  }
+
+  private int indexOneByOne(GenericRow[] rows, int numRows) {
+    int numRowsSkipped = 0;
+    for (int i = 0; i < numRows; i++) {
+      try {
+        index(rows[i]);
+      } catch (Exception e) {
+        _logger.debug("Caught exception while indexing the record: {}", rows[i], e);
+        numRowsSkipped++;
+      }
+    }
+    return numRowsSkipped;
+  }
+
+  private void indexBatch(GenericRow[] rows, int numRows) {
+    int numDocs = _numDocsIndexed;
+    int numColumns = _indexContainers.length;
+    // NOTE: the time range is published only after the whole batch is indexed, so that a failed batch (re-indexed one
+    // by one) does not leave the time values of the skipped rows in the time range
+    long minTime = _minTime;
+    long maxTime = _maxTime;
+
+    // Update dictionaries and forward indexes column by column
+    // NOTE: inverted indexes are not touched until all the values are indexed, so that if any value cannot be indexed,
+    // none of the rows becomes queryable
+    for (int i = 0; i < numColumns; i++) {
+      IndexContainer indexContainer = _indexContainers[i];
+      String column = indexContainer._column;
+      MutableDictionary dictionary = indexContainer._dictionary;
+      if (indexContainer._isSingleValue) {
+        FixedByteSingleColumnSingleValueReaderWriter forwardIndex = indexContainer._singleValueForwardIndex;
+        if (dictionary != null) {
+          int[] dictIds = getBatchDictIds(i, numRows);
+          for (int j = 0; j < numRows; j++) {
+            Object value = rows[j].getValue(column);
+            dictionary.index(value);
+            int dictId = dictionary.indexOf(value);
+            dictIds[j] = dictId;
+            forwardIndex.setInt(numDocs + j, dictId);
+          }
+        } else {
+          for (int j = 0; j < numRows; j++) {
+            setRawValue(indexContainer, numDocs + j, rows[j].getValue(column));
+          }
+        }
+        // Update min/max value for time column
+        if (indexContainer._isTimeColumn) {
+          for (int j = 0; j < numRows; j++) {
+            long timeValue = getTimeValue(rows[j].getValue(column));
+            minTime = Math.min(minTime, timeValue);
+            maxTime = Math.max(maxTime, timeValue);
+          }
+        }
+      } else {
+        // No-dictionary not supported for multi-valued columns.
+        FixedByteSingleColumnMultiValueReaderWriter forwardIndex = indexContainer._multiValueForwardIndex;
+        int maxNumValues = indexContainer._maxNumValues;
+        for (int j = 0; j < numRows; j++) {
+          Object[] values = (Object[]) rows[j].getValue(column);
+          int numValues = values.length;
+          int[] dictIds = getMultiValueDictIds(i, numValues);
+          for (int k = 0; k < numValues; k++) {
+            Object value = values[k];
+            dictionary.index(value);
+            dictIds[k] = dictionary.indexOf(value);
+          }
+          forwardIndex.setIntArray(numDocs + j, dictIds, numValues);
+          maxNumValues = Math.max(maxNumValues, numValues);
+        }
+        // Update max number of values for multi-value column
+        if (indexContainer._maxNumValues < maxNumValues) {
+          indexContainer._maxNumValues = maxNumValues;
+        }
+      }
+    }
+
+    // Update inverted indexes
+    for (int i = 0; i < numColumns; i++) {
+      IndexContainer indexContainer = _indexContainers[i];
+      RealtimeInvertedIndexReader invertedIndex = indexContainer._invertedIndex;
+      if (invertedIndex != null) {
+        if (indexContainer._isSingleValue) {
+          int[] dictIds = _batchDictIds[i];
+          for (int j = 0; j < numRows; j++) {
+            invertedIndex.add(dictIds[j], numDocs + j);
+          }
+        } else {
+          // Read the dictionary ids back from the forward index
+          FixedByteSingleColumnMultiValueReaderWriter forwardIndex = indexContainer._multiValueForwardIndex;
+          int[] dictIds = getMultiValueDictIds(i, indexContainer._maxNumValues);
+          for (int j = 0; j < numRows; j++) {
+            int docId = numDocs + j;
+            int numValues = forwardIndex.getIntArray(docId, dictIds);
+            for (int k = 0; k < numValues; k++) {
+              invertedIndex.add(dictIds[k], docId);
+            }
+          }
+        }
+      }
+    }
+
+    _minTime = minTime;
+    _maxTime = maxTime;
+
+    // Update number of document indexed at last to make the whole batch queryable at once
+    _numDocsIndexed = numDocs + numRows;
+  }
+
+  private int[] getBatchDictIds(int columnId, int numRows) {
+    int[] dictIds = _batchDictIds[columnId];
+    if (dictIds == null || dictIds.length < numRows) {
+      dictIds = new int[numRows];
+      _batchDictIds[columnId] = dictIds;
+    }
+    return dictIds;
+  }
+
+  private int[] getMultiValueDictIds(int columnId, int numValues) {
+    int[] dictIds = _multiValueDictIds[columnId];
+    if (dictIds == null || dictIds.length < numValues) {
+      dictIds = new int[Math.max(numValues, dictIds == null ? 0 : dictIds.length * 2)];
+      _multiValueDictIds[columnId] = dictIds;
+    }
+    return dictIds;
+  }
+
+  private static void setRawValue(IndexContainer indexContainer, int docId, Object value) {
+    FixedByteSingleColumnSingleValueReaderWriter indexReaderWriter = indexContainer._singleValueForwardIndex;
+    switch (indexContainer._dataType) {
+      case INT:
+        indexReaderWriter.setInt(docId, (Integer) value);
+        break;
+      case LONG:
+        indexReaderWriter.setLong(docId, (Long) value);
+        break;
+      case FLOAT:
+        indexReaderWriter.setFloat(docId, (Float) value);
+        break;
+      case DOUBLE:
+        indexReaderWriter.setDouble(docId, (Double) value);
+        break;
+      default:
+        throw new UnsupportedOperationException(
+            "Unsupported data type: " + indexContainer._dataType + " for no-dictionary column: "
+                + indexContainer._column);
+    }
+  }
+
+  private static long getTimeValue(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    } else {
+      return Long.parseLong(value.toString());
+    }
+  }
+
+  private boolean aggregateMetrics(int docId) {
+    int numColumns = _indexContainers.length;
+    for (int i = 0; i < numColumns; i++) {
+      IndexContainer indexContainer = _indexContainers[i];
+      if (!indexContainer._isMetric) {
+        continue;
+      }
+      String column = indexContainer._column;
+      Object value = _values[i];
+      Preconditions.checkState(indexContainer._isSingleValue, "Multivalued metrics cannot be updated.");
+      FixedByteSingleColumnSingleValueReaderWriter indexReaderWriter = indexContainer._singleValueForwardIndex;
+      Preconditions.checkState(indexContainer._dictionary == null, "Updating metrics not supported with dictionary.");
+      FieldSpec.DataType dataType = indexContainer._dataType;
       switch (dataType) {
         case INT:
           indexReaderWriter.setInt(docId, (Integer) value + indexReaderWriter.getInt(docId));
@@ -341,10 +545,10 @@ public class MutableSegmentImpl implements MutableSegment {
           indexReaderWriter.setLong(docId, (Long) value + indexReaderWriter.getLong(docId));
           break;
         case FLOAT:
-          indexReaderWriter.setFloat(docId, indexReaderWriter.getFloat(docId) + indexReaderWriter.getFloat(docId));
+          indexReaderWriter.setFloat(docId, (Float) value + indexReaderWriter.getFloat(docId));
           break;
         case DOUBLE:
-          indexReaderWriter.setDouble(docId, indexReaderWriter.getDouble(docId) + indexReaderWriter.getDouble(docId));
+          indexReaderWriter.setDouble(docId, (Double) value + indexReaderWriter.getDouble(docId));
           break;
         default:
           throw new UnsupportedOperationException(
@@ -391,8 +595,8 @@ public class MutableSegmentImpl implements MutableSegment {
   public ColumnDataSource getDataSource(String columnName) {
     if (!_schema.isVirtualColumn(columnName)) {
       return new ColumnDataSource(_schema.getFieldSpecFor(columnName), _numDocsIndexed,
-          _maxNumValuesMap.get(columnName), _indexReaderWriterMap.get(columnName), _invertedIndexMap.get(columnName),
-          _dictionaryMap.get(columnName), _bloomFilterMap.get(columnName));
+          _indexContainerMap.get(columnName)._maxNumValues, _indexReaderWriterMap.get(columnName),
+          _invertedIndexMap.get(columnName), _dictionaryMap.get(columnName), _bloomFilterMap.get(columnName));
     } else {
       return getVirtualDataSource(columnName);
     }
@@ -419,11 +623,16 @@ public class MutableSegmentImpl implements MutableSegment {
       String column = fieldSpec.getName();
       reuse.putField(column, IndexSegmentUtils
           .getValue(docId, fieldSpec, _indexReaderWriterMap.get(column), _dictionaryMap.get(column),
-              _maxNumValuesMap.getOrDefault(column, 0)));
+              getMaxNumValues(column)));
     }
     return reuse;
   }
 
+  private int getMaxNumValues(String column) {
+    IndexContainer indexContainer = _indexContainerMap.get(column);
+    return indexContainer != null ? indexContainer._maxNumValues : 0;
+  }
+
   @Override
   public void destroy() {
     _logger.info("Trying to close RealtimeSegmentImpl : {}", _segmentName);
@@ -660,21 +869,18 @@ public class MutableSegmentImpl implements MutableSegment {
     return segmentName + ":" + columnName + indexType;
   }
 
-  private int getOrCreateDocId(Map<String, Object> dictIdMap) {
+  private int getOrCreateDocId() {
     if (!_aggregateMetrics) {
       return _numDocsIndexed;
     }
 
-    int i = 0;
+    // NOTE: the key array cannot be reused because the record id map might keep the reference to it
     int[] dictIds = new int[_numKeyColumns]; // dimensions + time column.
-
-    for (String column : _schema.getDimensionNames()) {
-      dictIds[i++] = (Integer) dictIdMap.get(column);
-    }
-
-    String timeColumnName = _schema.getTimeColumnName();
-    if (timeColumnName != null) {
-      dictIds[i] = (Integer) dictIdMap.get(timeColumnName);
+    for (int i = 0; i < _numKeyColumns; i++) {
+      int keyColumnId = _keyColumnIds[i];
+      if (keyColumnId >= 0) {
+        dictIds[i] = _dictIds[keyColumnId];
+      }
     }
     return _recordIdMap.put(new FixedIntArray(dictIds));
   }
@@ -753,4 +959,40 @@ public class MutableSegmentImpl implements MutableSegment {
     return new FixedIntArrayOffHeapIdMap(estimatedRowsToIndex, maxOverFlowHashSize, _numKeyColumns, _memoryManager,
         RECORD_ID_MAP);
   }
+
+  /**
+   * Per-column indexing state, resolved once when the segment is created.
+   */
+  private static class IndexContainer {
+    final String _column;
+    final FieldSpec.DataType _dataType;
+    final boolean _isSingleValue;
+    final boolean _isTimeColumn;
+    final boolean _isMetric;
+    final MutableDictionary _dictionary;
+    final FixedByteSingleColumnSingleValueReaderWriter _singleValueForwardIndex;
+    final FixedByteSingleColumnMultiValueReaderWriter _multiValueForwardIndex;
+    final RealtimeInvertedIndexReader _invertedIndex;
+
+    // Updated by the consuming thread, read by the query threads
+    volatile int _maxNumValues;
+
+    IndexContainer(FieldSpec fieldSpec, MutableDictionary dictionary, DataFileReader forwardIndex,
+        RealtimeInvertedIndexReader invertedIndex) {
+      _column = fieldSpec.getName();
+      _dataType = fieldSpec.getDataType();
+      _isSingleValue = fieldSpec.isSingleValueField();
+      _isTimeColumn = fieldSpec.getFieldType() == FieldSpec.FieldType.TIME;
+      _isMetric = fieldSpec.getFieldType() == FieldSpec.FieldType.METRIC;
+      _dictionary = dictionary;
+      if (_isSingleValue) {
+        _singleValueForwardIndex = (FixedByteSingleColumnSingleValueReaderWriter) forwardIndex;
+        _multiValueForwardIndex = null;
+      } else {
+        _singleValueForwardIndex = null;
+        _multiValueForwardIndex = (FixedByteSingleColumnMultiValueReaderWriter) forwardIndex;
+      }
+      _invertedIndex = invertedIndex;
+    }
+  }
 }
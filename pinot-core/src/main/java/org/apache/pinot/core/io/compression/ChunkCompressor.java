@@ -38,4 +38,13 @@ public interface ChunkCompressor {
    */
   int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed)
       throws IOException;
+
+  /**
+   * Returns the maximum size of the compressed output for the given size of input, which can be used to size the
+   * output buffer.
+   *
+   * @param uncompressedSize Size of the input data
+   * @return Maximum size of the compressed output data
+   */
+  int maxCompressedSize(int uncompressedSize);
 }
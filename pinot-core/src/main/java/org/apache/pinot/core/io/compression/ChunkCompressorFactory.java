@@ -29,7 +29,8 @@ public class ChunkCompressorFactory {
   }
 
   public enum CompressionType {
-    PASS_THROUGH(0), SNAPPY(1);
+    // NOTE: the ordinal of the compression type is stored in the raw index, always add new types at the end
+    PASS_THROUGH(0), SNAPPY(1), LZ4(2), ZSTANDARD(3);
 
     private final int _value;
 
@@ -57,6 +58,12 @@ public class ChunkCompressorFactory {
       case SNAPPY:
         return new SnappyCompressor();
 
+      case LZ4:
+        return new LZ4Compressor();
+
+      case ZSTANDARD:
+        return new ZstandardCompressor();
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
@@ -76,6 +83,12 @@ public class ChunkCompressorFactory {
       case SNAPPY:
         return new SnappyDecompressor();
 
+      case LZ4:
+        return new LZ4Decompressor();
+
+      case ZSTANDARD:
+        return new ZstandardDecompressor();
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
@@ -44,12 +44,32 @@ public final class FixedBitSingleValueReader extends BaseSingleColumnSingleValue
 
   @Override
   public void readValues(int[] rows, int rowsStartIndex, int rowSize, int[] values, int valuesStartIndex) {
+    if (rowSize == 0) {
+      return;
+    }
     int rowsEndIndex = rowsStartIndex + rowSize;
-    for (int i = rowsStartIndex; i < rowsEndIndex; i++) {
-      values[valuesStartIndex++] = getInt(rows[i]);
+    int startRow = rows[rowsStartIndex];
+    if (valuesStartIndex == 0 && rows[rowsEndIndex - 1] - startRow == rowSize - 1) {
+      // Rows are contiguous (rows are sorted and unique), bulk unpack the values
+      _reader.readInt(startRow, rowSize, values);
+    } else {
+      for (int i = rowsStartIndex; i < rowsEndIndex; i++) {
+        values[valuesStartIndex++] = getInt(rows[i]);
+      }
     }
   }
 
+  /**
+   * Bulk unpacks the values for a range of contiguous rows.
+   *
+   * @param startRow Start row
+   * @param length Number of rows to read
+   * @param values Buffer for the values
+   */
+  public void readValues(int startRow, int length, int[] values) {
+    _reader.readInt(startRow, length, values);
+  }
+
   @Override
   public ReaderContext createContext() {
     return null;
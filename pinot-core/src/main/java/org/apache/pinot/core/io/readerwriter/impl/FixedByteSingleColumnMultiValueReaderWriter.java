@@ -258,8 +258,16 @@ public class FixedByteSingleColumnMultiValueReaderWriter extends BaseSingleColum
 
   @Override
   public void setIntArray(int row, int[] intArray) {
-    int newStartIndex = updateHeader(row, intArray.length);
-    for (int i = 0; i < intArray.length; i++) {
+    setIntArray(row, intArray, intArray.length);
+  }
+
+  /**
+   * Sets the first {@code length} values of the given array as the values of the given row, which allows the caller to
+   * reuse the array across rows.
+   */
+  public void setIntArray(int row, int[] intArray, int length) {
+    int newStartIndex = updateHeader(row, length);
+    for (int i = 0; i < length; i++) {
       _currentDataWriter.setInt(newStartIndex + i, 0, intArray[i]);
     }
   }
@@ -20,10 +20,8 @@ package org.apache.pinot.core.operator;
 
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -41,7 +39,7 @@ import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
 import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
 import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
-import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.aggregation.groupby.GroupByCombineTable;
 import org.apache.pinot.core.util.trace.TraceRunnable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,9 +57,15 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
   private final ExecutorService _executorService;
   private final long _timeOutMs;
   private final int _numGroupsLimit;
+  private final CombineParallelismPolicy _parallelismPolicy;
 
   public CombineGroupByOperator(List<Operator> operators, BrokerRequest brokerRequest, ExecutorService executorService,
       long timeOutMs, int numGroupsLimit) {
+    this(operators, brokerRequest, executorService, timeOutMs, numGroupsLimit, CombineParallelismPolicy.DEFAULT);
+  }
+
+  public CombineGroupByOperator(List<Operator> operators, BrokerRequest brokerRequest, ExecutorService executorService,
+      long timeOutMs, int numGroupsLimit, CombineParallelismPolicy parallelismPolicy) {
     Preconditions.checkArgument(brokerRequest.isSetAggregationsInfo() && brokerRequest.isSetGroupBy());
 
     _operators = operators;
@@ -69,6 +73,7 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
     _executorService = executorService;
     _timeOutMs = timeOutMs;
     _numGroupsLimit = numGroupsLimit;
+    _parallelismPolicy = parallelismPolicy;
   }
 
   /**
@@ -78,12 +83,13 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
    * result block.
    * <ul>
    *   <li>
-   *     Concurrently merge group-by results form multiple result blocks into a map from group key to group results
+   *     Concurrently merge group-by results form multiple result blocks into a {@link GroupByCombineTable} keyed by the
+   *     group-by values
    *   </li>
    *   <li>
-   *     Sort and trim the results map based on {@code TOP N} in the request
-   *     <p>Results map will be converted from {@code Map<String, Object[]>} to {@code List<Map<String, Object>>} which
-   *     is expected by the broker
+   *     Sort and trim the combine table based on {@code TOP N} in the request
+   *     <p>Combine table will be converted to {@code List<Map<String, Object>>} which is expected by the broker, and the
+   *     string group keys are only built for the groups left after trimming
    *   </li>
    *   <li>
    *     Set all exceptions encountered during execution into the merged result block
@@ -92,10 +98,11 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
    */
   @Override
   protected IntermediateResultsBlock getNextBlock() {
+    long queryEndTime = System.currentTimeMillis() + _timeOutMs;
     int numOperators = _operators.size();
-    CountDownLatch operatorLatch = new CountDownLatch(numOperators);
-    ConcurrentHashMap<String, Object[]> resultsMap = new ConcurrentHashMap<>();
-    AtomicInteger numGroups = new AtomicInteger();
+    int numThreads = Math.min(numOperators, _parallelismPolicy.getNumThreads(numOperators));
+    CountDownLatch operatorLatch = new CountDownLatch(numThreads);
+    AtomicInteger nextOperatorId = new AtomicInteger();
     ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions = new ConcurrentLinkedQueue<>();
 
     AggregationFunctionContext[] aggregationFunctionContexts =
@@ -105,56 +112,46 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
     for (int i = 0; i < numAggregationFunctions; i++) {
       aggregationFunctions[i] = aggregationFunctionContexts[i].getAggregationFunction();
     }
+    GroupByCombineTable combineTable = new GroupByCombineTable(aggregationFunctions, _numGroupsLimit);
 
-    Future[] futures = new Future[numOperators];
-    for (int i = 0; i < numOperators; i++) {
-      int index = i;
+    Future[] futures = new Future[numThreads];
+    for (int i = 0; i < numThreads; i++) {
       futures[i] = _executorService.submit(new TraceRunnable() {
         @SuppressWarnings("unchecked")
         @Override
         public void runJob() {
-          AggregationGroupByResult aggregationGroupByResult;
-
-          try {
-            IntermediateResultsBlock intermediateResultsBlock =
-                (IntermediateResultsBlock) _operators.get(index).nextBlock();
-
-            // Merge processing exceptions.
-            List<ProcessingException> processingExceptionsToMerge = intermediateResultsBlock.getProcessingExceptions();
-            if (processingExceptionsToMerge != null) {
-              mergedProcessingExceptions.addAll(processingExceptionsToMerge);
+          // Keep pulling the next unprocessed operator so that a slow segment only delays the thread processing it
+          int index;
+          while ((index = nextOperatorId.getAndIncrement()) < numOperators) {
+            if (System.currentTimeMillis() >= queryEndTime) {
+              // Query already timed out, no need to process the remaining operators, but mark the result as partial
+              mergedProcessingExceptions.add(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR,
+                  new TimeoutException("Timed out after " + _timeOutMs + "ms with " + (numOperators - index)
+                      + " segments not processed")));
+              break;
             }
+            try {
+              IntermediateResultsBlock intermediateResultsBlock =
+                  (IntermediateResultsBlock) _operators.get(index).nextBlock();
+
+              // Merge processing exceptions.
+              List<ProcessingException> processingExceptionsToMerge =
+                  intermediateResultsBlock.getProcessingExceptions();
+              if (processingExceptionsToMerge != null) {
+                mergedProcessingExceptions.addAll(processingExceptionsToMerge);
+              }
 
-            // Merge aggregation group-by result.
-            aggregationGroupByResult = intermediateResultsBlock.getAggregationGroupByResult();
-            if (aggregationGroupByResult != null) {
-              // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
-              Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
-              while (groupKeyIterator.hasNext()) {
-                GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-                resultsMap.compute(groupKey._stringKey, (key, value) -> {
-                  if (value == null) {
-                    if (numGroups.get() < _numGroupsLimit) {
-                      numGroups.getAndIncrement();
-                      value = new Object[numAggregationFunctions];
-                      for (int i = 0; i < numAggregationFunctions; i++) {
-                        value[i] = aggregationGroupByResult.getResultForKey(groupKey, i);
-                      }
-                    }
-                  } else {
-                    for (int i = 0; i < numAggregationFunctions; i++) {
-                      value[i] = aggregationFunctions[i]
-                          .merge(value[i], aggregationGroupByResult.getResultForKey(groupKey, i));
-                    }
-                  }
-                  return value;
-                });
+              // Merge aggregation group-by result.
+              AggregationGroupByResult aggregationGroupByResult =
+                  intermediateResultsBlock.getAggregationGroupByResult();
+              if (aggregationGroupByResult != null) {
+                combineTable.merge(aggregationGroupByResult);
               }
+            } catch (Exception e) {
+              LOGGER.error("Exception processing CombineGroupBy for index {}, operator {}", index,
+                  _operators.get(index).getClass().getName(), e);
+              mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
             }
-          } catch (Exception e) {
-            LOGGER.error("Exception processing CombineGroupBy for index {}, operator {}", index,
-                _operators.get(index).getClass().getName(), e);
-            mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
           }
 
           operatorLatch.countDown();
@@ -168,14 +165,14 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
         // If this happens, the broker side should already timed out, just log the error and return
         String errorMessage = "Timed out while combining group-by results after " + _timeOutMs + "ms";
         LOGGER.error(errorMessage);
-        return new IntermediateResultsBlock(new TimeoutException(errorMessage));
+        return new IntermediateResultsBlock(QueryException.EXECUTION_TIMEOUT_ERROR, new TimeoutException(errorMessage));
       }
 
       // Trim the results map.
       AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
           new AggregationGroupByTrimmingService(aggregationFunctions, (int) _brokerRequest.getGroupBy().getTopN());
       List<Map<String, Object>> trimmedResults =
-          aggregationGroupByTrimmingService.trimIntermediateResultsMap(resultsMap);
+          aggregationGroupByTrimmingService.trimIntermediateResults(combineTable);
       IntermediateResultsBlock mergedBlock =
           new IntermediateResultsBlock(aggregationFunctionContexts, trimmedResults, true);
 
@@ -198,8 +195,7 @@ public class CombineGroupByOperator extends BaseOperator<IntermediateResultsBloc
       mergedBlock.setNumSegmentsProcessed(executionStatistics.getNumSegmentsProcessed());
       mergedBlock.setNumSegmentsMatched(executionStatistics.getNumSegmentsMatched());
       mergedBlock.setNumTotalRawDocs(executionStatistics.getNumTotalRawDocs());
-      // NOTE: numGroups might go slightly over numGroupsLimit because the comparison is not atomic
-      if (numGroups.get() >= _numGroupsLimit) {
+      if (combineTable.isNumGroupsLimitReached()) {
         mergedBlock.setNumGroupsLimitReached(true);
       }
 
@@ -18,7 +18,8 @@
  */
 package org.apache.pinot.core.operator;
 
-import java.util.ArrayList;
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -27,8 +28,10 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.request.Selection;
 import org.apache.pinot.core.common.Block;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
@@ -45,77 +48,123 @@ import org.slf4j.LoggerFactory;
 public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
   private static final Logger LOGGER = LoggerFactory.getLogger(CombineOperator.class);
   private static final String OPERATOR_NAME = "CombineOperator";
+  // Marker offered by the workers without any operator processed
+  private static final IntermediateResultsBlock NO_RESULT_BLOCK =
+      new IntermediateResultsBlock(new IllegalStateException("No result"));
 
   private final List<Operator> _operators;
   private final BrokerRequest _brokerRequest;
   private final ExecutorService _executorService;
   private final long _timeOutMs;
-  //Make this configurable
-  //These two control the parallelism on a per query basis, depending on the number of segments to process
-  private static final int MIN_THREADS_PER_QUERY;
-  private static final int MAX_THREADS_PER_QUERY;
-  private static final int MIN_SEGMENTS_PER_THREAD = 10;
+  private final CombineParallelismPolicy _parallelismPolicy;
 
-  static {
-    int numCores = Runtime.getRuntime().availableProcessors();
-    MIN_THREADS_PER_QUERY = Math.max(1, (int) (numCores * .5));
-    //Dont have more than 10 threads per query
-    MAX_THREADS_PER_QUERY = Math.min(10, (int) (numCores * .5));
+  public CombineOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
+      BrokerRequest brokerRequest) {
+    this(operators, executorService, timeOutMs, brokerRequest, CombineParallelismPolicy.DEFAULT);
   }
 
   public CombineOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
-      BrokerRequest brokerRequest) {
+      BrokerRequest brokerRequest, CombineParallelismPolicy parallelismPolicy) {
     _operators = operators;
     _executorService = executorService;
     _brokerRequest = brokerRequest;
     _timeOutMs = timeOutMs;
+    _parallelismPolicy = parallelismPolicy;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Combines the result blocks from underlying operators:
+   * <ul>
+   *   <li>
+   *     Start a number of worker threads decided by the {@link CombineParallelismPolicy}. Instead of being assigned a
+   *     static group of segments, each worker keeps pulling the next unprocessed operator and merges its result into a
+   *     local merged block, so that a slow segment only delays the worker processing it
+   *   </li>
+   *   <li>
+   *     For selection only queries, stop pulling new operators once the number of rows collected by all the workers
+   *     reaches the selection size, so that the remaining segments are never processed
+   *   </li>
+   *   <li>
+   *     Merge the local merged blocks from all the workers into the final merged block
+   *   </li>
+   * </ul>
+   */
   @Override
   protected IntermediateResultsBlock getNextBlock() {
     final long startTime = System.currentTimeMillis();
-    final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
+    final long queryEndTime = startTime + _timeOutMs;
     final int numOperators = _operators.size();
-    // Ensure that the number of groups is not more than the number of segments
-    final int numGroups = Math.min(numOperators, Math.max(MIN_THREADS_PER_QUERY,
-        Math.min(MAX_THREADS_PER_QUERY, (numOperators + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD)));
+    // Ensure that the number of threads is not more than the number of segments
+    final int numThreads = Math.min(numOperators, _parallelismPolicy.getNumThreads(numOperators));
+    final AtomicInteger nextOperatorId = new AtomicInteger();
+    // For selection only queries, the row budget shared by all the workers (-1 if not applicable)
+    final int selectionOnlyLimit = getSelectionOnlyLimit();
+    final AtomicInteger numRowsCollected = new AtomicInteger();
 
-    final List<List<Operator>> operatorGroups = new ArrayList<>(numGroups);
-    for (int i = 0; i < numGroups; i++) {
-      operatorGroups.add(new ArrayList<Operator>());
-    }
-    for (int i = 0; i < numOperators; i++) {
-      operatorGroups.get(i % numGroups).add(_operators.get(i));
-    }
-
-    final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<>(numGroups);
-    // Submit operators.
-    for (final List<Operator> operatorGroup : operatorGroups) {
-      _executorService.submit(new TraceRunnable() {
+    final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<>(numThreads);
+    // Submit workers.
+    Future[] futures = new Future[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      futures[i] = _executorService.submit(new TraceRunnable() {
         @Override
         public void runJob() {
           IntermediateResultsBlock mergedBlock = null;
-          try {
-            for (Operator operator : operatorGroup) {
-              IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operator.nextBlock();
+          while (true) {
+            // For selection only queries, do not pull another operator once enough rows have been collected by all the
+            // workers. The budget is checked before claiming the operator id so that no worker processes another
+            // segment after the budget is reached, only the segments already being processed are completed.
+            if (selectionOnlyLimit > 0 && numRowsCollected.get() >= selectionOnlyLimit) {
+              break;
+            }
+            int operatorId = nextOperatorId.getAndIncrement();
+            if (operatorId >= numOperators) {
+              break;
+            }
+            if (System.currentTimeMillis() >= queryEndTime) {
+              // Query already timed out, no need to process the remaining operators, but mark the result as partial
+              TimeoutException timeoutException = new TimeoutException(
+                  "Timed out after " + (System.currentTimeMillis() - startTime) + "ms with " + (numOperators
+                      - operatorId) + " segments not processed");
               if (mergedBlock == null) {
-                mergedBlock = blockToMerge;
+                mergedBlock = new IntermediateResultsBlock(QueryException.EXECUTION_TIMEOUT_ERROR, timeoutException);
               } else {
-                try {
-                  CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
-                } catch (Exception e) {
-                  LOGGER.error("Caught exception while merging two blocks (step 1).", e);
-                  mergedBlock
-                      .addToProcessingExceptions(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
-                }
+                mergedBlock.addToProcessingExceptions(
+                    QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, timeoutException));
+              }
+              break;
+            }
+            IntermediateResultsBlock blockToMerge;
+            try {
+              blockToMerge = (IntermediateResultsBlock) _operators.get(operatorId).nextBlock();
+            } catch (Exception e) {
+              LOGGER.error("Caught exception while executing query.", e);
+              blockToMerge = new IntermediateResultsBlock(e);
+            }
+            if (mergedBlock == null) {
+              mergedBlock = blockToMerge;
+            } else {
+              try {
+                CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
+              } catch (Exception e) {
+                LOGGER.error("Caught exception while merging two blocks (step 1).", e);
+                mergedBlock
+                    .addToProcessingExceptions(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+              }
+            }
+            if (selectionOnlyLimit >= 0) {
+              // Record the rows collected, and stop right away if the budget is reached (LIMIT 0 still processes one
+              // segment per worker to get the data schema)
+              Collection<Serializable[]> selectionResult = blockToMerge.getSelectionResult();
+              int numRows = selectionResult != null ? selectionResult.size() : 0;
+              if (numRowsCollected.addAndGet(numRows) >= selectionOnlyLimit) {
+                break;
               }
             }
-          } catch (Exception e) {
-            LOGGER.error("Caught exception while executing query.", e);
-            mergedBlock = new IntermediateResultsBlock(e);
           }
-          assert mergedBlock != null;
-          blockingQueue.offer(mergedBlock);
+          // NOTE: the worker might not get any operator when all the operators have been pulled by the other workers
+          blockingQueue.offer(mergedBlock != null ? mergedBlock : NO_RESULT_BLOCK);
         }
       });
     }
@@ -129,30 +178,29 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
               throws Exception {
             int mergedBlocksNumber = 0;
             IntermediateResultsBlock mergedBlock = null;
-            while (mergedBlocksNumber < numGroups) {
+            while (mergedBlocksNumber < numThreads) {
+              IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) blockingQueue
+                  .poll(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+              if (blockToMerge == null) {
+                continue;
+              }
+              LOGGER.debug("Got response from operator {} after: {}", mergedBlocksNumber,
+                  (System.currentTimeMillis() - startTime));
+              mergedBlocksNumber++;
+              if (blockToMerge == NO_RESULT_BLOCK) {
+                continue;
+              }
               if (mergedBlock == null) {
-                mergedBlock = (IntermediateResultsBlock) blockingQueue
-                    .poll(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-                if (mergedBlock != null) {
-                  mergedBlocksNumber++;
-                }
-                LOGGER.debug("Got response from operator 0 after: {}", (System.currentTimeMillis() - startTime));
+                mergedBlock = blockToMerge;
               } else {
-                IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) blockingQueue
-                    .poll(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-                if (blockToMerge != null) {
-                  try {
-                    LOGGER.debug("Got response from operator {} after: {}", mergedBlocksNumber,
-                        (System.currentTimeMillis() - startTime));
-                    CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
-                    LOGGER.debug("Merged response from operator {} after: {}", mergedBlocksNumber,
-                        (System.currentTimeMillis() - startTime));
-                  } catch (Exception e) {
-                    LOGGER.error("Caught exception while merging two blocks (step 2).", e);
-                    mergedBlock
-                        .addToProcessingExceptions(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
-                  }
-                  mergedBlocksNumber++;
+                try {
+                  CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
+                  LOGGER.debug("Merged response from operator {} after: {}", mergedBlocksNumber,
+                      (System.currentTimeMillis() - startTime));
+                } catch (Exception e) {
+                  LOGGER.error("Caught exception while merging two blocks (step 2).", e);
+                  mergedBlock
+                      .addToProcessingExceptions(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
                 }
               }
             }
@@ -166,15 +214,21 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
       mergedBlock = mergedBlockFuture.get(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       LOGGER.error("Caught InterruptedException.", e);
-      mergedBlock = new IntermediateResultsBlock(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
+      mergedBlock = new IntermediateResultsBlock(QueryException.FUTURE_CALL_ERROR, e);
     } catch (ExecutionException e) {
       LOGGER.error("Caught ExecutionException.", e);
-      mergedBlock = new IntermediateResultsBlock(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+      mergedBlock = new IntermediateResultsBlock(QueryException.MERGE_RESPONSE_ERROR, e);
     } catch (TimeoutException e) {
       LOGGER.error("Caught TimeoutException", e);
       mergedBlockFuture.cancel(true);
-      mergedBlock =
-          new IntermediateResultsBlock(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
+      mergedBlock = new IntermediateResultsBlock(QueryException.EXECUTION_TIMEOUT_ERROR, e);
+    } finally {
+      // Cancel all ongoing jobs
+      for (Future future : futures) {
+        if (!future.isDone()) {
+          future.cancel(true);
+        }
+      }
     }
 
     // Update execution statistics.
@@ -195,6 +249,21 @@ public class CombineOperator extends BaseOperator<IntermediateResultsBlock> {
     return mergedBlock;
   }
 
+  /**
+   * Returns the number of rows to collect for selection only queries (selection without ORDER BY), or -1 for other
+   * queries. Once this number of rows have been collected, the remaining segments do not need to be processed.
+   */
+  private int getSelectionOnlyLimit() {
+    if (_brokerRequest.isSetAggregationsInfo() || !_brokerRequest.isSetSelections()) {
+      return -1;
+    }
+    Selection selection = _brokerRequest.getSelections();
+    if (selection.isSetSelectionSortSequence()) {
+      return -1;
+    }
+    return selection.getSize();
+  }
+
   @Override
   public String getOperatorName() {
     return OPERATOR_NAME;
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import com.google.common.base.Preconditions;
+
+
+/**
+ * The <code>CombineParallelismPolicy</code> class decides the number of worker threads used by the combine operators
+ * to process the segments of a query.
+ * <p>The worker threads pull the segments to process from a shared counter, so the number of threads only bounds the
+ * per-query parallelism and does not decide which segments each thread processes.
+ */
+public class CombineParallelismPolicy {
+  public static final int DEFAULT_MAX_THREADS_PER_QUERY =
+      Math.max(1, Math.min(10, Runtime.getRuntime().availableProcessors() / 2));
+  public static final int DEFAULT_MIN_SEGMENTS_PER_THREAD = 1;
+  public static final CombineParallelismPolicy DEFAULT =
+      new CombineParallelismPolicy(DEFAULT_MAX_THREADS_PER_QUERY, DEFAULT_MIN_SEGMENTS_PER_THREAD);
+
+  private final int _maxThreadsPerQuery;
+  private final int _minSegmentsPerThread;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param maxThreadsPerQuery Maximum number of threads to process the segments of a query
+   * @param minSegmentsPerThread Minimum number of segments for each thread, used to avoid scheduling threads for very
+   *                             small queries
+   */
+  public CombineParallelismPolicy(int maxThreadsPerQuery, int minSegmentsPerThread) {
+    Preconditions.checkArgument(maxThreadsPerQuery > 0, "Invalid maxThreadsPerQuery: %s", maxThreadsPerQuery);
+    Preconditions.checkArgument(minSegmentsPerThread > 0, "Invalid minSegmentsPerThread: %s", minSegmentsPerThread);
+    _maxThreadsPerQuery = maxThreadsPerQuery;
+    _minSegmentsPerThread = minSegmentsPerThread;
+  }
+
+  public int getMaxThreadsPerQuery() {
+    return _maxThreadsPerQuery;
+  }
+
+  public int getMinSegmentsPerThread() {
+    return _minSegmentsPerThread;
+  }
+
+  /**
+   * Returns the number of worker threads to process the given number of segments, which is always in the range of
+   * [1, max(1, numSegments)].
+   */
+  public int getNumThreads(int numSegments) {
+    int numThreads = (numSegments + _minSegmentsPerThread - 1) / _minSegmentsPerThread;
+    return Math.max(1, Math.min(numThreads, _maxThreadsPerQuery));
+  }
+
+  @Override
+  public String toString() {
+    return "CombineParallelismPolicy{maxThreadsPerQuery=" + _maxThreadsPerQuery + ", minSegmentsPerThread="
+        + _minSegmentsPerThread + "}";
+  }
+}
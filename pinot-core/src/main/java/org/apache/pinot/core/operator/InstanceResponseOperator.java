@@ -27,14 +27,16 @@ public class InstanceResponseOperator extends BaseOperator<InstanceResponseBlock
   private static final String OPERATOR_NAME = "InstanceResponseOperator";
 
   private final Operator _operator;
+  private final int _dataTableVersion;
 
-  public InstanceResponseOperator(Operator combinedOperator) {
+  public InstanceResponseOperator(Operator combinedOperator, int dataTableVersion) {
     _operator = combinedOperator;
+    _dataTableVersion = dataTableVersion;
   }
 
   @Override
   protected InstanceResponseBlock getNextBlock() {
-    return new InstanceResponseBlock((IntermediateResultsBlock) _operator.nextBlock());
+    return new InstanceResponseBlock((IntermediateResultsBlock) _operator.nextBlock(), _dataTableVersion);
   }
 
   @Override
@@ -38,9 +38,9 @@ public class InstanceResponseBlock implements Block {
 
   private DataTable _instanceResponseDataTable;
 
-  public InstanceResponseBlock(IntermediateResultsBlock intermediateResultsBlock) {
+  public InstanceResponseBlock(IntermediateResultsBlock intermediateResultsBlock, int dataTableVersion) {
     try {
-      _instanceResponseDataTable = intermediateResultsBlock.getDataTable();
+      _instanceResponseDataTable = intermediateResultsBlock.getDataTable(dataTableVersion);
     } catch (Exception e) {
       LOGGER.error("Caught exception while building data table.", e);
       throw new RuntimeException("Caught exception while building data table.", e);
@@ -205,16 +205,22 @@ public class IntermediateResultsBlock implements Block {
   @Nonnull
   public DataTable getDataTable()
       throws Exception {
+    return getDataTable(DataTableBuilder.getCurrentDataTableVersion());
+  }
+
+  @Nonnull
+  public DataTable getDataTable(int dataTableVersion)
+      throws Exception {
     if (_selectionResult != null) {
-      return getSelectionResultDataTable();
+      return getSelectionResultDataTable(dataTableVersion);
     }
 
     if (_aggregationResult != null) {
-      return getAggregationResultDataTable();
+      return getAggregationResultDataTable(dataTableVersion);
     }
 
     if (_combinedAggregationGroupByResult != null) {
-      return getAggregationGroupByResultDataTable();
+      return getAggregationGroupByResultDataTable(dataTableVersion);
     }
 
     if (_processingExceptions != null && _processingExceptions.size() > 0) {
@@ -225,14 +231,14 @@ public class IntermediateResultsBlock implements Block {
   }
 
   @Nonnull
-  private DataTable getSelectionResultDataTable()
+  private DataTable getSelectionResultDataTable(int dataTableVersion)
       throws Exception {
     return attachMetadataToDataTable(
-        SelectionOperatorUtils.getDataTableFromRows(_selectionResult, _selectionDataSchema));
+        SelectionOperatorUtils.getDataTableFromRows(_selectionResult, _selectionDataSchema, dataTableVersion));
   }
 
   @Nonnull
-  private DataTable getAggregationResultDataTable()
+  private DataTable getAggregationResultDataTable(int dataTableVersion)
       throws Exception {
     // Extract each aggregation column name and type from aggregation function context.
     int numAggregationFunctions = _aggregationFunctionContexts.length;
@@ -245,7 +251,8 @@ public class IntermediateResultsBlock implements Block {
     }
 
     // Build the data table.
-    DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes));
+    DataTableBuilder dataTableBuilder =
+        new DataTableBuilder(new DataSchema(columnNames, columnDataTypes), dataTableVersion);
     dataTableBuilder.startRow();
     for (int i = 0; i < numAggregationFunctions; i++) {
       switch (columnDataTypes[i]) {
@@ -270,14 +277,15 @@ public class IntermediateResultsBlock implements Block {
   }
 
   @Nonnull
-  private DataTable getAggregationGroupByResultDataTable()
+  private DataTable getAggregationGroupByResultDataTable(int dataTableVersion)
       throws Exception {
     String[] columnNames = new String[]{"functionName", "GroupByResultMap"};
     DataSchema.ColumnDataType[] columnDataTypes =
         new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.OBJECT};
 
     // Build the data table.
-    DataTableBuilder dataTableBuilder = new DataTableBuilder(new DataSchema(columnNames, columnDataTypes));
+    DataTableBuilder dataTableBuilder =
+        new DataTableBuilder(new DataSchema(columnNames, columnDataTypes), dataTableVersion);
     int numAggregationFunctions = _aggregationFunctionContexts.length;
     for (int i = 0; i < numAggregationFunctions; i++) {
       dataTableBuilder.startRow();
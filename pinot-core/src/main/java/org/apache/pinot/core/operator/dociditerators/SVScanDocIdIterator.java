@@ -28,8 +28,16 @@ import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
+/**
+ * Scan based doc id iterator for single-value column.
+ * <p>For dictionary-encoded or INT columns, the values are read and evaluated in batches of {@link #BATCH_SIZE}
+ * entries (bulk unpacking the bit-packed dictionary ids when possible) instead of one entry at a time.
+ */
 public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
+  private static final int BATCH_SIZE = 1024;
+
   private int _currentDocId = -1;
+  private final BlockValSet _blockValSet;
   private final BlockSingleValIterator _valueIterator;
   private int _startDocId;
   private int _endDocId;
@@ -38,10 +46,22 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   private int _numEntriesScanned = 0;
   private final ValueMatcher _valueMatcher;
 
+  // For batch evaluation
+  private final boolean _batchEnabled;
+  private int[] _values;
+  private int[] _matchingIndexes;
+  private int[] _docIds;
+  // Range [_batchStartDocId, _batchEndDocId) of the current batch
+  private int _batchStartDocId;
+  private int _batchEndDocId;
+  private int _numMatchesInBatch;
+  private int _nextMatchIndex;
+
   public SVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
     _datasourceName = datasourceName;
     _evaluator = evaluator;
+    _blockValSet = blockValSet;
     _valueIterator = (BlockSingleValIterator) blockValSet.iterator();
 
     if (evaluator.isAlwaysFalse()) {
@@ -59,6 +79,11 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
       _valueMatcher = getValueMatcherForType(blockMetadata.getDataType());
     }
     _valueMatcher.setEvaluator(evaluator);
+    _batchEnabled = _valueMatcher instanceof IntMatcher;
+    if (_batchEnabled) {
+      _values = new int[BATCH_SIZE];
+      _matchingIndexes = new int[BATCH_SIZE];
+    }
   }
 
   /**
@@ -70,6 +95,10 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _currentDocId = startDocId - 1;
     _valueIterator.skipTo(startDocId);
     _startDocId = startDocId;
+    _batchStartDocId = 0;
+    _batchEndDocId = 0;
+    _numMatchesInBatch = 0;
+    _nextMatchIndex = 0;
   }
 
   /**
@@ -116,6 +145,9 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     if (_currentDocId == Constants.EOF) {
       return Constants.EOF;
     }
+    if (_batchEnabled) {
+      return nextInBatch();
+    }
     while (_valueIterator.hasNext() && _currentDocId < _endDocId) {
       _currentDocId = _currentDocId + 1;
       _numEntriesScanned++;
@@ -127,6 +159,41 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     return Constants.EOF;
   }
 
+  /**
+   * Returns the next matching document id by evaluating the entries in batches.
+   * <p>NOTE: only the entries up to the returned document id are counted as scanned so that the number of entries
+   * scanned is the same as evaluating one entry at a time.
+   */
+  private int nextInBatch() {
+    int docId = _currentDocId + 1;
+    while (docId <= _endDocId) {
+      if (docId < _batchStartDocId || docId >= _batchEndDocId) {
+        // Read and evaluate the next batch
+        _valueIterator.skipTo(docId);
+        int numValuesRead = _valueIterator.nextIntVals(_values, Math.min(BATCH_SIZE, _endDocId - docId + 1));
+        if (numValuesRead == 0) {
+          break;
+        }
+        _batchStartDocId = docId;
+        _batchEndDocId = docId + numValuesRead;
+        _numMatchesInBatch = _evaluator.applySV(_values, numValuesRead, _matchingIndexes);
+        _nextMatchIndex = 0;
+      }
+      while (_nextMatchIndex < _numMatchesInBatch) {
+        int matchingDocId = _batchStartDocId + _matchingIndexes[_nextMatchIndex++];
+        if (matchingDocId >= docId) {
+          _numEntriesScanned += matchingDocId - docId + 1;
+          _currentDocId = matchingDocId;
+          return matchingDocId;
+        }
+      }
+      _numEntriesScanned += _batchEndDocId - docId;
+      docId = _batchEndDocId;
+    }
+    _currentDocId = Constants.EOF;
+    return Constants.EOF;
+  }
+
   @Override
   public int currentDocId() {
     return _currentDocId;
@@ -144,6 +211,10 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
       return result;
     }
     IntIterator intIterator = answer.getIntIterator();
+    if (_batchEnabled) {
+      applyAndInBatch(intIterator, result);
+      return result;
+    }
     int docId = -1;
     while (intIterator.hasNext() && docId < _endDocId) {
       docId = intIterator.next();
@@ -158,6 +229,47 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     return result;
   }
 
+  /**
+   * Evaluates the entries for the document ids from the iterator in batches, and adds the matching document ids into
+   * the result.
+   */
+  private void applyAndInBatch(IntIterator intIterator, MutableRoaringBitmap result) {
+    if (_docIds == null) {
+      _docIds = new int[BATCH_SIZE];
+    }
+    boolean dictionaryBased = _evaluator.isDictionaryBased();
+    int numDocIds = 0;
+    while (intIterator.hasNext()) {
+      int docId = intIterator.next();
+      if (docId > _endDocId) {
+        break;
+      }
+      if (docId >= _startDocId) {
+        _docIds[numDocIds++] = docId;
+        if (numDocIds == BATCH_SIZE) {
+          applyAndOnBatch(numDocIds, dictionaryBased, result);
+          numDocIds = 0;
+        }
+      }
+    }
+    if (numDocIds > 0) {
+      applyAndOnBatch(numDocIds, dictionaryBased, result);
+    }
+  }
+
+  private void applyAndOnBatch(int numDocIds, boolean dictionaryBased, MutableRoaringBitmap result) {
+    if (dictionaryBased) {
+      _blockValSet.getDictionaryIds(_docIds, 0, numDocIds, _values, 0);
+    } else {
+      _blockValSet.getIntValues(_docIds, 0, numDocIds, _values, 0);
+    }
+    _numEntriesScanned += numDocIds;
+    int numMatches = _evaluator.applySV(_values, numDocIds, _matchingIndexes);
+    for (int i = 0; i < numMatches; i++) {
+      result.add(_docIds[_matchingIndexes[i]]);
+    }
+  }
+
   @Override
   public int getNumEntriesScanned() {
     return _numEntriesScanned;
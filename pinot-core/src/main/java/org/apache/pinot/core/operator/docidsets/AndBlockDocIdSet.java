@@ -20,6 +20,7 @@ package org.apache.pinot.core.operator.docidsets;
 
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.Pairs.IntPair;
 import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.common.BlockDocIdSet;
@@ -28,6 +29,7 @@ import org.apache.pinot.core.operator.dociditerators.AndDocIdIterator;
 import org.apache.pinot.core.operator.dociditerators.BitmapDocIdIterator;
 import org.apache.pinot.core.operator.dociditerators.RangelessBitmapDocIdIterator;
 import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
 import org.apache.pinot.core.util.SortedRangeIntersection;
 import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
@@ -205,9 +207,16 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
 
       // handle raw iterators
       for (FilterBlockDocIdSet scanBasedDocIdSet : scanBasedDocIdSets) {
+        FilterSelectivityStats.PredicateSelectivity predicateSelectivity =
+            getPredicateSelectivity(scanBasedDocIdSet);
+        int numCandidateDocs = predicateSelectivity != null ? answer.getCardinality() : 0;
         ScanBasedDocIdIterator iterator = (ScanBasedDocIdIterator) scanBasedDocIdSet.iterator();
         MutableRoaringBitmap scanAnswer = iterator.applyAnd(answer);
         answer.and(scanAnswer);
+        // Record the fraction of the candidate documents matching the scan predicate
+        if (predicateSelectivity != null) {
+          predicateSelectivity.record(numCandidateDocs, answer.getCardinality());
+        }
       }
       long end = System.currentTimeMillis();
       LOGGER.debug("Time to evaluate and Filter:{}", (end - start));
@@ -226,6 +235,16 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
     }
   }
 
+  @Nullable
+  private static FilterSelectivityStats.PredicateSelectivity getPredicateSelectivity(
+      FilterBlockDocIdSet scanBasedDocIdSet) {
+    if (scanBasedDocIdSet instanceof ScanBasedSingleValueDocIdSet) {
+      return ((ScanBasedSingleValueDocIdSet) scanBasedDocIdSet).getPredicateSelectivity();
+    } else {
+      return ((ScanBasedMultiValueDocIdSet) scanBasedDocIdSet).getPredicateSelectivity();
+    }
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> T getRaw() {
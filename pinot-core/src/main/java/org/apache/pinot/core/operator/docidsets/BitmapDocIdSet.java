@@ -29,6 +29,7 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
   private int _startDocId;
   // Inclusive
   private int _endDocId;
+  private final long _numEntriesScannedInFilter;
 
   public BitmapDocIdSet(ImmutableRoaringBitmap[] bitmaps, int startDocId, int endDocId, boolean exclusive) {
     int numBitmaps = bitmaps.length;
@@ -58,6 +59,14 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
 
     _startDocId = startDocId;
     _endDocId = endDocId;
+    _numEntriesScannedInFilter = 0L;
+  }
+
+  public BitmapDocIdSet(ImmutableRoaringBitmap bitmap, int startDocId, int endDocId, long numEntriesScannedInFilter) {
+    _bitmap = bitmap;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+    _numEntriesScannedInFilter = numEntriesScannedInFilter;
   }
 
   @Override
@@ -82,7 +91,7 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
 
   @Override
   public long getNumEntriesScannedInFilter() {
-    return 0L;
+    return _numEntriesScannedInFilter;
   }
 
   @Override
@@ -18,10 +18,12 @@
  */
 package org.apache.pinot.core.operator.docidsets;
 
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockMetadata;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.operator.dociditerators.MVScanDocIdIterator;
 import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 
 
@@ -30,9 +32,16 @@ public class ScanBasedMultiValueDocIdSet implements FilterBlockDocIdSet {
   private BlockMetadata blockMetadata;
   private MVScanDocIdIterator blockValSetBlockDocIdIterator;
   private String datasourceName;
+  private final FilterSelectivityStats.PredicateSelectivity predicateSelectivity;
 
   public ScanBasedMultiValueDocIdSet(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
+    this(datasourceName, blockValSet, blockMetadata, evaluator, null);
+  }
+
+  public ScanBasedMultiValueDocIdSet(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
+      PredicateEvaluator evaluator, @Nullable FilterSelectivityStats.PredicateSelectivity predicateSelectivity) {
+    this.predicateSelectivity = predicateSelectivity;
     this.datasourceName = datasourceName;
     this.blockValSet = blockValSet;
     this.blockMetadata = blockMetadata;
@@ -78,6 +87,14 @@ public class ScanBasedMultiValueDocIdSet implements FilterBlockDocIdSet {
     return blockValSetBlockDocIdIterator;
   }
 
+  /**
+   * Returns the runtime-observed selectivity of the predicate to be updated, or {@code null} if not tracked.
+   */
+  @Nullable
+  public FilterSelectivityStats.PredicateSelectivity getPredicateSelectivity() {
+    return predicateSelectivity;
+  }
+
   @Override
   public <T> T getRaw() {
     throw new UnsupportedOperationException("getRaw not supported for ScanBasedDocIdSet");
@@ -18,10 +18,12 @@
  */
 package org.apache.pinot.core.operator.docidsets;
 
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockMetadata;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.operator.dociditerators.SVScanDocIdIterator;
 import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 
 
@@ -29,11 +31,18 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
   private final BlockValSet blockValSet;
   private SVScanDocIdIterator blockValSetBlockDocIdIterator;
   private String datasourceName;
+  private final FilterSelectivityStats.PredicateSelectivity predicateSelectivity;
   int startDocId;
   int endDocId;
 
   public ScanBasedSingleValueDocIdSet(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
+    this(datasourceName, blockValSet, blockMetadata, evaluator, null);
+  }
+
+  public ScanBasedSingleValueDocIdSet(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
+      PredicateEvaluator evaluator, @Nullable FilterSelectivityStats.PredicateSelectivity predicateSelectivity) {
+    this.predicateSelectivity = predicateSelectivity;
     this.datasourceName = datasourceName;
     this.blockValSet = blockValSet;
     blockValSetBlockDocIdIterator = new SVScanDocIdIterator(datasourceName, blockValSet, blockMetadata, evaluator);
@@ -81,6 +90,14 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
     return blockValSetBlockDocIdIterator;
   }
 
+  /**
+   * Returns the runtime-observed selectivity of the predicate to be updated, or {@code null} if not tracked.
+   */
+  @Nullable
+  public FilterSelectivityStats.PredicateSelectivity getPredicateSelectivity() {
+    return predicateSelectivity;
+  }
+
   @Override
   public <T> T getRaw() {
     throw new UnsupportedOperationException("getRaw not supported for ScanBasedDocIdSet");
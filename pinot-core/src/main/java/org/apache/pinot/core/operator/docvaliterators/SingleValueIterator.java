@@ -21,6 +21,7 @@ package org.apache.pinot.core.operator.docvaliterators;
 import org.apache.pinot.core.common.BlockSingleValIterator;
 import org.apache.pinot.core.io.reader.ReaderContext;
 import org.apache.pinot.core.io.reader.SingleColumnSingleValueReader;
+import org.apache.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
 
 
 @SuppressWarnings("unchecked")
@@ -42,6 +43,24 @@ public final class SingleValueIterator extends BlockSingleValIterator {
     return _reader.getInt(_nextDocId++, _context);
   }
 
+  @Override
+  public int nextIntVals(int[] buffer, int length) {
+    int numValuesRead = Math.min(length, _numDocs - _nextDocId);
+    if (numValuesRead <= 0) {
+      return 0;
+    }
+    if (_reader instanceof FixedBitSingleValueReader) {
+      // Bulk unpack the bit-packed values
+      ((FixedBitSingleValueReader) _reader).readValues(_nextDocId, numValuesRead, buffer);
+      _nextDocId += numValuesRead;
+    } else {
+      for (int i = 0; i < numValuesRead; i++) {
+        buffer[i] = _reader.getInt(_nextDocId++, _context);
+      }
+    }
+    return numValuesRead;
+  }
+
   @Override
   public long nextLongVal() {
     return _reader.getLong(_nextDocId++, _context);
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.operator.filter;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.List;
@@ -56,6 +57,11 @@ public class AndFilterOperator extends BaseFilterOperator {
     return new FilterBlock(new AndBlockDocIdSet(filterBlockDocIdSets));
   }
 
+  @VisibleForTesting
+  List<BaseFilterOperator> getFilterOperators() {
+    return _filterOperators;
+  }
+
   @Override
   public String getOperatorName() {
     return OPERATOR_NAME;
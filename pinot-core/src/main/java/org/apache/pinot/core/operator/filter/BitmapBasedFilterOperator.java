@@ -78,10 +78,24 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
 
     int[] dictIds = _exclusive ? _predicateEvaluator.getNonMatchingDictIds() : _predicateEvaluator.getMatchingDictIds();
 
-    // For realtime use case, it is possible that inverted index has not yet generated for the given dict id, so we
-    // filter out null bitmaps
     InvertedIndexReader invertedIndex = _dataSource.getInvertedIndex();
     int length = dictIds.length;
+
+    // Only cache the computed bitmap, a single bitmap from the inverted index can be read directly
+    FilterBitmapCache filterBitmapCache = null;
+    if ((length > 1 || _exclusive) && FilterBitmapCache.isCacheable(invertedIndex)) {
+      filterBitmapCache = FilterBitmapCache.getInstance();
+    }
+    if (filterBitmapCache != null) {
+      ImmutableRoaringBitmap cachedBitmap =
+          filterBitmapCache.get(invertedIndex, dictIds, _startDocId, _endDocId, _exclusive);
+      if (cachedBitmap != null) {
+        return new FilterBlock(new BitmapDocIdSet(cachedBitmap, _startDocId, _endDocId, 0L));
+      }
+    }
+
+    // For realtime use case, it is possible that inverted index has not yet generated for the given dict id, so we
+    // filter out null bitmaps
     List<ImmutableRoaringBitmap> bitmaps = new ArrayList<>(length);
     for (int dictId : dictIds) {
       ImmutableRoaringBitmap bitmap = (ImmutableRoaringBitmap) invertedIndex.getDocIds(dictId);
@@ -96,9 +110,13 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
       LOGGER.info("Not all inverted indexes are generated, numDictIds: {}, numBitmaps: {}", length, numBitmaps);
     }
 
-    return new FilterBlock(
+    BitmapDocIdSet bitmapDocIdSet =
         new BitmapDocIdSet(bitmaps.toArray(new ImmutableRoaringBitmap[numBitmaps]), _startDocId, _endDocId,
-            _exclusive));
+            _exclusive);
+    if (filterBitmapCache != null) {
+      filterBitmapCache.put(invertedIndex, dictIds, _startDocId, _endDocId, _exclusive, bitmapDocIdSet.getRaw());
+    }
+    return new FilterBlock(bitmapDocIdSet);
   }
 
   @Override
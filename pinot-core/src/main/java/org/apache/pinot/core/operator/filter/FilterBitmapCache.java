@@ -0,0 +1,224 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.common.DataSource;
+import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import org.apache.pinot.core.segment.index.readers.InvertedIndexReader;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code FilterBitmapCache} class is a per-server, size-bounded cache of the bitmaps computed by the
+ * {@link BitmapBasedFilterOperator} on the immutable segments, so that the repeated predicates (e.g. dashboard queries)
+ * do not need to OR the same inverted index bitmaps again.
+ * <p>The cache is keyed by the inverted index reader of the column (which identifies both the segment and the column)
+ * and the dictionary ids evaluated, so that equivalent predicates (e.g. IN with values in different order, or a range
+ * covering the same values) share the same entry. The inverted index of the immutable segment never changes, and the
+ * entries of a segment are invalidated when the segment is closed (unloaded or replaced).
+ * <p>The cached bitmaps are shared across queries, and must not be modified.
+ */
+public class FilterBitmapCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FilterBitmapCache.class);
+
+  // Rough estimation of the on-heap size of the cache entry excluding the bitmap and dictionary ids
+  private static final int ENTRY_OVERHEAD_IN_BYTES = 128;
+
+  private static volatile FilterBitmapCache _instance;
+
+  private final Cache<Key, ImmutableRoaringBitmap> _cache;
+  private final AtomicLong _sizeInBytes = new AtomicLong();
+  private final ServerMetrics _serverMetrics;
+
+  /**
+   * Initializes the server-wide filter bitmap cache with the given maximum size, or disables it if the maximum size is
+   * not positive.
+   */
+  public static void init(long maxSizeInBytes, @Nullable ServerMetrics serverMetrics) {
+    if (maxSizeInBytes > 0) {
+      LOGGER.info("Initializing filter bitmap cache with max size: {} bytes", maxSizeInBytes);
+      _instance = new FilterBitmapCache(maxSizeInBytes, serverMetrics);
+    } else {
+      LOGGER.info("Filter bitmap cache is disabled");
+      _instance = null;
+    }
+  }
+
+  /**
+   * Returns the server-wide filter bitmap cache, or {@code null} if it is disabled.
+   */
+  @Nullable
+  public static FilterBitmapCache getInstance() {
+    return _instance;
+  }
+
+  /**
+   * Invalidates the cached bitmaps of the given segment if the cache is enabled.
+   * <p>Should be called before the segment is destroyed.
+   */
+  public static void invalidateSegment(IndexSegment segment) {
+    FilterBitmapCache instance = _instance;
+    if (instance != null) {
+      instance.invalidate(segment);
+    }
+  }
+
+  FilterBitmapCache(long maxSizeInBytes, @Nullable ServerMetrics serverMetrics) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Invalid maxSizeInBytes: %s", maxSizeInBytes);
+    _serverMetrics = serverMetrics;
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((Key key, ImmutableRoaringBitmap bitmap) -> getEntrySizeInBytes(key, bitmap))
+        .removalListener(notification -> {
+          updateSizeInBytes(-getEntrySizeInBytes(notification.getKey(), notification.getValue()));
+          if (notification.getCause() == RemovalCause.SIZE) {
+            addMeteredValue(ServerMeter.FILTER_BITMAP_CACHE_EVICTIONS);
+          }
+        }).build();
+  }
+
+  /**
+   * Returns whether the bitmaps of the given inverted index can be cached. Only the inverted index of the immutable
+   * segment can be cached because the inverted index of the consuming segment keeps changing.
+   */
+  public static boolean isCacheable(InvertedIndexReader invertedIndex) {
+    return invertedIndex instanceof BitmapInvertedIndexReader;
+  }
+
+  /**
+   * Returns the cached bitmap for the given dictionary ids on the given inverted index, or {@code null} if not cached.
+   */
+  @Nullable
+  public ImmutableRoaringBitmap get(InvertedIndexReader invertedIndex, int[] dictIds, int startDocId, int endDocId,
+      boolean exclusive) {
+    ImmutableRoaringBitmap bitmap =
+        _cache.getIfPresent(new Key(invertedIndex, dictIds, startDocId, endDocId, exclusive));
+    addMeteredValue(bitmap != null ? ServerMeter.FILTER_BITMAP_CACHE_HITS : ServerMeter.FILTER_BITMAP_CACHE_MISSES);
+    return bitmap;
+  }
+
+  /**
+   * Caches the bitmap computed for the given dictionary ids on the given inverted index.
+   */
+  public void put(InvertedIndexReader invertedIndex, int[] dictIds, int startDocId, int endDocId, boolean exclusive,
+      ImmutableRoaringBitmap bitmap) {
+    Key key = new Key(invertedIndex, dictIds, startDocId, endDocId, exclusive);
+    // NOTE: add the size before putting the entry so that the size never goes negative when the entry is evicted
+    updateSizeInBytes(getEntrySizeInBytes(key, bitmap));
+    _cache.put(key, bitmap);
+  }
+
+  /**
+   * Invalidates the cached bitmaps of the given segment.
+   */
+  public void invalidate(IndexSegment segment) {
+    Set<InvertedIndexReader> invertedIndexes = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (String column : segment.getColumnNames()) {
+      DataSource dataSource = segment.getDataSource(column);
+      if (dataSource != null) {
+        InvertedIndexReader invertedIndex = dataSource.getInvertedIndex();
+        if (invertedIndex != null) {
+          invertedIndexes.add(invertedIndex);
+        }
+      }
+    }
+    if (!invertedIndexes.isEmpty()) {
+      _cache.asMap().keySet().removeIf(key -> invertedIndexes.contains(key._invertedIndex));
+    }
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  public long getSizeInBytes() {
+    return _sizeInBytes.get();
+  }
+
+  private static int getEntrySizeInBytes(Key key, ImmutableRoaringBitmap bitmap) {
+    return ENTRY_OVERHEAD_IN_BYTES + (key._dictIds.length << 2) + bitmap.serializedSizeInBytes();
+  }
+
+  private void updateSizeInBytes(long delta) {
+    long sizeInBytes = _sizeInBytes.addAndGet(delta);
+    if (_serverMetrics != null) {
+      _serverMetrics.setValueOfGlobalGauge(ServerGauge.FILTER_BITMAP_CACHE_SIZE_IN_BYTES, sizeInBytes);
+    }
+  }
+
+  private void addMeteredValue(ServerMeter meter) {
+    if (_serverMetrics != null) {
+      _serverMetrics.addMeteredGlobalValue(meter, 1L);
+    }
+  }
+
+  private static class Key {
+    final InvertedIndexReader _invertedIndex;
+    final int[] _dictIds;
+    final int _startDocId;
+    final int _endDocId;
+    final boolean _exclusive;
+    final int _hashCode;
+
+    Key(InvertedIndexReader invertedIndex, int[] dictIds, int startDocId, int endDocId, boolean exclusive) {
+      _invertedIndex = invertedIndex;
+      // Normalize the dictionary ids so that the equivalent predicates share the same key
+      _dictIds = dictIds.clone();
+      Arrays.sort(_dictIds);
+      _startDocId = startDocId;
+      _endDocId = endDocId;
+      _exclusive = exclusive;
+      _hashCode = 31 * (31 * (31 * (31 * System.identityHashCode(invertedIndex) + Arrays.hashCode(_dictIds))
+          + startDocId) + endDocId) + Boolean.hashCode(exclusive);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _invertedIndex == that._invertedIndex && _startDocId == that._startDocId && _endDocId == that._endDocId
+          && _exclusive == that._exclusive && Arrays.equals(_dictIds, that._dictIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+}
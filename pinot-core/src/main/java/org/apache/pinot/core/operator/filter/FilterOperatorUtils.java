@@ -20,6 +20,7 @@ package org.apache.pinot.core.operator.filter;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -28,20 +29,37 @@ import org.apache.pinot.core.common.DataSource;
 import org.apache.pinot.core.common.DataSourceMetadata;
 import org.apache.pinot.core.common.Predicate;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
 
 
 public class FilterOperatorUtils {
   private FilterOperatorUtils() {
   }
 
-  // Debug option to enable or disable multi-value optimization
+  // Debug option to enable or disable scan filter reordering (multi-value and selectivity based optimization)
   public static final String USE_SCAN_REORDER_OPTIMIZATION = "useScanReorderOpt";
+  // Debug option to enable or disable only the selectivity based scan filter reordering (including the collection of
+  // the runtime-observed selectivity)
+  public static final String USE_SELECTIVITY_REORDER_OPTIMIZATION = "useSelectivityReorderOpt";
+
+  // Maximum number of matching dictionary ids for a RANGE predicate on column with inverted index to be evaluated by
+  // merging the bitmaps instead of scanning
+  public static final int MAX_NUM_DICT_IDS_FOR_BITMAP_PROBE = 32;
 
   /**
    * Returns the leaf filter operator (i.e. not {@link AndFilterOperator} or {@link OrFilterOperator}).
    */
   public static BaseFilterOperator getLeafFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource,
       int numDocs) {
+    return getLeafFilterOperator(predicateEvaluator, dataSource, numDocs, null);
+  }
+
+  /**
+   * Returns the leaf filter operator (i.e. not {@link AndFilterOperator} or {@link OrFilterOperator}), with the
+   * runtime-observed selectivity of the predicate to be used and updated if the predicate is evaluated by scanning.
+   */
+  public static BaseFilterOperator getLeafFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource,
+      int numDocs, @Nullable FilterSelectivityStats.PredicateSelectivity predicateSelectivity) {
     if (predicateEvaluator.isAlwaysFalse()) {
       return EmptyFilterOperator.getInstance();
     } else if (predicateEvaluator.isAlwaysTrue()) {
@@ -53,19 +71,44 @@ public class FilterOperatorUtils {
     // TODO: make it exclusive
     int endDocId = numDocs - 1;
 
-    // Use inverted index if the predicate type is not RANGE or REGEXP_LIKE for efficiency
+    // Use inverted index if the predicate type is not RANGE or REGEXP_LIKE for efficiency, unless the predicate can be
+    // converted into a cheap index probe
     DataSourceMetadata dataSourceMetadata = dataSource.getDataSourceMetadata();
-    Predicate.Type predicateType = predicateEvaluator.getPredicateType();
-    if (dataSourceMetadata.hasInvertedIndex() && (predicateType != Predicate.Type.RANGE) && (predicateType
-        != Predicate.Type.REGEXP_LIKE)) {
+    if (dataSourceMetadata.hasInvertedIndex()) {
+      Predicate.Type predicateType = predicateEvaluator.getPredicateType();
       if (dataSourceMetadata.isSorted()) {
-        return new SortedInvertedIndexBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
+        // For sorted column, each dictionary id maps to a single document id range, so looking up the matching
+        // dictionary ids is always cheaper than scanning the documents
+        if ((predicateType != Predicate.Type.RANGE && predicateType != Predicate.Type.REGEXP_LIKE)
+            || predicateEvaluator.isDictionaryBased()) {
+          return new SortedInvertedIndexBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
+        }
       } else {
-        return new BitmapBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
+        if ((predicateType != Predicate.Type.RANGE && predicateType != Predicate.Type.REGEXP_LIKE)
+            || canConvertToBitmapProbe(predicateEvaluator)) {
+          return new BitmapBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
+        }
       }
-    } else {
-      return new ScanBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
     }
+    // Use range index for dictionary based RANGE predicate if exists, which only needs to scan the boundary buckets
+    if (dataSource.getRangeIndex() != null
+        && predicateEvaluator instanceof RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator) {
+      return new RangeIndexBasedFilterOperator(
+          (RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator) predicateEvaluator,
+          dataSource, startDocId, endDocId);
+    }
+    return new ScanBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId, predicateSelectivity);
+  }
+
+  /**
+   * Returns whether the RANGE or REGEXP_LIKE predicate on column with inverted index should be evaluated by merging the
+   * bitmaps for the matching dictionary ids instead of scanning. This is the case for dictionary based RANGE predicate
+   * matching only a few dictionary ids. REGEXP_LIKE predicate is always scanned because finding its matching dictionary
+   * ids requires evaluating the regular expression on all the values in the dictionary.
+   */
+  private static boolean canConvertToBitmapProbe(PredicateEvaluator predicateEvaluator) {
+    return predicateEvaluator.isDictionaryBased() && predicateEvaluator.getPredicateType() == Predicate.Type.RANGE
+        && predicateEvaluator.getNumMatchingDictIds() <= MAX_NUM_DICT_IDS_FOR_BITMAP_PROBE;
   }
 
   /**
@@ -123,23 +166,47 @@ public class FilterOperatorUtils {
 
   /**
    * For AND filter operator, reorders its child filter operators based on the their cost and puts the ones with
-   * inverted index first in order to reduce the number of documents to be processed.
+   * inverted index first in order to reduce the number of documents to be processed. Scan based filter operators with
+   * the same priority are ordered by their estimated selectivity so that the most selective predicate is evaluated
+   * first, and the following ones only need to be evaluated on fewer documents.
    * <p>Special filter operators such as {@link MatchAllFilterOperator} and {@link EmptyFilterOperator} should be
    * removed from the list before calling this method.
    */
   private static void reorderAndFilterChildOperators(List<BaseFilterOperator> filterOperators,
       @Nullable Map<String, String> debugOptions) {
+    boolean scanReorderEnabled = isScanReorderEnabled(debugOptions);
+    boolean selectivityReorderEnabled = isSelectivityReorderEnabled(debugOptions);
+    // Estimate the selectivity once for each scan based filter operator
+    Map<BaseFilterOperator, Double> estimatedSelectivityMap = new IdentityHashMap<>();
+    if (selectivityReorderEnabled) {
+      for (BaseFilterOperator filterOperator : filterOperators) {
+        if (filterOperator instanceof ScanBasedFilterOperator) {
+          estimatedSelectivityMap
+              .put(filterOperator, ((ScanBasedFilterOperator) filterOperator).getEstimatedSelectivity());
+        }
+      }
+    }
     filterOperators.sort(new Comparator<BaseFilterOperator>() {
       @Override
       public int compare(BaseFilterOperator o1, BaseFilterOperator o2) {
-        return getPriority(o1) - getPriority(o2);
+        int result = getPriority(o1) - getPriority(o2);
+        if (result != 0 || !selectivityReorderEnabled) {
+          return result;
+        }
+        Double selectivity1 = estimatedSelectivityMap.get(o1);
+        Double selectivity2 = estimatedSelectivityMap.get(o2);
+        if (selectivity1 != null && selectivity2 != null) {
+          return Double.compare(selectivity1, selectivity2);
+        }
+        return 0;
       }
 
       int getPriority(BaseFilterOperator filterOperator) {
         if (filterOperator instanceof SortedInvertedIndexBasedFilterOperator) {
           return 0;
         }
-        if (filterOperator instanceof BitmapBasedFilterOperator) {
+        if (filterOperator instanceof BitmapBasedFilterOperator
+            || filterOperator instanceof RangeIndexBasedFilterOperator) {
           return 1;
         }
         if (filterOperator instanceof AndFilterOperator) {
@@ -149,7 +216,7 @@ public class FilterOperatorUtils {
           return 3;
         }
         if (filterOperator instanceof ScanBasedFilterOperator) {
-          return getScanBasedFilterPriority((ScanBasedFilterOperator) filterOperator, 4, debugOptions);
+          return getScanBasedFilterPriority((ScanBasedFilterOperator) filterOperator, 4, scanReorderEnabled);
         }
         throw new IllegalStateException(filterOperator.getClass().getSimpleName()
             + " should not be reordered, remove it from the list before calling this method");
@@ -157,25 +224,32 @@ public class FilterOperatorUtils {
     });
   }
 
+  private static boolean isScanReorderEnabled(@Nullable Map<String, String> debugOptions) {
+    return debugOptions == null
+        || StringUtils.compareIgnoreCase(debugOptions.get(USE_SCAN_REORDER_OPTIMIZATION), "false") != 0;
+  }
+
+  /**
+   * Returns whether the scan based filter operators should be ordered by their selectivity, in which case the
+   * runtime-observed selectivity should also be collected.
+   */
+  public static boolean isSelectivityReorderEnabled(@Nullable Map<String, String> debugOptions) {
+    return isScanReorderEnabled(debugOptions) && (debugOptions == null
+        || StringUtils.compareIgnoreCase(debugOptions.get(USE_SELECTIVITY_REORDER_OPTIMIZATION), "false") != 0);
+  }
+
   /**
    * Returns the priority for scan based filtering. Multivalue column evaluation is costly, so
    * reorder such that multivalue columns are evaluated after single value columns.
    *
-   * TODO: additional cost based prioritization to be added
-   *
    * @param scanBasedFilterOperator the filter operator to prioritize
-   * @param debugOptions  debug-options to enable/disable the optimization
+   * @param scanReorderEnabled whether the scan reorder optimization is enabled
    * @return the priority to be associated with the filter
    */
   private static int getScanBasedFilterPriority(ScanBasedFilterOperator scanBasedFilterOperator, int basePriority,
-      @Nullable Map<String, String> debugOptions) {
-    boolean disabled = false;
-    if (debugOptions != null
-        && StringUtils.compareIgnoreCase(debugOptions.get(USE_SCAN_REORDER_OPTIMIZATION), "false") == 0) {
-      disabled = true;
-    }
+      boolean scanReorderEnabled) {
     DataSourceMetadata metadata = scanBasedFilterOperator.getDataSourceMetadata();
-    if (disabled || metadata == null || metadata.isSingleValue()) {
+    if (!scanReorderEnabled || metadata == null || metadata.isSingleValue()) {
       return basePriority;
     }
 
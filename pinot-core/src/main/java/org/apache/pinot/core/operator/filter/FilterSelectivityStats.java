@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.pinot.core.common.Predicate;
+
+
+/**
+ * The {@code FilterSelectivityStats} class keeps the runtime-observed selectivity of the scan based predicates for a
+ * table, which is used to order the child filter operators of the AND filter operator.
+ * <p>The selectivity of a predicate is observed as the fraction of the candidate documents (documents already matching
+ * the preceding children of the AND filter) that match the predicate, and is tracked per column and predicate type. The
+ * observations decay over time so that the statistics follow the changes of the data and the query pattern.
+ */
+public class FilterSelectivityStats {
+  private static final Map<String, FilterSelectivityStats> TABLE_STATS_MAP = new ConcurrentHashMap<>();
+
+  private final Map<String, PredicateSelectivity> _predicateSelectivityMap = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the filter selectivity statistics for the given table, creates one if not exists.
+   */
+  public static FilterSelectivityStats getTableStats(String tableName) {
+    return TABLE_STATS_MAP.computeIfAbsent(tableName, k -> new FilterSelectivityStats());
+  }
+
+  /**
+   * Removes the filter selectivity statistics for the given table.
+   */
+  public static void removeTableStats(String tableName) {
+    TABLE_STATS_MAP.remove(tableName);
+  }
+
+  /**
+   * Returns the selectivity of the predicates of the given type on the given column, creates one if not exists.
+   */
+  public PredicateSelectivity getPredicateSelectivity(String column, Predicate.Type predicateType) {
+    return _predicateSelectivityMap.computeIfAbsent(column + '.' + predicateType, k -> new PredicateSelectivity());
+  }
+
+  /**
+   * Runtime-observed selectivity of the predicates of a type on a column.
+   * <p>This is updated on every AND evaluation, so instead of locking, the number of documents evaluated and matched
+   * are packed into a single atomic long (upper and lower 32 bits) to keep them consistent with each other.
+   */
+  public static class PredicateSelectivity {
+    // Minimum number of documents evaluated before the observed selectivity is used
+    static final long MIN_NUM_DOCS_EVALUATED = 1000L;
+    // Halve the observations once the number of documents evaluated exceeds this threshold
+    static final long MAX_NUM_DOCS_EVALUATED = 1_000_000L;
+
+    private static final long LOWER_32_BITS_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLong _numDocsEvaluatedAndMatched = new AtomicLong();
+
+    /**
+     * Records an observation of the predicate evaluated on a set of candidate documents.
+     *
+     * @param numDocsEvaluated Number of candidate documents evaluated
+     * @param numDocsMatched Number of candidate documents matching the predicate
+     */
+    public void record(long numDocsEvaluated, long numDocsMatched) {
+      // Scale down large observations so that the sums always fit into 32 bits
+      while (numDocsEvaluated > MAX_NUM_DOCS_EVALUATED) {
+        numDocsEvaluated >>= 1;
+        numDocsMatched >>= 1;
+      }
+      while (true) {
+        long current = _numDocsEvaluatedAndMatched.get();
+        long newNumDocsEvaluated = (current >>> 32) + numDocsEvaluated;
+        long newNumDocsMatched = (current & LOWER_32_BITS_MASK) + numDocsMatched;
+        while (newNumDocsEvaluated > MAX_NUM_DOCS_EVALUATED) {
+          newNumDocsEvaluated >>= 1;
+          newNumDocsMatched >>= 1;
+        }
+        if (_numDocsEvaluatedAndMatched.compareAndSet(current, (newNumDocsEvaluated << 32) | newNumDocsMatched)) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Returns the observed selectivity (fraction of the evaluated documents matching the predicate), or the given
+     * default selectivity if not enough documents have been evaluated.
+     */
+    public double getSelectivity(double defaultSelectivity) {
+      long current = _numDocsEvaluatedAndMatched.get();
+      long numDocsEvaluated = current >>> 32;
+      if (numDocsEvaluated < MIN_NUM_DOCS_EVALUATED) {
+        return defaultSelectivity;
+      }
+      return (double) (current & LOWER_32_BITS_MASK) / numDocsEvaluated;
+    }
+  }
+}
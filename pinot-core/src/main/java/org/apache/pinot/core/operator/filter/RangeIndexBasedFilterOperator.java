@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import com.google.common.base.Preconditions;
+import org.apache.pinot.core.common.BlockValSet;
+import org.apache.pinot.core.common.DataSource;
+import org.apache.pinot.core.operator.blocks.FilterBlock;
+import org.apache.pinot.core.operator.docidsets.BitmapDocIdSet;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
+import org.apache.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Filter operator for RANGE predicate on column with range index.
+ * <p>The document ids of the buckets fully covered by the range are taken directly from the range index, and the
+ * documents of the (at most 2) boundary buckets partially covered by the range are scanned in batches.
+ */
+public class RangeIndexBasedFilterOperator extends BaseFilterOperator {
+  private static final String OPERATOR_NAME = "RangeIndexBasedFilterOperator";
+  private static final int BATCH_SIZE = 1024;
+
+  private final RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator _predicateEvaluator;
+  private final DataSource _dataSource;
+  private final int _startDocId;
+  // TODO: change it to exclusive
+  // Inclusive
+  private final int _endDocId;
+
+  RangeIndexBasedFilterOperator(
+      RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator predicateEvaluator,
+      DataSource dataSource, int startDocId, int endDocId) {
+    // NOTE:
+    // Predicate that is always evaluated as true or false should not be passed into the RangeIndexBasedFilterOperator
+    // for performance concern.
+    // If predicate is always evaluated as true, use MatchAllFilterOperator; if predicate is always evaluated as false,
+    // use EmptyFilterOperator.
+    Preconditions.checkArgument(!predicateEvaluator.isAlwaysTrue() && !predicateEvaluator.isAlwaysFalse());
+
+    _predicateEvaluator = predicateEvaluator;
+    _dataSource = dataSource;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  @Override
+  protected FilterBlock getNextBlock() {
+    BitmapRangeIndexReader rangeIndex = _dataSource.getRangeIndex();
+    int startDictId = _predicateEvaluator.getStartDictId();
+    int endDictId = _predicateEvaluator.getEndDictId();
+    int firstBucketId = rangeIndex.getBucketId(startDictId);
+    int lastBucketId = rangeIndex.getBucketId(endDictId - 1);
+
+    MutableRoaringBitmap docIds = new MutableRoaringBitmap();
+    long numEntriesScanned = 0L;
+    BlockValSet blockValSet = null;
+    int[] docIdBuffer = null;
+    int[] dictIdBuffer = null;
+    for (int bucketId = firstBucketId; bucketId <= lastBucketId; bucketId++) {
+      ImmutableRoaringBitmap bucketDocIds = rangeIndex.getDocIds(bucketId);
+      if (startDictId <= rangeIndex.getBucketStartDictId(bucketId)
+          && endDictId >= rangeIndex.getBucketEndDictId(bucketId)) {
+        // Bucket fully covered by the range
+        docIds.or(bucketDocIds);
+      } else {
+        // Boundary bucket, scan the dictionary ids of the documents in batches
+        if (blockValSet == null) {
+          blockValSet = _dataSource.nextBlock().getBlockValueSet();
+          docIdBuffer = new int[BATCH_SIZE];
+          dictIdBuffer = new int[BATCH_SIZE];
+        }
+        IntIterator docIdIterator = bucketDocIds.getIntIterator();
+        int numDocIds = 0;
+        while (docIdIterator.hasNext()) {
+          int docId = docIdIterator.next();
+          if (docId < _startDocId) {
+            continue;
+          }
+          if (docId > _endDocId) {
+            break;
+          }
+          docIdBuffer[numDocIds++] = docId;
+          if (numDocIds == BATCH_SIZE) {
+            addMatchingDocIds(blockValSet, docIdBuffer, dictIdBuffer, numDocIds, startDictId, endDictId, docIds);
+            numEntriesScanned += numDocIds;
+            numDocIds = 0;
+          }
+        }
+        if (numDocIds > 0) {
+          addMatchingDocIds(blockValSet, docIdBuffer, dictIdBuffer, numDocIds, startDictId, endDictId, docIds);
+          numEntriesScanned += numDocIds;
+        }
+      }
+    }
+
+    return new FilterBlock(new BitmapDocIdSet(docIds, _startDocId, _endDocId, numEntriesScanned));
+  }
+
+  private static void addMatchingDocIds(BlockValSet blockValSet, int[] docIdBuffer, int[] dictIdBuffer, int numDocIds,
+      int startDictId, int endDictId, MutableRoaringBitmap docIds) {
+    blockValSet.getDictionaryIds(docIdBuffer, 0, numDocIds, dictIdBuffer, 0);
+    for (int i = 0; i < numDocIds; i++) {
+      int dictId = dictIdBuffer[i];
+      if (dictId >= startDictId && dictId < endDictId) {
+        docIds.add(docIdBuffer[i]);
+      }
+    }
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+}
@@ -19,20 +19,25 @@
 package org.apache.pinot.core.operator.filter;
 
 import com.google.common.base.Preconditions;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.Block;
 import org.apache.pinot.core.common.BlockMetadata;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.common.DataSource;
 import org.apache.pinot.core.common.DataSourceMetadata;
+import org.apache.pinot.core.common.Predicate;
 import org.apache.pinot.core.operator.blocks.FilterBlock;
 import org.apache.pinot.core.operator.docidsets.FilterBlockDocIdSet;
 import org.apache.pinot.core.operator.docidsets.ScanBasedMultiValueDocIdSet;
 import org.apache.pinot.core.operator.docidsets.ScanBasedSingleValueDocIdSet;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
 
 
 public class ScanBasedFilterOperator extends BaseFilterOperator {
   private static final String OPERATOR_NAME = "ScanBasedFilterOperator";
+  // Selectivity used when it can neither be observed nor estimated
+  static final double DEFAULT_SELECTIVITY = 0.5;
 
   private final PredicateEvaluator _predicateEvaluator;
   private final DataSource _dataSource;
@@ -40,8 +45,14 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
   // TODO: change it to exclusive
   // Inclusive
   private final int _endDocId;
+  private final FilterSelectivityStats.PredicateSelectivity _predicateSelectivity;
 
   ScanBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int startDocId, int endDocId) {
+    this(predicateEvaluator, dataSource, startDocId, endDocId, null);
+  }
+
+  ScanBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int startDocId, int endDocId,
+      @Nullable FilterSelectivityStats.PredicateSelectivity predicateSelectivity) {
     // NOTE:
     // Predicate that is always evaluated as true or false should not be passed into the ScanBasedFilterOperator for
     // performance concern.
@@ -53,6 +64,7 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     _dataSource = dataSource;
     _startDocId = startDocId;
     _endDocId = endDocId;
+    _predicateSelectivity = predicateSelectivity;
   }
 
   @Override
@@ -66,10 +78,10 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     if (dataSourceMetadata.isSingleValue()) {
       filterBlockDocIdSet =
           new ScanBasedSingleValueDocIdSet(_dataSource.getOperatorName(), blockValueSet, blockMetadata,
-              _predicateEvaluator);
+              _predicateEvaluator, _predicateSelectivity);
     } else {
       filterBlockDocIdSet = new ScanBasedMultiValueDocIdSet(_dataSource.getOperatorName(), blockValueSet, blockMetadata,
-          _predicateEvaluator);
+          _predicateEvaluator, _predicateSelectivity);
     }
     filterBlockDocIdSet.setStartDocId(_startDocId);
     filterBlockDocIdSet.setEndDocId(_endDocId);
@@ -95,4 +107,33 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
   public DataSourceMetadata getDataSourceMetadata() {
     return _dataSource.getDataSourceMetadata();
   }
+
+  /**
+   * Returns the estimated selectivity (fraction of the documents matching the predicate) of the scan filter.
+   * <p>The runtime-observed selectivity is preferred if available. Otherwise for dictionary based predicates, the
+   * selectivity is estimated from the number of matching dictionary ids and the cardinality of the column assuming a
+   * uniform value distribution.
+   */
+  public double getEstimatedSelectivity() {
+    double estimatedSelectivity = DEFAULT_SELECTIVITY;
+    // NOTE: skip REGEXP_LIKE predicate because counting its matching dictionary ids requires evaluating the regular
+    // expression on all the values in the dictionary
+    if (_predicateEvaluator.isDictionaryBased()
+        && _predicateEvaluator.getPredicateType() != Predicate.Type.REGEXP_LIKE) {
+      Dictionary dictionary = _dataSource.getDictionary();
+      int cardinality = dictionary != null ? dictionary.length() : 0;
+      if (cardinality > 0) {
+        if (_predicateEvaluator.isExclusive()) {
+          estimatedSelectivity = 1.0 - (double) _predicateEvaluator.getNumNonMatchingDictIds() / cardinality;
+        } else {
+          estimatedSelectivity = (double) _predicateEvaluator.getNumMatchingDictIds() / cardinality;
+        }
+      }
+    }
+    if (_predicateSelectivity != null) {
+      return _predicateSelectivity.getSelectivity(estimatedSelectivity);
+    } else {
+      return estimatedSelectivity;
+    }
+  }
 }
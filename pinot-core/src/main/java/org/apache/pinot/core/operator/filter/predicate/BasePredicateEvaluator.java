@@ -25,6 +25,17 @@ public abstract class BasePredicateEvaluator implements PredicateEvaluator {
     return getPredicateType().isExclusive();
   }
 
+  @Override
+  public int applySV(int[] values, int length, int[] matchingIndexes) {
+    int numMatches = 0;
+    for (int i = 0; i < length; i++) {
+      if (applySV(values[i])) {
+        matchingIndexes[numMatches++] = i;
+      }
+    }
+    return numMatches;
+  }
+
   @Override
   public int getNumMatchingDictIds() {
     return getMatchingDictIds().length;
@@ -95,6 +95,18 @@ public class EqualsPredicateEvaluatorFactory {
       return _matchingDictId == dictId;
     }
 
+    @Override
+    public int applySV(int[] dictIds, int length, int[] matchingIndexes) {
+      int matchingDictId = _matchingDictId;
+      int numMatches = 0;
+      for (int i = 0; i < length; i++) {
+        if (dictIds[i] == matchingDictId) {
+          matchingIndexes[numMatches++] = i;
+        }
+      }
+      return numMatches;
+    }
+
     @Override
     public int[] getMatchingDictIds() {
       return _matchingDictIds;
@@ -59,6 +59,16 @@ public interface PredicateEvaluator {
    */
   boolean applySV(int value);
 
+  /**
+   * Apply a batch of single-value entries to the predicate.
+   *
+   * @param values Array of dictionary ids or raw values
+   * @param length Number of entries in the batch
+   * @param matchingIndexes Buffer for the indexes of the matching entries (in ascending order)
+   * @return Number of matching entries
+   */
+  int applySV(int[] values, int length, int[] matchingIndexes);
+
   /**
    * Apply a multi-value entry to the predicate.
    *
@@ -76,7 +76,7 @@ public class RangePredicateEvaluatorFactory {
     }
   }
 
-  private static final class OfflineDictionaryBasedRangePredicateEvaluator extends BaseDictionaryBasedPredicateEvaluator {
+  public static final class OfflineDictionaryBasedRangePredicateEvaluator extends BaseDictionaryBasedPredicateEvaluator {
     final int _startDictId;
     // Exclusive
     final int _endDictId;
@@ -136,6 +136,34 @@ public class RangePredicateEvaluatorFactory {
       return _startDictId <= dictId && _endDictId > dictId;
     }
 
+    @Override
+    public int applySV(int[] dictIds, int length, int[] matchingIndexes) {
+      int startDictId = _startDictId;
+      int endDictId = _endDictId;
+      int numMatches = 0;
+      for (int i = 0; i < length; i++) {
+        int dictId = dictIds[i];
+        if (startDictId <= dictId && endDictId > dictId) {
+          matchingIndexes[numMatches++] = i;
+        }
+      }
+      return numMatches;
+    }
+
+    /**
+     * Returns the first matching dictionary id (inclusive).
+     */
+    public int getStartDictId() {
+      return _startDictId;
+    }
+
+    /**
+     * Returns the last matching dictionary id (exclusive).
+     */
+    public int getEndDictId() {
+      return _endDictId;
+    }
+
     @Override
     public int getNumMatchingDictIds() {
       return _numMatchingDictIds;
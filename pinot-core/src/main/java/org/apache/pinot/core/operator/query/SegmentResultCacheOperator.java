@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.query;
+
+import javax.annotation.Nonnull;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.query.aggregation.AggregationFunctionContext;
+import org.apache.pinot.core.query.cache.CachedSegmentResult;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+
+
+/**
+ * The {@code SegmentResultCacheOperator} class provides the operator for the aggregation (group-by) query on a single
+ * segment with the {@link SegmentResultCache}. It either serves the result from the cache, or executes the underlying
+ * operator and caches its result.
+ */
+public class SegmentResultCacheOperator extends BaseOperator<IntermediateResultsBlock> {
+  private static final String OPERATOR_NAME = "SegmentResultCacheOperator";
+
+  private final CachedSegmentResult _cachedResult;
+  private final AggregationFunctionContext[] _functionContexts;
+  private final Operator<IntermediateResultsBlock> _operator;
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.Key _key;
+
+  private ExecutionStatistics _executionStatistics;
+
+  /**
+   * Constructor for the operator serving the result from the cache.
+   */
+  public SegmentResultCacheOperator(@Nonnull CachedSegmentResult cachedResult,
+      @Nonnull AggregationFunctionContext[] functionContexts) {
+    _cachedResult = cachedResult;
+    _functionContexts = functionContexts;
+    _operator = null;
+    _segmentResultCache = null;
+    _key = null;
+  }
+
+  /**
+   * Constructor for the operator executing the underlying operator and caching its result.
+   */
+  public SegmentResultCacheOperator(@Nonnull Operator<IntermediateResultsBlock> operator,
+      @Nonnull SegmentResultCache segmentResultCache, @Nonnull SegmentResultCache.Key key) {
+    _cachedResult = null;
+    _functionContexts = null;
+    _operator = operator;
+    _segmentResultCache = segmentResultCache;
+    _key = key;
+  }
+
+  @Override
+  protected IntermediateResultsBlock getNextBlock() {
+    if (_cachedResult != null) {
+      _executionStatistics = _cachedResult.getExecutionStatistics();
+      return _cachedResult.toResultsBlock(_functionContexts);
+    }
+
+    IntermediateResultsBlock resultsBlock = _operator.nextBlock();
+    _executionStatistics = _operator.getExecutionStatistics();
+    // NOTE: cache the result before returning it because the result will be modified when merging with other results
+    _segmentResultCache.put(_key, resultsBlock, _executionStatistics);
+    return resultsBlock;
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _executionStatistics;
+  }
+}
@@ -104,6 +104,11 @@ public class SelectionOnlyOperator extends BaseOperator<IntermediateResultsBlock
 
   @Override
   public ExecutionStatistics getExecutionStatistics() {
+    if (_executionStatistics == null) {
+      // Operator is not executed because enough rows have been collected from other segments, only count the total
+      // number of documents
+      return new ExecutionStatistics(0L, 0L, 0L, _indexSegment.getSegmentMetadata().getTotalRawDocs());
+    }
     return _executionStatistics;
   }
 }
@@ -23,6 +23,7 @@ import org.apache.pinot.common.data.FieldSpec;
 import org.apache.pinot.core.operator.blocks.ProjectionBlock;
 import org.apache.pinot.core.operator.transform.TransformResultMetadata;
 import org.apache.pinot.core.plan.DocIdSetPlanNode;
+import org.apache.pinot.core.realtime.impl.dictionary.MutableDictionary;
 import org.apache.pinot.core.segment.index.readers.Dictionary;
 import org.apache.pinot.core.util.ArrayCopyUtils;
 
@@ -38,6 +39,11 @@ public abstract class BaseTransformFunction implements TransformFunction {
   protected static final TransformResultMetadata STRING_SV_NO_DICTIONARY_METADATA =
       new TransformResultMetadata(FieldSpec.DataType.STRING, true, false);
 
+  // For single-valued dictionary-encoded columns with at most this number of values, transform functions can transform
+  // each dictionary value once, and look up the results with the dictionary ids (the cost is bounded by transforming
+  // one block of documents)
+  protected static final int MAX_DICTIONARY_SIZE_FOR_DICTIONARY_BASED_TRANSFORM = DocIdSetPlanNode.MAX_DOC_PER_CALL;
+
   private int[] _intValuesSV;
   private long[] _longValuesSV;
   private float[] _floatValuesSV;
@@ -54,6 +60,36 @@ public abstract class BaseTransformFunction implements TransformFunction {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Returns whether the values of the given argument can be transformed on its dictionary, i.e. the argument is a
+   * single-valued column with a small immutable dictionary.
+   * <p>NOTE: dictionary of the consuming segment is excluded because it keeps growing.
+   */
+  protected static boolean canTransformOnDictionary(TransformFunction argument) {
+    if (!(argument instanceof IdentifierTransformFunction)) {
+      return false;
+    }
+    TransformResultMetadata resultMetadata = argument.getResultMetadata();
+    if (!resultMetadata.isSingleValue() || !resultMetadata.hasDictionary()) {
+      return false;
+    }
+    Dictionary dictionary = argument.getDictionary();
+    return !(dictionary instanceof MutableDictionary)
+        && dictionary.length() <= MAX_DICTIONARY_SIZE_FOR_DICTIONARY_BASED_TRANSFORM;
+  }
+
+  /**
+   * Returns all the dictionary ids (0 to length - 1) of the given dictionary.
+   */
+  protected static int[] getAllDictIds(Dictionary dictionary) {
+    int length = dictionary.length();
+    int[] dictIds = new int[length];
+    for (int i = 0; i < length; i++) {
+      dictIds[i] = i;
+    }
+    return dictIds;
+  }
+
   @Override
   public int[] transformToDictIdsSV(@Nonnull ProjectionBlock projectionBlock) {
     throw new UnsupportedOperationException();
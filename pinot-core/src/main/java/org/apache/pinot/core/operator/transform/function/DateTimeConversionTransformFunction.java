@@ -32,6 +32,7 @@ import org.apache.pinot.core.operator.transform.transformer.datetime.EpochToSDFT
 import org.apache.pinot.core.operator.transform.transformer.datetime.SDFToEpochTransformer;
 import org.apache.pinot.core.operator.transform.transformer.datetime.SDFToSDFTransformer;
 import org.apache.pinot.core.plan.DocIdSetPlanNode;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
 
 
 /**
@@ -85,6 +86,9 @@ public class DateTimeConversionTransformFunction extends BaseTransformFunction {
   private TransformFunction _mainTransformFunction;
   private BaseDateTimeTransformer _dateTimeTransformer;
   private TransformResultMetadata _resultMetadata;
+  private boolean _transformOnDictionary;
+  private long[] _dictIdToLongOutputTime;
+  private String[] _dictIdToStringOutputTime;
   private long[] _longOutputTimes;
   private String[] _stringOutputTimes;
 
@@ -117,6 +121,7 @@ public class DateTimeConversionTransformFunction extends BaseTransformFunction {
     } else {
       _resultMetadata = STRING_SV_NO_DICTIONARY_METADATA;
     }
+    _transformOnDictionary = canTransformOnDictionary(_mainTransformFunction);
   }
 
   @Override
@@ -132,7 +137,29 @@ public class DateTimeConversionTransformFunction extends BaseTransformFunction {
       }
 
       int length = projectionBlock.getNumDocs();
-      if (_dateTimeTransformer instanceof EpochToEpochTransformer) {
+      if (_transformOnDictionary) {
+        if (_dictIdToLongOutputTime == null) {
+          // Transform each dictionary value once
+          Dictionary dictionary = _mainTransformFunction.getDictionary();
+          int cardinality = dictionary.length();
+          int[] dictIds = getAllDictIds(dictionary);
+          _dictIdToLongOutputTime = new long[cardinality];
+          if (_dateTimeTransformer instanceof EpochToEpochTransformer) {
+            long[] inputTimes = new long[cardinality];
+            dictionary.readLongValues(dictIds, 0, cardinality, inputTimes, 0);
+            ((EpochToEpochTransformer) _dateTimeTransformer)
+                .transform(inputTimes, _dictIdToLongOutputTime, cardinality);
+          } else {
+            String[] inputTimes = new String[cardinality];
+            dictionary.readStringValues(dictIds, 0, cardinality, inputTimes, 0);
+            ((SDFToEpochTransformer) _dateTimeTransformer).transform(inputTimes, _dictIdToLongOutputTime, cardinality);
+          }
+        }
+        int[] dictIds = _mainTransformFunction.transformToDictIdsSV(projectionBlock);
+        for (int i = 0; i < length; i++) {
+          _longOutputTimes[i] = _dictIdToLongOutputTime[dictIds[i]];
+        }
+      } else if (_dateTimeTransformer instanceof EpochToEpochTransformer) {
         ((EpochToEpochTransformer) _dateTimeTransformer)
             .transform(_mainTransformFunction.transformToLongValuesSV(projectionBlock), _longOutputTimes, length);
       } else {
@@ -153,7 +180,29 @@ public class DateTimeConversionTransformFunction extends BaseTransformFunction {
       }
 
       int length = projectionBlock.getNumDocs();
-      if (_dateTimeTransformer instanceof EpochToSDFTransformer) {
+      if (_transformOnDictionary) {
+        if (_dictIdToStringOutputTime == null) {
+          // Transform each dictionary value once
+          Dictionary dictionary = _mainTransformFunction.getDictionary();
+          int cardinality = dictionary.length();
+          int[] dictIds = getAllDictIds(dictionary);
+          _dictIdToStringOutputTime = new String[cardinality];
+          if (_dateTimeTransformer instanceof EpochToSDFTransformer) {
+            long[] inputTimes = new long[cardinality];
+            dictionary.readLongValues(dictIds, 0, cardinality, inputTimes, 0);
+            ((EpochToSDFTransformer) _dateTimeTransformer)
+                .transform(inputTimes, _dictIdToStringOutputTime, cardinality);
+          } else {
+            String[] inputTimes = new String[cardinality];
+            dictionary.readStringValues(dictIds, 0, cardinality, inputTimes, 0);
+            ((SDFToSDFTransformer) _dateTimeTransformer).transform(inputTimes, _dictIdToStringOutputTime, cardinality);
+          }
+        }
+        int[] dictIds = _mainTransformFunction.transformToDictIdsSV(projectionBlock);
+        for (int i = 0; i < length; i++) {
+          _stringOutputTimes[i] = _dictIdToStringOutputTime[dictIds[i]];
+        }
+      } else if (_dateTimeTransformer instanceof EpochToSDFTransformer) {
         ((EpochToSDFTransformer) _dateTimeTransformer)
             .transform(_mainTransformFunction.transformToLongValuesSV(projectionBlock), _stringOutputTimes, length);
       } else {
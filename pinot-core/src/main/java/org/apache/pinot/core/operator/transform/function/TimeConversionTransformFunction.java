@@ -28,6 +28,7 @@ import org.apache.pinot.core.operator.transform.TransformResultMetadata;
 import org.apache.pinot.core.operator.transform.transformer.timeunit.TimeUnitTransformer;
 import org.apache.pinot.core.operator.transform.transformer.timeunit.TimeUnitTransformerFactory;
 import org.apache.pinot.core.plan.DocIdSetPlanNode;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
 
 
 public class TimeConversionTransformFunction extends BaseTransformFunction {
@@ -35,6 +36,8 @@ public class TimeConversionTransformFunction extends BaseTransformFunction {
 
   private TransformFunction _mainTransformFunction;
   private TimeUnitTransformer _timeUnitTransformer;
+  private boolean _transformOnDictionary;
+  private long[] _dictIdToOutputTime;
   private long[] _outputTimes;
 
   @Override
@@ -59,6 +62,7 @@ public class TimeConversionTransformFunction extends BaseTransformFunction {
     _timeUnitTransformer = TimeUnitTransformerFactory.getTimeUnitTransformer(
         TimeUnit.valueOf(((LiteralTransformFunction) arguments.get(1)).getLiteral().toUpperCase()),
         ((LiteralTransformFunction) arguments.get(2)).getLiteral());
+    _transformOnDictionary = canTransformOnDictionary(_mainTransformFunction);
   }
 
   @Override
@@ -72,8 +76,25 @@ public class TimeConversionTransformFunction extends BaseTransformFunction {
       _outputTimes = new long[DocIdSetPlanNode.MAX_DOC_PER_CALL];
     }
 
-    _timeUnitTransformer.transform(_mainTransformFunction.transformToLongValuesSV(projectionBlock), _outputTimes,
-        projectionBlock.getNumDocs());
+    int length = projectionBlock.getNumDocs();
+    if (_transformOnDictionary) {
+      if (_dictIdToOutputTime == null) {
+        // Transform each dictionary value once
+        Dictionary dictionary = _mainTransformFunction.getDictionary();
+        int cardinality = dictionary.length();
+        long[] inputTimes = new long[cardinality];
+        dictionary.readLongValues(getAllDictIds(dictionary), 0, cardinality, inputTimes, 0);
+        _dictIdToOutputTime = new long[cardinality];
+        _timeUnitTransformer.transform(inputTimes, _dictIdToOutputTime, cardinality);
+      }
+      int[] dictIds = _mainTransformFunction.transformToDictIdsSV(projectionBlock);
+      for (int i = 0; i < length; i++) {
+        _outputTimes[i] = _dictIdToOutputTime[dictIds[i]];
+      }
+    } else {
+      _timeUnitTransformer
+          .transform(_mainTransformFunction.transformToLongValuesSV(projectionBlock), _outputTimes, length);
+    }
     return _outputTimes;
   }
 }
@@ -24,20 +24,49 @@ import javax.annotation.Nonnull;
 
 /**
  * Implementation of {@link TimeUnitTransformer} to handle time units defined in {@link TimeUnit}.
+ * <p>The conversion factor between the input and output time unit is computed once, so that the transform is a tight
+ * loop of multiplications (with the same saturation on overflow as {@link TimeUnit#convert(long, TimeUnit)}) or
+ * divisions.
  */
 public class JavaTimeUnitTransformer implements TimeUnitTransformer {
   private final TimeUnit _inputTimeUnit;
   private final TimeUnit _outputTimeUnit;
+  // Positive if the output time unit is finer than the input time unit (multiply), negative otherwise (divide)
+  private final long _factor;
 
   public JavaTimeUnitTransformer(@Nonnull TimeUnit inputTimeUnit, @Nonnull TimeUnit outputTimeUnit) {
     _inputTimeUnit = inputTimeUnit;
     _outputTimeUnit = outputTimeUnit;
+    if (inputTimeUnit.compareTo(outputTimeUnit) >= 0) {
+      _factor = outputTimeUnit.convert(1L, inputTimeUnit);
+    } else {
+      _factor = -inputTimeUnit.convert(1L, outputTimeUnit);
+    }
   }
 
   @Override
   public void transform(@Nonnull long[] input, @Nonnull long[] output, int length) {
-    for (int i = 0; i < length; i++) {
-      output[i] = _outputTimeUnit.convert(input[i], _inputTimeUnit);
+    long factor = _factor;
+    if (factor == 1L) {
+      System.arraycopy(input, 0, output, 0, length);
+    } else if (factor > 0) {
+      long max = Long.MAX_VALUE / factor;
+      long min = -max;
+      for (int i = 0; i < length; i++) {
+        long value = input[i];
+        if (value > max) {
+          output[i] = Long.MAX_VALUE;
+        } else if (value < min) {
+          output[i] = Long.MIN_VALUE;
+        } else {
+          output[i] = value * factor;
+        }
+      }
+    } else {
+      long divisor = -factor;
+      for (int i = 0; i < length; i++) {
+        output[i] = input[i] / divisor;
+      }
     }
   }
 }
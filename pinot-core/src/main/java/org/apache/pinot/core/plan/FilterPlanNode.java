@@ -32,6 +32,7 @@ import org.apache.pinot.core.indexsegment.IndexSegment;
 import org.apache.pinot.core.operator.filter.BaseFilterOperator;
 import org.apache.pinot.core.operator.filter.EmptyFilterOperator;
 import org.apache.pinot.core.operator.filter.FilterOperatorUtils;
+import org.apache.pinot.core.operator.filter.FilterSelectivityStats;
 import org.apache.pinot.core.operator.filter.MatchAllFilterOperator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
@@ -52,14 +53,19 @@ public class FilterPlanNode implements PlanNode {
   @Override
   public BaseFilterOperator run() {
     FilterQueryTree rootFilterNode = RequestUtils.generateFilterQueryTree(_brokerRequest);
-    return constructPhysicalOperator(rootFilterNode, _segment, _brokerRequest.getDebugOptions());
+    FilterSelectivityStats selectivityStats = null;
+    if (_brokerRequest.getQuerySource() != null && _brokerRequest.getQuerySource().getTableName() != null
+        && FilterOperatorUtils.isSelectivityReorderEnabled(_brokerRequest.getDebugOptions())) {
+      selectivityStats = FilterSelectivityStats.getTableStats(_brokerRequest.getQuerySource().getTableName());
+    }
+    return constructPhysicalOperator(rootFilterNode, _segment, selectivityStats, _brokerRequest.getDebugOptions());
   }
 
   /**
    * Helper method to build the operator tree from the filter query tree.
    */
   private static BaseFilterOperator constructPhysicalOperator(FilterQueryTree filterQueryTree, IndexSegment segment,
-      @Nullable Map<String, String> debugOptions) {
+      @Nullable FilterSelectivityStats selectivityStats, @Nullable Map<String, String> debugOptions) {
     int numDocs = segment.getSegmentMetadata().getTotalRawDocs();
     if (filterQueryTree == null) {
       return new MatchAllFilterOperator(numDocs);
@@ -74,7 +80,8 @@ public class FilterPlanNode implements PlanNode {
       if (filterType == FilterOperator.AND) {
         // AND operator
         for (FilterQueryTree childFilter : childFilters) {
-          BaseFilterOperator childFilterOperator = constructPhysicalOperator(childFilter, segment, debugOptions);
+          BaseFilterOperator childFilterOperator =
+              constructPhysicalOperator(childFilter, segment, selectivityStats, debugOptions);
           if (childFilterOperator.isResultEmpty()) {
             // Return empty filter operator if any of the child filter operator's result is empty
             return EmptyFilterOperator.getInstance();
@@ -87,7 +94,8 @@ public class FilterPlanNode implements PlanNode {
       } else {
         // OR operator
         for (FilterQueryTree childFilter : childFilters) {
-          BaseFilterOperator childFilterOperator = constructPhysicalOperator(childFilter, segment, debugOptions);
+          BaseFilterOperator childFilterOperator =
+              constructPhysicalOperator(childFilter, segment, selectivityStats, debugOptions);
           if (childFilterOperator.isResultMatchingAll()) {
             // Return match all filter operator if any of the child filter operator matches all records
             return new MatchAllFilterOperator(numDocs);
@@ -101,9 +109,12 @@ public class FilterPlanNode implements PlanNode {
     } else {
       // Leaf filter operator
       Predicate predicate = Predicate.newPredicate(filterQueryTree);
-      DataSource dataSource = segment.getDataSource(filterQueryTree.getColumn());
+      String column = filterQueryTree.getColumn();
+      DataSource dataSource = segment.getDataSource(column);
       PredicateEvaluator predicateEvaluator = PredicateEvaluatorProvider.getPredicateEvaluator(predicate, dataSource);
-      return FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, numDocs);
+      FilterSelectivityStats.PredicateSelectivity predicateSelectivity =
+          selectivityStats != null ? selectivityStats.getPredicateSelectivity(column, predicate.getType()) : null;
+      return FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, numDocs, predicateSelectivity);
     }
   }
 
@@ -27,15 +27,17 @@ public class InstanceResponsePlanNode implements PlanNode {
   private static final Logger LOGGER = LoggerFactory.getLogger(InstanceResponsePlanNode.class);
 
   private final CombinePlanNode _combinePlanNode;
+  private final int _dataTableVersion;
 
-  public InstanceResponsePlanNode(CombinePlanNode combinePlanNode) {
+  public InstanceResponsePlanNode(CombinePlanNode combinePlanNode, int dataTableVersion) {
     _combinePlanNode = combinePlanNode;
+    _dataTableVersion = dataTableVersion;
   }
 
   @Override
   public InstanceResponseOperator run() {
     long start = System.currentTimeMillis();
-    InstanceResponseOperator instanceResponseOperator = new InstanceResponseOperator(_combinePlanNode.run());
+    InstanceResponseOperator instanceResponseOperator = new InstanceResponseOperator(_combinePlanNode.run(), _dataTableVersion);
     long end = System.currentTimeMillis();
     LOGGER.debug("InstanceResponsePlanNode.run took: {}ms", end - start);
     return instanceResponseOperator;
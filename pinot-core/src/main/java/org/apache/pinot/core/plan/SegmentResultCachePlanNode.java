@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import javax.annotation.Nonnull;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.operator.query.SegmentResultCacheOperator;
+import org.apache.pinot.core.plan.maker.PlanMaker;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import org.apache.pinot.core.query.cache.CachedSegmentResult;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code SegmentResultCachePlanNode} class provides the execution plan for the aggregation (group-by) query on a
+ * single segment with the {@link SegmentResultCache}. The cache is looked up when the plan is made, and the plan for
+ * the segment is only made when the result is not cached.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCachePlanNode.class);
+
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final SegmentResultCache _segmentResultCache;
+  private final SegmentResultCache.Key _key;
+  private final CachedSegmentResult _cachedResult;
+  private final PlanNode _planNode;
+
+  public SegmentResultCachePlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest,
+      @Nonnull SegmentResultCache segmentResultCache, @Nonnull SegmentResultCache.Key key,
+      @Nonnull PlanMaker planMaker) {
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _segmentResultCache = segmentResultCache;
+    _key = key;
+    _cachedResult = segmentResultCache.get(key);
+    _planNode = _cachedResult == null ? planMaker.makeInnerSegmentPlan(indexSegment, brokerRequest) : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SegmentResultCacheOperator run() {
+    if (_cachedResult != null) {
+      return new SegmentResultCacheOperator(_cachedResult, AggregationFunctionUtils
+          .getAggregationFunctionContexts(_brokerRequest.getAggregationsInfo(), _indexSegment.getSegmentMetadata()));
+    } else {
+      return new SegmentResultCacheOperator((Operator<IntermediateResultsBlock>) _planNode.run(), _segmentResultCache,
+          _key);
+    }
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Result Cache Plan Node:");
+    LOGGER.debug(prefix + "Operator: SegmentResultCacheOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    if (_cachedResult != null) {
+      LOGGER.debug(prefix + "Argument 1: Cached result");
+    } else {
+      LOGGER.debug(prefix + "Argument 1: PlanNode -");
+      _planNode.showTree(prefix + "    ");
+    }
+  }
+}
@@ -28,6 +28,7 @@ import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.request.transform.TransformExpressionTree;
 import org.apache.pinot.core.data.manager.SegmentDataManager;
 import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.operator.CombineParallelismPolicy;
 import org.apache.pinot.core.plan.AggregationGroupByPlanNode;
 import org.apache.pinot.core.plan.AggregationPlanNode;
 import org.apache.pinot.core.plan.CombinePlanNode;
@@ -37,9 +38,11 @@ import org.apache.pinot.core.plan.InstanceResponsePlanNode;
 import org.apache.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentResultCachePlanNode;
 import org.apache.pinot.core.plan.SelectionPlanNode;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionType;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
 import org.apache.pinot.core.query.config.QueryExecutorConfig;
 import org.apache.pinot.core.segment.index.readers.Dictionary;
 import org.slf4j.Logger;
@@ -56,21 +59,27 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   public static final int DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY = 10_000;
   public static final String NUM_GROUPS_LIMIT = "num.groups.limit";
   public static final int DEFAULT_NUM_GROUPS_LIMIT = 100_000;
+  public static final String MAX_THREADS_PER_QUERY_KEY = "max.threads.per.query";
+  public static final String MIN_SEGMENTS_PER_THREAD_KEY = "min.segments.per.thread";
 
   private final int _maxInitialResultHolderCapacity;
   // Limit on number of groups, beyond which no new group will be created
   private final int _numGroupsLimit;
+  // Policy to decide the number of threads to combine the results from the segments of a query
+  private final CombineParallelismPolicy _combineParallelismPolicy;
 
   @VisibleForTesting
   public InstancePlanMakerImplV2() {
     _maxInitialResultHolderCapacity = DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY;
     _numGroupsLimit = DEFAULT_NUM_GROUPS_LIMIT;
+    _combineParallelismPolicy = CombineParallelismPolicy.DEFAULT;
   }
 
   @VisibleForTesting
   public InstancePlanMakerImplV2(int maxInitialResultHolderCapacity, int numGroupsLimit) {
     _maxInitialResultHolderCapacity = maxInitialResultHolderCapacity;
     _numGroupsLimit = numGroupsLimit;
+    _combineParallelismPolicy = CombineParallelismPolicy.DEFAULT;
   }
 
   /**
@@ -78,6 +87,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
    * <ul>
    *   <li>Set limit on the initial result holder capacity</li>
    *   <li>Set limit on number of groups returned from each segment and combined result</li>
+   *   <li>Set the parallelism policy to combine the results from the segments</li>
    * </ul>
    *
    * @param queryExecutorConfig Query executor configuration
@@ -89,8 +99,12 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     Preconditions.checkState(_maxInitialResultHolderCapacity <= _numGroupsLimit,
         "Invalid configuration: maxInitialResultHolderCapacity: %d must be smaller or equal to numGroupsLimit: %d",
         _maxInitialResultHolderCapacity, _numGroupsLimit);
-    LOGGER.info("Initializing plan maker with maxInitialResultHolderCapacity: {}, numGroupsLimit: {}",
-        _maxInitialResultHolderCapacity, _numGroupsLimit);
+    _combineParallelismPolicy = new CombineParallelismPolicy(queryExecutorConfig.getConfig()
+        .getInt(MAX_THREADS_PER_QUERY_KEY, CombineParallelismPolicy.DEFAULT_MAX_THREADS_PER_QUERY),
+        queryExecutorConfig.getConfig()
+            .getInt(MIN_SEGMENTS_PER_THREAD_KEY, CombineParallelismPolicy.DEFAULT_MIN_SEGMENTS_PER_THREAD));
+    LOGGER.info("Initializing plan maker with maxInitialResultHolderCapacity: {}, numGroupsLimit: {}, "
+        + "combineParallelismPolicy: {}", _maxInitialResultHolderCapacity, _numGroupsLimit, _combineParallelismPolicy);
   }
 
   @Override
@@ -117,7 +131,7 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
 
   @Override
   public Plan makeInterSegmentPlan(List<SegmentDataManager> segmentDataManagers, BrokerRequest brokerRequest,
-      ExecutorService executorService, long timeOutMs) {
+      ExecutorService executorService, long timeOutMs, int dataTableVersion) {
     // TODO: pass in List<IndexSegment> directly.
     List<IndexSegment> indexSegments = new ArrayList<>(segmentDataManagers.size());
     for (SegmentDataManager segmentDataManager : segmentDataManagers) {
@@ -126,13 +140,21 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     BrokerRequestPreProcessor.preProcess(indexSegments, brokerRequest);
 
     List<PlanNode> planNodes = new ArrayList<>();
+    SegmentResultCache segmentResultCache = SegmentResultCache.getInstance();
     for (IndexSegment indexSegment : indexSegments) {
-      planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      SegmentResultCache.Key key =
+          segmentResultCache != null ? segmentResultCache.getKey(indexSegment, brokerRequest) : null;
+      if (key != null) {
+        planNodes.add(new SegmentResultCachePlanNode(indexSegment, brokerRequest, segmentResultCache, key, this));
+      } else {
+        planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      }
     }
     CombinePlanNode combinePlanNode =
-        new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs, _numGroupsLimit);
+        new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs, _numGroupsLimit,
+            _combineParallelismPolicy);
 
-    return new GlobalPlanImplV0(new InstanceResponsePlanNode(combinePlanNode));
+    return new GlobalPlanImplV0(new InstanceResponsePlanNode(combinePlanNode, dataTableVersion));
   }
 
   /**
@@ -48,8 +48,9 @@ public interface PlanMaker {
    * @param brokerRequest broker request.
    * @param executorService executor service.
    * @param timeOutMs time out in milliseconds.
+   * @param dataTableVersion version of the data table to build.
    * @return instance level plan.
    */
   Plan makeInterSegmentPlan(List<SegmentDataManager> segmentDataManagers, BrokerRequest brokerRequest,
-      ExecutorService executorService, long timeOutMs);
+      ExecutorService executorService, long timeOutMs, int dataTableVersion);
 }
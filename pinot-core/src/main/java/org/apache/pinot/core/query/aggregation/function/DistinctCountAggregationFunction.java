@@ -20,6 +20,7 @@ package org.apache.pinot.core.query.aggregation.function;
 
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.data.FieldSpec;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.BlockValSet;
@@ -27,8 +28,18 @@ import org.apache.pinot.core.query.aggregation.AggregationResultHolder;
 import org.apache.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import org.apache.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
 
 
+/**
+ * The {@code DistinctCountAggregationFunction} class computes the number of distinct values (hash codes of the values)
+ * of a column.
+ * <p>For dictionary-encoded columns, the dictionary ids are collected into a bitmap during the aggregation, and are
+ * only converted to the value hash codes when extracting the intermediate result for the segment, so that each distinct
+ * value is read from the dictionary and hashed only once per segment (per group for group-by queries).
+ */
 public class DistinctCountAggregationFunction implements AggregationFunction<IntOpenHashSet, Integer> {
 
   @Nonnull
@@ -63,8 +74,18 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   @Override
   public void aggregate(int length, @Nonnull AggregationResultHolder aggregationResultHolder,
       @Nonnull BlockValSet... blockValSets) {
-    IntOpenHashSet valueSet = getValueSet(aggregationResultHolder);
+    Dictionary dictionary = blockValSets[0].getDictionary();
+    if (dictionary != null) {
+      RoaringBitmap dictIdBitmap =
+          getDictIdBitmap(aggregationResultHolder, dictionary, blockValSets[0].getValueType());
+      int[] dictIds = blockValSets[0].getDictionaryIdsSV();
+      for (int i = 0; i < length; i++) {
+        dictIdBitmap.add(dictIds[i]);
+      }
+      return;
+    }
 
+    IntOpenHashSet valueSet = getValueSet(aggregationResultHolder);
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
     switch (valueType) {
       case INT:
@@ -106,6 +127,15 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   public void aggregateGroupBySV(int length, @Nonnull int[] groupKeyArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
+    Dictionary dictionary = blockValSets[0].getDictionary();
+    if (dictionary != null) {
+      int[] dictIds = blockValSets[0].getDictionaryIdsSV();
+      for (int i = 0; i < length; i++) {
+        getDictIdBitmap(groupByResultHolder, groupKeyArray[i], dictionary, valueType).add(dictIds[i]);
+      }
+      return;
+    }
+
     switch (valueType) {
       case INT:
         int[] intValues = blockValSets[0].getIntValuesSV();
@@ -146,6 +176,17 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   public void aggregateGroupByMV(int length, @Nonnull int[][] groupKeysArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
+    Dictionary dictionary = blockValSets[0].getDictionary();
+    if (dictionary != null) {
+      int[] dictIds = blockValSets[0].getDictionaryIdsSV();
+      for (int i = 0; i < length; i++) {
+        for (int groupKey : groupKeysArray[i]) {
+          getDictIdBitmap(groupByResultHolder, groupKey, dictionary, valueType).add(dictIds[i]);
+        }
+      }
+      return;
+    }
+
     switch (valueType) {
       case INT:
         int[] intValues = blockValSets[0].getIntValuesSV();
@@ -185,23 +226,13 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   @Nonnull
   @Override
   public IntOpenHashSet extractAggregationResult(@Nonnull AggregationResultHolder aggregationResultHolder) {
-    IntOpenHashSet valueSet = aggregationResultHolder.getResult();
-    if (valueSet == null) {
-      return new IntOpenHashSet();
-    } else {
-      return valueSet;
-    }
+    return convertToValueSet(aggregationResultHolder.getResult());
   }
 
   @Nonnull
   @Override
   public IntOpenHashSet extractGroupByResult(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey) {
-    IntOpenHashSet valueSet = groupByResultHolder.getResult(groupKey);
-    if (valueSet == null) {
-      return new IntOpenHashSet();
-    } else {
-      return valueSet;
-    }
+    return convertToValueSet(groupByResultHolder.getResult(groupKey));
   }
 
   @Nonnull
@@ -284,4 +315,105 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
     }
     return valueSet;
   }
+
+  /**
+   * Returns the dictionary id bitmap from the result holder or creates a new one if it does not exist.
+   *
+   * @param aggregationResultHolder Result holder
+   * @param dictionary Dictionary of the column
+   * @param valueType Data type of the column
+   * @return Dictionary id bitmap from the result holder
+   */
+  protected static RoaringBitmap getDictIdBitmap(@Nonnull AggregationResultHolder aggregationResultHolder,
+      @Nonnull Dictionary dictionary, @Nonnull FieldSpec.DataType valueType) {
+    DictIdsWrapper dictIdsWrapper = aggregationResultHolder.getResult();
+    if (dictIdsWrapper == null) {
+      dictIdsWrapper = new DictIdsWrapper(dictionary, valueType);
+      aggregationResultHolder.setValue(dictIdsWrapper);
+    }
+    return dictIdsWrapper._dictIdBitmap;
+  }
+
+  /**
+   * Returns the dictionary id bitmap for the given group key. If one does not exist, creates a new one and returns
+   * that.
+   *
+   * @param groupByResultHolder Result holder
+   * @param groupKey Group key for which to return the dictionary id bitmap
+   * @param dictionary Dictionary of the column
+   * @param valueType Data type of the column
+   * @return Dictionary id bitmap for the group key
+   */
+  protected static RoaringBitmap getDictIdBitmap(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey,
+      @Nonnull Dictionary dictionary, @Nonnull FieldSpec.DataType valueType) {
+    DictIdsWrapper dictIdsWrapper = groupByResultHolder.getResult(groupKey);
+    if (dictIdsWrapper == null) {
+      dictIdsWrapper = new DictIdsWrapper(dictionary, valueType);
+      groupByResultHolder.setValueForKey(groupKey, dictIdsWrapper);
+    }
+    return dictIdsWrapper._dictIdBitmap;
+  }
+
+  /**
+   * Helper method to convert the result stored in the result holder (value set, dictionary id bitmap or null) into the
+   * value set.
+   */
+  private static IntOpenHashSet convertToValueSet(@Nullable Object result) {
+    if (result == null) {
+      return new IntOpenHashSet();
+    }
+    if (result instanceof DictIdsWrapper) {
+      return ((DictIdsWrapper) result).convertToValueSet();
+    }
+    return (IntOpenHashSet) result;
+  }
+
+  /**
+   * Wrapper of the dictionary id bitmap and the dictionary to convert the dictionary ids into the value hash codes.
+   */
+  private static final class DictIdsWrapper {
+    final Dictionary _dictionary;
+    final FieldSpec.DataType _valueType;
+    final RoaringBitmap _dictIdBitmap = new RoaringBitmap();
+
+    DictIdsWrapper(Dictionary dictionary, FieldSpec.DataType valueType) {
+      _dictionary = dictionary;
+      _valueType = valueType;
+    }
+
+    IntOpenHashSet convertToValueSet() {
+      IntOpenHashSet valueSet = new IntOpenHashSet(_dictIdBitmap.getCardinality());
+      IntIterator iterator = _dictIdBitmap.getIntIterator();
+      switch (_valueType) {
+        case INT:
+          while (iterator.hasNext()) {
+            valueSet.add(_dictionary.getIntValue(iterator.next()));
+          }
+          break;
+        case LONG:
+          while (iterator.hasNext()) {
+            valueSet.add(Long.hashCode(_dictionary.getLongValue(iterator.next())));
+          }
+          break;
+        case FLOAT:
+          while (iterator.hasNext()) {
+            valueSet.add(Float.hashCode(_dictionary.getFloatValue(iterator.next())));
+          }
+          break;
+        case DOUBLE:
+          while (iterator.hasNext()) {
+            valueSet.add(Double.hashCode(_dictionary.getDoubleValue(iterator.next())));
+          }
+          break;
+        case STRING:
+          while (iterator.hasNext()) {
+            valueSet.add(_dictionary.getStringValue(iterator.next()).hashCode());
+          }
+          break;
+        default:
+          throw new IllegalStateException("Illegal data type for DISTINCT_COUNT aggregation function: " + _valueType);
+      }
+      return valueSet;
+    }
+  }
 }
@@ -47,6 +47,14 @@ public class AggregationGroupByResult {
     return _groupKeyGenerator.getUniqueGroupKeys();
   }
 
+  /**
+   * Returns an iterator for group-by keys with the group-by values set instead of the string key.
+   * @return
+   */
+  public Iterator<GroupKeyGenerator.GroupKey> getGroupKeyValueIterator() {
+    return _groupKeyGenerator.getUniqueGroupKeyValues();
+  }
+
   /**
    *
    * Given a group-by key and an index into the result holder array, returns
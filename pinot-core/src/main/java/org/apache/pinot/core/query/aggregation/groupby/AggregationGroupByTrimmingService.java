@@ -115,6 +115,58 @@ public class AggregationGroupByTrimmingService {
     return Arrays.asList(trimmedResultMaps);
   }
 
+  /**
+   * Given a combine table from group-by values to the intermediate results for multiple aggregation functions, trim the
+   * results to desired size and put them into a list of maps from group key to intermediate result for each aggregation
+   * function.
+   * <p>The string group keys are only built for the groups that survive the trimming.
+   */
+  @SuppressWarnings("unchecked")
+  @Nonnull
+  public List<Map<String, Object>> trimIntermediateResults(@Nonnull GroupByCombineTable combineTable) {
+    int numAggregationFunctions = _aggregationFunctions.length;
+    Map<String, Object>[] trimmedResultMaps = new Map[numAggregationFunctions];
+
+    int numGroups = combineTable.size();
+    if (numGroups > _trimThreshold) {
+      // Trim the result only if number of groups is larger than the threshold
+
+      Sorter[] sorters = new Sorter[numAggregationFunctions];
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        AggregationFunction aggregationFunction = _aggregationFunctions[i];
+        sorters[i] = getSorter(_trimSize, aggregationFunction, aggregationFunction.isIntermediateResultComparable());
+      }
+
+      // Add results into sorters
+      combineTable.forEach((groupValues, intermediateResults) -> {
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          sorters[i].add(groupValues, intermediateResults[i]);
+        }
+      });
+
+      // Dump trimmed results into maps
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        Map<String, Object> trimmedResultMap = new HashMap<>(_trimSize);
+        sorters[i].dumpToMap(trimmedResultMap);
+        trimmedResultMaps[i] = trimmedResultMap;
+      }
+    } else {
+      // Simply put results from combineTable into trimmedResults
+
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        trimmedResultMaps[i] = new HashMap<>(numGroups);
+      }
+      combineTable.forEach((groupValues, intermediateResults) -> {
+        String groupKey = GroupByCombineTable.getStringKey(groupValues);
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          trimmedResultMaps[i].put(groupKey, intermediateResults[i]);
+        }
+      });
+    }
+
+    return Arrays.asList(trimmedResultMaps);
+  }
+
   /**
    * Given an array of maps from group key to final result for each aggregation function, trim the results to topN size.
    */
@@ -148,8 +200,20 @@ public class AggregationGroupByTrimmingService {
     return trimmedResults;
   }
 
+  /**
+   * Returns the string group key for the group key added into the sorter, which is either a string group key or an
+   * array of group-by values.
+   */
+  private static String getStringKey(Object groupKey) {
+    if (groupKey instanceof String) {
+      return (String) groupKey;
+    } else {
+      return GroupByCombineTable.getStringKey((Object[]) groupKey);
+    }
+  }
+
   private interface Sorter {
-    void add(String groupKey, Object result);
+    void add(Object groupKey, Object result);
 
     void dumpToMap(Map<String, Object> dest);
 
@@ -203,7 +267,7 @@ public class AggregationGroupByTrimmingService {
 
     @SuppressWarnings("unchecked")
     @Override
-    public void add(String groupKey, Object result) {
+    public void add(Object groupKey, Object result) {
       GroupKeyResultPair newGroupKeyResultPair = new GroupKeyResultPair(groupKey, (Comparable) result);
       if (_heap.size() == _trimSize) {
         GroupKeyResultPair minGroupKeyResultPair = _heap.peek();
@@ -220,7 +284,7 @@ public class AggregationGroupByTrimmingService {
     public void dumpToMap(Map<String, Object> dest) {
       GroupKeyResultPair groupKeyResultPair;
       while ((groupKeyResultPair = _heap.poll()) != null) {
-        dest.put(groupKeyResultPair._groupKey, groupKeyResultPair._result);
+        dest.put(getStringKey(groupKeyResultPair._groupKey), groupKeyResultPair._result);
       }
     }
 
@@ -229,7 +293,7 @@ public class AggregationGroupByTrimmingService {
       GroupKeyResultPair groupKeyResultPair;
       while ((groupKeyResultPair = _heap.poll()) != null) {
         // Set limit to -1 to prevent removing trailing empty strings
-        String[] groupKeys = groupKeyResultPair._groupKey.split(GROUP_KEY_DELIMITER, -1);
+        String[] groupKeys = getStringKey(groupKeyResultPair._groupKey).split(GROUP_KEY_DELIMITER, -1);
 
         GroupByResult groupByResult = new GroupByResult();
         groupByResult.setGroup(Arrays.asList(groupKeys));
@@ -241,10 +305,10 @@ public class AggregationGroupByTrimmingService {
     }
 
     private static class GroupKeyResultPair implements Comparable<GroupKeyResultPair> {
-      private String _groupKey;
+      private Object _groupKey;
       private Comparable<? super Comparable> _result;
 
-      public GroupKeyResultPair(@Nonnull String groupKey, @Nonnull Comparable<? super Comparable> result) {
+      public GroupKeyResultPair(@Nonnull Object groupKey, @Nonnull Comparable<? super Comparable> result) {
         _groupKey = groupKey;
         _result = result;
       }
@@ -281,7 +345,7 @@ public class AggregationGroupByTrimmingService {
     private final int _trimSize;
     private final Comparator<? super Comparable> _comparator;
     private final AggregationFunction _aggregationFunction;
-    private final TreeMap<Comparable, List<ImmutablePair<String, Object>>> _treeMap;
+    private final TreeMap<Comparable, List<ImmutablePair<Object, Object>>> _treeMap;
     private int _numValuesAdded = 0;
 
     public NonComparableSorter(int trimSize, Comparator<? super Comparable> comparator,
@@ -294,14 +358,14 @@ public class AggregationGroupByTrimmingService {
 
     @SuppressWarnings("unchecked")
     @Override
-    public void add(String groupKey, Object result) {
+    public void add(Object groupKey, Object result) {
       Comparable newKey = _aggregationFunction.extractFinalResult(result);
-      ImmutablePair<String, Object> groupKeyResultPair = new ImmutablePair<>(groupKey, result);
+      ImmutablePair<Object, Object> groupKeyResultPair = new ImmutablePair<>(groupKey, result);
 
-      List<ImmutablePair<String, Object>> groupKeyResultPairs = _treeMap.get(newKey);
+      List<ImmutablePair<Object, Object>> groupKeyResultPairs = _treeMap.get(newKey);
       if (_numValuesAdded >= _trimSize) {
         // Check whether the pair should be added
-        Map.Entry<Comparable, List<ImmutablePair<String, Object>>> maxEntry = _treeMap.lastEntry();
+        Map.Entry<Comparable, List<ImmutablePair<Object, Object>>> maxEntry = _treeMap.lastEntry();
         Comparable maxKey = maxEntry.getKey();
         if (_comparator.compare(newKey, maxKey) < 0) {
           // Add the pair into list of pairs
@@ -332,10 +396,10 @@ public class AggregationGroupByTrimmingService {
     public void dumpToMap(Map<String, Object> dest) {
       // Track the number of results added because there could be more than trim size values inside the map
       int numResultsAdded = 0;
-      for (List<ImmutablePair<String, Object>> groupKeyResultPairs : _treeMap.values()) {
-        for (ImmutablePair<String, Object> groupResultPair : groupKeyResultPairs) {
+      for (List<ImmutablePair<Object, Object>> groupKeyResultPairs : _treeMap.values()) {
+        for (ImmutablePair<Object, Object> groupResultPair : groupKeyResultPairs) {
           if (numResultsAdded != _trimSize) {
-            dest.put(groupResultPair.left, groupResultPair.right);
+            dest.put(getStringKey(groupResultPair.left), groupResultPair.right);
             numResultsAdded++;
           } else {
             return;
@@ -29,6 +29,7 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 import javax.annotation.Nonnull;
 import org.apache.pinot.common.request.transform.TransformExpressionTree;
+import org.apache.pinot.common.utils.primitive.ByteArray;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.operator.blocks.TransformBlock;
 import org.apache.pinot.core.operator.transform.TransformOperator;
@@ -163,10 +164,36 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
 
   @Override
   public Iterator<GroupKey> getUniqueGroupKeys() {
-    return _rawKeyHolder.iterator();
+    return _rawKeyHolder.iterator(false);
   }
 
-  private interface RawKeyHolder extends Iterable<GroupKey> {
+  @Override
+  public Iterator<GroupKey> getUniqueGroupKeyValues() {
+    return _rawKeyHolder.iterator(true);
+  }
+
+  private GroupKey newGroupKey(boolean useValues) {
+    GroupKey groupKey = new GroupKey();
+    if (useValues) {
+      groupKey._values = new Object[_numGroupByExpressions];
+    }
+    return groupKey;
+  }
+
+  /**
+   * Helper method to get the group-by value for the given dictionary id. BYTES values are wrapped into
+   * {@link ByteArray} so that they can be compared and hashed across segments.
+   */
+  static Object getGroupValue(Dictionary dictionary, int dictId) {
+    Object value = dictionary.get(dictId);
+    if (value instanceof byte[]) {
+      return new ByteArray((byte[]) value);
+    } else {
+      return value;
+    }
+  }
+
+  private interface RawKeyHolder {
 
     /**
      * Process a block of documents for all single-valued group-by columns case.
@@ -190,6 +217,14 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
      * @return Upper bound of group id inside the holder
      */
     int getGroupIdUpperBound();
+
+    /**
+     * Get an iterator of group keys inside the holder.
+     *
+     * @param useValues Whether to set the group-by values instead of the string key into the group keys
+     * @return Iterator of group keys
+     */
+    Iterator<GroupKey> iterator(boolean useValues);
   }
 
   private class ArrayBasedHolder implements RawKeyHolder {
@@ -226,10 +261,10 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
 
     @Nonnull
     @Override
-    public Iterator<GroupKey> iterator() {
+    public Iterator<GroupKey> iterator(boolean useValues) {
       return new Iterator<GroupKey>() {
         private int _currentGroupId;
-        private final GroupKey _groupKey = new GroupKey();
+        private final GroupKey _groupKey = newGroupKey(useValues);
 
         @Override
         public boolean hasNext() {
@@ -245,7 +280,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
             throw new NoSuchElementException();
           }
           _groupKey._groupId = _currentGroupId;
-          _groupKey._stringKey = getGroupKey(_currentGroupId);
+          if (useValues) {
+            getGroupValues(_currentGroupId, _groupKey._values);
+          } else {
+            _groupKey._stringKey = getGroupKey(_currentGroupId);
+          }
           _currentGroupId++;
           return _groupKey;
         }
@@ -308,10 +347,10 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
 
     @Nonnull
     @Override
-    public Iterator<GroupKey> iterator() {
+    public Iterator<GroupKey> iterator(boolean useValues) {
       return new Iterator<GroupKey>() {
         private final ObjectIterator<Int2IntMap.Entry> _iterator = _rawKeyToGroupIdMap.int2IntEntrySet().fastIterator();
-        private final GroupKey _groupKey = new GroupKey();
+        private final GroupKey _groupKey = newGroupKey(useValues);
 
         @Override
         public boolean hasNext() {
@@ -322,7 +361,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Int2IntMap.Entry entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getIntKey());
+          if (useValues) {
+            getGroupValues(entry.getIntKey(), _groupKey._values);
+          } else {
+            _groupKey._stringKey = getGroupKey(entry.getIntKey());
+          }
           return _groupKey;
         }
 
@@ -412,6 +455,20 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     return rawKeys;
   }
 
+  /**
+   * Helper method to get group-by values from raw key.
+   *
+   * @param rawKey Integer raw key
+   * @param values Buffer for group-by values
+   */
+  private void getGroupValues(int rawKey, Object[] values) {
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      int cardinality = _cardinalities[i];
+      values[i] = getGroupValue(_dictionaries[i], rawKey % cardinality);
+      rawKey /= cardinality;
+    }
+  }
+
   /**
    * Helper method to get group key from raw key.
    *
@@ -487,11 +544,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
 
     @Nonnull
     @Override
-    public Iterator<GroupKey> iterator() {
+    public Iterator<GroupKey> iterator(boolean useValues) {
       return new Iterator<GroupKey>() {
         private final ObjectIterator<Long2IntMap.Entry> _iterator =
             _rawKeyToGroupIdMap.long2IntEntrySet().fastIterator();
-        private final GroupKey _groupKey = new GroupKey();
+        private final GroupKey _groupKey = newGroupKey(useValues);
 
         @Override
         public boolean hasNext() {
@@ -502,7 +559,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Long2IntMap.Entry entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getLongKey());
+          if (useValues) {
+            getGroupValues(entry.getLongKey(), _groupKey._values);
+          } else {
+            _groupKey._stringKey = getGroupKey(entry.getLongKey());
+          }
           return _groupKey;
         }
 
@@ -587,6 +648,20 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * Helper method to get group-by values from raw key.
+   *
+   * @param rawKey Long raw key
+   * @param values Buffer for group-by values
+   */
+  private void getGroupValues(long rawKey, Object[] values) {
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      int cardinality = _cardinalities[i];
+      values[i] = getGroupValue(_dictionaries[i], (int) (rawKey % cardinality));
+      rawKey /= cardinality;
+    }
+  }
+
   /**
    * Helper method to get group key from raw key.
    *
@@ -657,11 +732,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
 
     @Nonnull
     @Override
-    public Iterator<GroupKey> iterator() {
+    public Iterator<GroupKey> iterator(boolean useValues) {
       return new Iterator<GroupKey>() {
         private final ObjectIterator<Object2IntMap.Entry<IntArray>> _iterator =
             _rawKeyToGroupIdMap.object2IntEntrySet().fastIterator();
-        private final GroupKey _groupKey = new GroupKey();
+        private final GroupKey _groupKey = newGroupKey(useValues);
 
         @Override
         public boolean hasNext() {
@@ -672,7 +747,11 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Object2IntMap.Entry<IntArray> entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getKey());
+          if (useValues) {
+            getGroupValues(entry.getKey(), _groupKey._values);
+          } else {
+            _groupKey._stringKey = getGroupKey(entry.getKey());
+          }
           return _groupKey;
         }
 
@@ -761,6 +840,18 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     }
   }
 
+  /**
+   * Helper method to get group-by values from raw key.
+   *
+   * @param rawKey IntArray raw key
+   * @param values Buffer for group-by values
+   */
+  private void getGroupValues(IntArray rawKey, Object[] values) {
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      values[i] = getGroupValue(_dictionaries[i], rawKey._elements[i]);
+    }
+  }
+
   /**
    * Helper method to get group key from raw key.
    *
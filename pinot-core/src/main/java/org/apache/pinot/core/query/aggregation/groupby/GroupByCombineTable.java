@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.aggregation.groupby;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+
+
+/**
+ * The <code>GroupByCombineTable</code> class is a concurrent table to merge aggregation group-by results from multiple
+ * segments.
+ * <p>The table is keyed by the group-by values (see {@link GroupKeyGenerator#getUniqueGroupKeyValues()}) instead of
+ * the concatenated string key, so no string is built while merging. The string keys are only built after trimming
+ * (see {@link AggregationGroupByTrimmingService#trimIntermediateResults(GroupByCombineTable)}).
+ * <p>The same column might be stored with different data types in different segments (e.g. INT in the segments created
+ * before a schema change and LONG in the others). To merge the groups the same way as the string keys, the group-by
+ * values are normalized before being hashed (see {@link #normalize(Object)}).
+ * <p>The table is split into a fixed number of stripes, each of which is an open-addressing (linear probing) hash table
+ * guarded by its own lock, so that threads merging different groups rarely contend with each other.
+ */
+public class GroupByCombineTable {
+  private static final int NUM_STRIPES_BITS = 6;
+  private static final int NUM_STRIPES = 1 << NUM_STRIPES_BITS;
+  private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+  private final AggregationFunction[] _aggregationFunctions;
+  private final int _numAggregationFunctions;
+  private final int _numGroupsLimit;
+  private final AtomicInteger _numGroups = new AtomicInteger();
+  private final Stripe[] _stripes = new Stripe[NUM_STRIPES];
+
+  public GroupByCombineTable(@Nonnull AggregationFunction[] aggregationFunctions, int numGroupsLimit) {
+    _aggregationFunctions = aggregationFunctions;
+    _numAggregationFunctions = aggregationFunctions.length;
+    _numGroupsLimit = numGroupsLimit;
+    for (int i = 0; i < NUM_STRIPES; i++) {
+      _stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Merges all the groups from the given segment level aggregation group-by result into the table.
+   * <p>This method is thread-safe.
+   */
+  public void merge(@Nonnull AggregationGroupByResult aggregationGroupByResult) {
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyValueIterator();
+    Object[] groupValues = null;
+    while (groupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] values = groupKey._values;
+      int numValues = values.length;
+      if (groupValues == null) {
+        groupValues = new Object[numValues];
+      }
+      for (int i = 0; i < numValues; i++) {
+        groupValues[i] = normalize(values[i]);
+      }
+      int hash = hash(groupValues);
+      _stripes[hash >>> (Integer.SIZE - NUM_STRIPES_BITS)].merge(hash, groupValues, groupKey, aggregationGroupByResult);
+    }
+  }
+
+  /**
+   * Returns the number of groups inside the table.
+   * <p>Should be called after all the merges are done.
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : _stripes) {
+      size += stripe._size;
+    }
+    return size;
+  }
+
+  /**
+   * Returns whether the number of groups limit has been reached, in which case new groups have been dropped.
+   */
+  public boolean isNumGroupsLimitReached() {
+    return _numGroups.get() >= _numGroupsLimit;
+  }
+
+  /**
+   * Iterates over all the groups inside the table, passing the group-by values and the intermediate results for each
+   * group to the given consumer.
+   * <p>Should be called after all the merges are done.
+   */
+  public void forEach(@Nonnull GroupConsumer consumer) {
+    for (Stripe stripe : _stripes) {
+      Object[][] keys = stripe._keys;
+      Object[][] values = stripe._values;
+      int capacity = keys.length;
+      for (int i = 0; i < capacity; i++) {
+        if (keys[i] != null) {
+          consumer.accept(keys[i], values[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Builds the string group key (values joined by {@link AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER}) from
+   * the group-by values.
+   */
+  public static String getStringKey(@Nonnull Object[] groupValues) {
+    int numValues = groupValues.length;
+    if (numValues == 1) {
+      return groupValues[0].toString();
+    }
+    StringBuilder groupKeyBuilder = new StringBuilder(groupValues[0].toString());
+    for (int i = 1; i < numValues; i++) {
+      groupKeyBuilder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER).append(groupValues[i]);
+    }
+    return groupKeyBuilder.toString();
+  }
+
+  /**
+   * Normalizes the group-by value so that values with the same string representation are equal: INT values are widened
+   * to LONG, and FLOAT values are converted to the DOUBLE with the same string representation.
+   */
+  private static Object normalize(Object groupValue) {
+    if (groupValue instanceof Integer) {
+      return ((Integer) groupValue).longValue();
+    }
+    if (groupValue instanceof Float) {
+      // NOTE: casting to double directly does not keep the string representation (e.g. 1.1f -> 1.100000023841858)
+      return Double.valueOf(groupValue.toString());
+    }
+    return groupValue;
+  }
+
+  private static int hash(Object[] groupValues) {
+    int hash = Arrays.hashCode(groupValues);
+    // Spread the higher bits to the lower bits because the lower bits are used to pick the slot while the highest bits
+    // are used to pick the stripe
+    return hash ^ (hash >>> 16) ^ (hash << 16);
+  }
+
+  public interface GroupConsumer {
+    void accept(Object[] groupValues, Object[] intermediateResults);
+  }
+
+  /**
+   * One stripe of the table: an open-addressing hash table with linear probing.
+   */
+  private class Stripe {
+    int[] _hashes = new int[INITIAL_STRIPE_CAPACITY];
+    Object[][] _keys = new Object[INITIAL_STRIPE_CAPACITY][];
+    Object[][] _values = new Object[INITIAL_STRIPE_CAPACITY][];
+    int _size;
+
+    synchronized void merge(int hash, Object[] groupValues, GroupKeyGenerator.GroupKey groupKey,
+        AggregationGroupByResult aggregationGroupByResult) {
+      int mask = _keys.length - 1;
+      int index = hash & mask;
+      Object[] key;
+      while ((key = _keys[index]) != null) {
+        if (_hashes[index] == hash && Arrays.equals(key, groupValues)) {
+          Object[] intermediateResults = _values[index];
+          for (int i = 0; i < _numAggregationFunctions; i++) {
+            intermediateResults[i] = _aggregationFunctions[i]
+                .merge(intermediateResults[i], aggregationGroupByResult.getResultForKey(groupKey, i));
+          }
+          return;
+        }
+        index = (index + 1) & mask;
+      }
+
+      // New group
+      // NOTE: numGroups might go slightly over numGroupsLimit because the comparison is not atomic
+      if (_numGroups.get() >= _numGroupsLimit) {
+        return;
+      }
+      _numGroups.getAndIncrement();
+      Object[] intermediateResults = new Object[_numAggregationFunctions];
+      for (int i = 0; i < _numAggregationFunctions; i++) {
+        intermediateResults[i] = aggregationGroupByResult.getResultForKey(groupKey, i);
+      }
+      // The normalized group-by values array is reused for all the groups, so make a copy of it
+      _hashes[index] = hash;
+      _keys[index] = groupValues.clone();
+      _values[index] = intermediateResults;
+      if (++_size * 2 > _keys.length) {
+        resize();
+      }
+    }
+
+    private void resize() {
+      int[] oldHashes = _hashes;
+      Object[][] oldKeys = _keys;
+      Object[][] oldValues = _values;
+      int oldCapacity = oldKeys.length;
+      int newCapacity = oldCapacity << 1;
+      int mask = newCapacity - 1;
+      _hashes = new int[newCapacity];
+      _keys = new Object[newCapacity][];
+      _values = new Object[newCapacity][];
+      for (int i = 0; i < oldCapacity; i++) {
+        Object[] key = oldKeys[i];
+        if (key != null) {
+          int hash = oldHashes[i];
+          int index = hash & mask;
+          while (_keys[index] != null) {
+            index = (index + 1) & mask;
+          }
+          _hashes[index] = hash;
+          _keys[index] = key;
+          _values[index] = oldValues[i];
+        }
+      }
+    }
+  }
+}
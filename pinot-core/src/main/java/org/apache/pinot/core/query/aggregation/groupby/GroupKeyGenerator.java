@@ -73,10 +73,20 @@ public interface GroupKeyGenerator {
   Iterator<GroupKey> getUniqueGroupKeys();
 
   /**
-   * This class encapsulates the integer group id and the string group key.
+   * Returns an iterator of group keys with the group-by values set into {@link GroupKey#_values} instead of the
+   * concatenated string key. Use this interface to merge group keys across segments without building string keys.
+   * <p>The values array is reused across the iteration, so the caller should make a copy if it needs to keep it.
+   *
+   * @return iterator of group keys with group-by values.
+   */
+  Iterator<GroupKey> getUniqueGroupKeyValues();
+
+  /**
+   * This class encapsulates the integer group id and the string group key (or the group-by values).
    */
   class GroupKey {
     public int _groupId;
     public String _stringKey;
+    public Object[] _values;
   }
 }
@@ -147,7 +147,12 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
 
   @Override
   public Iterator<GroupKey> getUniqueGroupKeys() {
-    return new GroupKeyIterator(_groupKeyMap);
+    return new GroupKeyIterator(_groupKeyMap, false);
+  }
+
+  @Override
+  public Iterator<GroupKey> getUniqueGroupKeyValues() {
+    return new GroupKeyIterator(_groupKeyMap, true);
   }
 
   /**
@@ -173,10 +178,15 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
   class GroupKeyIterator implements Iterator<GroupKey> {
     Iterator<Map.Entry<FixedIntArray, Integer>> _iterator;
     GroupKey _groupKey;
+    boolean _useValues;
 
-    public GroupKeyIterator(Map<FixedIntArray, Integer> map) {
+    public GroupKeyIterator(Map<FixedIntArray, Integer> map, boolean useValues) {
       _iterator = map.entrySet().iterator();
       _groupKey = new GroupKey();
+      _useValues = useValues;
+      if (useValues) {
+        _groupKey._values = new Object[_numGroupByExpressions];
+      }
     }
 
     @Override
@@ -188,7 +198,11 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     public GroupKey next() {
       Map.Entry<FixedIntArray, Integer> entry = _iterator.next();
       _groupKey._groupId = entry.getValue();
-      _groupKey._stringKey = buildStringKeyFromIds(entry.getKey());
+      if (_useValues) {
+        buildValuesFromIds(entry.getKey(), _groupKey._values);
+      } else {
+        _groupKey._stringKey = buildStringKeyFromIds(entry.getKey());
+      }
       return _groupKey;
     }
 
@@ -220,6 +234,37 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     return builder.toString();
   }
 
+  private void buildValuesFromIds(FixedIntArray keyList, Object[] values) {
+    int[] keys = keyList.elements();
+    for (int i = 0; i < _numGroupByExpressions; i++) {
+      int dictId = keys[i];
+      if (_dictionaries[i] != null) {
+        values[i] = DictionaryBasedGroupKeyGenerator.getGroupValue(_dictionaries[i], dictId);
+      } else {
+        ValueToIdMap onTheFlyDictionary = _onTheFlyDictionaries[i];
+        switch (_dataTypes[i]) {
+          case INT:
+            values[i] = onTheFlyDictionary.getInt(dictId);
+            break;
+          case LONG:
+            values[i] = onTheFlyDictionary.getLong(dictId);
+            break;
+          case FLOAT:
+            values[i] = onTheFlyDictionary.getFloat(dictId);
+            break;
+          case DOUBLE:
+            values[i] = onTheFlyDictionary.getDouble(dictId);
+            break;
+          case STRING:
+            values[i] = onTheFlyDictionary.getString(dictId);
+            break;
+          default:
+            throw new IllegalArgumentException("Illegal data type for no-dictionary key generator: " + _dataTypes[i]);
+        }
+      }
+    }
+  }
+
   /**
    * Helper method to fetch values from BlockValSet
    * @param dataType Data type
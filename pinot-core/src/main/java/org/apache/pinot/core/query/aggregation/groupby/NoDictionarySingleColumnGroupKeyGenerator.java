@@ -164,7 +164,12 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
 
   @Override
   public Iterator<GroupKey> getUniqueGroupKeys() {
-    return new GroupKeyIterator(_groupKeyMap);
+    return new GroupKeyIterator(_groupKeyMap, false);
+  }
+
+  @Override
+  public Iterator<GroupKey> getUniqueGroupKeyValues() {
+    return new GroupKeyIterator(_groupKeyMap, true);
   }
 
   @SuppressWarnings("unchecked")
@@ -238,11 +243,16 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
   class GroupKeyIterator implements Iterator<GroupKey> {
     Iterator<Map.Entry<Object, Integer>> _iterator;
     GroupKey _groupKey;
+    boolean _useValues;
 
     @SuppressWarnings("unchecked")
-    public GroupKeyIterator(Map map) {
+    public GroupKeyIterator(Map map, boolean useValues) {
       _iterator = (Iterator<Map.Entry<Object, Integer>>) map.entrySet().iterator();
       _groupKey = new GroupKey();
+      _useValues = useValues;
+      if (useValues) {
+        _groupKey._values = new Object[1];
+      }
     }
 
     @Override
@@ -254,7 +264,11 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
     public GroupKey next() {
       Map.Entry<Object, Integer> entry = _iterator.next();
       _groupKey._groupId = entry.getValue();
-      _groupKey._stringKey = entry.getKey().toString();
+      if (_useValues) {
+        _groupKey._values[0] = entry.getKey();
+      } else {
+        _groupKey._stringKey = entry.getKey().toString();
+      }
       return _groupKey;
     }
 
@@ -0,0 +1,290 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.operator.blocks.TransformBlock;
+import org.apache.pinot.core.query.aggregation.AggregationFunctionContext;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupByCombineTable;
+import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+
+
+/**
+ * The {@code CachedSegmentResult} class is the immutable copy of the aggregation (group-by) result of a segment cached
+ * in the {@link SegmentResultCache}.
+ * <p>The intermediate results are merged in place when combining the results from multiple segments, so they cannot be
+ * shared across queries. The numeric intermediate results are immutable and kept as is, and the object intermediate
+ * results are kept in the serialized format, and a new {@link IntermediateResultsBlock} is created from the copy for
+ * each query.
+ */
+public class CachedSegmentResult {
+  private static final int NUMERIC_VALUE_SIZE_IN_BYTES = 16;
+  private static final int SERIALIZED_VALUE_OVERHEAD_IN_BYTES = 32;
+  private static final int GROUP_OVERHEAD_IN_BYTES = 32;
+
+  // For aggregation only query, the intermediate results of the aggregation functions
+  private final Object[] _aggregationResults;
+  // For aggregation group-by query, the group values of the groups, and the intermediate results of the aggregation
+  // functions for the groups
+  private final Object[][] _groupValues;
+  private final Object[][] _groupByResults;
+  private final long _numDocsScanned;
+  private final long _numTotalRawDocs;
+  private final int _sizeInBytes;
+
+  private CachedSegmentResult(@Nullable Object[] aggregationResults, @Nullable Object[][] groupValues,
+      @Nullable Object[][] groupByResults, long numDocsScanned, long numTotalRawDocs, int sizeInBytes) {
+    _aggregationResults = aggregationResults;
+    _groupValues = groupValues;
+    _groupByResults = groupByResults;
+    _numDocsScanned = numDocsScanned;
+    _numTotalRawDocs = numTotalRawDocs;
+    _sizeInBytes = sizeInBytes;
+  }
+
+  /**
+   * Creates a cached copy of the given segment result, or returns {@code null} if the result is not cacheable (e.g.
+   * contains processing exceptions).
+   */
+  @Nullable
+  public static CachedSegmentResult fromResultsBlock(IntermediateResultsBlock resultsBlock,
+      ExecutionStatistics executionStatistics) {
+    if (resultsBlock.getProcessingExceptions() != null && !resultsBlock.getProcessingExceptions().isEmpty()) {
+      return null;
+    }
+    AggregationFunctionContext[] functionContexts = resultsBlock.getAggregationFunctionContexts();
+    if (functionContexts == null) {
+      return null;
+    }
+    int numFunctions = functionContexts.length;
+    long numDocsScanned = executionStatistics.getNumDocsScanned();
+    long numTotalRawDocs = executionStatistics.getNumTotalRawDocs();
+
+    List<Object> aggregationResult = resultsBlock.getAggregationResult();
+    if (aggregationResult != null) {
+      Object[] aggregationResults = new Object[numFunctions];
+      int sizeInBytes = 0;
+      for (int i = 0; i < numFunctions; i++) {
+        Object value = toCachedValue(functionContexts[i].getAggregationFunction(), aggregationResult.get(i));
+        aggregationResults[i] = value;
+        sizeInBytes += getValueSizeInBytes(value);
+      }
+      return new CachedSegmentResult(aggregationResults, null, null, numDocsScanned, numTotalRawDocs, sizeInBytes);
+    }
+
+    AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+    List<Object[]> groupValuesList = new ArrayList<>();
+    List<Object[]> groupResultsList = new ArrayList<>();
+    int sizeInBytes = 0;
+    if (aggregationGroupByResult != null) {
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyValueIterator();
+      while (groupKeyIterator.hasNext()) {
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        // NOTE: the group key and values might be reused by the iterator
+        Object[] groupValues = groupKey._values.clone();
+        groupValuesList.add(groupValues);
+        sizeInBytes += GROUP_OVERHEAD_IN_BYTES;
+        for (Object groupValue : groupValues) {
+          sizeInBytes += getValueSizeInBytes(groupValue);
+        }
+        Object[] groupResults = new Object[numFunctions];
+        for (int i = 0; i < numFunctions; i++) {
+          Object value = toCachedValue(functionContexts[i].getAggregationFunction(),
+              aggregationGroupByResult.getResultForKey(groupKey, i));
+          groupResults[i] = value;
+          sizeInBytes += getValueSizeInBytes(value);
+        }
+        groupResultsList.add(groupResults);
+      }
+    }
+    return new CachedSegmentResult(null, groupValuesList.toArray(new Object[0][]),
+        groupResultsList.toArray(new Object[0][]), numDocsScanned, numTotalRawDocs, sizeInBytes);
+  }
+
+  /**
+   * Creates a new results block from the cached result.
+   *
+   * @param functionContexts Aggregation function contexts of the query on the segment
+   */
+  public IntermediateResultsBlock toResultsBlock(AggregationFunctionContext[] functionContexts) {
+    int numFunctions = functionContexts.length;
+    if (_aggregationResults != null) {
+      List<Object> aggregationResult = new ArrayList<>(numFunctions);
+      for (Object value : _aggregationResults) {
+        aggregationResult.add(fromCachedValue(value));
+      }
+      return new IntermediateResultsBlock(functionContexts, aggregationResult, false);
+    }
+
+    int numGroups = _groupValues.length;
+    AggregationFunction[] functions = new AggregationFunction[numFunctions];
+    GroupByResultHolder[] resultHolders = new GroupByResultHolder[numFunctions];
+    for (int i = 0; i < numFunctions; i++) {
+      AggregationFunction function = functionContexts[i].getAggregationFunction();
+      functions[i] = function;
+      GroupByResultHolder resultHolder = function.createGroupByResultHolder(numGroups, numGroups);
+      boolean isNumeric = isNumeric(function);
+      for (int groupId = 0; groupId < numGroups; groupId++) {
+        Object value = _groupByResults[groupId][i];
+        if (isNumeric) {
+          resultHolder.setValueForKey(groupId, ((Number) value).doubleValue());
+        } else {
+          resultHolder.setValueForKey(groupId, fromCachedValue(value));
+        }
+      }
+      resultHolders[i] = resultHolder;
+    }
+    return new IntermediateResultsBlock(functionContexts,
+        new AggregationGroupByResult(new CachedGroupKeyGenerator(_groupValues), functions, resultHolders));
+  }
+
+  /**
+   * Returns the execution statistics for the segment served from the cache. No entry is scanned.
+   */
+  public ExecutionStatistics getExecutionStatistics() {
+    return new ExecutionStatistics(_numDocsScanned, 0L, 0L, _numTotalRawDocs);
+  }
+
+  public int getSizeInBytes() {
+    return _sizeInBytes;
+  }
+
+  private static boolean isNumeric(AggregationFunction function) {
+    return function.getIntermediateResultColumnType() != DataSchema.ColumnDataType.OBJECT;
+  }
+
+  private static Object toCachedValue(AggregationFunction function, Object value) {
+    if (isNumeric(function)) {
+      return value;
+    }
+    ObjectSerDeUtils.ObjectType objectType = ObjectSerDeUtils.ObjectType.getObjectType(value);
+    return new SerializedValue(objectType, ObjectSerDeUtils.serialize(value, objectType));
+  }
+
+  private static Object fromCachedValue(Object value) {
+    if (value instanceof SerializedValue) {
+      SerializedValue serializedValue = (SerializedValue) value;
+      return ObjectSerDeUtils.deserialize(serializedValue._bytes, serializedValue._objectType);
+    }
+    return value;
+  }
+
+  private static int getValueSizeInBytes(Object value) {
+    if (value instanceof SerializedValue) {
+      return SERIALIZED_VALUE_OVERHEAD_IN_BYTES + ((SerializedValue) value)._bytes.length;
+    }
+    if (value instanceof String) {
+      return SERIALIZED_VALUE_OVERHEAD_IN_BYTES + 2 * ((String) value).length();
+    }
+    return NUMERIC_VALUE_SIZE_IN_BYTES;
+  }
+
+  private static class SerializedValue {
+    final ObjectSerDeUtils.ObjectType _objectType;
+    final byte[] _bytes;
+
+    SerializedValue(ObjectSerDeUtils.ObjectType objectType, byte[] bytes) {
+      _objectType = objectType;
+      _bytes = bytes;
+    }
+  }
+
+  /**
+   * Group key generator for the cached groups, where the group id is the index of the group.
+   */
+  private static class CachedGroupKeyGenerator implements GroupKeyGenerator {
+    private final Object[][] _groupValues;
+
+    CachedGroupKeyGenerator(Object[][] groupValues) {
+      _groupValues = groupValues;
+    }
+
+    @Override
+    public int getGlobalGroupKeyUpperBound() {
+      return _groupValues.length;
+    }
+
+    @Override
+    public void generateKeysForBlock(@Nonnull TransformBlock transformBlock, @Nonnull int[] groupKeys) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void generateKeysForBlock(@Nonnull TransformBlock transformBlock, @Nonnull int[][] groupKeys) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getCurrentGroupKeyUpperBound() {
+      return _groupValues.length;
+    }
+
+    @Override
+    public Iterator<GroupKey> getUniqueGroupKeys() {
+      return new GroupKeyIterator(false);
+    }
+
+    @Override
+    public Iterator<GroupKey> getUniqueGroupKeyValues() {
+      return new GroupKeyIterator(true);
+    }
+
+    private class GroupKeyIterator implements Iterator<GroupKey> {
+      final boolean _useValues;
+      int _groupId;
+
+      GroupKeyIterator(boolean useValues) {
+        _useValues = useValues;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return _groupId < _groupValues.length;
+      }
+
+      @Override
+      public GroupKey next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        GroupKey groupKey = new GroupKey();
+        groupKey._groupId = _groupId;
+        if (_useValues) {
+          groupKey._values = _groupValues[_groupId];
+        } else {
+          groupKey._stringKey = GroupByCombineTable.getStringKey(_groupValues[_groupId]);
+        }
+        _groupId++;
+        return groupKey;
+      }
+    }
+  }
+}
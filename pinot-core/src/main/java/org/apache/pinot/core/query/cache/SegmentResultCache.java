@@ -0,0 +1,378 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.config.TableCustomConfig;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.request.AggregationInfo;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.request.FilterOperator;
+import org.apache.pinot.common.request.GroupBy;
+import org.apache.pinot.common.utils.request.FilterQueryTree;
+import org.apache.pinot.common.utils.request.RequestUtils;
+import org.apache.pinot.core.common.predicate.RangePredicate;
+import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.indexsegment.immutable.ImmutableSegment;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import org.apache.pinot.core.query.exception.BadQueryRequestException;
+import org.apache.pinot.core.query.pruner.AbstractSegmentPruner;
+import org.apache.pinot.core.segment.index.ColumnMetadata;
+import org.apache.pinot.core.segment.index.SegmentMetadataImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code SegmentResultCache} class is a per-server, size-bounded LRU cache of the per-segment aggregation results
+ * on the immutable segments, so that repeated aggregation queries (e.g. dashboards) only need to compute the results
+ * for the segments not queried before.
+ * <p>The cache is opt-in per table through the {@link TableCustomConfig#SEGMENT_RESULT_CACHE_ENABLED_KEY} custom
+ * config, and is keyed by the table name, segment name, segment CRC and the normalized query. The query is normalized so
+ * that the equivalent queries share the same entry:
+ * <ul>
+ *   <li>The order of the children of AND/OR filters and the order of the IN/NOT IN values are ignored</li>
+ *   <li>
+ *     The range predicates that match all the documents of the segment (based on the column min/max value, e.g. the
+ *     time range of a dashboard query covering the whole segment) are removed, so that the historical segments can
+ *     still be served from the cache when the time range moves
+ *   </li>
+ * </ul>
+ * <p>Since the CRC is part of the key, a replaced segment never serves the results of the old segment. The entries of a
+ * segment are also invalidated when the segment is closed to release the memory.
+ */
+public class SegmentResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+
+  // Rough estimation of the on-heap size of the cache entry excluding the query key and the results
+  private static final int ENTRY_OVERHEAD_IN_BYTES = 256;
+
+  private static final Set<String> ENABLED_TABLES = ConcurrentHashMap.newKeySet();
+  private static volatile SegmentResultCache _instance;
+
+  private final Cache<Key, CachedSegmentResult> _cache;
+  private final AtomicLong _sizeInBytes = new AtomicLong();
+  private final ServerMetrics _serverMetrics;
+
+  /**
+   * Initializes the server-wide segment result cache with the given maximum size, or disables it if the maximum size is
+   * not positive.
+   */
+  public static void init(long maxSizeInBytes, @Nullable ServerMetrics serverMetrics) {
+    if (maxSizeInBytes > 0) {
+      LOGGER.info("Initializing segment result cache with max size: {} bytes", maxSizeInBytes);
+      _instance = new SegmentResultCache(maxSizeInBytes, serverMetrics);
+    } else {
+      LOGGER.info("Segment result cache is disabled");
+      _instance = null;
+    }
+  }
+
+  /**
+   * Returns the server-wide segment result cache, or {@code null} if it is disabled.
+   */
+  @Nullable
+  public static SegmentResultCache getInstance() {
+    return _instance;
+  }
+
+  /**
+   * Enables or disables the segment result cache for the given table.
+   */
+  public static void setTableEnabled(String tableNameWithType, boolean enabled) {
+    if (enabled) {
+      ENABLED_TABLES.add(tableNameWithType);
+    } else {
+      ENABLED_TABLES.remove(tableNameWithType);
+    }
+  }
+
+  public static boolean isTableEnabled(String tableNameWithType) {
+    return ENABLED_TABLES.contains(tableNameWithType);
+  }
+
+  /**
+   * Invalidates the cached results of the given segment if the cache is enabled.
+   */
+  public static void invalidateSegment(String tableNameWithType, String segmentName) {
+    SegmentResultCache instance = _instance;
+    if (instance != null) {
+      instance.invalidate(tableNameWithType, segmentName);
+    }
+  }
+
+  SegmentResultCache(long maxSizeInBytes, @Nullable ServerMetrics serverMetrics) {
+    Preconditions.checkArgument(maxSizeInBytes > 0, "Invalid maxSizeInBytes: %s", maxSizeInBytes);
+    _serverMetrics = serverMetrics;
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes)
+        .weigher((Key key, CachedSegmentResult result) -> getEntrySizeInBytes(key, result))
+        .removalListener(
+            notification -> updateSizeInBytes(-getEntrySizeInBytes(notification.getKey(), notification.getValue())))
+        .build();
+  }
+
+  /**
+   * Returns the cache key for the query on the given segment, or {@code null} if the results are not cacheable.
+   * <p>Only the results of the aggregation queries (with or without group-by) on the immutable segments of the tables
+   * with the cache enabled are cacheable.
+   */
+  @Nullable
+  public Key getKey(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    String tableNameWithType = brokerRequest.getQuerySource().getTableName();
+    if (!isTableEnabled(tableNameWithType) || !brokerRequest.isSetAggregationsInfo()
+        || !(indexSegment instanceof ImmutableSegment)
+        || !(indexSegment.getSegmentMetadata() instanceof SegmentMetadataImpl)) {
+      return null;
+    }
+    SegmentMetadataImpl segmentMetadata = (SegmentMetadataImpl) indexSegment.getSegmentMetadata();
+
+    StringBuilder queryKeyBuilder = new StringBuilder();
+    for (AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+      appendString(queryKeyBuilder, aggregationInfo.getAggregationType());
+      appendString(queryKeyBuilder, AggregationFunctionUtils.getColumn(aggregationInfo));
+    }
+    if (brokerRequest.isSetGroupBy()) {
+      GroupBy groupBy = brokerRequest.getGroupBy();
+      queryKeyBuilder.append('G').append(groupBy.getTopN());
+      for (String expression : groupBy.getExpressions()) {
+        appendString(queryKeyBuilder, expression);
+      }
+    }
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree != null) {
+      String filterKey = getFilterKey(filterQueryTree, segmentMetadata);
+      if (filterKey != null) {
+        queryKeyBuilder.append('F').append(filterKey);
+      }
+    }
+    return new Key(tableNameWithType, indexSegment.getSegmentName(), segmentMetadata.getCrc(),
+        queryKeyBuilder.toString());
+  }
+
+  /**
+   * Returns the cached result for the given key, or {@code null} if not cached.
+   */
+  @Nullable
+  public CachedSegmentResult get(Key key) {
+    CachedSegmentResult result = _cache.getIfPresent(key);
+    addMeteredValue(result != null ? ServerMeter.SEGMENT_RESULT_CACHE_HITS : ServerMeter.SEGMENT_RESULT_CACHE_MISSES);
+    return result;
+  }
+
+  /**
+   * Caches the result computed for the given key. Results with processing exceptions are not cached.
+   */
+  public void put(Key key, IntermediateResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+    CachedSegmentResult result = CachedSegmentResult.fromResultsBlock(resultsBlock, executionStatistics);
+    if (result != null) {
+      // NOTE: add the size before putting the entry so that the size never goes negative when the entry is evicted
+      updateSizeInBytes(getEntrySizeInBytes(key, result));
+      _cache.put(key, result);
+    }
+  }
+
+  /**
+   * Invalidates the cached results of the given segment.
+   */
+  public void invalidate(String tableNameWithType, String segmentName) {
+    _cache.asMap().keySet()
+        .removeIf(key -> key._segmentName.equals(segmentName) && key._tableNameWithType.equals(tableNameWithType));
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  public long getSizeInBytes() {
+    return _sizeInBytes.get();
+  }
+
+  private static int getEntrySizeInBytes(Key key, CachedSegmentResult result) {
+    return ENTRY_OVERHEAD_IN_BYTES + 2 * key._queryKey.length() + result.getSizeInBytes();
+  }
+
+  private void updateSizeInBytes(long delta) {
+    long sizeInBytes = _sizeInBytes.addAndGet(delta);
+    if (_serverMetrics != null) {
+      _serverMetrics.setValueOfGlobalGauge(ServerGauge.SEGMENT_RESULT_CACHE_SIZE_IN_BYTES, sizeInBytes);
+    }
+  }
+
+  private void addMeteredValue(ServerMeter meter) {
+    if (_serverMetrics != null) {
+      _serverMetrics.addMeteredGlobalValue(meter, 1L);
+    }
+  }
+
+  /**
+   * Returns the normalized key of the filter on the given segment, or {@code null} if the filter matches all the
+   * documents of the segment.
+   * <p>All the strings are length-prefixed so that different filters never generate the same key.
+   */
+  @Nullable
+  private static String getFilterKey(FilterQueryTree filterQueryTree, SegmentMetadataImpl segmentMetadata) {
+    FilterOperator operator = filterQueryTree.getOperator();
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+
+    if (children == null || children.isEmpty()) {
+      // Leaf node
+      if (operator == FilterOperator.RANGE && isMatchingAllDocs(filterQueryTree, segmentMetadata)) {
+        return null;
+      }
+      List<String> values = filterQueryTree.getValue();
+      if (operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) {
+        values = new ArrayList<>(values);
+        Collections.sort(values);
+      }
+      StringBuilder keyBuilder = new StringBuilder().append(operator);
+      appendString(keyBuilder, filterQueryTree.getColumn());
+      for (String value : values) {
+        appendString(keyBuilder, value);
+      }
+      return keyBuilder.toString();
+    }
+
+    // Parent node
+    // For AND, children matching all the documents can be removed; for OR, the filter matches all the documents if any
+    // child matches all the documents
+    List<String> childKeys = new ArrayList<>(children.size());
+    for (FilterQueryTree child : children) {
+      String childKey = getFilterKey(child, segmentMetadata);
+      if (childKey != null) {
+        childKeys.add(childKey);
+      } else if (operator == FilterOperator.OR) {
+        return null;
+      }
+    }
+    int numChildKeys = childKeys.size();
+    if (numChildKeys == 0) {
+      return null;
+    }
+    if (numChildKeys == 1) {
+      return childKeys.get(0);
+    }
+    Collections.sort(childKeys);
+    StringBuilder keyBuilder = new StringBuilder().append(operator);
+    for (String childKey : childKeys) {
+      appendString(keyBuilder, childKey);
+    }
+    return keyBuilder.toString();
+  }
+
+  /**
+   * Returns {@code true} if the range predicate matches all the documents of the segment based on the min/max value of
+   * the single-value column, {@code false} otherwise.
+   */
+  private static boolean isMatchingAllDocs(FilterQueryTree filterQueryTree, SegmentMetadataImpl segmentMetadata) {
+    ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(filterQueryTree.getColumn());
+    if (columnMetadata == null || !columnMetadata.isSingleValue()) {
+      return false;
+    }
+    Comparable minValue = columnMetadata.getMinValue();
+    Comparable maxValue = columnMetadata.getMaxValue();
+    if (minValue == null || maxValue == null) {
+      return false;
+    }
+    switch (columnMetadata.getDataType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        break;
+      default:
+        return false;
+    }
+
+    try {
+      RangePredicate rangePredicate = new RangePredicate(null, filterQueryTree.getValue());
+      String lowerBoundary = rangePredicate.getLowerBoundary();
+      if (!lowerBoundary.equals(RangePredicate.UNBOUNDED)) {
+        int result = AbstractSegmentPruner.getValue(lowerBoundary, columnMetadata.getDataType()).compareTo(minValue);
+        if (rangePredicate.includeLowerBoundary() ? result > 0 : result >= 0) {
+          return false;
+        }
+      }
+      String upperBoundary = rangePredicate.getUpperBoundary();
+      if (!upperBoundary.equals(RangePredicate.UNBOUNDED)) {
+        int result = AbstractSegmentPruner.getValue(upperBoundary, columnMetadata.getDataType()).compareTo(maxValue);
+        if (rangePredicate.includeUpperBoundary() ? result < 0 : result <= 0) {
+          return false;
+        }
+      }
+      return true;
+    } catch (BadQueryRequestException e) {
+      // Invalid boundary value, let the query execution handle it
+      return false;
+    }
+  }
+
+  private static void appendString(StringBuilder keyBuilder, String value) {
+    keyBuilder.append(value.length()).append(':').append(value);
+  }
+
+  /**
+   * Key of the cached segment result.
+   */
+  public static class Key {
+    final String _tableNameWithType;
+    final String _segmentName;
+    final String _crc;
+    final String _queryKey;
+
+    Key(String tableNameWithType, String segmentName, String crc, String queryKey) {
+      _tableNameWithType = tableNameWithType;
+      _segmentName = segmentName;
+      _crc = crc;
+      _queryKey = queryKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return _queryKey.equals(that._queryKey) && _segmentName.equals(that._segmentName) && _tableNameWithType
+          .equals(that._tableNameWithType) && Objects.equals(_crc, that._crc);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * _tableNameWithType.hashCode() + _segmentName.hashCode()) + _queryKey.hashCode();
+    }
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.pinot.core.query.config;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
+import org.apache.pinot.core.common.datatable.DataTableFactory;
 
 
 /**
@@ -35,6 +36,15 @@ public class QueryExecutorConfig {
   public static final String QUERY_PLANNER = "queryPlanner";
   // Prefix key of TimeOut
   public static final String TIME_OUT = "timeout";
+  // Version of the data tables sent back to the broker
+  public static final String DATA_TABLE_VERSION = "dataTableVersion";
+  // Max size of the cache of the bitmaps computed for the filter predicates, 0 to disable the cache
+  public static final String FILTER_BITMAP_CACHE_SIZE_IN_BYTES = "filterBitmapCacheSizeInBytes";
+  public static final long DEFAULT_FILTER_BITMAP_CACHE_SIZE_IN_BYTES = 64L * 1024 * 1024;
+  // Max size of the cache of the per-segment aggregation results for the tables with the cache enabled, 0 to disable
+  // the cache
+  public static final String SEGMENT_RESULT_CACHE_SIZE_IN_BYTES = "segmentResultCacheSizeInBytes";
+  public static final long DEFAULT_SEGMENT_RESULT_CACHE_SIZE_IN_BYTES = 128L * 1024 * 1024;
 
   private static final String[] REQUIRED_KEYS = {};
 
@@ -42,6 +52,9 @@ public class QueryExecutorConfig {
   private SegmentPrunerConfig _segmentPrunerConfig;
   private QueryPlannerConfig _queryPlannerConfig;
   private final long _timeOutMs;
+  private final int _dataTableVersion;
+  private final long _filterBitmapCacheSizeInBytes;
+  private final long _segmentResultCacheSizeInBytes;
 
   public QueryExecutorConfig(Configuration config)
       throws ConfigurationException {
@@ -50,6 +63,11 @@ public class QueryExecutorConfig {
     _segmentPrunerConfig = new SegmentPrunerConfig(_queryExecutorConfig.subset(QUERY_PRUNER));
     _queryPlannerConfig = new QueryPlannerConfig(_queryExecutorConfig.subset(QUERY_PLANNER));
     _timeOutMs = _queryExecutorConfig.getLong(TIME_OUT, -1);
+    _dataTableVersion = _queryExecutorConfig.getInt(DATA_TABLE_VERSION, DataTableFactory.VERSION_2);
+    _filterBitmapCacheSizeInBytes =
+        _queryExecutorConfig.getLong(FILTER_BITMAP_CACHE_SIZE_IN_BYTES, DEFAULT_FILTER_BITMAP_CACHE_SIZE_IN_BYTES);
+    _segmentResultCacheSizeInBytes =
+        _queryExecutorConfig.getLong(SEGMENT_RESULT_CACHE_SIZE_IN_BYTES, DEFAULT_SEGMENT_RESULT_CACHE_SIZE_IN_BYTES);
   }
 
   private void checkRequiredKeys()
@@ -76,4 +94,16 @@ public class QueryExecutorConfig {
   public long getTimeOut() {
     return _timeOutMs;
   }
+
+  public int getDataTableVersion() {
+    return _dataTableVersion;
+  }
+
+  public long getFilterBitmapCacheSizeInBytes() {
+    return _filterBitmapCacheSizeInBytes;
+  }
+
+  public long getSegmentResultCacheSizeInBytes() {
+    return _segmentResultCacheSizeInBytes;
+  }
 }
@@ -0,0 +1,322 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.reduce;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.pinot.common.config.TableNameBuilder;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.metrics.BrokerMeter;
+import org.apache.pinot.common.metrics.BrokerMetrics;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.response.ServerInstance;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.QueryProcessingException;
+import org.apache.pinot.common.response.broker.SelectionResults;
+import org.apache.pinot.common.utils.CommonConstants;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>IncrementalBrokerReducer</code> class reduces the data tables from multiple servers one by one as they
+ * arrive, so that the reduce overlaps with waiting for the slower servers, and the broker only needs to hold the merged
+ * results instead of all the data tables.
+ * <ul>
+ *   <li>Metadata (execution statistics, exceptions and trace info) is merged for each data table.</li>
+ *   <li>Aggregation and group-by intermediate results are merged into the existing intermediate results.</li>
+ *   <li>
+ *     Selection data tables are kept until {@link #finish()}, where they get reduced all together. Each of them is
+ *     already bounded by the selection size.
+ *   </li>
+ * </ul>
+ * <p>Call {@link #reduce(ServerInstance, DataTable)} for each data table, then call {@link #finish()} once to get the
+ * broker response. Data tables arrived after {@link #finish()} is called are ignored.
+ * <p>The reducer should be accessed by a single thread (the query thread). The reduce should not happen on the network
+ * threads receiving the data tables.
+ */
+@NotThreadSafe
+public class IncrementalBrokerReducer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalBrokerReducer.class);
+
+  private final BrokerRequest _brokerRequest;
+  private final BrokerMetrics _brokerMetrics;
+  private final BrokerResponseNative _brokerResponseNative = new BrokerResponseNative();
+
+  // For aggregation queries
+  private final AggregationFunction[] _aggregationFunctions;
+  // For aggregation only queries
+  private final Object[] _intermediateResults;
+  // For aggregation group-by queries
+  private final String[] _columnNames;
+  private final Map<String, Object>[] _intermediateResultMaps;
+  // For selection queries
+  private final Map<ServerInstance, DataTable> _selectionDataTableMap;
+
+  private long _numDocsScanned = 0L;
+  private long _numEntriesScannedInFilter = 0L;
+  private long _numEntriesScannedPostFilter = 0L;
+  private long _numSegmentsQueried = 0L;
+  private long _numSegmentsProcessed = 0L;
+  private long _numSegmentsMatched = 0L;
+  private long _numTotalRawDocs = 0L;
+  private boolean _numGroupsLimitReached = false;
+
+  // Cache a data schema from data tables (try to cache one with data rows associated with it).
+  private DataSchema _cachedDataSchema;
+  private int _numDataTablesReduced;
+  private int _numDataTablesWithRows;
+  private boolean _finished;
+  private RuntimeException _exception;
+
+  @SuppressWarnings("unchecked")
+  IncrementalBrokerReducer(@Nonnull BrokerRequest brokerRequest, @Nullable BrokerMetrics brokerMetrics) {
+    _brokerRequest = brokerRequest;
+    _brokerMetrics = brokerMetrics;
+    if (brokerRequest.isSetSelections()) {
+      _aggregationFunctions = null;
+      _intermediateResults = null;
+      _columnNames = null;
+      _intermediateResultMaps = null;
+      _selectionDataTableMap = new HashMap<>();
+    } else {
+      _aggregationFunctions = AggregationFunctionUtils.getAggregationFunctions(brokerRequest.getAggregationsInfo());
+      int numAggregationFunctions = _aggregationFunctions.length;
+      if (brokerRequest.isSetGroupBy()) {
+        _intermediateResults = null;
+        _columnNames = new String[numAggregationFunctions];
+        _intermediateResultMaps = new Map[numAggregationFunctions];
+      } else {
+        _intermediateResults = new Object[numAggregationFunctions];
+        _columnNames = null;
+        _intermediateResultMaps = null;
+      }
+      _selectionDataTableMap = null;
+    }
+  }
+
+  /**
+   * Merges the data table from the given server into the reduced results.
+   */
+  public void reduce(@Nonnull ServerInstance serverInstance, @Nonnull DataTable dataTable) {
+    if (_finished || _exception != null) {
+      return;
+    }
+    try {
+      reduceDataTable(serverInstance, dataTable);
+    } catch (RuntimeException e) {
+      // Remember the exception and re-throw it in finish() in case the caller does not handle it
+      _exception = e;
+      throw e;
+    }
+  }
+
+  private void reduceDataTable(ServerInstance serverInstance, DataTable dataTable) {
+    _numDataTablesReduced++;
+    reduceMetadata(serverInstance, dataTable.getMetadata());
+
+    // After processing the metadata, skip data tables without data rows inside.
+    DataSchema dataSchema = dataTable.getDataSchema();
+    if (dataSchema == null) {
+      return;
+    }
+    if (dataTable.getNumberOfRows() == 0) {
+      if (_cachedDataSchema == null) {
+        _cachedDataSchema = dataSchema;
+      }
+      return;
+    }
+    _cachedDataSchema = dataSchema;
+    _numDataTablesWithRows++;
+
+    if (_selectionDataTableMap != null) {
+      _selectionDataTableMap.put(serverInstance, dataTable);
+    } else if (_intermediateResults != null) {
+      BrokerReduceService.mergeAggregationResults(_aggregationFunctions, _intermediateResults, dataTable);
+    } else {
+      BrokerReduceService.mergeGroupByResults(_aggregationFunctions, _columnNames, _intermediateResultMaps, dataTable);
+    }
+  }
+
+  private void reduceMetadata(ServerInstance serverInstance, Map<String, String> metadata) {
+    // Reduce on trace info.
+    if (_brokerRequest.isEnableTrace()) {
+      _brokerResponseNative.getTraceInfo()
+          .put(serverInstance.getHostname(), metadata.get(DataTable.TRACE_INFO_METADATA_KEY));
+    }
+
+    // Reduce on exceptions.
+    List<QueryProcessingException> processingExceptions = _brokerResponseNative.getProcessingExceptions();
+    for (String key : metadata.keySet()) {
+      if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+        processingExceptions.add(new QueryProcessingException(Integer.parseInt(key.substring(9)), metadata.get(key)));
+      }
+    }
+
+    // Reduce on execution statistics.
+    String numDocsScannedString = metadata.get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY);
+    if (numDocsScannedString != null) {
+      _numDocsScanned += Long.parseLong(numDocsScannedString);
+    }
+    String numEntriesScannedInFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_IN_FILTER_METADATA_KEY);
+    if (numEntriesScannedInFilterString != null) {
+      _numEntriesScannedInFilter += Long.parseLong(numEntriesScannedInFilterString);
+    }
+    String numEntriesScannedPostFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_POST_FILTER_METADATA_KEY);
+    if (numEntriesScannedPostFilterString != null) {
+      _numEntriesScannedPostFilter += Long.parseLong(numEntriesScannedPostFilterString);
+    }
+    String numSegmentsQueriedString = metadata.get(DataTable.NUM_SEGMENTS_QUERIED);
+    if (numSegmentsQueriedString != null) {
+      _numSegmentsQueried += Long.parseLong(numSegmentsQueriedString);
+    }
+    String numSegmentsProcessedString = metadata.get(DataTable.NUM_SEGMENTS_PROCESSED);
+    if (numSegmentsProcessedString != null) {
+      _numSegmentsProcessed += Long.parseLong(numSegmentsProcessedString);
+    }
+    String numSegmentsMatchedString = metadata.get(DataTable.NUM_SEGMENTS_MATCHED);
+    if (numSegmentsMatchedString != null) {
+      _numSegmentsMatched += Long.parseLong(numSegmentsMatchedString);
+    }
+    String numTotalRawDocsString = metadata.get(DataTable.TOTAL_DOCS_METADATA_KEY);
+    if (numTotalRawDocsString != null) {
+      _numTotalRawDocs += Long.parseLong(numTotalRawDocsString);
+    }
+    _numGroupsLimitReached |= Boolean.valueOf(metadata.get(DataTable.NUM_GROUPS_LIMIT_REACHED_KEY));
+  }
+
+  /**
+   * Returns the number of data tables reduced so far.
+   */
+  public int getNumDataTablesReduced() {
+    return _numDataTablesReduced;
+  }
+
+  /**
+   * Finishes the reduce and returns the broker response. Data tables arrived afterwards are ignored.
+   * <p>Re-throws the exception caught while reducing the data tables, if any.
+   */
+  @Nonnull
+  public BrokerResponseNative finish() {
+    _finished = true;
+    if (_exception != null) {
+      throw _exception;
+    }
+    if (_numDataTablesReduced == 0) {
+      // Empty response.
+      return BrokerResponseNative.empty();
+    }
+
+    // Set execution statistics.
+    BrokerResponseNative brokerResponseNative = _brokerResponseNative;
+    brokerResponseNative.setNumDocsScanned(_numDocsScanned);
+    brokerResponseNative.setNumEntriesScannedInFilter(_numEntriesScannedInFilter);
+    brokerResponseNative.setNumEntriesScannedPostFilter(_numEntriesScannedPostFilter);
+    brokerResponseNative.setNumSegmentsQueried(_numSegmentsQueried);
+    brokerResponseNative.setNumSegmentsProcessed(_numSegmentsProcessed);
+    brokerResponseNative.setNumSegmentsMatched(_numSegmentsMatched);
+    brokerResponseNative.setTotalDocs(_numTotalRawDocs);
+    brokerResponseNative.setNumGroupsLimitReached(_numGroupsLimitReached);
+
+    // Update broker metrics.
+    String tableName = _brokerRequest.getQuerySource().getTableName();
+    String rawTableName = TableNameBuilder.extractRawTableName(tableName);
+    if (_brokerMetrics != null) {
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.DOCUMENTS_SCANNED, _numDocsScanned);
+      _brokerMetrics
+          .addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_IN_FILTER, _numEntriesScannedInFilter);
+      _brokerMetrics
+          .addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_POST_FILTER, _numEntriesScannedPostFilter);
+    }
+
+    // Parse the option from request whether to preserve the type
+    String preserveTypeString = (_brokerRequest.getQueryOptions() == null) ? "false" : _brokerRequest.getQueryOptions()
+        .getOrDefault(CommonConstants.Broker.Request.QueryOptionKey.PRESERVE_TYPE, "false");
+    boolean preserveType = Boolean.valueOf(preserveTypeString);
+
+    if (_numDataTablesWithRows == 0) {
+      // For no data table with data rows, construct empty result using the cached data schema.
+
+      // This will only happen to selection query.
+      if (_cachedDataSchema != null) {
+        List<String> selectionColumns = SelectionOperatorUtils
+            .getSelectionColumns(_brokerRequest.getSelections().getSelectionColumns(), _cachedDataSchema);
+        brokerResponseNative.setSelectionResults(new SelectionResults(selectionColumns, new ArrayList<>(0)));
+      }
+    } else {
+      // Set query results into the broker response.
+      assert _cachedDataSchema != null;
+
+      if (_selectionDataTableMap != null) {
+        // Selection query.
+
+        // For data table map with more than one data tables, remove conflicting data tables.
+        DataSchema masterDataSchema = _cachedDataSchema.clone();
+        if (_selectionDataTableMap.size() > 1) {
+          List<String> droppedServers =
+              BrokerReduceService.removeConflictingResponses(masterDataSchema, _selectionDataTableMap);
+          if (!droppedServers.isEmpty()) {
+            String errorMessage =
+                QueryException.MERGE_RESPONSE_ERROR.getMessage() + ": responses for table: " + tableName
+                    + " from servers: " + droppedServers + " got dropped due to data schema inconsistency.";
+            LOGGER.info(errorMessage);
+            if (_brokerMetrics != null) {
+              _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESPONSE_MERGE_EXCEPTIONS, 1L);
+            }
+            brokerResponseNative
+                .addToExceptions(new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, errorMessage));
+          }
+        }
+        BrokerReduceService
+            .setSelectionResults(brokerResponseNative, _brokerRequest.getSelections(), _selectionDataTableMap,
+                masterDataSchema, preserveType);
+      } else if (_intermediateResults != null) {
+        // Aggregation only query.
+        BrokerReduceService
+            .setAggregationResults(brokerResponseNative, _aggregationFunctions, _intermediateResults, _cachedDataSchema,
+                preserveType);
+      } else {
+        // Aggregation group-by query.
+        boolean[] aggregationFunctionSelectStatus =
+            AggregationFunctionUtils.getAggregationFunctionsSelectStatus(_brokerRequest.getAggregationsInfo());
+        BrokerReduceService
+            .setGroupByHavingResults(brokerResponseNative, _aggregationFunctions, aggregationFunctionSelectStatus,
+                _brokerRequest.getGroupBy(), _columnNames, _intermediateResultMaps,
+                _brokerRequest.getHavingFilterQuery(), _brokerRequest.getHavingFilterSubQueryMap(), preserveType);
+        if (_brokerMetrics != null && (!brokerResponseNative.getAggregationResults().isEmpty())) {
+          // We emit the group by size when the result isn't empty. All the sizes among group-by results should be the same.
+          // Thus, we can just emit the one from the 1st result.
+          _brokerMetrics.addMeteredQueryValue(_brokerRequest, BrokerMeter.GROUP_BY_SIZE,
+              brokerResponseNative.getAggregationResults().get(0).getGroupByResult().size());
+        }
+      }
+    }
+    return brokerResponseNative;
+  }
+}
@@ -31,6 +31,8 @@ import org.apache.pinot.common.request.Selection;
 import org.apache.pinot.common.request.transform.TransformExpressionTree;
 import org.apache.pinot.common.utils.request.FilterQueryTree;
 import org.apache.pinot.common.utils.request.RequestUtils;
+import org.apache.pinot.core.common.datatable.DataTableBuilder;
+import org.apache.pinot.core.common.datatable.DataTableFactory;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionType;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
 import org.apache.pinot.core.query.request.context.TimerContext;
@@ -49,6 +51,7 @@ public class ServerQueryRequest {
   private final List<String> _segmentsToQuery;
   private final boolean _enableTrace;
   private final String _brokerId;
+  private final int _dataTableVersion;
 
   // Timing information for different phases of query execution
   private final TimerContext _timerContext;
@@ -73,6 +76,9 @@ public class ServerQueryRequest {
     _segmentsToQuery = instanceRequest.getSearchSegments();
     _enableTrace = instanceRequest.isEnableTrace();
     _brokerId = instanceRequest.getBrokerId() != null ? instanceRequest.getBrokerId() : "unknown";
+    // Brokers that do not advertise the data table version can only read version 2
+    _dataTableVersion = DataTableBuilder.negotiateDataTableVersion(
+        instanceRequest.isSetDataTableVersion() ? instanceRequest.getDataTableVersion() : DataTableFactory.VERSION_2);
     _timerContext = new TimerContext(_tableNameWithType, serverMetrics, queryArrivalTimeMs);
 
     // Pre-compute segment independent information
@@ -152,6 +158,13 @@ public class ServerQueryRequest {
     return _brokerId;
   }
 
+  /**
+   * Returns the version of the data table to respond with, negotiated with the broker.
+   */
+  public int getDataTableVersion() {
+    return _dataTableVersion;
+  }
+
   public TimerContext getTimerContext() {
     return _timerContext;
   }
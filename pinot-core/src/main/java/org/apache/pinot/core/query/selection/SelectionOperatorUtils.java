@@ -227,9 +227,26 @@ public class SelectionOperatorUtils {
   @Nonnull
   public static DataTable getDataTableFromRows(@Nonnull Collection<Serializable[]> rows, @Nonnull DataSchema dataSchema)
       throws Exception {
+    return getDataTableFromRows(rows, dataSchema, DataTableBuilder.getCurrentDataTableVersion());
+  }
+
+  /**
+   * Build a {@link DataTable} of the given version from a {@link Collection} of selection rows with
+   * {@link DataSchema}. (Server side)
+   *
+   * @param rows {@link Collection} of selection rows.
+   * @param dataSchema data schema.
+   * @param dataTableVersion data table version.
+   * @return data table.
+   * @throws Exception
+   */
+  @Nonnull
+  public static DataTable getDataTableFromRows(@Nonnull Collection<Serializable[]> rows, @Nonnull DataSchema dataSchema,
+      int dataTableVersion)
+      throws Exception {
     int numColumns = dataSchema.size();
 
-    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema, dataTableVersion);
     for (Serializable[] row : rows) {
       dataTableBuilder.startRow();
       for (int i = 0; i < numColumns; i++) {
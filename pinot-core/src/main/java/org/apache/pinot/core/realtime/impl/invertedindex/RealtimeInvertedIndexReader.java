@@ -18,53 +18,64 @@
  */
 package org.apache.pinot.core.realtime.impl.invertedindex;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Arrays;
 import org.apache.pinot.core.segment.index.readers.InvertedIndexReader;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
+/**
+ * Inverted index for the consuming segment, with a single writer (the consuming thread) and multiple readers (the query
+ * threads). No lock is involved on either side.
+ * <p>A bitmap is never modified after being published to the readers, because adding a value to a roaring bitmap might
+ * reorganize its containers, which is not safe with concurrent readers. For each dictionary id, the document ids are
+ * kept as a sealed bitmap plus a buffer of the document ids added after the last seal, and a reader gets a consistent
+ * snapshot of both through a single volatile read. The sealed bitmap is returned as is when there is no pending
+ * document id, otherwise a new bitmap is built with the pending document ids.
+ * <p>Sealing copies the sealed bitmap, so the pending buffer grows with the size of the sealed bitmap to amortize the
+ * copy over the document ids added between two seals.
+ * <p>The bitmaps returned by {@link #getDocIds(int)} are shared, and must not be modified.
+ */
 public class RealtimeInvertedIndexReader implements InvertedIndexReader<MutableRoaringBitmap> {
-  private final List<ThreadSafeMutableRoaringBitmap> _bitmaps = new ArrayList<>();
-  private final ReentrantReadWriteLock.ReadLock _readLock;
-  private final ReentrantReadWriteLock.WriteLock _writeLock;
+  private static final int INITIAL_NUM_DICT_IDS = 16;
+  private static final MutableRoaringBitmap EMPTY_BITMAP = new MutableRoaringBitmap();
 
-  public RealtimeInvertedIndexReader() {
-    ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    _readLock = readWriteLock.readLock();
-    _writeLock = readWriteLock.writeLock();
-  }
+  // Written by the writer thread only
+  private volatile PostingList[] _postingLists = new PostingList[INITIAL_NUM_DICT_IDS];
+  private int _numDictIds;
 
   /**
    * Add the document id to the bitmap for the given dictionary id.
+   * <p>Should only be called by the writer thread, with non-decreasing document ids.
    */
   public void add(int dictId, int docId) {
-    if (_bitmaps.size() == dictId) {
-      // Bitmap for the dictionary id does not exist, add a new bitmap into the list
-      ThreadSafeMutableRoaringBitmap bitmap = new ThreadSafeMutableRoaringBitmap(docId);
-      try {
-        _writeLock.lock();
-        _bitmaps.add(bitmap);
-      } finally {
-        _writeLock.unlock();
+    if (dictId >= _numDictIds) {
+      // Posting list for the dictionary id does not exist, add a new posting list
+      // NOTE: there might be gaps in the dictionary ids if a record failed to be indexed after updating the dictionary,
+      // fill the gaps with empty posting lists
+      PostingList[] postingLists = _postingLists;
+      if (dictId >= postingLists.length) {
+        postingLists = Arrays.copyOf(postingLists, Math.max(dictId + 1, postingLists.length * 2));
+      }
+      for (int i = _numDictIds; i <= dictId; i++) {
+        postingLists[i] = new PostingList();
       }
-    } else {
-      // Bitmap for the dictionary id already exists, check and add document id into the bitmap
-      _bitmaps.get(dictId).checkAndAdd(docId);
+      _numDictIds = dictId + 1;
+      _postingLists = postingLists;
     }
+    _postingLists[dictId].add(docId);
   }
 
   @Override
   public MutableRoaringBitmap getDocIds(int dictId) {
-    ThreadSafeMutableRoaringBitmap bitmap;
-    try {
-      _readLock.lock();
-      bitmap = _bitmaps.get(dictId);
-    } finally {
-      _readLock.unlock();
+    PostingList[] postingLists = _postingLists;
+    if (dictId >= postingLists.length) {
+      return EMPTY_BITMAP;
     }
-    return bitmap.getMutableRoaringBitmap();
+    PostingList postingList = postingLists[dictId];
+    if (postingList == null) {
+      return EMPTY_BITMAP;
+    }
+    return postingList.getDocIds();
   }
 
   @Override
@@ -72,26 +83,75 @@ public class RealtimeInvertedIndexReader implements InvertedIndexReader<MutableR
   }
 
   /**
-   * Helper wrapper class for {@link MutableRoaringBitmap} to make it thread-safe.
+   * Document ids for a dictionary id, as a sealed bitmap plus the pending document ids added after the last seal.
    */
-  private static class ThreadSafeMutableRoaringBitmap {
-    private MutableRoaringBitmap _mutableRoaringBitmap;
+  private static class PostingList {
+    private static final int MIN_NUM_PENDING_DOC_IDS = 16;
+
+    private volatile Snapshot _snapshot = new Snapshot(new MutableRoaringBitmap(), new int[MIN_NUM_PENDING_DOC_IDS]);
+    private int _lastDocId = -1;
+
+    void add(int docId) {
+      // Same document id can be added multiple times for multi-value column
+      if (docId == _lastDocId) {
+        return;
+      }
+      _lastDocId = docId;
 
-    public ThreadSafeMutableRoaringBitmap(int firstDocId) {
-      _mutableRoaringBitmap = new MutableRoaringBitmap();
-      _mutableRoaringBitmap.add(firstDocId);
+      Snapshot snapshot = _snapshot;
+      int numPendingDocIds = snapshot._numPendingDocIds;
+      int[] pendingDocIds = snapshot._pendingDocIds;
+      if (numPendingDocIds == pendingDocIds.length) {
+        // Pending buffer is full, seal it into a new bitmap
+        snapshot = seal(snapshot);
+        numPendingDocIds = 0;
+        pendingDocIds = snapshot._pendingDocIds;
+      }
+      pendingDocIds[numPendingDocIds] = docId;
+      // NOTE: the volatile write publishes the pending document id to the readers
+      snapshot._numPendingDocIds = numPendingDocIds + 1;
     }
 
-    public void checkAndAdd(int docId) {
-      if (!_mutableRoaringBitmap.contains(docId)) {
-        synchronized (this) {
-          _mutableRoaringBitmap.add(docId);
-        }
+    private Snapshot seal(Snapshot snapshot) {
+      MutableRoaringBitmap bitmap = snapshot._bitmap.clone();
+      int[] pendingDocIds = snapshot._pendingDocIds;
+      int numPendingDocIds = snapshot._numPendingDocIds;
+      for (int i = 0; i < numPendingDocIds; i++) {
+        bitmap.add(pendingDocIds[i]);
       }
+      // NOTE: a new pending buffer is required because readers might still be reading the old one. The size of the new
+      // buffer is proportional to the size of the bitmap to be copied on the next seal, so that the cost of copying is
+      // constant per document id added.
+      int pendingBufferSize = Math.max(bitmap.getSizeInBytes() / Integer.BYTES, MIN_NUM_PENDING_DOC_IDS);
+      Snapshot newSnapshot = new Snapshot(bitmap, new int[pendingBufferSize]);
+      _snapshot = newSnapshot;
+      return newSnapshot;
     }
 
-    public synchronized MutableRoaringBitmap getMutableRoaringBitmap() {
-      return _mutableRoaringBitmap.clone();
+    MutableRoaringBitmap getDocIds() {
+      Snapshot snapshot = _snapshot;
+      // NOTE: read the number of pending document ids before the pending document ids
+      int numPendingDocIds = snapshot._numPendingDocIds;
+      if (numPendingDocIds == 0) {
+        return snapshot._bitmap;
+      }
+      MutableRoaringBitmap bitmap = snapshot._bitmap.clone();
+      int[] pendingDocIds = snapshot._pendingDocIds;
+      for (int i = 0; i < numPendingDocIds; i++) {
+        bitmap.add(pendingDocIds[i]);
+      }
+      return bitmap;
+    }
+  }
+
+  private static class Snapshot {
+    final MutableRoaringBitmap _bitmap;
+    final int[] _pendingDocIds;
+    volatile int _numPendingDocIds;
+
+    Snapshot(MutableRoaringBitmap bitmap, int[] pendingDocIds) {
+      _bitmap = bitmap;
+      _pendingDocIds = pendingDocIds;
     }
   }
 }
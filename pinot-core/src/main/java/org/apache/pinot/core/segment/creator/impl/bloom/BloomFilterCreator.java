@@ -32,8 +32,8 @@ import org.apache.pinot.core.segment.creator.impl.V1Constants;
  * Bloom filter creator
  *
  * Note:
- * 1. Currently, we limit the filter size to 1MB to avoid the heap overhead. We can remove it once we have the offheap
- *    implementation of the bloom filter.
+ * 1. Currently, we limit the filter size to 1MB. The limit was added to avoid the heap overhead of the on-heap bloom
+ *    filter, and can be relaxed now that the bloom filter is read off-heap.
  * 2. When capping the bloom filter to 1MB, max false pos steeply grows from 1 million cardinality. If the column has
  *    larger than "5 million" cardinality, it is not recommended to use bloom filter since maxFalsePosProb is already
  *    0.45 when the filter size is 1MB.
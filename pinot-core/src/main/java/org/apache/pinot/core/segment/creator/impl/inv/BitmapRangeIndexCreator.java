@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.segment.creator.impl.inv;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.core.segment.creator.impl.V1Constants;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Creator for the bitmap based range index of a dictionary-encoded single-value column.
+ * <p>Dictionary ids are sorted by value, so a range predicate on the values is a contiguous range of dictionary ids.
+ * The range index splits the dictionary ids into contiguous buckets with roughly the same number of documents, and
+ * keeps one bitmap of the document ids for each bucket. A range query only needs to merge the bitmaps of the buckets
+ * fully covered by the range, and scan the documents of at most 2 boundary buckets.
+ * <pre>
+ * Layout for range index:
+ * |-------------------------------------------------------------------------|
+ * |                                 Version                                 |
+ * |                            Number of buckets                            |
+ * |-------------------------------------------------------------------------|
+ * |                     Start dictionary id of 1st bucket                   |
+ * |                                   ...                                   |
+ * |                    Start dictionary id of last bucket                   |
+ * |              End dictionary id of last bucket (exclusive)               |
+ * |-------------------------------------------------------------------------|
+ * |                        Start offset of 1st bitmap                       |
+ * |                                   ...                                   |
+ * |                       Start offset of last bitmap                       |
+ * |                  End offset of last bitmap (exclusive)                  |
+ * |-------------------------------------------------------------------------|
+ * |                           Data for 1st bitmap                           |
+ * |                                   ...                                   |
+ * |                           Data for last bitmap                          |
+ * |-------------------------------------------------------------------------|
+ * </pre>
+ *
+ * <p>To create a range index:
+ * <ul>
+ *   <li>Construct an instance of <code>BitmapRangeIndexCreator</code></li>
+ *   <li>Call add() for each docId in sequence starting with 0 to add the dictId into the creator</li>
+ *   <li>Call seal() after all dictIds have been added</li>
+ * </ul>
+ */
+public final class BitmapRangeIndexCreator implements Closeable {
+  public static final int VERSION = 1;
+  public static final int DEFAULT_NUM_BUCKETS = 64;
+
+  private final File _rangeIndexFile;
+  private final int _cardinality;
+  private final int _numBuckets;
+  private final int[] _dictIds;
+  private final int[] _numDocsPerDictId;
+  private int _nextDocId;
+
+  public BitmapRangeIndexCreator(File indexDir, String columnName, int cardinality, int numDocs) {
+    this(indexDir, columnName, cardinality, numDocs, DEFAULT_NUM_BUCKETS);
+  }
+
+  public BitmapRangeIndexCreator(File indexDir, String columnName, int cardinality, int numDocs, int numBuckets) {
+    Preconditions.checkArgument(numBuckets > 0, "Invalid number of buckets: %s", numBuckets);
+    _rangeIndexFile = new File(indexDir, columnName + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+    _cardinality = cardinality;
+    _numBuckets = Math.min(numBuckets, cardinality);
+    _dictIds = new int[numDocs];
+    _numDocsPerDictId = new int[cardinality];
+  }
+
+  /**
+   * Adds the dictionary id for the next document.
+   */
+  public void add(int dictId) {
+    _dictIds[_nextDocId++] = dictId;
+    _numDocsPerDictId[dictId]++;
+  }
+
+  /**
+   * Seals the index and flushes it to disk.
+   */
+  public void seal()
+      throws IOException {
+    // Split the dictionary ids into buckets with roughly the same number of documents
+    // NOTE: the actual number of buckets might be smaller than the configured one when some values are very frequent
+    int[] bucketStartDictIds = new int[_numBuckets + 1];
+    int[] bucketIds = new int[_cardinality];
+    int numBuckets = 0;
+    int numDocsPerBucket = Math.max((_nextDocId + _numBuckets - 1) / Math.max(_numBuckets, 1), 1);
+    int numDocsInCurrentBucket = 0;
+    for (int dictId = 0; dictId < _cardinality; dictId++) {
+      if (numDocsInCurrentBucket == 0 && numBuckets < _numBuckets) {
+        bucketStartDictIds[numBuckets++] = dictId;
+      }
+      bucketIds[dictId] = numBuckets - 1;
+      numDocsInCurrentBucket += _numDocsPerDictId[dictId];
+      if (numDocsInCurrentBucket >= numDocsPerBucket) {
+        numDocsInCurrentBucket = 0;
+      }
+    }
+    bucketStartDictIds[numBuckets] = _cardinality;
+
+    MutableRoaringBitmap[] bitmaps = new MutableRoaringBitmap[numBuckets];
+    for (int i = 0; i < numBuckets; i++) {
+      bitmaps[i] = new MutableRoaringBitmap();
+    }
+    for (int docId = 0; docId < _nextDocId; docId++) {
+      bitmaps[bucketIds[_dictIds[docId]]].add(docId);
+    }
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(_rangeIndexFile)))) {
+      out.writeInt(VERSION);
+      out.writeInt(numBuckets);
+
+      // Write bucket boundaries
+      for (int i = 0; i <= numBuckets; i++) {
+        out.writeInt(bucketStartDictIds[i]);
+      }
+
+      // Write bitmap offsets
+      int bitmapOffset = (2 * numBuckets + 4) * Integer.BYTES;
+      out.writeInt(bitmapOffset);
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.runOptimize();
+        bitmapOffset += bitmap.serializedSizeInBytes();
+        // Check for int overflow
+        Preconditions.checkState(bitmapOffset > 0, "Range index file: %s exceeds 2GB limit", _rangeIndexFile);
+        out.writeInt(bitmapOffset);
+      }
+
+      // Write bitmap data
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.serialize(out);
+      }
+    } catch (Exception e) {
+      FileUtils.deleteQuietly(_rangeIndexFile);
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
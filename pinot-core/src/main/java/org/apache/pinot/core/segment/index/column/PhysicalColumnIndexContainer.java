@@ -31,10 +31,13 @@ import org.apache.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
 import org.apache.pinot.core.segment.index.ColumnMetadata;
 import org.apache.pinot.core.segment.index.loader.IndexLoadingConfig;
 import org.apache.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import org.apache.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import org.apache.pinot.core.segment.index.readers.BloomFilterReader;
 import org.apache.pinot.core.segment.index.readers.BytesDictionary;
 import org.apache.pinot.core.segment.index.readers.DoubleDictionary;
 import org.apache.pinot.core.segment.index.readers.FloatDictionary;
+import org.apache.pinot.core.segment.index.readers.HashIndexedBytesDictionary;
+import org.apache.pinot.core.segment.index.readers.HashIndexedStringDictionary;
 import org.apache.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import org.apache.pinot.core.segment.index.readers.IntDictionary;
 import org.apache.pinot.core.segment.index.readers.InvertedIndexReader;
@@ -59,6 +62,7 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
   private final InvertedIndexReader _invertedIndex;
   private final ImmutableDictionaryReader _dictionary;
   private final BloomFilterReader _bloomFilterReader;
+  private final BitmapRangeIndexReader _rangeIndex;
 
   public PhysicalColumnIndexContainer(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfig indexLoadingConfig)
@@ -66,11 +70,15 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
     String columnName = metadata.getColumnName();
     boolean loadInvertedIndex = false;
     boolean loadOnHeapDictionary = false;
+    boolean loadHashIndexedDictionary = false;
     boolean loadBloomFilter = false;
+    boolean loadRangeIndex = false;
     if (indexLoadingConfig != null) {
       loadInvertedIndex = indexLoadingConfig.getInvertedIndexColumns().contains(columnName);
       loadOnHeapDictionary = indexLoadingConfig.getOnHeapDictionaryColumns().contains(columnName);
+      loadHashIndexedDictionary = indexLoadingConfig.getHashIndexedDictionaryColumns().contains(columnName);
       loadBloomFilter = indexLoadingConfig.getBloomFilterColumns().contains(columnName);
+      loadRangeIndex = indexLoadingConfig.getRangeIndexColumns().contains(columnName);
     }
     PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(columnName, ColumnIndexType.FORWARD_INDEX);
 
@@ -84,11 +92,12 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
       }
       // Dictionary-based index
       _dictionary = loadDictionary(segmentReader.getIndexFor(columnName, ColumnIndexType.DICTIONARY), metadata,
-          loadOnHeapDictionary);
+          loadOnHeapDictionary, loadHashIndexedDictionary);
       if (metadata.isSingleValue()) {
         // Single-value
         if (metadata.isSorted()) {
-          // Sorted
+          // Sorted (no range index required)
+          _rangeIndex = null;
           SortedIndexReader sortedIndexReader = new SortedIndexReaderImpl(fwdIndexBuffer, metadata.getCardinality());
           _forwardIndex = sortedIndexReader;
           _invertedIndex = sortedIndexReader;
@@ -97,9 +106,16 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
           // Unsorted
           _forwardIndex =
               new FixedBitSingleValueReader(fwdIndexBuffer, metadata.getTotalDocs(), metadata.getBitsPerElement());
+          if (loadRangeIndex) {
+            _rangeIndex =
+                new BitmapRangeIndexReader(segmentReader.getIndexFor(columnName, ColumnIndexType.RANGE_INDEX));
+          } else {
+            _rangeIndex = null;
+          }
         }
       } else {
         // Multi-value
+        _rangeIndex = null;
         _forwardIndex =
             new FixedBitMultiValueReader(fwdIndexBuffer, metadata.getTotalDocs(), metadata.getTotalNumberOfEntries(),
                 metadata.getBitsPerElement());
@@ -117,6 +133,7 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
       _invertedIndex = null;
       _dictionary = null;
       _bloomFilterReader = null;
+      _rangeIndex = null;
     }
   }
 
@@ -140,12 +157,24 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
     return _bloomFilterReader;
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return _rangeIndex;
+  }
+
   private static ImmutableDictionaryReader loadDictionary(PinotDataBuffer dictionaryBuffer, ColumnMetadata metadata,
-      boolean loadOnHeap) {
+      boolean loadOnHeap, boolean loadHashIndex) {
     FieldSpec.DataType dataType = metadata.getDataType();
     if (loadOnHeap) {
       String columnName = metadata.getColumnName();
       LOGGER.info("Loading on-heap dictionary for column: {}", columnName);
+    } else if (loadHashIndex) {
+      // Hash index only applies to the memory-mapped STRING/BYTES dictionaries
+      if (dataType == FieldSpec.DataType.STRING || dataType == FieldSpec.DataType.BYTES) {
+        LOGGER.info("Loading hash indexed dictionary for column: {}", metadata.getColumnName());
+      } else {
+        loadHashIndex = false;
+      }
     }
 
     int length = metadata.getCardinality();
@@ -169,12 +198,16 @@ public final class PhysicalColumnIndexContainer implements ColumnIndexContainer
       case STRING:
         int numBytesPerValue = metadata.getColumnMaxLength();
         byte paddingByte = (byte) metadata.getPaddingCharacter();
-        return loadOnHeap ? new OnHeapStringDictionary(dictionaryBuffer, length, numBytesPerValue, paddingByte)
+        if (loadOnHeap) {
+          return new OnHeapStringDictionary(dictionaryBuffer, length, numBytesPerValue, paddingByte);
+        }
+        return loadHashIndex ? new HashIndexedStringDictionary(dictionaryBuffer, length, numBytesPerValue, paddingByte)
             : new StringDictionary(dictionaryBuffer, length, numBytesPerValue, paddingByte);
 
       case BYTES:
         numBytesPerValue = metadata.getColumnMaxLength();
-        return new BytesDictionary(dictionaryBuffer, length, numBytesPerValue);
+        return loadHashIndex ? new HashIndexedBytesDictionary(dictionaryBuffer, length, numBytesPerValue)
+            : new BytesDictionary(dictionaryBuffer, length, numBytesPerValue);
 
       default:
         throw new IllegalStateException("Illegal data type for dictionary: " + dataType);
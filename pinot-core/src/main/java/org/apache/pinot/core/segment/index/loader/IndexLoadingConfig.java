@@ -47,7 +47,9 @@ public class IndexLoadingConfig {
   private Set<String> _noDictionaryColumns = new HashSet<>(); // TODO: replace this by _noDictionaryConfig.
   private Map<String, String> _noDictionaryConfig = new HashMap<>();
   private Set<String> _onHeapDictionaryColumns = new HashSet<>();
+  private Set<String> _hashIndexedDictionaryColumns = new HashSet<>();
   private Set<String> _bloomFilterColumns = new HashSet<>();
+  private Set<String> _rangeIndexColumns = new HashSet<>();
 
   private SegmentVersion _segmentVersion;
   // This value will remain true only when the empty constructor is invoked.
@@ -86,6 +88,11 @@ public class IndexLoadingConfig {
       _bloomFilterColumns.addAll(bloomFilterColumns);
     }
 
+    List<String> rangeIndexColumns = indexingConfig.getRangeIndexColumns();
+    if (rangeIndexColumns != null) {
+      _rangeIndexColumns.addAll(rangeIndexColumns);
+    }
+
     List<String> noDictionaryColumns = indexingConfig.getNoDictionaryColumns();
     if (noDictionaryColumns != null) {
       _noDictionaryColumns.addAll(noDictionaryColumns);
@@ -101,6 +108,11 @@ public class IndexLoadingConfig {
       _onHeapDictionaryColumns.addAll(onHeapDictionaryColumns);
     }
 
+    List<String> hashIndexedDictionaryColumns = indexingConfig.getHashIndexedDictionaryColumns();
+    if (hashIndexedDictionaryColumns != null) {
+      _hashIndexedDictionaryColumns.addAll(hashIndexedDictionaryColumns);
+    }
+
     String tableSegmentVersion = indexingConfig.getSegmentFormatVersion();
     if (tableSegmentVersion != null) {
       _segmentVersion = SegmentVersion.valueOf(tableSegmentVersion.toLowerCase());
@@ -178,11 +190,21 @@ public class IndexLoadingConfig {
     _bloomFilterColumns = bloomFilterColumns;
   }
 
+  @VisibleForTesting
+  public void setRangeIndexColumns(@Nonnull Set<String> rangeIndexColumns) {
+    _rangeIndexColumns = rangeIndexColumns;
+  }
+
   @VisibleForTesting
   public void setOnHeapDictionaryColumns(@Nonnull Set<String> onHeapDictionaryColumns) {
     _onHeapDictionaryColumns = onHeapDictionaryColumns;
   }
 
+  @VisibleForTesting
+  public void setHashIndexedDictionaryColumns(@Nonnull Set<String> hashIndexedDictionaryColumns) {
+    _hashIndexedDictionaryColumns = hashIndexedDictionaryColumns;
+  }
+
   @Nonnull
   public Set<String> getNoDictionaryColumns() {
     return _noDictionaryColumns;
@@ -198,10 +220,24 @@ public class IndexLoadingConfig {
     return _onHeapDictionaryColumns;
   }
 
+  /**
+   * Returns the STRING/BYTES columns whose memory-mapped dictionary should be loaded with an on-heap hash index for
+   * constant time value lookups. Ignored for columns loaded with an on-heap dictionary.
+   */
+  @Nonnull
+  public Set<String> getHashIndexedDictionaryColumns() {
+    return _hashIndexedDictionaryColumns;
+  }
+
   public Set<String> getBloomFilterColumns() {
     return _bloomFilterColumns;
   }
 
+  @Nonnull
+  public Set<String> getRangeIndexColumns() {
+    return _rangeIndexColumns;
+  }
+
   @Nullable
   public SegmentVersion getSegmentVersion() {
     return _segmentVersion;
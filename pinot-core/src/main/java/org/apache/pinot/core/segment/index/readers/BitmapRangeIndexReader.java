@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.segment.index.readers;
+
+import java.io.IOException;
+import org.apache.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Reader for the bitmap based range index created by {@link BitmapRangeIndexCreator}, where each bucket covers a
+ * contiguous range of dictionary ids. The bitmaps are read directly from the data buffer.
+ */
+public class BitmapRangeIndexReader {
+  // Size of the header (version and number of buckets)
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+  private final PinotDataBuffer _dataBuffer;
+  private final int _numBuckets;
+  private final long _bitmapOffsetsOffset;
+
+  public BitmapRangeIndexReader(PinotDataBuffer dataBuffer)
+      throws IOException {
+    int version = dataBuffer.getInt(0);
+    if (version != BitmapRangeIndexCreator.VERSION) {
+      throw new IOException("Unsupported range index version: " + version);
+    }
+    _dataBuffer = dataBuffer;
+    _numBuckets = dataBuffer.getInt(Integer.BYTES);
+    _bitmapOffsetsOffset = HEADER_SIZE + (long) (_numBuckets + 1) * Integer.BYTES;
+  }
+
+  /**
+   * Returns the number of buckets.
+   */
+  public int getNumBuckets() {
+    return _numBuckets;
+  }
+
+  /**
+   * Returns the first dictionary id (inclusive) of the given bucket.
+   */
+  public int getBucketStartDictId(int bucketId) {
+    return _dataBuffer.getInt(HEADER_SIZE + (long) bucketId * Integer.BYTES);
+  }
+
+  /**
+   * Returns the last dictionary id (exclusive) of the given bucket.
+   */
+  public int getBucketEndDictId(int bucketId) {
+    return getBucketStartDictId(bucketId + 1);
+  }
+
+  /**
+   * Returns the id of the bucket containing the given dictionary id.
+   */
+  public int getBucketId(int dictId) {
+    // Binary search the last bucket with start dictionary id smaller than or equal to the given dictionary id
+    int low = 0;
+    int high = _numBuckets - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (getBucketStartDictId(mid) <= dictId) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the document ids for the given bucket.
+   */
+  public ImmutableRoaringBitmap getDocIds(int bucketId) {
+    int startOffset = _dataBuffer.getInt(_bitmapOffsetsOffset + (long) bucketId * Integer.BYTES);
+    int endOffset = _dataBuffer.getInt(_bitmapOffsetsOffset + (long) (bucketId + 1) * Integer.BYTES);
+    return new ImmutableRoaringBitmap(_dataBuffer.toDirectByteBuffer(startOffset, endOffset - startOffset));
+  }
+}
@@ -23,31 +23,43 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import org.apache.pinot.core.bloom.BloomFilter;
 import org.apache.pinot.core.bloom.BloomFilterType;
+import org.apache.pinot.core.bloom.OffHeapBlockedBloomFilter;
 import org.apache.pinot.core.bloom.SegmentBloomFilterFactory;
 import org.apache.pinot.core.segment.memory.PinotDataBuffer;
 
 
 /**
  * Bloom filter reader
+ * <p>The {@link BloomFilterType#OFF_HEAP_BLOCKED} bloom filter is read directly from the data buffer, other types of
+ * bloom filter are deserialized into heap.
  */
 public class BloomFilterReader {
+  // Size of the header (type and version)
+  private static final int HEADER_SIZE = 2 * Integer.BYTES;
 
-  private BloomFilter _bloomFilter;
+  private final BloomFilter _bloomFilter;
 
   public BloomFilterReader(PinotDataBuffer bloomFilterBuffer)
       throws IOException {
-    byte[] buffer = new byte[(int) bloomFilterBuffer.size()];
-    bloomFilterBuffer.copyTo(0, buffer);
-
-    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer))) {
-      BloomFilterType bloomFilterType = BloomFilterType.valueOf(in.readInt());
-      int version = in.readInt();
-      _bloomFilter = SegmentBloomFilterFactory.createSegmentBloomFilter(bloomFilterType);
-      if (version != _bloomFilter.getVersion()) {
-        throw new IOException(
-            "Unexpected bloom filter version (type: " + bloomFilterType.toString() + ", version: " + version);
+    BloomFilterType bloomFilterType = BloomFilterType.valueOf(bloomFilterBuffer.getInt(0));
+    if (bloomFilterType == null) {
+      throw new IOException("Unknown bloom filter type: " + bloomFilterBuffer.getInt(0));
+    }
+    int version = bloomFilterBuffer.getInt(Integer.BYTES);
+    BloomFilter bloomFilter = SegmentBloomFilterFactory.createSegmentBloomFilter(bloomFilterType);
+    if (version != bloomFilter.getVersion()) {
+      throw new IOException(
+          "Unexpected bloom filter version (type: " + bloomFilterType.toString() + ", version: " + version);
+    }
+    if (bloomFilterType == BloomFilterType.OFF_HEAP_BLOCKED) {
+      _bloomFilter = new OffHeapBlockedBloomFilter(bloomFilterBuffer, HEADER_SIZE);
+    } else {
+      byte[] buffer = new byte[(int) bloomFilterBuffer.size() - HEADER_SIZE];
+      bloomFilterBuffer.copyTo(HEADER_SIZE, buffer);
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer))) {
+        bloomFilter.readFrom(in);
       }
-      _bloomFilter.readFrom(in);
+      _bloomFilter = bloomFilter;
     }
   }
 
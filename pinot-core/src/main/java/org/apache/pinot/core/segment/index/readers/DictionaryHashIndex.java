@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.segment.index.readers;
+
+import com.google.common.base.Preconditions;
+import java.util.Arrays;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+
+
+/**
+ * Open addressing hash index from the fixed width value bytes to the dictionary id for the memory-mapped STRING/BYTES
+ * dictionaries.
+ * <p>Only the dictionary ids are kept on heap (4 to 16 bytes per value depending on the load factor), while the values
+ * stay in the data buffer and are compared in place on lookup. This gives constant time lookups without materializing
+ * the values on heap as the on-heap dictionaries do.
+ */
+class DictionaryHashIndex {
+  private static final int MAX_LENGTH = 1 << 28;
+  private static final int EMPTY_SLOT = -1;
+
+  private final PinotDataBuffer _dataBuffer;
+  private final int _numBytesPerValue;
+  private final int[] _slots;
+  private final int _mask;
+
+  DictionaryHashIndex(PinotDataBuffer dataBuffer, int length, int numBytesPerValue) {
+    Preconditions.checkArgument(length <= MAX_LENGTH, "Dictionary is too large for hash index: %s", length);
+    _dataBuffer = dataBuffer;
+    _numBytesPerValue = numBytesPerValue;
+
+    // Keep the load factor between 0.25 and 0.5 so that the probe sequences stay short
+    int numSlots = Integer.highestOneBit(Math.max(length, 1)) << 2;
+    _slots = new int[numSlots];
+    Arrays.fill(_slots, EMPTY_SLOT);
+    _mask = numSlots - 1;
+
+    byte[] buffer = new byte[numBytesPerValue];
+    for (int dictId = 0; dictId < length; dictId++) {
+      dataBuffer.copyTo((long) dictId * numBytesPerValue, buffer, 0, numBytesPerValue);
+      int slot = hash(buffer) & _mask;
+      while (_slots[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) & _mask;
+      }
+      _slots[slot] = dictId;
+    }
+  }
+
+  /**
+   * Returns the dictionary id of the given value bytes (padded to the fixed width), or {@code -1} if the value does not
+   * exist in the dictionary.
+   */
+  int indexOf(byte[] paddedValue) {
+    if (paddedValue.length != _numBytesPerValue) {
+      return -1;
+    }
+    int slot = hash(paddedValue) & _mask;
+    int dictId;
+    while ((dictId = _slots[slot]) != EMPTY_SLOT) {
+      if (valueEquals(dictId, paddedValue)) {
+        return dictId;
+      }
+      slot = (slot + 1) & _mask;
+    }
+    return -1;
+  }
+
+  private boolean valueEquals(int dictId, byte[] value) {
+    long offset = (long) dictId * _numBytesPerValue;
+    for (int i = 0; i < _numBytesPerValue; i++) {
+      if (_dataBuffer.getByte(offset + i) != value[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(byte[] value) {
+    int hash = Arrays.hashCode(value);
+    // Spread the bits (murmur3 finalizer) because only the low bits are used to pick the slot
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.segment.index.readers;
+
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+
+
+/**
+ * Implementation of memory-mapped Bytes dictionary with an on-heap hash index on top of the values, where
+ * {@link #indexOf(Object)} takes constant time. See {@link HashIndexedStringDictionary} for details.
+ */
+public class HashIndexedBytesDictionary extends BytesDictionary {
+  private final DictionaryHashIndex _hashIndex;
+
+  public HashIndexedBytesDictionary(PinotDataBuffer dataBuffer, int length, int numBytesPerValue) {
+    super(dataBuffer, length, numBytesPerValue);
+    _hashIndex = new DictionaryHashIndex(dataBuffer, length, numBytesPerValue);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    return _hashIndex.indexOf((byte[]) rawValue);
+  }
+
+  @Override
+  public int insertionIndexOf(Object rawValue) {
+    int index = indexOf(rawValue);
+    return (index >= 0) ? index : super.insertionIndexOf(rawValue);
+  }
+}
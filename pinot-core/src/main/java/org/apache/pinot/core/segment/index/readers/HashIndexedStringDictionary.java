@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.segment.index.readers;
+
+import java.util.Arrays;
+import org.apache.pinot.common.utils.StringUtil;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+
+
+/**
+ * Implementation of memory-mapped String dictionary with an on-heap hash index on top of the values.
+ * <p>This is useful for high cardinality String columns that are heavily queried with EQ/IN predicates, where the
+ * on-heap dictionary costs too much heap and the binary search over the memory-mapped values is slow. Only the hash
+ * index (dictionary ids) is kept on heap, and {@link #indexOf(Object)} takes constant time.
+ */
+public class HashIndexedStringDictionary extends StringDictionary {
+  private final int _numBytesPerValue;
+  private final byte _paddingByte;
+  private final DictionaryHashIndex _hashIndex;
+
+  public HashIndexedStringDictionary(PinotDataBuffer dataBuffer, int length, int numBytesPerValue, byte paddingByte) {
+    super(dataBuffer, length, numBytesPerValue, paddingByte);
+    _numBytesPerValue = numBytesPerValue;
+    _paddingByte = paddingByte;
+    _hashIndex = new DictionaryHashIndex(dataBuffer, length, numBytesPerValue);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    byte[] valueBytes = StringUtil.encodeUtf8((String) rawValue);
+    int numValueBytes = valueBytes.length;
+    if (numValueBytes > _numBytesPerValue) {
+      return -1;
+    }
+    if (_paddingByte == 0) {
+      // Values are read up to the first padding byte, so values containing the padding byte can never match
+      for (byte valueByte : valueBytes) {
+        if (valueByte == 0) {
+          return -1;
+        }
+      }
+    }
+    if (numValueBytes == _numBytesPerValue) {
+      return _hashIndex.indexOf(valueBytes);
+    }
+    byte[] paddedValueBytes = Arrays.copyOf(valueBytes, _numBytesPerValue);
+    if (_paddingByte != 0) {
+      Arrays.fill(paddedValueBytes, numValueBytes, _numBytesPerValue, _paddingByte);
+    }
+    return _hashIndex.indexOf(paddedValueBytes);
+  }
+
+  @Override
+  public int insertionIndexOf(Object rawValue) {
+    int index = indexOf(rawValue);
+    return (index >= 0) ? index : super.insertionIndexOf(rawValue);
+  }
+}
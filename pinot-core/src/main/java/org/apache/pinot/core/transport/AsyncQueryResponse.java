@@ -18,11 +18,18 @@
  */
 package org.apache.pinot.core.transport;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.utils.DataTable;
 
@@ -30,38 +37,109 @@ import org.apache.pinot.common.utils.DataTable;
 /**
  * The {@code AsyncQueryResponse} class represents an asynchronous query response.
  * <p>Call {@link #getResponse()} to get the query response asynchronously.
+ * <p>If a data table consumer is provided, each data table is passed to the consumer as soon as it is received, and is
+ * not kept in the {@link ServerResponse}. The data tables are received on the network (event loop) threads, so they are
+ * queued and consumed by the thread waiting in {@link #getResponse()} instead.
+ * <p>The in-flight requests and response latencies are recorded into the {@link ServerLoadTracker} of the
+ * {@link QueryRouter}. Requests without response when the query is done are recorded with the time waited.
+ * <p>The request to a server can be hedged by sending the same request to another server with a different request id.
+ * The first response received (either from the original server or from the hedge server) is used as the response of
+ * the original server, and the other one is dropped when it arrives.
  */
 @ThreadSafe
 public class AsyncQueryResponse {
   private final QueryRouter _queryRouter;
   private final long _requestId;
   private final ConcurrentHashMap<Server, ServerResponse> _responseMap;
+  private final Set<Server> _doneServers;
+  private final Set<Server> _respondedServers;
+  private final ConcurrentHashMap<Long, HedgeRequest> _hedgeRequestMap = new ConcurrentHashMap<>();
   private final CountDownLatch _countDownLatch;
+  private final long _startTimeMs;
   private final long _maxEndTimeMs;
+  private final BiConsumer<Server, DataTable> _dataTableConsumer;
+  private final LinkedBlockingQueue<ReceivedDataTable> _dataTableQueue;
+  // Guarded by this
+  private final List<ScheduledFuture<?>> _hedgeFutures = new ArrayList<>();
+  private boolean _queryDone;
 
   public AsyncQueryResponse(QueryRouter queryRouter, long requestId, Set<Server> serversQueried, long startTimeMs,
       long timeoutMs) {
+    this(queryRouter, requestId, serversQueried, startTimeMs, timeoutMs, null);
+  }
+
+  public AsyncQueryResponse(QueryRouter queryRouter, long requestId, Set<Server> serversQueried, long startTimeMs,
+      long timeoutMs, @Nullable BiConsumer<Server, DataTable> dataTableConsumer) {
     _queryRouter = queryRouter;
     _requestId = requestId;
     int numServersQueried = serversQueried.size();
     _responseMap = new ConcurrentHashMap<>(numServersQueried);
+    _doneServers = ConcurrentHashMap.newKeySet(numServersQueried);
+    _respondedServers = ConcurrentHashMap.newKeySet(numServersQueried);
+    ServerLoadTracker serverLoadTracker = queryRouter.getServerLoadTracker();
     for (Server server : serversQueried) {
       _responseMap.put(server, new ServerResponse(startTimeMs));
+      serverLoadTracker.recordRequestSent(server.getInstanceName());
     }
     _countDownLatch = new CountDownLatch(numServersQueried);
+    _startTimeMs = startTimeMs;
     _maxEndTimeMs = startTimeMs + timeoutMs;
+    _dataTableConsumer = dataTableConsumer;
+    _dataTableQueue = dataTableConsumer != null ? new LinkedBlockingQueue<>() : null;
   }
 
   /**
    * Waits until the query is done and returns a map from the server to the response.
+   * <p>If a data table consumer is provided, the data tables are passed to the consumer on the calling thread while
+   * waiting.
    */
   public Map<Server, ServerResponse> getResponse()
       throws InterruptedException {
     try {
-      _countDownLatch.await(_maxEndTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      if (_dataTableConsumer == null) {
+        _countDownLatch.await(_maxEndTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      } else {
+        consumeDataTables();
+      }
       return _responseMap;
     } finally {
+      // NOTE: synchronize with addHedgeRequest() so that no hedge request is added after the query is done
+      synchronized (this) {
+        _queryDone = true;
+        // Cancel the hedge requests not sent yet
+        for (ScheduledFuture<?> hedgeFuture : _hedgeFutures) {
+          hedgeFuture.cancel(false);
+        }
+      }
       _queryRouter.markQueryDone(_requestId);
+      for (Server server : _responseMap.keySet()) {
+        markServerDone(server);
+      }
+      for (Map.Entry<Long, HedgeRequest> entry : _hedgeRequestMap.entrySet()) {
+        _queryRouter.markQueryDone(entry.getKey());
+        markHedgeRequestDone(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Consumes the queued data tables until all the servers responded, the query failed or the query timed out.
+   */
+  private void consumeDataTables()
+      throws InterruptedException {
+    int numServersQueried = _responseMap.size();
+    int numDataTablesConsumed = 0;
+    while (numDataTablesConsumed < numServersQueried) {
+      ReceivedDataTable receivedDataTable =
+          _dataTableQueue.poll(_maxEndTimeMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      if (receivedDataTable == null || receivedDataTable == ReceivedDataTable.QUERY_FAILED) {
+        return;
+      }
+      // NOTE: data table is null if the response from the server failed to be received
+      if (receivedDataTable._dataTable != null) {
+        _dataTableConsumer.accept(receivedDataTable._server, receivedDataTable._dataTable);
+      }
+      numDataTablesConsumed++;
     }
   }
 
@@ -82,9 +160,79 @@ public class AsyncQueryResponse {
     _responseMap.get(server).markRequestSubmitted();
   }
 
-  void receiveDataTable(Server server, DataTable dataTable, long responseSize, long deserializationTimeMs) {
-    _responseMap.get(server).receiveDataTable(dataTable, responseSize, deserializationTimeMs);
-    _countDownLatch.countDown();
+  /**
+   * Returns whether the response for the given (original) server has been received.
+   */
+  boolean isResponseReceived(Server server) {
+    return _respondedServers.contains(server);
+  }
+
+  /**
+   * Adds the future of the scheduled hedge requests, which gets cancelled when the query is done.
+   */
+  synchronized void addHedgeFuture(ScheduledFuture<?> hedgeFuture) {
+    if (_queryDone) {
+      hedgeFuture.cancel(false);
+    } else {
+      _hedgeFutures.add(hedgeFuture);
+    }
+  }
+
+  /**
+   * Adds a hedge request for the given original server, returns {@code false} if the query is already done.
+   */
+  synchronized boolean addHedgeRequest(long hedgeRequestId, Server originalServer, Server hedgeServer) {
+    if (_queryDone) {
+      return false;
+    }
+    _hedgeRequestMap.put(hedgeRequestId, new HedgeRequest(originalServer, hedgeServer, System.currentTimeMillis()));
+    _queryRouter.getServerLoadTracker().recordRequestSent(hedgeServer.getInstanceName());
+    return true;
+  }
+
+  void receiveDataTable(long requestId, Server server, DataTable dataTable, long responseSize,
+      long deserializationTimeMs) {
+    if (requestId != _requestId) {
+      HedgeRequest hedgeRequest = _hedgeRequestMap.get(requestId);
+      if (hedgeRequest == null) {
+        return;
+      }
+      markHedgeRequestDone(hedgeRequest);
+      server = hedgeRequest._originalServer;
+    } else {
+      markServerDone(server);
+    }
+    // Only take the first response for the server (from either the original request or the hedge request)
+    if (!_respondedServers.add(server)) {
+      return;
+    }
+    ServerResponse serverResponse = _responseMap.get(server);
+    if (_dataTableConsumer == null) {
+      serverResponse.receiveDataTable(dataTable, responseSize, deserializationTimeMs);
+      _countDownLatch.countDown();
+    } else {
+      // NOTE: do not consume the data table on the network thread, queue it for the thread waiting for the response
+      serverResponse.receiveDataTable(null, responseSize, deserializationTimeMs);
+      _dataTableQueue.offer(new ReceivedDataTable(server, dataTable));
+      _countDownLatch.countDown();
+    }
+  }
+
+  /**
+   * Records the request to the server as done into the server load tracker, no-op if it is already recorded.
+   */
+  private void markServerDone(Server server) {
+    if (_doneServers.add(server)) {
+      _queryRouter.getServerLoadTracker()
+          .recordRequestDone(server.getInstanceName(), System.currentTimeMillis() - _startTimeMs);
+    }
+  }
+
+  private void markHedgeRequestDone(HedgeRequest hedgeRequest) {
+    if (hedgeRequest._done.compareAndSet(false, true)) {
+      _queryRouter.getServerLoadTracker().recordRequestDone(hedgeRequest._hedgeServer.getInstanceName(),
+          System.currentTimeMillis() - hedgeRequest._startTimeMs);
+    }
   }
 
   void markQueryFailed() {
@@ -92,6 +240,9 @@ public class AsyncQueryResponse {
     for (int i = 0; i < count; i++) {
       _countDownLatch.countDown();
     }
+    if (_dataTableQueue != null) {
+      _dataTableQueue.offer(ReceivedDataTable.QUERY_FAILED);
+    }
   }
 
   /**
@@ -100,8 +251,53 @@ public class AsyncQueryResponse {
    */
   void markServerDown(Server server) {
     ServerResponse serverResponse = _responseMap.get(server);
-    if (serverResponse != null && serverResponse.getDataTable() == null) {
+    if (serverResponse != null && !serverResponse.isResponseReceived()) {
       markQueryFailed();
     }
   }
+
+  /**
+   * Fails the request to the given (original) server without failing the whole query, so that the responses from the
+   * other servers can still be returned.
+   * <p>NOTE: the server might not be hit by the query. Only fail the request if the query was sent to the server and the
+   * server hasn't responded yet.
+   */
+  void markServerFailed(Server server, String errorMessage) {
+    ServerResponse serverResponse = _responseMap.get(server);
+    if (serverResponse == null || !_respondedServers.add(server)) {
+      return;
+    }
+    serverResponse.markFailed(errorMessage);
+    markServerDone(server);
+    if (_dataTableQueue != null) {
+      _dataTableQueue.offer(new ReceivedDataTable(server, null));
+    }
+    _countDownLatch.countDown();
+  }
+
+  private static class ReceivedDataTable {
+    // Marker to wake up the thread consuming the data tables when the query failed
+    static final ReceivedDataTable QUERY_FAILED = new ReceivedDataTable(null, null);
+
+    final Server _server;
+    final DataTable _dataTable;
+
+    ReceivedDataTable(Server server, DataTable dataTable) {
+      _server = server;
+      _dataTable = dataTable;
+    }
+  }
+
+  private static class HedgeRequest {
+    final Server _originalServer;
+    final Server _hedgeServer;
+    final long _startTimeMs;
+    final AtomicBoolean _done = new AtomicBoolean();
+
+    HedgeRequest(Server originalServer, Server hedgeServer, long startTimeMs) {
+      _originalServer = originalServer;
+      _hedgeServer = hedgeServer;
+      _startTimeMs = startTimeMs;
+    }
+  }
 }
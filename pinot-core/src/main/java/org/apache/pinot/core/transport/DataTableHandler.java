@@ -19,8 +19,10 @@
 package org.apache.pinot.core.transport;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.TooLongFrameException;
 import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.utils.DataTable;
@@ -59,7 +61,15 @@ public class DataTableHandler extends SimpleChannelInboundHandler<ByteBuf> {
     _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_BYTES_RECEIVED, responseSize);
     try {
       long deserializationStartTimeMs = System.currentTimeMillis();
-      DataTable dataTable = DataTableFactory.getDataTable(msg.nioBuffer());
+      DataTable dataTable;
+      if (msg.getInt(msg.readerIndex()) >= DataTableFactory.VERSION_3) {
+        // Data table of version 3 keeps reading from the given buffer after this method returns, but the message is
+        // released afterwards, so copy the bytes out of it with one bulk copy. The read is therefore not zero-copy with
+        // respect to the network buffer, it only avoids decoding the values up-front.
+        dataTable = DataTableFactory.getDataTable(ByteBufUtil.getBytes(msg));
+      } else {
+        dataTable = DataTableFactory.getDataTable(msg.nioBuffer());
+      }
       _queryRouter
           .receiveDataTable(_server, dataTable, responseSize, System.currentTimeMillis() - deserializationStartTimeMs);
     } catch (Exception e) {
@@ -71,6 +81,16 @@ public class DataTableHandler extends SimpleChannelInboundHandler<ByteBuf> {
 
   @Override
   public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+    if (cause instanceof TooLongFrameException) {
+      LOGGER.error("Dropped response from server: {} because it exceeds the max response size", _server, cause);
+      _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_RESPONSES_TOO_LARGE, 1);
+      // The request id of the dropped response is unknown, fail all the pending requests to the server instead of
+      // waiting for the query timeout
+      _queryRouter.markServerFailed(_server,
+          "Response from server: " + _server.getInstanceName() + " exceeds the max response size: " + cause
+              .getMessage());
+      return;
+    }
     LOGGER.error("Caught exception while handling response from server: {}", _server, cause);
     _brokerMetrics.addMeteredGlobalValue(BrokerMeter.RESPONSE_FETCH_EXCEPTIONS, 1);
   }
@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.transport;
+
+import com.google.common.base.Preconditions;
+import org.apache.commons.configuration.Configuration;
+import org.apache.pinot.common.utils.CommonConstants.Broker;
+
+
+/**
+ * The {@code NettyConfig} class contains the Netty configs for the channels between the broker and the servers.
+ */
+public class NettyConfig {
+  public static final NettyConfig DEFAULT =
+      new NettyConfig(Broker.DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED, Broker.DEFAULT_NETTY_NUM_EVENT_LOOP_THREADS,
+          Broker.DEFAULT_NETTY_FLUSH_CONSOLIDATION_ENABLED, Broker.DEFAULT_NETTY_MAX_RESPONSE_SIZE_BYTES);
+
+  private final boolean _nativeTransportEnabled;
+  private final int _numEventLoopThreads;
+  private final boolean _flushConsolidationEnabled;
+  private final int _maxResponseSizeBytes;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param nativeTransportEnabled Whether to use the native epoll transport (falls back to NIO if not available)
+   * @param numEventLoopThreads Number of event loop threads, 0 for the Netty default
+   * @param flushConsolidationEnabled Whether to consolidate the flushes of the requests written to the same channel
+   * @param maxResponseSizeBytes Maximum size of the server response frame (including the 4-byte length prefix), larger
+   *                             responses are dropped
+   */
+  public NettyConfig(boolean nativeTransportEnabled, int numEventLoopThreads, boolean flushConsolidationEnabled,
+      int maxResponseSizeBytes) {
+    Preconditions.checkArgument(numEventLoopThreads >= 0, "Invalid numEventLoopThreads: %s", numEventLoopThreads);
+    Preconditions.checkArgument(maxResponseSizeBytes > 0, "Invalid maxResponseSizeBytes: %s", maxResponseSizeBytes);
+    _nativeTransportEnabled = nativeTransportEnabled;
+    _numEventLoopThreads = numEventLoopThreads;
+    _flushConsolidationEnabled = flushConsolidationEnabled;
+    _maxResponseSizeBytes = maxResponseSizeBytes;
+  }
+
+  /**
+   * Extracts the Netty configs from the broker config.
+   */
+  public static NettyConfig fromBrokerConfig(Configuration config) {
+    return new NettyConfig(config.getBoolean(Broker.CONFIG_OF_NETTY_NATIVE_TRANSPORT_ENABLED,
+        Broker.DEFAULT_NETTY_NATIVE_TRANSPORT_ENABLED),
+        config.getInt(Broker.CONFIG_OF_NETTY_NUM_EVENT_LOOP_THREADS, Broker.DEFAULT_NETTY_NUM_EVENT_LOOP_THREADS),
+        config.getBoolean(Broker.CONFIG_OF_NETTY_FLUSH_CONSOLIDATION_ENABLED,
+            Broker.DEFAULT_NETTY_FLUSH_CONSOLIDATION_ENABLED),
+        config.getInt(Broker.CONFIG_OF_NETTY_MAX_RESPONSE_SIZE_BYTES, Broker.DEFAULT_NETTY_MAX_RESPONSE_SIZE_BYTES));
+  }
+
+  public boolean isNativeTransportEnabled() {
+    return _nativeTransportEnabled;
+  }
+
+  public int getNumEventLoopThreads() {
+    return _numEventLoopThreads;
+  }
+
+  public boolean isFlushConsolidationEnabled() {
+    return _flushConsolidationEnabled;
+  }
+
+  public int getMaxResponseSizeBytes() {
+    return _maxResponseSizeBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "NettyConfig{nativeTransportEnabled=" + _nativeTransportEnabled + ", numEventLoopThreads="
+        + _numEventLoopThreads + ", flushConsolidationEnabled=" + _flushConsolidationEnabled
+        + ", maxResponseSizeBytes=" + _maxResponseSizeBytes + "}";
+  }
+}
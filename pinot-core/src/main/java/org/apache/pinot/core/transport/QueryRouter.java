@@ -18,10 +18,16 @@
  */
 package org.apache.pinot.core.transport;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.metrics.BrokerMeter;
@@ -30,6 +36,7 @@ import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.request.InstanceRequest;
 import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
 import org.apache.pinot.common.utils.DataTable;
+import org.apache.pinot.core.common.datatable.DataTableFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +45,9 @@ import org.slf4j.LoggerFactory;
  * The {@code QueryRouter} class provides methods to route the query based on the routing table, and returns a
  * {@link AsyncQueryResponse} so that caller can handle the query response asynchronously.
  * <p>It works on {@link ServerChannels} which maintains only a single connection between the broker and each server.
+ * <p>If a {@link RequestHedger} is provided, the requests not responded after the hedge delay are re-sent to an
+ * alternate server with a new (negative) request id, and the first response is used. There is no way to cancel the
+ * request on the server side, so the slower response is simply dropped when it arrives.
  */
 @ThreadSafe
 public class QueryRouter {
@@ -46,18 +56,67 @@ public class QueryRouter {
   private final String _brokerId;
   private final BrokerMetrics _brokerMetrics;
   private final ServerChannels _serverChannels;
+  private final ServerLoadTracker _serverLoadTracker;
   private final ConcurrentHashMap<Long, AsyncQueryResponse> _asyncQueryResponseMap = new ConcurrentHashMap<>();
+  // Hedge requests use negative request ids so that they never collide with the query request ids
+  private final AtomicLong _hedgeRequestIdGenerator = new AtomicLong();
+  // NOTE: hedge requests are sent asynchronously, so a single thread is enough to schedule and send them
+  private final ScheduledThreadPoolExecutor _hedgeExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+    Thread thread = new Thread(runnable, "QueryRouterHedgeExecutor");
+    thread.setDaemon(true);
+    return thread;
+  });
 
   public QueryRouter(String brokerId, BrokerMetrics brokerMetrics) {
+    this(brokerId, brokerMetrics, NettyConfig.DEFAULT);
+  }
+
+  public QueryRouter(String brokerId, BrokerMetrics brokerMetrics, NettyConfig nettyConfig) {
+    this(brokerId, brokerMetrics, nettyConfig, ServerLoadTracker.getInstance());
+  }
+
+  public QueryRouter(String brokerId, BrokerMetrics brokerMetrics, NettyConfig nettyConfig,
+      ServerLoadTracker serverLoadTracker) {
     _brokerId = brokerId;
     _brokerMetrics = brokerMetrics;
-    _serverChannels = new ServerChannels(this, brokerMetrics);
+    _serverChannels = new ServerChannels(this, brokerMetrics, nettyConfig);
+    _serverLoadTracker = serverLoadTracker;
+    // Remove the hedge tasks cancelled when the query is done before the hedge delay
+    _hedgeExecutor.setRemoveOnCancelPolicy(true);
   }
 
   public AsyncQueryResponse submitQuery(long requestId, String rawTableName,
       @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
       @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
       long timeoutMs) {
+    return submitQuery(requestId, rawTableName, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
+        realtimeRoutingTable, timeoutMs, null);
+  }
+
+  /**
+   * Submits the query, and passes each data table to the given consumer as soon as it is received.
+   * <p>NOTE: the consumer is invoked on the thread calling {@link AsyncQueryResponse#getResponse()}, one data table at a
+   * time.
+   */
+  public AsyncQueryResponse submitQuery(long requestId, String rawTableName,
+      @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
+      @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
+      long timeoutMs, @Nullable BiConsumer<Server, DataTable> dataTableConsumer) {
+    return submitQuery(requestId, rawTableName, offlineBrokerRequest, offlineRoutingTable, realtimeBrokerRequest,
+        realtimeRoutingTable, timeoutMs, dataTableConsumer, null);
+  }
+
+  /**
+   * Submits the query, and hedges the requests not responded after the hedge delay if a request hedger is provided.
+   * <p>NOTE: the data table consumer (if provided) is invoked on the thread calling
+   * {@link AsyncQueryResponse#getResponse()}, one data table at a time. The data table from a hedge request is passed
+   * with the original server.
+   */
+  public AsyncQueryResponse submitQuery(long requestId, String rawTableName,
+      @Nullable BrokerRequest offlineBrokerRequest, @Nullable Map<String, List<String>> offlineRoutingTable,
+      @Nullable BrokerRequest realtimeBrokerRequest, @Nullable Map<String, List<String>> realtimeRoutingTable,
+      long timeoutMs, @Nullable BiConsumer<Server, DataTable> dataTableConsumer,
+      @Nullable RequestHedger requestHedger) {
     assert offlineBrokerRequest != null || realtimeBrokerRequest != null;
 
     // Build map from server to request based on the routing table
@@ -81,7 +140,8 @@ public class QueryRouter {
 
     // Create the asynchronous query response with the request map
     AsyncQueryResponse asyncQueryResponse =
-        new AsyncQueryResponse(this, requestId, requestMap.keySet(), System.currentTimeMillis(), timeoutMs);
+        new AsyncQueryResponse(this, requestId, requestMap.keySet(), System.currentTimeMillis(), timeoutMs,
+            dataTableConsumer);
     _asyncQueryResponseMap.put(requestId, asyncQueryResponse);
     for (Map.Entry<Server, InstanceRequest> entry : requestMap.entrySet()) {
       Server server = entry.getKey();
@@ -93,24 +153,97 @@ public class QueryRouter {
             e);
         _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.REQUEST_SEND_EXCEPTIONS, 1);
         asyncQueryResponse.markQueryFailed();
-        break;
+        return asyncQueryResponse;
+      }
+    }
+
+    if (requestHedger != null) {
+      if (offlineBrokerRequest != null) {
+        scheduleHedgeRequests(asyncQueryResponse, rawTableName, requestMap, TableType.OFFLINE, requestHedger,
+            timeoutMs);
+      }
+      if (realtimeBrokerRequest != null) {
+        scheduleHedgeRequests(asyncQueryResponse, rawTableName, requestMap, TableType.REALTIME, requestHedger,
+            timeoutMs);
       }
     }
 
     return asyncQueryResponse;
   }
 
+  private void scheduleHedgeRequests(AsyncQueryResponse asyncQueryResponse, String rawTableName,
+      Map<Server, InstanceRequest> requestMap, TableType tableType, RequestHedger requestHedger, long timeoutMs) {
+    long hedgeDelayMs = requestHedger.getHedgeDelayMs(tableType);
+    if (hedgeDelayMs < 0 || hedgeDelayMs >= timeoutMs) {
+      return;
+    }
+    ScheduledFuture<?> hedgeFuture = _hedgeExecutor.schedule(() -> {
+      try {
+        sendHedgeRequests(asyncQueryResponse, rawTableName, requestMap, tableType, requestHedger);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while sending hedge requests for table: {}", rawTableName, e);
+      }
+    }, hedgeDelayMs, TimeUnit.MILLISECONDS);
+    asyncQueryResponse.addHedgeFuture(hedgeFuture);
+  }
+
+  private void sendHedgeRequests(AsyncQueryResponse asyncQueryResponse, String rawTableName,
+      Map<Server, InstanceRequest> requestMap, TableType tableType, RequestHedger requestHedger) {
+    for (Map.Entry<Server, InstanceRequest> entry : requestMap.entrySet()) {
+      Server server = entry.getKey();
+      if (server.getTableType() != tableType || asyncQueryResponse.isResponseReceived(server)) {
+        continue;
+      }
+      InstanceRequest instanceRequest = entry.getValue();
+      List<String> segments = instanceRequest.getSearchSegments();
+      String alternateServerName = requestHedger.getAlternateServer(server, segments);
+      if (alternateServerName == null) {
+        continue;
+      }
+      Server hedgeServer = new Server(alternateServerName, tableType);
+      long hedgeRequestId = _hedgeRequestIdGenerator.decrementAndGet();
+      // Register the hedge request before sending it so that the response can always be matched
+      _asyncQueryResponseMap.put(hedgeRequestId, asyncQueryResponse);
+      if (!asyncQueryResponse.addHedgeRequest(hedgeRequestId, server, hedgeServer)) {
+        // Query is already done
+        _asyncQueryResponseMap.remove(hedgeRequestId);
+        return;
+      }
+      try {
+        // NOTE: send the hedge request asynchronously so that connecting to the hedge server does not block the other
+        // hedge requests
+        _serverChannels
+            .sendRequestAsync(hedgeServer, getInstanceRequest(hedgeRequestId, instanceRequest.getQuery(), segments));
+        _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.HEDGED_REQUESTS_SENT, 1);
+      } catch (Exception e) {
+        // The original request is still pending, so do not fail the query
+        LOGGER.warn("Caught exception while sending hedge request {} to server: {} for server: {}", hedgeRequestId,
+            hedgeServer, server, e);
+      }
+    }
+  }
+
   public void shutDown() {
+    _hedgeExecutor.shutdownNow();
     _serverChannels.shutDown();
   }
 
+  @VisibleForTesting
+  int getNumPendingHedgeTasks() {
+    return _hedgeExecutor.getQueue().size();
+  }
+
+  ServerLoadTracker getServerLoadTracker() {
+    return _serverLoadTracker;
+  }
+
   void receiveDataTable(Server server, DataTable dataTable, long responseSize, long deserializationTimeMs) {
     long requestId = Long.parseLong(dataTable.getMetadata().get(DataTable.REQUEST_ID_METADATA_KEY));
     AsyncQueryResponse asyncQueryResponse = _asyncQueryResponseMap.get(requestId);
 
     // Query future might be null if the query is already done (maybe due to failure)
     if (asyncQueryResponse != null) {
-      asyncQueryResponse.receiveDataTable(server, dataTable, responseSize, deserializationTimeMs);
+      asyncQueryResponse.receiveDataTable(requestId, server, dataTable, responseSize, deserializationTimeMs);
     }
   }
 
@@ -120,6 +253,16 @@ public class QueryRouter {
     }
   }
 
+  /**
+   * Fails the pending requests to the given server without failing the whole queries, e.g. when the response from the
+   * server is dropped and the request it belongs to is unknown.
+   */
+  void markServerFailed(Server server, String errorMessage) {
+    for (AsyncQueryResponse asyncQueryResponse : _asyncQueryResponseMap.values()) {
+      asyncQueryResponse.markServerFailed(server, errorMessage);
+    }
+  }
+
   void markQueryDone(long requestId) {
     _asyncQueryResponseMap.remove(requestId);
   }
@@ -131,6 +274,9 @@ public class QueryRouter {
     instanceRequest.setEnableTrace(brokerRequest.isEnableTrace());
     instanceRequest.setSearchSegments(segments);
     instanceRequest.setBrokerId(_brokerId);
+    // Advertise the highest data table version this broker can read, servers respond with the lower one of this and
+    // their configured version
+    instanceRequest.setDataTableVersion(DataTableFactory.VERSION_3);
     return instanceRequest;
   }
 }
@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.transport;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
+
+
+/**
+ * The {@code RequestHedger} interface decides whether and where to hedge the requests of a query.
+ * <p>When a server has not responded after the hedge delay, the {@link QueryRouter} sends the same request (with the same
+ * segments) to the alternate server, and the first response received for the original server is used.
+ */
+public interface RequestHedger {
+
+  /**
+   * Returns the delay in milliseconds after which the requests not responded yet for the given table type should be
+   * hedged, or a negative value to not hedge them.
+   */
+  long getHedgeDelayMs(TableType tableType);
+
+  /**
+   * Returns the instance name of a server other than the given server that serves all the given segments, or
+   * {@code null} if there is no such server.
+   */
+  @Nullable
+  String getAlternateServer(Server server, List<String> segments);
+}
@@ -37,6 +37,7 @@ public class Server {
   private static final String SHORT_OFFLINE_SUFFIX = "_O";
   private static final String SHORT_REALTIME_SUFFIX = "_R";
 
+  private final String _instanceName;
   private final String _hostName;
   private final int _port;
   private final TableType _tableType;
@@ -47,12 +48,17 @@ public class Server {
    * NOTE: server instance name is of format: {@code Server_<hostName>_<port>}, e.g. {@code Server_localhost_12345}.
    */
   public Server(String instanceName, TableType tableType) {
+    _instanceName = instanceName;
     String[] hostNameAndPort = instanceName.split(PREFIX_OF_SERVER_INSTANCE)[1].split(NAME_PORT_DELIMITER);
     _hostName = hostNameAndPort[0];
     _port = Integer.parseInt(hostNameAndPort[1]);
     _tableType = tableType;
   }
 
+  public String getInstanceName() {
+    return _instanceName;
+  }
+
   public String getHostName() {
     return _hostName;
   }
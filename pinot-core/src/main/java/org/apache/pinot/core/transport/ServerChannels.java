@@ -19,15 +19,22 @@
 package org.apache.pinot.core.transport;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.concurrent.ThreadSafe;
@@ -37,23 +44,50 @@ import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.request.InstanceRequest;
 import org.apache.thrift.TSerializer;
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * The {@code ServerChannels} class manages the channels between broker to all the connected servers.
  * <p>There is only one channel between the broker and each connected server (we count OFFLINE and REALTIME as different
  * servers)
+ * <p>The channels use pooled direct buffers, and can optionally use the native epoll transport (see
+ * {@link NettyConfig}).
  */
 @ThreadSafe
 public class ServerChannels {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServerChannels.class);
+  // Same as the Netty default: flush after at most 256 consolidated flushes
+  private static final int EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
   private final QueryRouter _queryRouter;
   private final BrokerMetrics _brokerMetrics;
+  private final NettyConfig _nettyConfig;
   private final ConcurrentHashMap<Server, ServerChannel> _serverToChannelMap = new ConcurrentHashMap<>();
-  private final EventLoopGroup _eventLoopGroup = new NioEventLoopGroup();
+  private final EventLoopGroup _eventLoopGroup;
+  private final Class<? extends SocketChannel> _channelClass;
 
   public ServerChannels(QueryRouter queryRouter, BrokerMetrics brokerMetrics) {
+    this(queryRouter, brokerMetrics, NettyConfig.DEFAULT);
+  }
+
+  public ServerChannels(QueryRouter queryRouter, BrokerMetrics brokerMetrics, NettyConfig nettyConfig) {
     _queryRouter = queryRouter;
     _brokerMetrics = brokerMetrics;
+    _nettyConfig = nettyConfig;
+    int numEventLoopThreads = nettyConfig.getNumEventLoopThreads();
+    if (nettyConfig.isNativeTransportEnabled() && Epoll.isAvailable()) {
+      _eventLoopGroup = new EpollEventLoopGroup(numEventLoopThreads);
+      _channelClass = EpollSocketChannel.class;
+    } else {
+      if (nettyConfig.isNativeTransportEnabled()) {
+        LOGGER.warn("Native epoll transport is not available, falling back to NIO", Epoll.unavailabilityCause());
+      }
+      _eventLoopGroup = new NioEventLoopGroup(numEventLoopThreads);
+      _channelClass = NioSocketChannel.class;
+    }
+    LOGGER.info("Initialized server channels with {}, channel class: {}", nettyConfig, _channelClass.getSimpleName());
   }
 
   public void sendRequest(Server server, InstanceRequest instanceRequest)
@@ -61,6 +95,15 @@ public class ServerChannels {
     _serverToChannelMap.computeIfAbsent(server, ServerChannel::new).sendRequest(instanceRequest);
   }
 
+  /**
+   * Sends the request without blocking the calling thread. If the channel to the server is not connected yet, the
+   * request is sent once the channel gets connected. Failures are logged and not reported to the caller.
+   */
+  public void sendRequestAsync(Server server, InstanceRequest instanceRequest)
+      throws Exception {
+    _serverToChannelMap.computeIfAbsent(server, ServerChannel::new).sendRequestAsync(instanceRequest);
+  }
+
   public void shutDown() {
     // Shut down immediately
     _eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
@@ -71,36 +114,82 @@ public class ServerChannels {
     final TSerializer _serializer = new TSerializer(new TCompactProtocol.Factory());
     final Server _server;
     final Bootstrap _bootstrap;
-    Channel _channel;
+    // NOTE: the connect future is shared by all the requests so that no thread holds the lock while connecting
+    ChannelFuture _connectFuture;
 
     ServerChannel(Server server) {
       _server = server;
       _bootstrap = new Bootstrap().remoteAddress(server.getHostName(), server.getPort()).group(_eventLoopGroup)
-          .channel(NioSocketChannel.class).option(ChannelOption.SO_KEEPALIVE, true)
+          .channel(_channelClass).option(ChannelOption.SO_KEEPALIVE, true)
+          .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
           .handler(new ChannelInitializer<SocketChannel>() {
             @Override
             protected void initChannel(SocketChannel ch) {
-              ch.pipeline()
-                  .addLast(new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, Integer.BYTES, 0, Integer.BYTES),
-                      new LengthFieldPrepender(Integer.BYTES),
-                      // NOTE: data table de-serialization happens inside this handler
-                      // Revisit if this becomes a bottleneck
-                      new DataTableHandler(_queryRouter, _server, _brokerMetrics));
+              ChannelPipeline pipeline = ch.pipeline();
+              if (_nettyConfig.isFlushConsolidationEnabled()) {
+                // Consolidate the flushes when multiple requests are written to the channel at the same time
+                pipeline.addLast(new FlushConsolidationHandler(EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+              }
+              // NOTE: responses larger than the max response size are dropped (TooLongFrameException), and the pending
+              // requests to the server are failed by the DataTableHandler
+              pipeline.addLast(
+                  new LengthFieldBasedFrameDecoder(_nettyConfig.getMaxResponseSizeBytes(), 0, Integer.BYTES, 0,
+                      Integer.BYTES), new LengthFieldPrepender(Integer.BYTES),
+                  // NOTE: data table de-serialization happens inside this handler
+                  // Revisit if this becomes a bottleneck
+                  new DataTableHandler(_queryRouter, _server, _brokerMetrics));
             }
           });
     }
 
-    synchronized void sendRequest(InstanceRequest instanceRequest)
+    void sendRequest(InstanceRequest instanceRequest)
         throws Exception {
-      if (_channel == null || !_channel.isActive()) {
+      byte[] requestBytes = serialize(instanceRequest);
+      writeRequest(getConnectFuture().sync().channel(), requestBytes);
+    }
+
+    void sendRequestAsync(InstanceRequest instanceRequest)
+        throws Exception {
+      byte[] requestBytes = serialize(instanceRequest);
+      ChannelFuture connectFuture = getConnectFuture();
+      if (connectFuture.isSuccess()) {
+        writeRequest(connectFuture.channel(), requestBytes);
+      } else {
+        connectFuture.addListener(future -> {
+          if (future.isSuccess()) {
+            writeRequest(connectFuture.channel(), requestBytes);
+          } else {
+            LOGGER.warn("Failed to connect to server: {}, dropping request {}", _server, instanceRequest.getRequestId(),
+                future.cause());
+          }
+        });
+      }
+    }
+
+    /**
+     * Returns the future of the connected (or connecting) channel, starts a new connection if the channel is not active.
+     */
+    synchronized ChannelFuture getConnectFuture() {
+      if (_connectFuture == null || (_connectFuture.isDone() && !_connectFuture.channel().isActive())) {
         long startTime = System.currentTimeMillis();
-        _channel = _bootstrap.connect().sync().channel();
-        _brokerMetrics.setValueOfGlobalGauge(BrokerGauge.NETTY_CONNECTION_CONNECT_TIME_MS,
-            System.currentTimeMillis() - startTime);
+        _connectFuture = _bootstrap.connect();
+        _connectFuture.addListener(future -> {
+          if (future.isSuccess()) {
+            _brokerMetrics.setValueOfGlobalGauge(BrokerGauge.NETTY_CONNECTION_CONNECT_TIME_MS,
+                System.currentTimeMillis() - startTime);
+          }
+        });
       }
-      byte[] requestBytes = _serializer.serialize(instanceRequest);
-      _channel
-          .writeAndFlush(_channel.alloc().buffer(requestBytes.length).writeBytes(requestBytes), _channel.voidPromise());
+      return _connectFuture;
+    }
+
+    synchronized byte[] serialize(InstanceRequest instanceRequest)
+        throws Exception {
+      return _serializer.serialize(instanceRequest);
+    }
+
+    void writeRequest(Channel channel, byte[] requestBytes) {
+      channel.writeAndFlush(channel.alloc().buffer(requestBytes.length).writeBytes(requestBytes), channel.voidPromise());
       _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_REQUESTS_SENT, 1L);
       _brokerMetrics.addMeteredGlobalValue(BrokerMeter.NETTY_CONNECTION_BYTES_SENT, requestBytes.length);
     }
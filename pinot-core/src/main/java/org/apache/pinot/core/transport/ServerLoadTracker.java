@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.transport;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+
+/**
+ * The {@code ServerLoadTracker} class tracks the number of in-flight requests and the exponentially weighted moving
+ * average (EWMA) of the response latency for each server, keyed by the server instance name.
+ * <p>The stats are recorded by the {@link AsyncQueryResponse} and can be used by the broker routing to prefer the less
+ * loaded and faster replicas. A single instance is shared by all the queries of the broker.
+ */
+@ThreadSafe
+public class ServerLoadTracker {
+  public static final double DEFAULT_LATENCY_EWMA_ALPHA = 0.2;
+
+  private static final ServerLoadTracker INSTANCE = new ServerLoadTracker(DEFAULT_LATENCY_EWMA_ALPHA);
+
+  private final double _alpha;
+  private final ConcurrentHashMap<String, ServerLoad> _serverLoadMap = new ConcurrentHashMap<>();
+
+  public ServerLoadTracker(double alpha) {
+    Preconditions.checkArgument(alpha > 0 && alpha <= 1, "Invalid alpha: %s", alpha);
+    _alpha = alpha;
+  }
+
+  /**
+   * Returns the tracker shared by the whole broker.
+   */
+  public static ServerLoadTracker getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Records that a request is being sent to the server.
+   */
+  public void recordRequestSent(String serverInstanceName) {
+    _serverLoadMap.computeIfAbsent(serverInstanceName, k -> new ServerLoad())._numInFlightRequests.incrementAndGet();
+  }
+
+  /**
+   * Records that a request previously sent to the server is done, with the given latency. For the requests without
+   * response (e.g. timed out), the time waited is recorded as the latency.
+   * <p>Should be called exactly once for each {@link #recordRequestSent(String)}.
+   */
+  public void recordRequestDone(String serverInstanceName, long latencyMs) {
+    ServerLoad serverLoad = _serverLoadMap.computeIfAbsent(serverInstanceName, k -> new ServerLoad());
+    serverLoad._numInFlightRequests.decrementAndGet();
+    serverLoad.updateLatency(latencyMs, _alpha);
+  }
+
+  /**
+   * Returns the load of the given server, or {@code null} if no request has been sent to the server.
+   */
+  @Nullable
+  public ServerLoad getServerLoad(String serverInstanceName) {
+    return _serverLoadMap.get(serverInstanceName);
+  }
+
+  /**
+   * Removes the stats of all the servers.
+   */
+  public void clear() {
+    _serverLoadMap.clear();
+  }
+
+  @ThreadSafe
+  public static class ServerLoad {
+    private final AtomicInteger _numInFlightRequests = new AtomicInteger();
+    // Negative value indicates no latency sample yet
+    private volatile double _latencyEwmaMs = -1;
+
+    public int getNumInFlightRequests() {
+      return _numInFlightRequests.get();
+    }
+
+    /**
+     * Returns the EWMA of the response latency in milliseconds, or a negative value if no request is done yet.
+     */
+    public double getLatencyEwmaMs() {
+      return _latencyEwmaMs;
+    }
+
+    private synchronized void updateLatency(long latencyMs, double alpha) {
+      double latencyEwmaMs = _latencyEwmaMs;
+      if (latencyEwmaMs < 0) {
+        _latencyEwmaMs = latencyMs;
+      } else {
+        _latencyEwmaMs = alpha * latencyMs + (1 - alpha) * latencyEwmaMs;
+      }
+    }
+  }
+}
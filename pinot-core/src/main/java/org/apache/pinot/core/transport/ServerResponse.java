@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.transport;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.apache.pinot.common.utils.DataTable;
 
@@ -33,15 +34,32 @@ public class ServerResponse {
   private volatile DataTable _dataTable;
   private volatile long _responseSize;
   private volatile long _deserializationTimeMs;
+  private volatile String _failureMessage;
 
   public ServerResponse(long startTimeMs) {
     _startTimeMs = startTimeMs;
   }
 
+  /**
+   * Returns the data table received from the server, or <code>null</code> if the response is not received yet or the
+   * data table has been passed to the data table consumer of the {@link AsyncQueryResponse}.
+   */
   public DataTable getDataTable() {
     return _dataTable;
   }
 
+  public boolean isResponseReceived() {
+    return _receiveDataTabTimeMs != 0;
+  }
+
+  /**
+   * Returns the error message if the response from the server failed to be received, or <code>null</code> otherwise.
+   */
+  @Nullable
+  public String getFailureMessage() {
+    return _failureMessage;
+  }
+
   public long getSubmitDelayMs() {
     if (_submitRequestTimeMs != 0) {
       return _submitRequestTimeMs - _startTimeMs;
@@ -76,6 +94,10 @@ public class ServerResponse {
     _submitRequestTimeMs = System.currentTimeMillis();
   }
 
+  void markFailed(String failureMessage) {
+    _failureMessage = failureMessage;
+  }
+
   void receiveDataTable(DataTable dataTable, long responseSize, long deserializationTimeMs) {
     _receiveDataTabTimeMs = System.currentTimeMillis();
     _dataTable = dataTable;
@@ -19,6 +19,7 @@
 package org.apache.pinot.core.common.datatable;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 import org.apache.commons.lang.RandomStringUtils;
@@ -40,6 +41,7 @@ public class DataTableSerDeTest {
   private static final String ERROR_MESSAGE = "Random seed: " + RANDOM_SEED;
 
   private static final int NUM_ROWS = 100;
+  private static final int[] VERSIONS = {DataTableFactory.VERSION_2, DataTableFactory.VERSION_3};
 
   @Test
   public void testException()
@@ -49,20 +51,112 @@ public class DataTableSerDeTest {
         QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, exception);
     String expected = processingException.getMessage();
 
-    DataTable dataTable = new DataTableImplV2();
-    dataTable.addException(processingException);
-    DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
-    Assert.assertNull(newDataTable.getDataSchema());
-    Assert.assertEquals(newDataTable.getNumberOfRows(), 0);
+    for (DataTable dataTable : new DataTable[]{new DataTableImplV2(), new DataTableImplV3()}) {
+      dataTable.addException(processingException);
+      DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
+      Assert.assertNull(newDataTable.getDataSchema());
+      Assert.assertEquals(newDataTable.getNumberOfRows(), 0);
 
-    String actual = newDataTable.getMetadata()
-        .get(DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_EXECUTION_ERROR.getErrorCode());
-    Assert.assertEquals(actual, expected);
+      String actual = newDataTable.getMetadata()
+          .get(DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_EXECUTION_ERROR.getErrorCode());
+      Assert.assertEquals(actual, expected);
+    }
   }
 
   @Test
   public void testEmptyStrings()
       throws IOException {
+    for (int version : VERSIONS) {
+      DataTableBuilder.setCurrentDataTableVersion(version);
+      try {
+        testEmptyStringsForCurrentVersion();
+      } finally {
+        DataTableBuilder.setCurrentDataTableVersion(DataTableFactory.VERSION_2);
+      }
+    }
+  }
+
+  @Test
+  public void testAllDataTypes()
+      throws IOException {
+    for (int version : VERSIONS) {
+      DataTableBuilder.setCurrentDataTableVersion(version);
+      try {
+        testAllDataTypesForCurrentVersion();
+      } finally {
+        DataTableBuilder.setCurrentDataTableVersion(DataTableFactory.VERSION_2);
+      }
+    }
+  }
+
+  @Test
+  public void testReadV3FromSlicedBuffer()
+      throws IOException {
+    DataTableBuilder.setCurrentDataTableVersion(DataTableFactory.VERSION_3);
+    DataTable dataTable;
+    try {
+      DataSchema dataSchema = new DataSchema(new String[]{"string", "float", "object"},
+          new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.STRING, DataSchema.ColumnDataType.FLOAT,
+              DataSchema.ColumnDataType.OBJECT});
+      DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+      for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+        dataTableBuilder.startRow();
+        dataTableBuilder.setColumn(0, Integer.toString(rowId % 10));
+        dataTableBuilder.setColumn(1, (float) rowId);
+        dataTableBuilder.setColumn(2, (Object) (double) rowId);
+        dataTableBuilder.finishRow();
+      }
+      dataTable = dataTableBuilder.build();
+    } finally {
+      DataTableBuilder.setCurrentDataTableVersion(DataTableFactory.VERSION_2);
+    }
+    Assert.assertTrue(dataTable instanceof DataTableImplV3);
+
+    // Serialized data table does not start at the beginning of the buffer
+    byte[] bytes = dataTable.toBytes();
+    ByteBuffer byteBuffer = ByteBuffer.allocate(bytes.length + 10);
+    byteBuffer.position(10);
+    byteBuffer.put(bytes);
+    byteBuffer.position(10);
+    DataTable newDataTable = DataTableFactory.getDataTable(byteBuffer);
+    Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS);
+    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+      Assert.assertEquals(newDataTable.getString(rowId, 0), Integer.toString(rowId % 10));
+      Assert.assertEquals(newDataTable.getFloat(rowId, 1), (float) rowId);
+      Assert.assertEquals((Double) newDataTable.getObject(rowId, 2), (double) rowId);
+    }
+  }
+
+  @Test
+  public void testNegotiateVersion()
+      throws IOException {
+    DataSchema dataSchema =
+        new DataSchema(new String[]{"int"}, new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.INT});
+
+    // Server configured with version 2 never builds version 3
+    Assert.assertEquals(DataTableBuilder.negotiateDataTableVersion(DataTableFactory.VERSION_3),
+        DataTableFactory.VERSION_2);
+
+    DataTableBuilder.setCurrentDataTableVersion(DataTableFactory.VERSION_3);
+    try {
+      // Broker that can only read version 2
+      int version = DataTableBuilder.negotiateDataTableVersion(DataTableFactory.VERSION_2);
+      Assert.assertEquals(version, DataTableFactory.VERSION_2);
+      DataTable dataTable = new DataTableBuilder(dataSchema, version).build();
+      Assert.assertTrue(DataTableFactory.getDataTable(dataTable.toBytes()) instanceof DataTableImplV2);
+
+      // Broker that can read version 3
+      version = DataTableBuilder.negotiateDataTableVersion(DataTableFactory.VERSION_3);
+      Assert.assertEquals(version, DataTableFactory.VERSION_3);
+      dataTable = new DataTableBuilder(dataSchema, version).build();
+      Assert.assertTrue(DataTableFactory.getDataTable(dataTable.toBytes()) instanceof DataTableImplV3);
+    } finally {
+      DataTableBuilder.setCurrentDataTableVersion(DataTableFactory.VERSION_2);
+    }
+  }
+
+  private void testEmptyStringsForCurrentVersion()
+      throws IOException {
     String emptyString = StringUtils.EMPTY;
     String[] emptyStringArray = {StringUtils.EMPTY};
 
@@ -87,8 +181,7 @@ public class DataTableSerDeTest {
     }
   }
 
-  @Test
-  public void testAllDataTypes()
+  private void testAllDataTypesForCurrentVersion()
       throws IOException {
     DataSchema.ColumnDataType[] columnDataTypes = DataSchema.ColumnDataType.values();
     int numColumns = columnDataTypes.length;
@@ -38,6 +38,7 @@ public class MutableSegmentImplAggregateMetricsTest {
   private static final String DIMENSION_1 = "dim1";
   private static final String DIMENSION_2 = "dim2";
   private static final String METRIC = "metric";
+  private static final String METRIC_2 = "metric2";
   private static final String KEY_SEPARATOR = "\t\t";
   private static final int NUM_ROWS = 10001;
 
@@ -48,9 +49,9 @@ public class MutableSegmentImplAggregateMetricsTest {
     Schema schema = new Schema.SchemaBuilder().setSchemaName("testSchema")
         .addSingleValueDimension(DIMENSION_1, FieldSpec.DataType.INT)
         .addSingleValueDimension(DIMENSION_2, FieldSpec.DataType.STRING).addMetric(METRIC, FieldSpec.DataType.LONG)
-        .build();
+        .addMetric(METRIC_2, FieldSpec.DataType.DOUBLE).build();
     _mutableSegmentImpl = MutableSegmentImplTestUtils
-        .createMutableSegmentImpl(schema, new HashSet<>(Arrays.asList(DIMENSION_1, METRIC)),
+        .createMutableSegmentImpl(schema, new HashSet<>(Arrays.asList(DIMENSION_1, METRIC, METRIC_2)),
             Collections.singleton(DIMENSION_1), true);
   }
 
@@ -62,6 +63,7 @@ public class MutableSegmentImplAggregateMetricsTest {
     }
 
     Map<String, Long> expectedValues = new HashMap<>();
+    Map<String, Double> expectedValues2 = new HashMap<>();
     Random random = new Random();
     for (int i = 0; i < NUM_ROWS; i++) {
       GenericRow row = new GenericRow();
@@ -70,12 +72,15 @@ public class MutableSegmentImplAggregateMetricsTest {
       // Generate random int to prevent overflow
       long metricValue = random.nextInt();
       row.putField(METRIC, metricValue);
+      double metricValue2 = random.nextDouble();
+      row.putField(METRIC_2, metricValue2);
 
       _mutableSegmentImpl.index(row);
 
       // Update expected values
       String key = buildKey(row);
       expectedValues.put(key, expectedValues.getOrDefault(key, 0L) + metricValue);
+      expectedValues2.put(key, expectedValues2.getOrDefault(key, 0.0) + metricValue2);
     }
 
     int numDocsIndexed = _mutableSegmentImpl.getNumDocsIndexed();
@@ -89,6 +94,7 @@ public class MutableSegmentImplAggregateMetricsTest {
       GenericRow row = _mutableSegmentImpl.getRecord(docId, reuse);
       String key = buildKey(row);
       Assert.assertEquals(row.getValue(METRIC), expectedValues.get(key));
+      Assert.assertEquals((double) row.getValue(METRIC_2), expectedValues2.get(key), 1e-6);
     }
   }
 
@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.indexsegment.mutable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.common.data.FieldSpec;
+import org.apache.pinot.common.data.Schema;
+import org.apache.pinot.core.common.DataSource;
+import org.apache.pinot.core.data.GenericRow;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
+import org.apache.pinot.core.segment.index.readers.InvertedIndexReader;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class MutableSegmentImplBatchIndexTest {
+  private static final String SV_DIMENSION = "svDim";
+  private static final String MV_DIMENSION = "mvDim";
+  private static final String METRIC = "metric";
+  private static final String TIME_COLUMN = "time";
+  private static final int NUM_ROWS = 1000;
+  private static final int BATCH_SIZE = 64;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  @Test
+  public void testBatchIndex() {
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testSchema")
+        .addSingleValueDimension(SV_DIMENSION, FieldSpec.DataType.STRING)
+        .addMultiValueDimension(MV_DIMENSION, FieldSpec.DataType.INT).addMetric(METRIC, FieldSpec.DataType.LONG)
+        .addTime(TIME_COLUMN, TimeUnit.MILLISECONDS, FieldSpec.DataType.LONG).build();
+    MutableSegmentImpl rowSegment = createMutableSegment(schema);
+    MutableSegmentImpl batchSegment = createMutableSegment(schema);
+
+    Random random = new Random(RANDOM_SEED);
+    GenericRow[] batch = new GenericRow[BATCH_SIZE];
+    int numRowsInBatch = 0;
+    int numInvalidRows = 0;
+    int numRowsSkipped = 0;
+    long expectedMinTime = Long.MAX_VALUE;
+    long expectedMaxTime = Long.MIN_VALUE;
+    for (int i = 0; i < NUM_ROWS; i++) {
+      GenericRow row = new GenericRow();
+      row.putField(SV_DIMENSION, "value" + random.nextInt(50));
+      Object[] mvValues = new Object[random.nextInt(5)];
+      for (int j = 0; j < mvValues.length; j++) {
+        mvValues[j] = random.nextInt(20);
+      }
+      row.putField(MV_DIMENSION, mvValues);
+      row.putField(METRIC, random.nextLong());
+      long timeValue = 1000L + random.nextInt(1000);
+      row.putField(TIME_COLUMN, timeValue);
+      // Put an invalid value into the no-dictionary metric for some rows, which should be skipped
+      if (i % 97 == 0) {
+        row.putField(METRIC, "invalid");
+        // Give the invalid rows out of range time values, which should not be included in the time range
+        row.putField(TIME_COLUMN, i % 2 == 0 ? 0L : 10000L);
+        numInvalidRows++;
+      } else {
+        expectedMinTime = Math.min(expectedMinTime, timeValue);
+        expectedMaxTime = Math.max(expectedMaxTime, timeValue);
+      }
+
+      try {
+        rowSegment.index(row);
+      } catch (Exception e) {
+        // Expected for the invalid rows
+      }
+      batch[numRowsInBatch++] = row;
+      if (numRowsInBatch == BATCH_SIZE) {
+        numRowsSkipped += batchSegment.index(batch, numRowsInBatch);
+        numRowsInBatch = 0;
+      }
+    }
+    numRowsSkipped += batchSegment.index(batch, numRowsInBatch);
+
+    Assert.assertEquals(numRowsSkipped, numInvalidRows, "Random seed: " + RANDOM_SEED);
+    int numDocs = rowSegment.getNumDocsIndexed();
+    Assert.assertEquals(numDocs, NUM_ROWS - numInvalidRows);
+    Assert.assertEquals(batchSegment.getNumDocsIndexed(), numDocs);
+    Assert.assertEquals(rowSegment.getMinTime(), expectedMinTime);
+    Assert.assertEquals(rowSegment.getMaxTime(), expectedMaxTime);
+    Assert.assertEquals(batchSegment.getMinTime(), expectedMinTime);
+    Assert.assertEquals(batchSegment.getMaxTime(), expectedMaxTime);
+
+    // Both segments should have the same records and inverted indexes
+    GenericRow expectedRow = new GenericRow();
+    GenericRow actualRow = new GenericRow();
+    for (int docId = 0; docId < numDocs; docId++) {
+      rowSegment.getRecord(docId, expectedRow);
+      batchSegment.getRecord(docId, actualRow);
+      Assert.assertEquals(actualRow.getValue(SV_DIMENSION), expectedRow.getValue(SV_DIMENSION));
+      Assert.assertEquals((Object[]) actualRow.getValue(MV_DIMENSION), (Object[]) expectedRow.getValue(MV_DIMENSION));
+      Assert.assertEquals(actualRow.getValue(METRIC), expectedRow.getValue(METRIC));
+      Assert.assertEquals(actualRow.getValue(TIME_COLUMN), expectedRow.getValue(TIME_COLUMN));
+    }
+    for (String column : Arrays.asList(SV_DIMENSION, MV_DIMENSION)) {
+      DataSource expectedDataSource = rowSegment.getDataSource(column);
+      DataSource actualDataSource = batchSegment.getDataSource(column);
+      Assert.assertEquals(actualDataSource.getDataSourceMetadata().getMaxNumMultiValues(),
+          expectedDataSource.getDataSourceMetadata().getMaxNumMultiValues());
+      Dictionary expectedDictionary = expectedDataSource.getDictionary();
+      Dictionary actualDictionary = actualDataSource.getDictionary();
+      Assert.assertEquals(actualDictionary.length(), expectedDictionary.length());
+      InvertedIndexReader expectedInvertedIndex = expectedDataSource.getInvertedIndex();
+      InvertedIndexReader actualInvertedIndex = actualDataSource.getInvertedIndex();
+      for (int dictId = 0; dictId < expectedDictionary.length(); dictId++) {
+        Object value = expectedDictionary.get(dictId);
+        MutableRoaringBitmap expectedDocIds = (MutableRoaringBitmap) expectedInvertedIndex.getDocIds(dictId);
+        MutableRoaringBitmap actualDocIds =
+            (MutableRoaringBitmap) actualInvertedIndex.getDocIds(actualDictionary.indexOf(value));
+        Assert.assertEquals(actualDocIds, expectedDocIds);
+      }
+    }
+
+    rowSegment.destroy();
+    batchSegment.destroy();
+  }
+
+  private static MutableSegmentImpl createMutableSegment(Schema schema) {
+    return MutableSegmentImplTestUtils
+        .createMutableSegmentImpl(schema, new HashSet<>(Collections.singleton(METRIC)),
+            new HashSet<>(Arrays.asList(SV_DIMENSION, MV_DIMENSION)), false);
+  }
+}
@@ -0,0 +1,293 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.request.AggregationInfo;
+import org.apache.pinot.common.request.BrokerRequest;
+import org.apache.pinot.common.request.GroupBy;
+import org.apache.pinot.common.request.Selection;
+import org.apache.pinot.common.request.SelectionSort;
+import org.apache.pinot.common.response.ProcessingException;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.IntermediateResultsBlock;
+import org.apache.pinot.core.query.aggregation.AggregationFunctionContext;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+
+public class CombineOperatorTest {
+  private static final int NUM_OPERATORS = 20;
+  private static final long SLOW_OPERATOR_SLEEP_MS = 500L;
+
+  private final ExecutorService _executorService = Executors.newFixedThreadPool(10);
+
+  @Test
+  public void testParallelismPolicy() {
+    CombineParallelismPolicy policy = new CombineParallelismPolicy(4, 10);
+    Assert.assertEquals(policy.getNumThreads(0), 1);
+    Assert.assertEquals(policy.getNumThreads(5), 1);
+    Assert.assertEquals(policy.getNumThreads(11), 2);
+    Assert.assertEquals(policy.getNumThreads(1000), 4);
+
+    policy = new CombineParallelismPolicy(8, 1);
+    Assert.assertEquals(policy.getNumThreads(3), 3);
+    Assert.assertEquals(policy.getNumThreads(100), 8);
+  }
+
+  @Test
+  public void testWorkStealing() {
+    // The first operator is slow, all the other operators should be processed by the other thread
+    Set<String> threadNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    List<Operator> operators = new ArrayList<>(NUM_OPERATORS);
+    operators.add(new CountOperator(SLOW_OPERATOR_SLEEP_MS, threadNames));
+    for (int i = 1; i < NUM_OPERATORS; i++) {
+      operators.add(new CountOperator(0L, threadNames));
+    }
+
+    CombineOperator combineOperator =
+        new CombineOperator(operators, _executorService, 10_000L, getCountBrokerRequest(),
+            new CombineParallelismPolicy(2, 1));
+    IntermediateResultsBlock mergedBlock = combineOperator.nextBlock();
+    Assert.assertNull(mergedBlock.getProcessingExceptions());
+    Assert.assertEquals(mergedBlock.getAggregationResult().get(0), (long) NUM_OPERATORS);
+    Assert.assertEquals(threadNames.size(), 2);
+  }
+
+  @Test
+  public void testSelectionOnlyEarlyTermination() {
+    AtomicInteger numOperatorsExecuted = new AtomicInteger();
+    List<Operator> operators = new ArrayList<>(NUM_OPERATORS);
+    for (int i = 0; i < NUM_OPERATORS; i++) {
+      operators.add(new SelectionOperator(numOperatorsExecuted));
+    }
+
+    // Selection only query with LIMIT 10, the first operator already returns enough rows
+    BrokerRequest brokerRequest = new BrokerRequest();
+    Selection selection = new Selection();
+    selection.setSelectionColumns(Collections.singletonList("column"));
+    selection.setSize(SelectionOperator.NUM_ROWS);
+    brokerRequest.setSelections(selection);
+    CombineOperator combineOperator =
+        new CombineOperator(operators, _executorService, 10_000L, brokerRequest, new CombineParallelismPolicy(1, 1));
+    IntermediateResultsBlock mergedBlock = combineOperator.nextBlock();
+    Assert.assertEquals(mergedBlock.getSelectionResult().size(), SelectionOperator.NUM_ROWS);
+    Assert.assertEquals(numOperatorsExecuted.get(), 1);
+
+    // Selection order-by query should process all the operators
+    numOperatorsExecuted.set(0);
+    SelectionSort selectionSort = new SelectionSort();
+    selectionSort.setColumn("column");
+    selectionSort.setIsAsc(true);
+    selection.addToSelectionSortSequence(selectionSort);
+    combineOperator =
+        new CombineOperator(operators, _executorService, 10_000L, brokerRequest, new CombineParallelismPolicy(1, 1));
+    combineOperator.nextBlock();
+    Assert.assertEquals(numOperatorsExecuted.get(), NUM_OPERATORS);
+  }
+
+  @Test
+  public void testSelectionOnlyEarlyTerminationWithMultipleWorkers() {
+    // The first operator processed by each worker waits for all the workers to be processing an operator, so all the
+    // workers are running when the row budget is reached, and none of them should pull another operator afterwards
+    int numThreads = 4;
+    AtomicInteger numOperatorsExecuted = new AtomicInteger();
+    CyclicBarrier barrier = new CyclicBarrier(numThreads);
+    List<Operator> operators = new ArrayList<>(NUM_OPERATORS);
+    for (int i = 0; i < NUM_OPERATORS; i++) {
+      operators.add(new SelectionOperator(numOperatorsExecuted, i < numThreads ? barrier : null));
+    }
+
+    BrokerRequest brokerRequest = new BrokerRequest();
+    Selection selection = new Selection();
+    selection.setSelectionColumns(Collections.singletonList("column"));
+    selection.setSize(SelectionOperator.NUM_ROWS);
+    brokerRequest.setSelections(selection);
+    CombineOperator combineOperator = new CombineOperator(operators, _executorService, 10_000L, brokerRequest,
+        new CombineParallelismPolicy(numThreads, 1));
+    IntermediateResultsBlock mergedBlock = combineOperator.nextBlock();
+    Assert.assertNull(mergedBlock.getProcessingExceptions());
+    Assert.assertTrue(mergedBlock.getSelectionResult().size() >= SelectionOperator.NUM_ROWS);
+    Assert.assertEquals(numOperatorsExecuted.get(), numThreads);
+  }
+
+  @Test
+  public void testTimeout() {
+    // The first operator is slower than the query timeout, the partial result should be marked as timed out
+    Set<String> threadNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    List<Operator> operators = new ArrayList<>(NUM_OPERATORS);
+    operators.add(new CountOperator(SLOW_OPERATOR_SLEEP_MS, threadNames));
+    for (int i = 1; i < NUM_OPERATORS; i++) {
+      operators.add(new CountOperator(0L, threadNames));
+    }
+
+    CombineOperator combineOperator =
+        new CombineOperator(operators, _executorService, 100L, getCountBrokerRequest(),
+            new CombineParallelismPolicy(1, 1));
+    assertTimedOut(combineOperator.nextBlock());
+
+    operators.clear();
+    operators.add(new CountOperator(SLOW_OPERATOR_SLEEP_MS, threadNames, true));
+    for (int i = 1; i < NUM_OPERATORS; i++) {
+      operators.add(new CountOperator(0L, threadNames, true));
+    }
+    BrokerRequest brokerRequest = getCountBrokerRequest();
+    GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(Collections.singletonList("column"));
+    groupBy.setTopN(10);
+    brokerRequest.setGroupBy(groupBy);
+    CombineGroupByOperator combineGroupByOperator =
+        new CombineGroupByOperator(operators, brokerRequest, _executorService, 100L, 100_000,
+            new CombineParallelismPolicy(1, 1));
+    assertTimedOut(combineGroupByOperator.nextBlock());
+  }
+
+  private static void assertTimedOut(IntermediateResultsBlock mergedBlock) {
+    List<ProcessingException> processingExceptions = mergedBlock.getProcessingExceptions();
+    Assert.assertNotNull(processingExceptions);
+    boolean timedOut = false;
+    for (ProcessingException processingException : processingExceptions) {
+      if (processingException.getErrorCode() == QueryException.EXECUTION_TIMEOUT_ERROR_CODE) {
+        timedOut = true;
+      }
+    }
+    Assert.assertTrue(timedOut);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _executorService.shutdown();
+  }
+
+  private static BrokerRequest getCountBrokerRequest() {
+    AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType("COUNT");
+    aggregationInfo.putToAggregationParams(AggregationFunctionUtils.COLUMN_KEY, "*");
+    BrokerRequest brokerRequest = new BrokerRequest();
+    brokerRequest.addToAggregationsInfo(aggregationInfo);
+    return brokerRequest;
+  }
+
+  private static class SelectionOperator extends BaseOperator<IntermediateResultsBlock> {
+    static final int NUM_ROWS = 10;
+    private static final DataSchema DATA_SCHEMA =
+        new DataSchema(new String[]{"column"}, new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.INT});
+
+    private final AtomicInteger _numOperatorsExecuted;
+    private final CyclicBarrier _barrier;
+
+    SelectionOperator(AtomicInteger numOperatorsExecuted) {
+      this(numOperatorsExecuted, null);
+    }
+
+    SelectionOperator(AtomicInteger numOperatorsExecuted, @Nullable CyclicBarrier barrier) {
+      _numOperatorsExecuted = numOperatorsExecuted;
+      _barrier = barrier;
+    }
+
+    @Override
+    protected IntermediateResultsBlock getNextBlock() {
+      _numOperatorsExecuted.getAndIncrement();
+      if (_barrier != null) {
+        try {
+          _barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+      List<Serializable[]> rows = new ArrayList<>(NUM_ROWS);
+      for (int i = 0; i < NUM_ROWS; i++) {
+        rows.add(new Serializable[]{i});
+      }
+      return new IntermediateResultsBlock(DATA_SCHEMA, rows);
+    }
+
+    @Override
+    public String getOperatorName() {
+      return "SelectionOperator";
+    }
+
+    @Override
+    public ExecutionStatistics getExecutionStatistics() {
+      return new ExecutionStatistics();
+    }
+  }
+
+  private static class CountOperator extends BaseOperator<IntermediateResultsBlock> {
+    private final long _sleepMs;
+    private final Set<String> _threadNames;
+    private final boolean _isGroupBy;
+
+    CountOperator(long sleepMs, Set<String> threadNames) {
+      this(sleepMs, threadNames, false);
+    }
+
+    CountOperator(long sleepMs, Set<String> threadNames, boolean isGroupBy) {
+      _sleepMs = sleepMs;
+      _threadNames = threadNames;
+      _isGroupBy = isGroupBy;
+    }
+
+    @Override
+    protected IntermediateResultsBlock getNextBlock() {
+      _threadNames.add(Thread.currentThread().getName());
+      if (_sleepMs > 0) {
+        try {
+          Thread.sleep(_sleepMs);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      AggregationFunctionContext[] aggregationFunctionContexts =
+          AggregationFunctionUtils.getAggregationFunctionContexts(getCountBrokerRequest().getAggregationsInfo(), null);
+      if (_isGroupBy) {
+        return new IntermediateResultsBlock(aggregationFunctionContexts, (AggregationGroupByResult) null);
+      }
+      List<Object> aggregationResult = new ArrayList<>();
+      aggregationResult.add(1L);
+      return new IntermediateResultsBlock(aggregationFunctionContexts, aggregationResult, false);
+    }
+
+    @Override
+    public String getOperatorName() {
+      return "CountOperator";
+    }
+
+    @Override
+    public ExecutionStatistics getExecutionStatistics() {
+      return new ExecutionStatistics();
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.dociditerators;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.apache.pinot.common.data.FieldSpec;
+import org.apache.pinot.core.common.Constants;
+import org.apache.pinot.core.common.Predicate;
+import org.apache.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
+import org.apache.pinot.core.io.util.PinotDataBitSet;
+import org.apache.pinot.core.operator.blocks.BlockMetadataImpl;
+import org.apache.pinot.core.operator.docvalsets.SingleValueSet;
+import org.apache.pinot.core.operator.filter.predicate.BaseDictionaryBasedPredicateEvaluator;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class SVScanDocIdIteratorTest {
+  private static final int NUM_DOCS = 10_000;
+  private static final int CARDINALITY = 100;
+  private static final int NUM_BITS_PER_VALUE = PinotDataBitSet.getNumBitsPerValue(CARDINALITY - 1);
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  private final int[] _dictIds = new int[NUM_DOCS];
+  private PinotDataBuffer _dataBuffer;
+  private FixedBitSingleValueReader _reader;
+
+  @BeforeClass
+  public void setUp() {
+    Random random = new Random(RANDOM_SEED);
+    int dataBufferSize = (NUM_DOCS * NUM_BITS_PER_VALUE + Byte.SIZE - 1) / Byte.SIZE;
+    _dataBuffer = PinotDataBuffer.allocateDirect(dataBufferSize, ByteOrder.BIG_ENDIAN, null);
+    PinotDataBitSet dataBitSet = new PinotDataBitSet(_dataBuffer);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      _dictIds[i] = random.nextInt(CARDINALITY);
+      dataBitSet.writeInt(i, NUM_BITS_PER_VALUE, _dictIds[i]);
+    }
+    _reader = new FixedBitSingleValueReader(_dataBuffer, NUM_DOCS, NUM_BITS_PER_VALUE);
+  }
+
+  @Test
+  public void testNext() {
+    // Rare and common matches
+    for (int numMatchingDictIds : new int[]{1, CARDINALITY / 2, CARDINALITY}) {
+      SVScanDocIdIterator iterator = getIterator(numMatchingDictIds);
+      int numEntriesScanned = 0;
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        numEntriesScanned++;
+        if (_dictIds[docId] < numMatchingDictIds) {
+          Assert.assertEquals(iterator.next(), docId, "Random seed: " + RANDOM_SEED);
+          Assert.assertEquals(iterator.getNumEntriesScanned(), numEntriesScanned);
+        }
+      }
+      Assert.assertEquals(iterator.next(), Constants.EOF);
+      Assert.assertEquals(iterator.getNumEntriesScanned(), NUM_DOCS);
+    }
+  }
+
+  @Test
+  public void testAdvance() {
+    int numMatchingDictIds = CARDINALITY / 10;
+    SVScanDocIdIterator iterator = getIterator(numMatchingDictIds);
+    for (int targetDocId = 0; targetDocId < NUM_DOCS; targetDocId += 777) {
+      int expectedDocId = targetDocId;
+      while (expectedDocId < NUM_DOCS && _dictIds[expectedDocId] >= numMatchingDictIds) {
+        expectedDocId++;
+      }
+      if (expectedDocId == NUM_DOCS) {
+        Assert.assertEquals(iterator.advance(targetDocId), Constants.EOF);
+        break;
+      }
+      Assert.assertEquals(iterator.advance(targetDocId), expectedDocId, "Random seed: " + RANDOM_SEED);
+    }
+  }
+
+  @Test
+  public void testApplyAnd() {
+    int numMatchingDictIds = CARDINALITY / 2;
+    MutableRoaringBitmap answer = new MutableRoaringBitmap();
+    MutableRoaringBitmap expected = new MutableRoaringBitmap();
+    for (int docId = 0; docId < NUM_DOCS; docId += 3) {
+      answer.add(docId);
+      if (_dictIds[docId] < numMatchingDictIds) {
+        expected.add(docId);
+      }
+    }
+    // Dense range of document ids
+    for (int docId = NUM_DOCS / 2; docId < NUM_DOCS / 2 + 2000; docId++) {
+      answer.add(docId);
+      if (_dictIds[docId] < numMatchingDictIds) {
+        expected.add(docId);
+      }
+    }
+    SVScanDocIdIterator iterator = getIterator(numMatchingDictIds);
+    Assert.assertEquals(iterator.applyAnd(answer), expected, "Random seed: " + RANDOM_SEED);
+    Assert.assertEquals(iterator.getNumEntriesScanned(), answer.getCardinality());
+  }
+
+  private SVScanDocIdIterator getIterator(int numMatchingDictIds) {
+    SingleValueSet blockValSet = new SingleValueSet(_reader, NUM_DOCS, FieldSpec.DataType.INT);
+    BlockMetadataImpl blockMetadata = new BlockMetadataImpl(NUM_DOCS, true, 0, FieldSpec.DataType.INT, null);
+    return new SVScanDocIdIterator("testColumn", blockValSet, blockMetadata,
+        new LessThanPredicateEvaluator(numMatchingDictIds));
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    _dataBuffer.close();
+  }
+
+  /**
+   * Dictionary based predicate evaluator matching the dictionary ids less than the given upper bound, evaluates one
+   * entry at a time.
+   */
+  private static class LessThanPredicateEvaluator extends BaseDictionaryBasedPredicateEvaluator {
+    final int _upperBound;
+
+    LessThanPredicateEvaluator(int upperBound) {
+      _upperBound = upperBound;
+    }
+
+    @Override
+    public Predicate.Type getPredicateType() {
+      return Predicate.Type.RANGE;
+    }
+
+    @Override
+    public boolean applySV(int dictId) {
+      return dictId < _upperBound;
+    }
+
+    @Override
+    public int[] getMatchingDictIds() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
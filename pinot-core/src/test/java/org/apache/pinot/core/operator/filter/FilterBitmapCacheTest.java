@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.util.Collections;
+import org.apache.pinot.core.common.DataSource;
+import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.realtime.impl.invertedindex.RealtimeInvertedIndexReader;
+import org.apache.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class FilterBitmapCacheTest {
+  private static final String COLUMN_NAME = "testColumn";
+
+  @Test
+  public void testGetAndPut() {
+    FilterBitmapCache cache = new FilterBitmapCache(1024 * 1024, null);
+    BitmapInvertedIndexReader invertedIndex = mock(BitmapInvertedIndexReader.class);
+    Assert.assertTrue(FilterBitmapCache.isCacheable(invertedIndex));
+    Assert.assertFalse(FilterBitmapCache.isCacheable(new RealtimeInvertedIndexReader()));
+
+    int[] dictIds = {5, 1, 3};
+    ImmutableRoaringBitmap bitmap = MutableRoaringBitmap.bitmapOf(1, 2, 3);
+    Assert.assertNull(cache.get(invertedIndex, dictIds, 0, 99, false));
+    cache.put(invertedIndex, dictIds, 0, 99, false, bitmap);
+    Assert.assertEquals(cache.size(), 1);
+    Assert.assertTrue(cache.getSizeInBytes() > bitmap.serializedSizeInBytes());
+
+    // Dictionary ids should not be modified, and the same dictionary ids in different order should share the entry
+    Assert.assertEquals(dictIds, new int[]{5, 1, 3});
+    Assert.assertSame(cache.get(invertedIndex, dictIds, 0, 99, false), bitmap);
+    Assert.assertSame(cache.get(invertedIndex, new int[]{1, 3, 5}, 0, 99, false), bitmap);
+
+    // Different dictionary ids, document range, exclusive flag or inverted index should not hit the entry
+    Assert.assertNull(cache.get(invertedIndex, new int[]{1, 3}, 0, 99, false));
+    Assert.assertNull(cache.get(invertedIndex, dictIds, 0, 98, false));
+    Assert.assertNull(cache.get(invertedIndex, dictIds, 0, 99, true));
+    Assert.assertNull(cache.get(mock(BitmapInvertedIndexReader.class), dictIds, 0, 99, false));
+  }
+
+  @Test
+  public void testEviction() {
+    // Each entry takes more than 2KB, so that the cache can only hold a few entries
+    FilterBitmapCache cache = new FilterBitmapCache(64 * 1024, null);
+    BitmapInvertedIndexReader invertedIndex = mock(BitmapInvertedIndexReader.class);
+    for (int i = 0; i < 100; i++) {
+      MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+      for (int j = 0; j < 1000; j++) {
+        bitmap.add(i * 100_000 + j * 3);
+      }
+      cache.put(invertedIndex, new int[]{i, i + 1}, 0, Integer.MAX_VALUE - 1, false, bitmap);
+      Assert.assertTrue(cache.getSizeInBytes() <= 64 * 1024);
+    }
+    Assert.assertTrue(cache.size() < 100);
+    Assert.assertNotNull(cache.get(invertedIndex, new int[]{99, 100}, 0, Integer.MAX_VALUE - 1, false));
+  }
+
+  @Test
+  public void testInvalidate() {
+    FilterBitmapCache cache = new FilterBitmapCache(1024 * 1024, null);
+    BitmapInvertedIndexReader invertedIndex1 = mock(BitmapInvertedIndexReader.class);
+    BitmapInvertedIndexReader invertedIndex2 = mock(BitmapInvertedIndexReader.class);
+    IndexSegment segment1 = mockSegment(invertedIndex1);
+    IndexSegment segment2 = mockSegment(invertedIndex2);
+
+    int[] dictIds = {1, 2};
+    cache.put(invertedIndex1, dictIds, 0, 99, false, MutableRoaringBitmap.bitmapOf(1, 2));
+    cache.put(invertedIndex1, dictIds, 0, 99, true, MutableRoaringBitmap.bitmapOf(3, 4));
+    cache.put(invertedIndex2, dictIds, 0, 99, false, MutableRoaringBitmap.bitmapOf(5, 6));
+    Assert.assertEquals(cache.size(), 3);
+
+    cache.invalidate(segment1);
+    Assert.assertEquals(cache.size(), 1);
+    Assert.assertNull(cache.get(invertedIndex1, dictIds, 0, 99, false));
+    Assert.assertNotNull(cache.get(invertedIndex2, dictIds, 0, 99, false));
+
+    cache.invalidate(segment2);
+    Assert.assertEquals(cache.size(), 0);
+    Assert.assertEquals(cache.getSizeInBytes(), 0);
+  }
+
+  private static IndexSegment mockSegment(BitmapInvertedIndexReader invertedIndex) {
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getInvertedIndex()).thenReturn(invertedIndex);
+    IndexSegment segment = mock(IndexSegment.class);
+    when(segment.getColumnNames()).thenReturn(Collections.singleton(COLUMN_NAME));
+    when(segment.getDataSource(COLUMN_NAME)).thenReturn(dataSource);
+    return segment;
+  }
+}
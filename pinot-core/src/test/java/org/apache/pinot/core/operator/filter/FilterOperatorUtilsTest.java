@@ -20,8 +20,17 @@ package org.apache.pinot.core.operator.filter;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.core.common.DataSource;
+import org.apache.pinot.core.common.DataSourceMetadata;
+import org.apache.pinot.core.common.Predicate;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
 import org.testng.annotations.Test;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 
@@ -92,4 +101,130 @@ public class FilterOperatorUtilsTest {
         .getOrFilterOperator(Arrays.asList(MATCH_ALL_FILTER_OPERATOR, REGULAR_FILTER_OPERATOR), NUM_DOCS, null);
     assertTrue(filterOperator instanceof MatchAllFilterOperator);
   }
+
+  @Test
+  public void testGetLeafFilterOperator() {
+    DataSource dataSource = mockDataSource(true, true, false, 1000);
+
+    // EQ predicate on column with inverted index should use the bitmap
+    PredicateEvaluator predicateEvaluator = mockPredicateEvaluator(Predicate.Type.EQ, 1);
+    assertTrue(FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource,
+        NUM_DOCS) instanceof BitmapBasedFilterOperator);
+
+    // RANGE predicate matching a few dictionary ids should be converted into bitmap probe
+    predicateEvaluator =
+        mockPredicateEvaluator(Predicate.Type.RANGE, FilterOperatorUtils.MAX_NUM_DICT_IDS_FOR_BITMAP_PROBE);
+    assertTrue(FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource,
+        NUM_DOCS) instanceof BitmapBasedFilterOperator);
+
+    // RANGE predicate matching a lot of dictionary ids should be scanned
+    predicateEvaluator =
+        mockPredicateEvaluator(Predicate.Type.RANGE, FilterOperatorUtils.MAX_NUM_DICT_IDS_FOR_BITMAP_PROBE + 1);
+    assertTrue(FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource,
+        NUM_DOCS) instanceof ScanBasedFilterOperator);
+
+    // REGEXP_LIKE predicate should be scanned
+    predicateEvaluator = mockPredicateEvaluator(Predicate.Type.REGEXP_LIKE, 1);
+    assertTrue(FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource,
+        NUM_DOCS) instanceof ScanBasedFilterOperator);
+
+    // Dictionary based RANGE and REGEXP_LIKE predicates on sorted column should use the sorted index
+    DataSource sortedDataSource = mockDataSource(true, true, true, 1000);
+    predicateEvaluator =
+        mockPredicateEvaluator(Predicate.Type.RANGE, FilterOperatorUtils.MAX_NUM_DICT_IDS_FOR_BITMAP_PROBE + 1);
+    assertTrue(FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, sortedDataSource,
+        NUM_DOCS) instanceof SortedInvertedIndexBasedFilterOperator);
+    predicateEvaluator = mockPredicateEvaluator(Predicate.Type.REGEXP_LIKE, 1);
+    assertTrue(FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, sortedDataSource,
+        NUM_DOCS) instanceof SortedInvertedIndexBasedFilterOperator);
+
+    // Column without inverted index should be scanned
+    DataSource noInvertedIndexDataSource = mockDataSource(true, false, false, 1000);
+    predicateEvaluator = mockPredicateEvaluator(Predicate.Type.EQ, 1);
+    assertTrue(FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, noInvertedIndexDataSource,
+        NUM_DOCS) instanceof ScanBasedFilterOperator);
+  }
+
+  @Test
+  public void testReorderScanBasedFilterOperators() {
+    DataSource svDataSource = mockDataSource(true, false, false, 100);
+    DataSource mvDataSource = mockDataSource(false, false, false, 100);
+    BaseFilterOperator svLowSelectivity = new ScanBasedFilterOperator(
+        mockPredicateEvaluator(Predicate.Type.IN, 50), svDataSource, 0, NUM_DOCS - 1);
+    BaseFilterOperator svHighSelectivity = new ScanBasedFilterOperator(
+        mockPredicateEvaluator(Predicate.Type.EQ, 1), svDataSource, 0, NUM_DOCS - 1);
+    BaseFilterOperator mvHighSelectivity = new ScanBasedFilterOperator(
+        mockPredicateEvaluator(Predicate.Type.EQ, 1), mvDataSource, 0, NUM_DOCS - 1);
+
+    // Single-value scans should be ordered by the estimated selectivity, and multi-value scans should be the last
+    BaseFilterOperator filterOperator = FilterOperatorUtils
+        .getAndFilterOperator(Arrays.asList(mvHighSelectivity, svLowSelectivity, svHighSelectivity), NUM_DOCS, null);
+    assertTrue(filterOperator instanceof AndFilterOperator);
+    assertEquals(((AndFilterOperator) filterOperator).getFilterOperators(),
+        Arrays.asList(svHighSelectivity, svLowSelectivity, mvHighSelectivity));
+
+    // Runtime-observed selectivity should take precedence over the estimated selectivity
+    FilterSelectivityStats.PredicateSelectivity predicateSelectivity = new FilterSelectivityStats.PredicateSelectivity();
+    predicateSelectivity.record(FilterSelectivityStats.PredicateSelectivity.MIN_NUM_DOCS_EVALUATED, 0L);
+    BaseFilterOperator svObservedHighSelectivity = new ScanBasedFilterOperator(
+        mockPredicateEvaluator(Predicate.Type.IN, 50), svDataSource, 0, NUM_DOCS - 1, predicateSelectivity);
+    filterOperator = FilterOperatorUtils
+        .getAndFilterOperator(Arrays.asList(svHighSelectivity, svObservedHighSelectivity), NUM_DOCS, null);
+    assertEquals(((AndFilterOperator) filterOperator).getFilterOperators(),
+        Arrays.asList(svObservedHighSelectivity, svHighSelectivity));
+
+    // Scans should not be reordered when the optimization is disabled
+    List<BaseFilterOperator> filterOperators = Arrays.asList(mvHighSelectivity, svLowSelectivity, svHighSelectivity);
+    filterOperator = FilterOperatorUtils.getAndFilterOperator(filterOperators, NUM_DOCS,
+        Collections.singletonMap(FilterOperatorUtils.USE_SCAN_REORDER_OPTIMIZATION, "false"));
+    assertEquals(((AndFilterOperator) filterOperator).getFilterOperators(), filterOperators);
+  }
+
+  @Test
+  public void testPredicateSelectivity() {
+    FilterSelectivityStats stats = FilterSelectivityStats.getTableStats("testTable_OFFLINE");
+    assertTrue(FilterSelectivityStats.getTableStats("testTable_OFFLINE") == stats);
+    FilterSelectivityStats.PredicateSelectivity predicateSelectivity =
+        stats.getPredicateSelectivity("column", Predicate.Type.EQ);
+    assertTrue(stats.getPredicateSelectivity("column", Predicate.Type.EQ) == predicateSelectivity);
+    assertTrue(stats.getPredicateSelectivity("column", Predicate.Type.IN) != predicateSelectivity);
+
+    // Default selectivity should be returned before enough documents are evaluated
+    predicateSelectivity.record(100L, 10L);
+    assertEquals(predicateSelectivity.getSelectivity(0.5), 0.5);
+    predicateSelectivity.record(900L, 90L);
+    assertEquals(predicateSelectivity.getSelectivity(0.5), 0.1);
+
+    // Old observations should decay
+    for (int i = 0; i < 10; i++) {
+      predicateSelectivity.record(FilterSelectivityStats.PredicateSelectivity.MAX_NUM_DOCS_EVALUATED, 0L);
+    }
+    assertTrue(predicateSelectivity.getSelectivity(0.5) < 0.001);
+
+    FilterSelectivityStats.removeTableStats("testTable_OFFLINE");
+    assertTrue(FilterSelectivityStats.getTableStats("testTable_OFFLINE") != stats);
+    FilterSelectivityStats.removeTableStats("testTable_OFFLINE");
+  }
+
+  private static DataSource mockDataSource(boolean singleValue, boolean hasInvertedIndex, boolean sorted,
+      int cardinality) {
+    DataSourceMetadata dataSourceMetadata = mock(DataSourceMetadata.class);
+    when(dataSourceMetadata.isSingleValue()).thenReturn(singleValue);
+    when(dataSourceMetadata.hasInvertedIndex()).thenReturn(hasInvertedIndex);
+    when(dataSourceMetadata.isSorted()).thenReturn(sorted);
+    Dictionary dictionary = mock(Dictionary.class);
+    when(dictionary.length()).thenReturn(cardinality);
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getDataSourceMetadata()).thenReturn(dataSourceMetadata);
+    when(dataSource.getDictionary()).thenReturn(dictionary);
+    return dataSource;
+  }
+
+  private static PredicateEvaluator mockPredicateEvaluator(Predicate.Type predicateType, int numMatchingDictIds) {
+    PredicateEvaluator predicateEvaluator = mock(PredicateEvaluator.class);
+    when(predicateEvaluator.getPredicateType()).thenReturn(predicateType);
+    when(predicateEvaluator.isDictionaryBased()).thenReturn(true);
+    when(predicateEvaluator.getNumMatchingDictIds()).thenReturn(numMatchingDictIds);
+    return predicateEvaluator;
+  }
 }
@@ -0,0 +1,250 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.io.File;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.core.common.Block;
+import org.apache.pinot.core.common.BlockValSet;
+import org.apache.pinot.core.common.DataSource;
+import org.apache.pinot.core.common.DataSourceMetadata;
+import org.apache.pinot.core.common.predicate.RangePredicate;
+import org.apache.pinot.core.operator.blocks.FilterBlock;
+import org.apache.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
+import org.apache.pinot.core.segment.creator.impl.V1Constants;
+import org.apache.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import org.apache.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import org.apache.pinot.core.segment.index.readers.BloomFilterReader;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
+import org.apache.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import org.apache.pinot.core.segment.index.readers.InvertedIndexReader;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class RangeIndexBasedFilterOperatorTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RangeIndexBasedFilterOperatorTest");
+  private static final String COLUMN_NAME = "testColumn";
+  private static final int NUM_DOCS = 10000;
+  private static final int CARDINALITY = 1000;
+  private static final int NUM_BUCKETS = 16;
+  private static final int NUM_QUERIES = 100;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  private final Random _random = new Random(RANDOM_SEED);
+  private final int[] _dictIds = new int[NUM_DOCS];
+  private PinotDataBuffer _dataBuffer;
+  private BitmapRangeIndexReader _rangeIndex;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    FileUtils.forceMkdir(INDEX_DIR);
+
+    // Make the first dictionary id much more frequent than the others to test the skewed buckets
+    try (BitmapRangeIndexCreator creator = new BitmapRangeIndexCreator(INDEX_DIR, COLUMN_NAME, CARDINALITY, NUM_DOCS,
+        NUM_BUCKETS)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        int dictId = _random.nextInt(4) == 0 ? 0 : _random.nextInt(CARDINALITY);
+        _dictIds[i] = dictId;
+        creator.add(dictId);
+      }
+      creator.seal();
+    }
+
+    File rangeIndexFile = new File(INDEX_DIR, COLUMN_NAME + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+    _dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(rangeIndexFile);
+    _rangeIndex = new BitmapRangeIndexReader(_dataBuffer);
+  }
+
+  @Test
+  public void testRangeIndexReader() {
+    int numBuckets = _rangeIndex.getNumBuckets();
+    Assert.assertTrue(numBuckets > 1 && numBuckets <= NUM_BUCKETS, "Random seed: " + RANDOM_SEED);
+    Assert.assertEquals(_rangeIndex.getBucketStartDictId(0), 0);
+    Assert.assertEquals(_rangeIndex.getBucketEndDictId(numBuckets - 1), CARDINALITY);
+
+    MutableRoaringBitmap allDocIds = new MutableRoaringBitmap();
+    for (int bucketId = 0; bucketId < numBuckets; bucketId++) {
+      int startDictId = _rangeIndex.getBucketStartDictId(bucketId);
+      int endDictId = _rangeIndex.getBucketEndDictId(bucketId);
+      Assert.assertTrue(startDictId < endDictId, "Random seed: " + RANDOM_SEED);
+      for (int dictId = startDictId; dictId < endDictId; dictId++) {
+        Assert.assertEquals(_rangeIndex.getBucketId(dictId), bucketId);
+      }
+
+      // Each bucket should contain exactly the documents with dictionary id within the bucket
+      ImmutableRoaringBitmap docIds = _rangeIndex.getDocIds(bucketId);
+      for (int docId : docIds) {
+        Assert.assertTrue(_dictIds[docId] >= startDictId && _dictIds[docId] < endDictId);
+      }
+      allDocIds.or(docIds);
+    }
+    Assert.assertEquals(allDocIds.getCardinality(), NUM_DOCS);
+  }
+
+  @Test
+  public void testRangeIndexBasedFilterOperator() {
+    DataSource dataSource = mockDataSource();
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      int startDictId = _random.nextInt(CARDINALITY - 1) + 1;
+      int endDictId = startDictId + 1 + _random.nextInt(CARDINALITY - startDictId);
+      RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator predicateEvaluator =
+          createPredicateEvaluator(startDictId, endDictId);
+      BaseFilterOperator filterOperator =
+          FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, NUM_DOCS);
+      Assert.assertTrue(filterOperator instanceof RangeIndexBasedFilterOperator);
+
+      // Only the documents within the boundary buckets should be scanned
+      FilterBlockDocIdSet docIdSet = filterOperator.nextBlock().getBlockDocIdSet();
+      Assert.assertEquals(docIdSet.<ImmutableRoaringBitmap>getRaw(), getExpectedDocIds(startDictId, endDictId, 0,
+          NUM_DOCS - 1), "Random seed: " + RANDOM_SEED);
+      long maxNumEntriesScanned = _rangeIndex.getDocIds(_rangeIndex.getBucketId(startDictId)).getCardinality()
+          + _rangeIndex.getDocIds(_rangeIndex.getBucketId(endDictId - 1)).getCardinality();
+      Assert.assertTrue(docIdSet.getNumEntriesScannedInFilter() <= maxNumEntriesScanned);
+    }
+
+    // Range fully covering the buckets should not scan any document
+    RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator predicateEvaluator =
+        createPredicateEvaluator(_rangeIndex.getBucketStartDictId(1), CARDINALITY);
+    FilterBlock filterBlock =
+        new RangeIndexBasedFilterOperator(predicateEvaluator, dataSource, 0, NUM_DOCS - 1).nextBlock();
+    Assert.assertEquals(filterBlock.getBlockDocIdSet().getNumEntriesScannedInFilter(), 0L);
+
+    // Documents out of the document id range should not be scanned
+    int startDictId = 1;
+    int endDictId = CARDINALITY / 2;
+    predicateEvaluator = createPredicateEvaluator(startDictId, endDictId);
+    int startDocId = NUM_DOCS / 4;
+    int endDocId = NUM_DOCS / 2;
+    filterBlock = new RangeIndexBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId).nextBlock();
+    MutableRoaringBitmap docIds = new MutableRoaringBitmap();
+    for (int docId : filterBlock.getBlockDocIdSet().<ImmutableRoaringBitmap>getRaw()) {
+      if (docId >= startDocId && docId <= endDocId) {
+        docIds.add(docId);
+      }
+    }
+    Assert.assertEquals(docIds, getExpectedDocIds(startDictId, endDictId, startDocId, endDocId));
+    Assert.assertTrue(filterBlock.getBlockDocIdSet().getNumEntriesScannedInFilter() <= endDocId - startDocId + 1);
+  }
+
+  private DataSource mockDataSource() {
+    DataSourceMetadata dataSourceMetadata = mock(DataSourceMetadata.class);
+    when(dataSourceMetadata.isSingleValue()).thenReturn(true);
+    BlockValSet blockValSet = mock(BlockValSet.class);
+    doAnswer(invocation -> {
+      int[] docIds = invocation.getArgument(0);
+      int inStartPos = invocation.getArgument(1);
+      int length = invocation.getArgument(2);
+      int[] dictIds = invocation.getArgument(3);
+      int outStartPos = invocation.getArgument(4);
+      for (int i = 0; i < length; i++) {
+        dictIds[outStartPos + i] = _dictIds[docIds[inStartPos + i]];
+      }
+      return null;
+    }).when(blockValSet).getDictionaryIds(any(int[].class), anyInt(), anyInt(), any(int[].class), anyInt());
+    Block block = mock(Block.class);
+    when(block.getBlockValueSet()).thenReturn(blockValSet);
+    return new DataSource() {
+      @Override
+      public DataSourceMetadata getDataSourceMetadata() {
+        return dataSourceMetadata;
+      }
+
+      @Override
+      public InvertedIndexReader getInvertedIndex() {
+        return null;
+      }
+
+      @Override
+      public Dictionary getDictionary() {
+        return null;
+      }
+
+      @Override
+      public BloomFilterReader getBloomFilter() {
+        return null;
+      }
+
+      @Override
+      public BitmapRangeIndexReader getRangeIndex() {
+        return _rangeIndex;
+      }
+
+      @Override
+      protected Block getNextBlock() {
+        return block;
+      }
+
+      @Override
+      public String getOperatorName() {
+        return "TestDataSource";
+      }
+    };
+  }
+
+  /**
+   * Creates the predicate evaluator for range [startDictId, endDictId).
+   */
+  private static RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator createPredicateEvaluator(
+      int startDictId, int endDictId) {
+    ImmutableDictionaryReader dictionary = mock(ImmutableDictionaryReader.class);
+    when(dictionary.insertionIndexOf("lower")).thenReturn(startDictId);
+    when(dictionary.insertionIndexOf("upper")).thenReturn(endDictId);
+    when(dictionary.length()).thenReturn(CARDINALITY);
+    RangePredicate predicate = mock(RangePredicate.class);
+    when(predicate.getLowerBoundary()).thenReturn("lower");
+    when(predicate.getUpperBoundary()).thenReturn("upper");
+    when(predicate.includeLowerBoundary()).thenReturn(true);
+    when(predicate.includeUpperBoundary()).thenReturn(false);
+    return (RangePredicateEvaluatorFactory.OfflineDictionaryBasedRangePredicateEvaluator) RangePredicateEvaluatorFactory
+        .newDictionaryBasedEvaluator(predicate, dictionary);
+  }
+
+  private MutableRoaringBitmap getExpectedDocIds(int startDictId, int endDictId, int startDocId, int endDocId) {
+    MutableRoaringBitmap expectedDocIds = new MutableRoaringBitmap();
+    for (int docId = startDocId; docId <= endDocId; docId++) {
+      if (_dictIds[docId] >= startDictId && _dictIds[docId] < endDictId) {
+        expectedDocIds.add(docId);
+      }
+    }
+    return expectedDocIds;
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws Exception {
+    _dataBuffer.close();
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+}
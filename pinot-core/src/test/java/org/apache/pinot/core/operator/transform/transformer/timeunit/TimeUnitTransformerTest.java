@@ -54,6 +54,21 @@ public class TimeUnitTransformerTest {
     }
   }
 
+  @Test
+  public void testJavaTimeUnitAllUnits() {
+    long[] input = new long[]{0L, 1L, -1L, 1234567L, -1234567L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE / 1000,
+        Long.MIN_VALUE / 1000};
+    long[] output = new long[input.length];
+    for (TimeUnit inputTimeUnit : TimeUnit.values()) {
+      for (TimeUnit outputTimeUnit : TimeUnit.values()) {
+        new JavaTimeUnitTransformer(inputTimeUnit, outputTimeUnit).transform(input, output, input.length);
+        for (int i = 0; i < input.length; i++) {
+          Assert.assertEquals(output[i], outputTimeUnit.convert(input[i], inputTimeUnit));
+        }
+      }
+    }
+  }
+
   @Test
   public void testCustomTimeUnit() {
     TimeUnitTransformer timeUnitTransformer =
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.aggregation.function;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.util.Random;
+import org.apache.pinot.common.data.FieldSpec;
+import org.apache.pinot.core.common.BlockValSet;
+import org.apache.pinot.core.query.aggregation.AggregationResultHolder;
+import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import org.apache.pinot.core.segment.index.readers.Dictionary;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class DistinctCountAggregationFunctionTest {
+  private static final int NUM_DOCS = 1000;
+  private static final int CARDINALITY = 100;
+  private static final int MAX_NUM_MULTI_VALUES = 5;
+  private static final int NUM_GROUPS = 7;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  @Test
+  public void testDictionaryBasedAggregation() {
+    Random random = new Random(RANDOM_SEED);
+    String[] dictionaryValues = new String[CARDINALITY];
+    for (int i = 0; i < CARDINALITY; i++) {
+      dictionaryValues[i] = "value" + i;
+    }
+    Dictionary dictionary = mock(Dictionary.class);
+    when(dictionary.getStringValue(anyInt()))
+        .thenAnswer(invocation -> dictionaryValues[(int) invocation.getArgument(0)]);
+
+    int[] dictIds = new int[NUM_DOCS];
+    String[] values = new String[NUM_DOCS];
+    int[][] dictIdsMV = new int[NUM_DOCS][];
+    String[][] valuesMV = new String[NUM_DOCS][];
+    int[] groupKeys = new int[NUM_DOCS];
+    int[][] groupKeysMV = new int[NUM_DOCS][];
+    for (int i = 0; i < NUM_DOCS; i++) {
+      // Skew the dictionary ids so that some dictionary ids are never collected
+      dictIds[i] = random.nextInt(CARDINALITY / 2) * 2;
+      values[i] = dictionaryValues[dictIds[i]];
+      int numValues = random.nextInt(MAX_NUM_MULTI_VALUES + 1);
+      dictIdsMV[i] = new int[numValues];
+      valuesMV[i] = new String[numValues];
+      for (int j = 0; j < numValues; j++) {
+        dictIdsMV[i][j] = random.nextInt(CARDINALITY);
+        valuesMV[i][j] = dictionaryValues[dictIdsMV[i][j]];
+      }
+      groupKeys[i] = random.nextInt(NUM_GROUPS);
+      groupKeysMV[i] = new int[]{groupKeys[i], (groupKeys[i] + 1) % NUM_GROUPS};
+    }
+
+    BlockValSet rawBlockValSet = mock(BlockValSet.class);
+    when(rawBlockValSet.getValueType()).thenReturn(FieldSpec.DataType.STRING);
+    when(rawBlockValSet.getStringValuesSV()).thenReturn(values);
+    when(rawBlockValSet.getStringValuesMV()).thenReturn(valuesMV);
+    BlockValSet dictionaryBlockValSet = mock(BlockValSet.class);
+    when(dictionaryBlockValSet.getValueType()).thenReturn(FieldSpec.DataType.STRING);
+    when(dictionaryBlockValSet.getDictionary()).thenReturn(dictionary);
+    when(dictionaryBlockValSet.getDictionaryIdsSV()).thenReturn(dictIds);
+    when(dictionaryBlockValSet.getDictionaryIdsMV()).thenReturn(dictIdsMV);
+
+    // Results on the dictionary ids should be the same as the results on the values
+    DistinctCountAggregationFunction[] functions = new DistinctCountAggregationFunction[]{
+        new DistinctCountAggregationFunction(), new DistinctCountMVAggregationFunction()
+    };
+    for (DistinctCountAggregationFunction function : functions) {
+      String message = function.getType() + ", random seed: " + RANDOM_SEED;
+
+      AggregationResultHolder rawResultHolder = function.createAggregationResultHolder();
+      function.aggregate(NUM_DOCS, rawResultHolder, rawBlockValSet);
+      AggregationResultHolder dictionaryResultHolder = function.createAggregationResultHolder();
+      function.aggregate(NUM_DOCS, dictionaryResultHolder, dictionaryBlockValSet);
+      IntOpenHashSet expected = function.extractAggregationResult(rawResultHolder);
+      Assert.assertFalse(expected.isEmpty(), message);
+      Assert.assertEquals(function.extractAggregationResult(dictionaryResultHolder), expected, message);
+
+      GroupByResultHolder rawGroupBySVResultHolder = function.createGroupByResultHolder(NUM_GROUPS, NUM_GROUPS);
+      function.aggregateGroupBySV(NUM_DOCS, groupKeys, rawGroupBySVResultHolder, rawBlockValSet);
+      GroupByResultHolder dictionaryGroupBySVResultHolder = function.createGroupByResultHolder(NUM_GROUPS, NUM_GROUPS);
+      function.aggregateGroupBySV(NUM_DOCS, groupKeys, dictionaryGroupBySVResultHolder, dictionaryBlockValSet);
+      GroupByResultHolder rawGroupByMVResultHolder = function.createGroupByResultHolder(NUM_GROUPS, NUM_GROUPS);
+      function.aggregateGroupByMV(NUM_DOCS, groupKeysMV, rawGroupByMVResultHolder, rawBlockValSet);
+      GroupByResultHolder dictionaryGroupByMVResultHolder = function.createGroupByResultHolder(NUM_GROUPS, NUM_GROUPS);
+      function.aggregateGroupByMV(NUM_DOCS, groupKeysMV, dictionaryGroupByMVResultHolder, dictionaryBlockValSet);
+      for (int groupKey = 0; groupKey < NUM_GROUPS; groupKey++) {
+        Assert.assertEquals(function.extractGroupByResult(dictionaryGroupBySVResultHolder, groupKey),
+            function.extractGroupByResult(rawGroupBySVResultHolder, groupKey), message);
+        Assert.assertEquals(function.extractGroupByResult(dictionaryGroupByMVResultHolder, groupKey),
+            function.extractGroupByResult(rawGroupByMVResultHolder, groupKey), message);
+      }
+    }
+  }
+}
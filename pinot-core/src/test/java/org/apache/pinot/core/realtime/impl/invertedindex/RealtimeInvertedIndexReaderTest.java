@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.realtime.impl.invertedindex;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class RealtimeInvertedIndexReaderTest {
+  private static final int NUM_DICT_IDS = 10;
+  private static final int NUM_DOCS = 100_000;
+
+  @Test
+  public void testAdd() {
+    RealtimeInvertedIndexReader invertedIndex = new RealtimeInvertedIndexReader();
+
+    // Gaps in dictionary ids should be filled with empty bitmaps
+    invertedIndex.add(2, 0);
+    Assert.assertTrue(invertedIndex.getDocIds(0).isEmpty());
+    Assert.assertTrue(invertedIndex.getDocIds(1).isEmpty());
+    Assert.assertEquals(invertedIndex.getDocIds(2), MutableRoaringBitmap.bitmapOf(0));
+    Assert.assertTrue(invertedIndex.getDocIds(100).isEmpty());
+
+    // Same document id added multiple times (multi-value column)
+    invertedIndex.add(0, 1);
+    invertedIndex.add(0, 1);
+    invertedIndex.add(2, 1);
+    Assert.assertEquals(invertedIndex.getDocIds(0), MutableRoaringBitmap.bitmapOf(1));
+    Assert.assertEquals(invertedIndex.getDocIds(2), MutableRoaringBitmap.bitmapOf(0, 1));
+
+    // Bitmap already returned should not be modified by the following adds
+    MutableRoaringBitmap bitmap = invertedIndex.getDocIds(2);
+    invertedIndex.add(2, 2);
+    Assert.assertEquals(bitmap, MutableRoaringBitmap.bitmapOf(0, 1));
+    Assert.assertEquals(invertedIndex.getDocIds(2), MutableRoaringBitmap.bitmapOf(0, 1, 2));
+  }
+
+  @Test
+  public void testReadWhileWriting() {
+    // Readers access the returned bitmaps without synchronization, which is only safe if the writer never modifies a
+    // bitmap after returning it. Interleave the writes and the reads in a single thread, and verify that none of the
+    // returned bitmaps is modified by the following writes, including the ones crossing multiple seals.
+    RealtimeInvertedIndexReader invertedIndex = new RealtimeInvertedIndexReader();
+    List<MutableRoaringBitmap> bitmaps = new ArrayList<>();
+    List<MutableRoaringBitmap> expectedBitmaps = new ArrayList<>();
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      invertedIndex.add(docId % NUM_DICT_IDS, docId);
+      if (docId % 997 == 0) {
+        for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+          MutableRoaringBitmap bitmap = invertedIndex.getDocIds(dictId);
+          MutableRoaringBitmap expectedBitmap = new MutableRoaringBitmap();
+          for (int i = dictId; i <= docId; i += NUM_DICT_IDS) {
+            expectedBitmap.add(i);
+          }
+          Assert.assertEquals(bitmap, expectedBitmap);
+          bitmaps.add(bitmap);
+          expectedBitmaps.add(expectedBitmap);
+        }
+      }
+    }
+
+    int numBitmaps = bitmaps.size();
+    for (int i = 0; i < numBitmaps; i++) {
+      Assert.assertEquals(bitmaps.get(i), expectedBitmaps.get(i));
+    }
+    for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+      Assert.assertEquals(invertedIndex.getDocIds(dictId).getCardinality(), NUM_DOCS / NUM_DICT_IDS);
+    }
+  }
+}
@@ -19,17 +19,24 @@
 package org.apache.pinot.core.segment.index.creator;
 
 import com.google.common.base.Preconditions;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.ByteOrder;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.pinot.core.bloom.BloomFilterType;
 import org.apache.pinot.core.bloom.BloomFilterUtil;
+import org.apache.pinot.core.bloom.BloomFilter;
 import org.apache.pinot.core.bloom.GuavaOnHeapBloomFilter;
+import org.apache.pinot.core.bloom.OffHeapBlockedBloomFilter;
 import org.apache.pinot.core.segment.creator.impl.V1Constants;
 import org.apache.pinot.core.segment.creator.impl.bloom.BloomFilterCreator;
+import org.apache.pinot.core.segment.index.readers.BloomFilterReader;
+import org.apache.pinot.core.segment.memory.PinotDataBuffer;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
@@ -96,7 +103,7 @@ public class BloomFilterCreatorTest {
     try (DataInputStream in = new DataInputStream(new FileInputStream(bloomFilterFile))) {
       BloomFilterType type = BloomFilterType.valueOf(in.readInt());
       int version = in.readInt();
-      GuavaOnHeapBloomFilter bloomFilter = new GuavaOnHeapBloomFilter();
+      OffHeapBlockedBloomFilter bloomFilter = new OffHeapBlockedBloomFilter();
 
       Assert.assertEquals(type, bloomFilter.getBloomFilterType());
       Assert.assertEquals(version, bloomFilter.getVersion());
@@ -111,6 +118,46 @@ public class BloomFilterCreatorTest {
     }
   }
 
+  @Test
+  public void testBloomFilterReader()
+      throws Exception {
+    int cardinality = 100000;
+    double maxFalsePosProbability = 0.05;
+    for (BloomFilter bloomFilter : new BloomFilter[]{new GuavaOnHeapBloomFilter(cardinality,
+        maxFalsePosProbability), new OffHeapBlockedBloomFilter(cardinality, maxFalsePosProbability)}) {
+      for (int i = 0; i < cardinality; i++) {
+        bloomFilter.add(Integer.toString(i));
+      }
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try (DataOutputStream dataOutputStream = new DataOutputStream(outputStream)) {
+        dataOutputStream.writeInt(bloomFilter.getBloomFilterType().getValue());
+        dataOutputStream.writeInt(bloomFilter.getVersion());
+        bloomFilter.writeTo(dataOutputStream);
+      }
+      byte[] bytes = outputStream.toByteArray();
+
+      try (PinotDataBuffer dataBuffer = PinotDataBuffer.allocateDirect(bytes.length, ByteOrder.BIG_ENDIAN, null)) {
+        dataBuffer.readFrom(0, bytes);
+        BloomFilterReader bloomFilterReader = new BloomFilterReader(dataBuffer);
+
+        // No false negative
+        for (int i = 0; i < cardinality; i++) {
+          Assert.assertTrue(bloomFilterReader.mightContain(Integer.toString(i)));
+        }
+
+        // False positive rate should be close to the expected
+        int numFalsePositives = 0;
+        for (int i = cardinality; i < 2 * cardinality; i++) {
+          if (bloomFilterReader.mightContain(Integer.toString(i))) {
+            numFalsePositives++;
+          }
+        }
+        Assert.assertTrue(numFalsePositives < cardinality * maxFalsePosProbability * 1.5,
+            bloomFilter.getBloomFilterType() + " false positives: " + numFalsePositives);
+      }
+    }
+  }
+
   @Test
   public void testBloomFilterSize()
       throws Exception {
@@ -254,6 +254,23 @@ public class ImmutableDictionaryReaderTest {
     }
   }
 
+  @Test
+  public void testHashIndexedStringDictionary()
+      throws Exception {
+    try (HashIndexedStringDictionary hashIndexedStringDictionary = new HashIndexedStringDictionary(PinotDataBuffer
+        .mapReadOnlyBigEndianFile(new File(TEMP_DIR, STRING_COLUMN_NAME + V1Constants.Dict.FILE_EXTENSION)), NUM_VALUES,
+        _numBytesPerStringValue, (byte) 0)) {
+      testStringDictionary(hashIndexedStringDictionary);
+      for (int i = 0; i < NUM_VALUES; i++) {
+        String randomString = RandomStringUtils.random(RANDOM.nextInt(2 * MAX_STRING_LENGTH)).replace('\0', ' ');
+        int index = Arrays.binarySearch(_stringValues, randomString);
+        assertEquals(hashIndexedStringDictionary.indexOf(randomString), (index >= 0) ? index : -1);
+        // Values with the padding byte should not match
+        assertEquals(hashIndexedStringDictionary.indexOf(_stringValues[i] + '\0'), -1);
+      }
+    }
+  }
+
   private void testStringDictionary(ImmutableDictionaryReader stringDictionary) {
     for (int i = 0; i < NUM_VALUES; i++) {
       assertEquals(stringDictionary.get(i), _stringValues[i]);
@@ -287,6 +304,26 @@ public class ImmutableDictionaryReaderTest {
     }
   }
 
+  @Test
+  public void testHashIndexedBytesDictionary()
+      throws Exception {
+    try (HashIndexedBytesDictionary bytesDictionary = new HashIndexedBytesDictionary(PinotDataBuffer
+        .mapReadOnlyBigEndianFile(new File(TEMP_DIR, BYTES_COLUMN_NAME + V1Constants.Dict.FILE_EXTENSION)), NUM_VALUES,
+        BYTES_LENGTH)) {
+      for (int i = 0; i < NUM_VALUES; i++) {
+        assertEquals(new ByteArray(bytesDictionary.get(i)), _bytesValues[i]);
+        assertEquals(bytesDictionary.indexOf(_bytesValues[i].getBytes()), i);
+
+        byte[] randomBytes = new byte[BYTES_LENGTH];
+        RANDOM.nextBytes(randomBytes);
+        int index = Arrays.binarySearch(_bytesValues, new ByteArray(randomBytes));
+        assertEquals(bytesDictionary.indexOf(randomBytes), (index >= 0) ? index : -1);
+        assertEquals(bytesDictionary.insertionIndexOf(randomBytes), index);
+        assertEquals(bytesDictionary.indexOf(new byte[BYTES_LENGTH - 1]), -1);
+      }
+    }
+  }
+
   @AfterClass
   public void tearDown() {
     FileUtils.deleteQuietly(TEMP_DIR);
@@ -21,6 +21,8 @@ package org.apache.pinot.core.transport;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.request.BrokerRequest;
 import org.apache.pinot.common.utils.CommonConstants.Helix.TableType;
@@ -104,6 +106,180 @@ public class QueryRouterTest {
     thread.join();
   }
 
+  @Test
+  public void testDataTableConsumer()
+      throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+
+    // Start the server
+    DummyServer dummyServer = new DummyServer(TEST_PORT, 0L, responseBytes);
+    Thread thread = new Thread(dummyServer);
+    thread.start();
+    while (!dummyServer.isReady()) {
+      Thread.sleep(100L);
+    }
+
+    // Hybrid, data tables should be passed to the consumer instead of being kept in the server responses
+    // The consumer should be invoked on the thread waiting for the response instead of the network threads
+    Map<Server, DataTable> consumedDataTables = new ConcurrentHashMap<>();
+    Set<Thread> consumerThreads = ConcurrentHashMap.newKeySet();
+    AsyncQueryResponse asyncQueryResponse = _queryRouter
+        .submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, BROKER_REQUEST, ROUTING_TABLE, 1_000L,
+            (server, receivedDataTable) -> {
+              consumerThreads.add(Thread.currentThread());
+              consumedDataTables.put(server, receivedDataTable);
+            });
+    Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
+    Assert.assertEquals(response.size(), 2);
+    Assert.assertEquals(consumedDataTables.size(), 2);
+    Assert.assertEquals(consumerThreads, Collections.singleton(Thread.currentThread()));
+    for (Server server : new Server[]{OFFLINE_SERVER, REALTIME_SERVER}) {
+      Assert.assertTrue(consumedDataTables.containsKey(server));
+      ServerResponse serverResponse = response.get(server);
+      Assert.assertTrue(serverResponse.isResponseReceived());
+      Assert.assertNull(serverResponse.getDataTable());
+      Assert.assertEquals(serverResponse.getResponseSize(), responseBytes.length);
+    }
+
+    // Shut down the server
+    dummyServer.shutDown();
+    thread.join();
+  }
+
+  @Test
+  public void testServerLoadTracking()
+      throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+
+    // Start the server
+    DummyServer dummyServer = new DummyServer(TEST_PORT, 0L, responseBytes);
+    Thread thread = new Thread(dummyServer);
+    thread.start();
+    while (!dummyServer.isReady()) {
+      Thread.sleep(100L);
+    }
+
+    // Use alpha 1 so that the latency EWMA is the latency of the last request
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker(1);
+    QueryRouter queryRouter =
+        new QueryRouter("testBroker", Mockito.mock(BrokerMetrics.class), NettyConfig.DEFAULT, serverLoadTracker);
+
+    // Hybrid, both requests should be tracked as in-flight until the responses are received
+    AsyncQueryResponse asyncQueryResponse = queryRouter
+        .submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, BROKER_REQUEST, ROUTING_TABLE, 1_000L);
+    asyncQueryResponse.getResponse();
+    ServerLoadTracker.ServerLoad serverLoad = serverLoadTracker.getServerLoad(SERVER_INSTANCE_NAME);
+    Assert.assertNotNull(serverLoad);
+    Assert.assertEquals(serverLoad.getNumInFlightRequests(), 0);
+    Assert.assertTrue(serverLoad.getLatencyEwmaMs() >= 0);
+    Assert.assertTrue(serverLoad.getLatencyEwmaMs() < 1000);
+
+    // Request without response should be recorded with the time waited
+    asyncQueryResponse =
+        queryRouter.submitQuery(requestId + 1, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L);
+    asyncQueryResponse.getResponse();
+    Assert.assertEquals(serverLoad.getNumInFlightRequests(), 0);
+    Assert.assertTrue(serverLoad.getLatencyEwmaMs() >= 1000);
+    queryRouter.shutDown();
+
+    // Shut down the server
+    dummyServer.shutDown();
+    thread.join();
+  }
+
+  @Test
+  public void testHedgeRequest()
+      throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+    // The first hedge request of a new query router has request id -1
+    DataTable hedgeDataTable = new DataTableImplV2();
+    hedgeDataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(-1L));
+    byte[] hedgeResponseBytes = hedgeDataTable.toBytes();
+
+    // Start a slow server and a fast server
+    DummyServer slowServer = new DummyServer(TEST_PORT, 500L, responseBytes);
+    Thread slowServerThread = new Thread(slowServer);
+    slowServerThread.start();
+    int hedgePort = TEST_PORT + 1;
+    String hedgeServerInstanceName = "Server_localhost_" + hedgePort;
+    DummyServer fastServer = new DummyServer(hedgePort, 0L, hedgeResponseBytes);
+    Thread fastServerThread = new Thread(fastServer);
+    fastServerThread.start();
+    while (!slowServer.isReady() || !fastServer.isReady()) {
+      Thread.sleep(100L);
+    }
+
+    ServerLoadTracker serverLoadTracker = new ServerLoadTracker(1);
+    QueryRouter queryRouter =
+        new QueryRouter("testBroker", Mockito.mock(BrokerMetrics.class), NettyConfig.DEFAULT, serverLoadTracker);
+    RequestHedger requestHedger = new RequestHedger() {
+      @Override
+      public long getHedgeDelayMs(TableType tableType) {
+        return 100L;
+      }
+
+      @Override
+      public String getAlternateServer(Server server, List<String> segments) {
+        return hedgeServerInstanceName;
+      }
+    };
+
+    // Response from the hedge server should be used as the response of the slow server
+    long startTimeMs = System.currentTimeMillis();
+    Map<Server, DataTable> consumedDataTables = new ConcurrentHashMap<>();
+    AsyncQueryResponse asyncQueryResponse = queryRouter
+        .submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L,
+            consumedDataTables::put, requestHedger);
+    Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
+    Assert.assertTrue(System.currentTimeMillis() - startTimeMs < 500);
+    Assert.assertEquals(response.size(), 1);
+    Assert.assertTrue(response.get(OFFLINE_SERVER).isResponseReceived());
+    Assert.assertEquals(consumedDataTables.size(), 1);
+    Assert.assertTrue(consumedDataTables.containsKey(OFFLINE_SERVER));
+
+    // Both requests should be marked as done
+    ServerLoadTracker.ServerLoad serverLoad = serverLoadTracker.getServerLoad(SERVER_INSTANCE_NAME);
+    Assert.assertNotNull(serverLoad);
+    Assert.assertEquals(serverLoad.getNumInFlightRequests(), 0);
+    ServerLoadTracker.ServerLoad hedgeServerLoad = serverLoadTracker.getServerLoad(hedgeServerInstanceName);
+    Assert.assertNotNull(hedgeServerLoad);
+    Assert.assertEquals(hedgeServerLoad.getNumInFlightRequests(), 0);
+
+    // Hedge requests not sent yet should be cancelled when the query is done
+    requestHedger = new RequestHedger() {
+      @Override
+      public long getHedgeDelayMs(TableType tableType) {
+        return 900L;
+      }
+
+      @Override
+      public String getAlternateServer(Server server, List<String> segments) {
+        return hedgeServerInstanceName;
+      }
+    };
+    asyncQueryResponse = queryRouter
+        .submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L, null, requestHedger);
+    Assert.assertEquals(queryRouter.getNumPendingHedgeTasks(), 1);
+    asyncQueryResponse.getResponse();
+    Assert.assertEquals(queryRouter.getNumPendingHedgeTasks(), 0);
+    queryRouter.shutDown();
+
+    // Shut down the servers
+    slowServer.shutDown();
+    fastServer.shutDown();
+    slowServerThread.join();
+    fastServerThread.join();
+  }
+
   @Test
   public void testInvalidResponse()
       throws Exception {
@@ -136,6 +312,44 @@ public class QueryRouterTest {
     thread.join();
   }
 
+  @Test
+  public void testResponseTooLarge()
+      throws Exception {
+    long requestId = 123;
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+    byte[] responseBytes = dataTable.toBytes();
+
+    // Start the server
+    DummyServer dummyServer = new DummyServer(TEST_PORT, 0L, responseBytes);
+    Thread thread = new Thread(dummyServer);
+    thread.start();
+    while (!dummyServer.isReady()) {
+      Thread.sleep(100L);
+    }
+
+    // Native transport falls back to NIO if not available
+    QueryRouter queryRouter = new QueryRouter("testBroker", Mockito.mock(BrokerMetrics.class),
+        new NettyConfig(true, 1, true, responseBytes.length - 1));
+    long startTimeMs = System.currentTimeMillis();
+    AsyncQueryResponse asyncQueryResponse =
+        queryRouter.submitQuery(requestId, "testTable", BROKER_REQUEST, ROUTING_TABLE, null, null, 1_000L);
+    Map<Server, ServerResponse> response = asyncQueryResponse.getResponse();
+    Assert.assertEquals(response.size(), 1);
+    ServerResponse serverResponse = response.get(OFFLINE_SERVER);
+    Assert.assertNull(serverResponse.getDataTable());
+    Assert.assertEquals(serverResponse.getResponseSize(), 0);
+    // Response should be dropped and the request to the server should fail without waiting for the query timeout
+    Assert.assertFalse(serverResponse.isResponseReceived());
+    Assert.assertNotNull(serverResponse.getFailureMessage());
+    Assert.assertTrue(System.currentTimeMillis() - startTimeMs < 1000);
+    queryRouter.shutDown();
+
+    // Shut down the server
+    dummyServer.shutDown();
+    thread.join();
+  }
+
   @Test
   public void testNonMatchingRequestId()
       throws Exception {
@@ -49,6 +49,8 @@ public class VarByteChunkSingleValueReaderWriteTest {
   public void testWithCompression()
       throws Exception {
     test(ChunkCompressorFactory.CompressionType.SNAPPY);
+    test(ChunkCompressorFactory.CompressionType.LZ4);
+    test(ChunkCompressorFactory.CompressionType.ZSTANDARD);
   }
 
   @Test
@@ -28,8 +28,10 @@ import org.apache.pinot.common.response.ServerInstance;
 import org.apache.pinot.common.response.broker.BrokerResponseNative;
 import org.apache.pinot.common.utils.DataTable;
 import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.common.datatable.DataTableBuilder;
 import org.apache.pinot.core.data.manager.SegmentDataManager;
 import org.apache.pinot.core.indexsegment.IndexSegment;
+import org.apache.pinot.core.operator.filter.FilterOperatorUtils;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import org.apache.pinot.core.plan.maker.PlanMaker;
@@ -60,7 +62,7 @@ public abstract class BaseQueriesTest {
    */
   @SuppressWarnings("unchecked")
   protected <T extends Operator> T getOperatorForQuery(String query) {
-    return (T) PLAN_MAKER.makeInnerSegmentPlan(getIndexSegment(), COMPILER.compileToBrokerRequest(query)).run();
+    return (T) PLAN_MAKER.makeInnerSegmentPlan(getIndexSegment(), compileQuery(query)).run();
   }
 
   /**
@@ -84,10 +86,11 @@ public abstract class BaseQueriesTest {
    * @return broker response.
    */
   protected BrokerResponseNative getBrokerResponseForQuery(String query, PlanMaker planMaker) {
-    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    BrokerRequest brokerRequest = compileQuery(query);
 
     // Server side.
-    Plan plan = planMaker.makeInterSegmentPlan(getSegmentDataManagers(), brokerRequest, EXECUTOR_SERVICE, 10_000);
+    Plan plan = planMaker.makeInterSegmentPlan(getSegmentDataManagers(), brokerRequest, EXECUTOR_SERVICE, 10_000,
+        DataTableBuilder.getCurrentDataTableVersion());
     DataTable instanceResponse = plan.execute();
 
     // Broker side.
@@ -121,4 +124,19 @@ public abstract class BaseQueriesTest {
   protected BrokerResponseNative getBrokerResponseForQueryWithFilter(String query) {
     return getBrokerResponseForQuery(query + getFilter());
   }
+
+  /**
+   * Compiles the query with the selectivity based filter reordering disabled, so that the filter evaluation order (and
+   * the number of entries scanned in filter) does not depend on the selectivity observed by earlier queries.
+   */
+  private static BrokerRequest compileQuery(String query) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    Map<String, String> debugOptions = brokerRequest.getDebugOptions();
+    if (debugOptions == null) {
+      debugOptions = new HashMap<>();
+      brokerRequest.setDebugOptions(debugOptions);
+    }
+    debugOptions.put(FilterOperatorUtils.USE_SELECTIVITY_REORDER_OPTIMIZATION, "false");
+    return brokerRequest;
+  }
 }
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.utils.JsonUtils;
+import org.apache.pinot.core.query.cache.SegmentResultCache;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the aggregation queries served from the {@link SegmentResultCache}.
+ */
+public class SegmentResultCacheQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String TABLE_NAME = "testTable";
+  private static final long CACHE_SIZE_IN_BYTES = 16 * 1024 * 1024;
+
+  private static final String AGGREGATION_QUERY =
+      "SELECT COUNT(*), SUM(column1), MAX(column3), AVG(column6), DISTINCTCOUNT(column11), PERCENTILE90(column18) "
+          + "FROM testTable";
+  private static final String GROUP_BY_QUERY =
+      "SELECT COUNT(*), SUM(column1), DISTINCTCOUNTHLL(column6), MINMAXRANGE(column9) FROM testTable "
+          + "GROUP BY column11, column12 TOP 1000";
+
+  @BeforeClass
+  public void enableCache() {
+    SegmentResultCache.setTableEnabled(TABLE_NAME, true);
+  }
+
+  @AfterClass
+  public void disableCache() {
+    SegmentResultCache.init(0, null);
+    SegmentResultCache.setTableEnabled(TABLE_NAME, false);
+  }
+
+  @Test
+  public void testAggregation()
+      throws Exception {
+    testQuery(AGGREGATION_QUERY);
+    testQuery(AGGREGATION_QUERY + getFilter());
+  }
+
+  @Test
+  public void testAggregationGroupBy()
+      throws Exception {
+    testQuery(GROUP_BY_QUERY);
+    testQuery(GROUP_BY_QUERY + getFilter());
+  }
+
+  @Test
+  public void testQueryNormalization()
+      throws Exception {
+    SegmentResultCache.init(CACHE_SIZE_IN_BYTES, null);
+    String filter = " WHERE column6 < 500000000 AND column11 IN ('t', 'P')";
+    BrokerResponseNative expectedResponse = getBrokerResponseForQuery(AGGREGATION_QUERY + filter);
+    Assert.assertTrue(expectedResponse.getNumEntriesScannedPostFilter() > 0);
+
+    // Different order of the children of AND filter and the IN values
+    assertServedFromCache(
+        getBrokerResponseForQuery(AGGREGATION_QUERY + " WHERE column11 IN ('P', 't') AND column6 < 500000000"),
+        expectedResponse);
+
+    // Range predicate on time column covering the whole segment
+    assertServedFromCache(
+        getBrokerResponseForQuery(AGGREGATION_QUERY + filter + " AND daysSinceEpoch BETWEEN 100000000 AND 200000000"),
+        expectedResponse);
+    assertServedFromCache(getBrokerResponseForQuery(AGGREGATION_QUERY + filter + " AND daysSinceEpoch >= 126164076"),
+        expectedResponse);
+
+    // Range predicate on time column not covering the whole segment should not be served from the cache
+    BrokerResponseNative brokerResponse =
+        getBrokerResponseForQuery(AGGREGATION_QUERY + filter + " AND daysSinceEpoch > 126164076");
+    Assert.assertTrue(brokerResponse.getNumEntriesScannedPostFilter() > 0);
+  }
+
+  @Test
+  public void testInvalidation() {
+    SegmentResultCache.init(CACHE_SIZE_IN_BYTES, null);
+    SegmentResultCache segmentResultCache = SegmentResultCache.getInstance();
+    Assert.assertNotNull(segmentResultCache);
+    getBrokerResponseForQuery(AGGREGATION_QUERY);
+    getBrokerResponseForQuery(GROUP_BY_QUERY);
+    Assert.assertEquals(segmentResultCache.size(), 2);
+    Assert.assertTrue(segmentResultCache.getSizeInBytes() > 0);
+
+    // Queries on the tables without the cache enabled should not be cached
+    SegmentResultCache.setTableEnabled(TABLE_NAME, false);
+    getBrokerResponseForQuery(AGGREGATION_QUERY + getFilter());
+    Assert.assertEquals(segmentResultCache.size(), 2);
+    SegmentResultCache.setTableEnabled(TABLE_NAME, true);
+
+    SegmentResultCache.invalidateSegment(TABLE_NAME, getIndexSegment().getSegmentName());
+    Assert.assertEquals(segmentResultCache.size(), 0);
+    Assert.assertEquals(segmentResultCache.getSizeInBytes(), 0);
+  }
+
+  /**
+   * Runs the query without the cache, then runs the query twice with the cache (first time computes the results and
+   * second time serves the results from the cache), and compares the results.
+   */
+  private void testQuery(String query)
+      throws Exception {
+    SegmentResultCache.init(0, null);
+    BrokerResponseNative expectedResponse = getBrokerResponseForQuery(query);
+
+    SegmentResultCache.init(CACHE_SIZE_IN_BYTES, null);
+    BrokerResponseNative brokerResponse = getBrokerResponseForQuery(query);
+    Assert.assertEquals(JsonUtils.objectToString(brokerResponse.getAggregationResults()),
+        JsonUtils.objectToString(expectedResponse.getAggregationResults()));
+    Assert.assertEquals(brokerResponse.getNumEntriesScannedPostFilter(),
+        expectedResponse.getNumEntriesScannedPostFilter());
+    assertServedFromCache(getBrokerResponseForQuery(query), expectedResponse);
+  }
+
+  private static void assertServedFromCache(BrokerResponseNative brokerResponse, BrokerResponseNative expectedResponse)
+      throws Exception {
+    Assert.assertEquals(JsonUtils.objectToString(brokerResponse.getAggregationResults()),
+        JsonUtils.objectToString(expectedResponse.getAggregationResults()));
+    Assert.assertEquals(brokerResponse.getNumDocsScanned(), expectedResponse.getNumDocsScanned());
+    Assert.assertEquals(brokerResponse.getTotalDocs(), expectedResponse.getTotalDocs());
+    Assert.assertEquals(brokerResponse.getNumEntriesScannedInFilter(), 0L);
+    Assert.assertEquals(brokerResponse.getNumEntriesScannedPostFilter(), 0L);
+  }
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.aggregation.groupby;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import javax.annotation.Nonnull;
+import org.apache.pinot.core.operator.blocks.TransformBlock;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
+import org.apache.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
+import org.apache.pinot.core.query.aggregation.groupby.GroupByCombineTable;
+import org.apache.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class GroupByCombineTableTest {
+  private static final AggregationFunction SUM = AggregationFunctionFactory.getAggregationFunction("SUM");
+  private static final AggregationFunction[] AGGREGATION_FUNCTIONS = {SUM};
+  private static final int NUM_SEGMENTS = 20;
+  private static final int NUM_GROUPS = 10000;
+
+  @Test
+  public void testConcurrentMerge()
+      throws Exception {
+    GroupByCombineTable combineTable = new GroupByCombineTable(AGGREGATION_FUNCTIONS, Integer.MAX_VALUE);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      Future[] futures = new Future[NUM_SEGMENTS];
+      for (int i = 0; i < NUM_SEGMENTS; i++) {
+        // Each segment has the same groups with value 1
+        AggregationGroupByResult aggregationGroupByResult = getAggregationGroupByResult(NUM_GROUPS);
+        futures[i] = executorService.submit(() -> combineTable.merge(aggregationGroupByResult));
+      }
+      for (Future future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+
+    Assert.assertEquals(combineTable.size(), NUM_GROUPS);
+    Assert.assertFalse(combineTable.isNumGroupsLimitReached());
+    combineTable.forEach((groupValues, intermediateResults) -> {
+      Assert.assertEquals(groupValues.length, 2);
+      Assert.assertEquals(intermediateResults[0], (double) NUM_SEGMENTS);
+    });
+
+    // Trim the results and check the string keys
+    AggregationGroupByTrimmingService trimmingService = new AggregationGroupByTrimmingService(AGGREGATION_FUNCTIONS, 10);
+    List<Map<String, Object>> trimmedResults = trimmingService.trimIntermediateResults(combineTable);
+    Map<String, Object> sumResults = trimmedResults.get(0);
+    Assert.assertEquals(sumResults.size(), NUM_GROUPS);
+    Assert.assertEquals(sumResults.get("7" + AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER + "7_str"),
+        (double) NUM_SEGMENTS);
+  }
+
+  @Test
+  public void testMergeMixedDataTypes() {
+    // Same groups from segments storing the columns with different data types (INT/FLOAT in the first segment and
+    // LONG/DOUBLE in the second one) should be merged into one group
+    GroupByCombineTable combineTable = new GroupByCombineTable(AGGREGATION_FUNCTIONS, Integer.MAX_VALUE);
+    combineTable.merge(getAggregationGroupByResult(NUM_GROUPS, groupId -> new Object[]{groupId, groupId + 0.1f}));
+    combineTable.merge(
+        getAggregationGroupByResult(NUM_GROUPS, groupId -> new Object[]{(long) groupId, groupId + 0.1}));
+    Assert.assertEquals(combineTable.size(), NUM_GROUPS);
+    combineTable.forEach(
+        (groupValues, intermediateResults) -> Assert.assertEquals(intermediateResults[0], 2.0));
+
+    AggregationGroupByTrimmingService trimmingService = new AggregationGroupByTrimmingService(AGGREGATION_FUNCTIONS, 10);
+    Map<String, Object> sumResults = trimmingService.trimIntermediateResults(combineTable).get(0);
+    Assert.assertEquals(sumResults.size(), NUM_GROUPS);
+    Assert.assertEquals(sumResults.get("7" + AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER + "7.1"), 2.0);
+  }
+
+  @Test
+  public void testNumGroupsLimit() {
+    GroupByCombineTable combineTable = new GroupByCombineTable(AGGREGATION_FUNCTIONS, 100);
+    combineTable.merge(getAggregationGroupByResult(1000));
+    Assert.assertEquals(combineTable.size(), 100);
+    Assert.assertTrue(combineTable.isNumGroupsLimitReached());
+  }
+
+  @Test
+  public void testGetStringKey() {
+    Assert.assertEquals(GroupByCombineTable.getStringKey(new Object[]{1}), "1");
+    Assert.assertEquals(GroupByCombineTable.getStringKey(new Object[]{1, 2L, "a"}),
+        "1" + AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER + "2"
+            + AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER + "a");
+  }
+
+  /**
+   * Helper method to build an aggregation group-by result with groups of values (i, "i_str") and SUM result 1.
+   */
+  private static AggregationGroupByResult getAggregationGroupByResult(int numGroups) {
+    return getAggregationGroupByResult(numGroups, groupId -> new Object[]{groupId, groupId + "_str"});
+  }
+
+  /**
+   * Helper method to build an aggregation group-by result with groups of the given values and SUM result 1.
+   */
+  private static AggregationGroupByResult getAggregationGroupByResult(int numGroups,
+      IntFunction<Object[]> groupValuesFunction) {
+    GroupByResultHolder resultHolder = new DoubleGroupByResultHolder(numGroups, numGroups, 0.0);
+    for (int i = 0; i < numGroups; i++) {
+      resultHolder.setValueForKey(i, 1.0);
+    }
+    return new AggregationGroupByResult(new TestGroupKeyGenerator(numGroups, groupValuesFunction), AGGREGATION_FUNCTIONS,
+        new GroupByResultHolder[]{resultHolder});
+  }
+
+  private static class TestGroupKeyGenerator implements GroupKeyGenerator {
+    private final int _numGroups;
+    private final IntFunction<Object[]> _groupValuesFunction;
+
+    TestGroupKeyGenerator(int numGroups, IntFunction<Object[]> groupValuesFunction) {
+      _numGroups = numGroups;
+      _groupValuesFunction = groupValuesFunction;
+    }
+
+    @Override
+    public int getGlobalGroupKeyUpperBound() {
+      return _numGroups;
+    }
+
+    @Override
+    public void generateKeysForBlock(@Nonnull TransformBlock transformBlock, @Nonnull int[] groupKeys) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void generateKeysForBlock(@Nonnull TransformBlock transformBlock, @Nonnull int[][] groupKeys) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getCurrentGroupKeyUpperBound() {
+      return _numGroups;
+    }
+
+    @Override
+    public Iterator<GroupKey> getUniqueGroupKeys() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<GroupKey> getUniqueGroupKeyValues() {
+      return new Iterator<GroupKey>() {
+        private final GroupKey _groupKey = new GroupKey();
+        private int _groupId;
+
+        @Override
+        public boolean hasNext() {
+          return _groupId < _numGroups;
+        }
+
+        @Override
+        public GroupKey next() {
+          _groupKey._groupId = _groupId;
+          _groupKey._values = _groupValuesFunction.apply(_groupId);
+          _groupId++;
+          return _groupKey;
+        }
+      };
+    }
+  }
+}
@@ -26,6 +26,14 @@ public class NettyServerConfig {
 
   // Netty server port
   private static String NETTY_SERVER_PORT = "port";
+  // Whether to use the native epoll transport (falls back to NIO if not available)
+  private static String NETTY_SERVER_NATIVE_TRANSPORT_ENABLED = "nativeTransportEnabled";
+  // Number of threads for the boss and worker event loop groups
+  private static String NETTY_SERVER_NUM_BOSS_THREADS = "numBossThreads";
+  private static String NETTY_SERVER_NUM_WORKER_THREADS = "numWorkerThreads";
+
+  private static final int DEFAULT_NUM_BOSS_THREADS = 1;
+  private static final int DEFAULT_NUM_WORKER_THREADS = 20;
 
   private Configuration _serverNettyConfig;
 
@@ -43,4 +51,16 @@ public class NettyServerConfig {
   public int getPort() {
     return _serverNettyConfig.getInt(NETTY_SERVER_PORT);
   }
+
+  public boolean isNativeTransportEnabled() {
+    return _serverNettyConfig.getBoolean(NETTY_SERVER_NATIVE_TRANSPORT_ENABLED, false);
+  }
+
+  public int getNumBossThreads() {
+    return _serverNettyConfig.getInt(NETTY_SERVER_NUM_BOSS_THREADS, DEFAULT_NUM_BOSS_THREADS);
+  }
+
+  public int getNumWorkerThreads() {
+    return _serverNettyConfig.getInt(NETTY_SERVER_NUM_WORKER_THREADS, DEFAULT_NUM_WORKER_THREADS);
+  }
 }
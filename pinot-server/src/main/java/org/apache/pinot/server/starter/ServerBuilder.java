@@ -33,6 +33,7 @@ import org.apache.pinot.core.operator.transform.function.TransformFunctionFactor
 import org.apache.pinot.core.query.executor.QueryExecutor;
 import org.apache.pinot.core.query.scheduler.QueryScheduler;
 import org.apache.pinot.core.query.scheduler.QuerySchedulerFactory;
+import org.apache.pinot.server.conf.NettyServerConfig;
 import org.apache.pinot.server.conf.ServerConf;
 import org.apache.pinot.transport.netty.NettyServer;
 import org.apache.pinot.transport.netty.NettyTCPServer;
@@ -118,8 +119,11 @@ public class ServerBuilder {
 
   public NettyServer buildNettyServer(NettyServer.RequestHandlerFactory requestHandlerFactory)
       throws ConfigurationException {
-    int nettyPort = _serverConf.getNettyConfig().getPort();
-    LOGGER.info("Building netty TCP server with port: {}", nettyPort);
-    return new NettyTCPServer(nettyPort, requestHandlerFactory, null);
+    NettyServerConfig nettyServerConfig = _serverConf.getNettyConfig();
+    int nettyPort = nettyServerConfig.getPort();
+    LOGGER.info("Building netty TCP server with port: {}, native transport enabled: {}", nettyPort,
+        nettyServerConfig.isNativeTransportEnabled());
+    return new NettyTCPServer(nettyPort, requestHandlerFactory, null, 100, nettyServerConfig.getNumBossThreads(),
+        nettyServerConfig.getNumWorkerThreads(), nettyServerConfig.isNativeTransportEnabled());
   }
 }
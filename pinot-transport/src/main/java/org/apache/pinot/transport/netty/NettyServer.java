@@ -31,6 +31,8 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -110,6 +112,8 @@ public abstract class NettyServer implements Runnable {
   // So, these netty threads are not blocked. Config is still important
   protected final EventLoopGroup _bossGroup;
   protected final EventLoopGroup _workerGroup;
+  // Whether the event loop groups are native epoll event loop groups
+  protected final boolean _nativeTransport;
 
   // Netty Channel
   protected volatile Channel _channel = null;
@@ -132,13 +136,35 @@ public abstract class NettyServer implements Runnable {
 
   public NettyServer(int port, RequestHandlerFactory handlerFactory, AggregatedMetricsRegistry registry,
       long defaultLargeQueryLatencyMs, int numThreadsForBossGroup, int numThreadsForWorkerGroup) {
+    this(port, handlerFactory, registry, defaultLargeQueryLatencyMs, numThreadsForBossGroup, numThreadsForWorkerGroup,
+        false);
+  }
+
+  /**
+   * Constructor for the server.
+   * <p>If native transport is enabled and the native epoll transport is available, use the epoll event loops instead of
+   * the NIO event loops.
+   */
+  public NettyServer(int port, RequestHandlerFactory handlerFactory, AggregatedMetricsRegistry registry,
+      long defaultLargeQueryLatencyMs, int numThreadsForBossGroup, int numThreadsForWorkerGroup,
+      boolean nativeTransportEnabled) {
     _port = port;
     _handlerFactory = handlerFactory;
     _metricsRegistry = registry;
     _metrics = new AggregatedTransportServerMetrics(_metricsRegistry, AGGREGATED_SERVER_METRICS_NAME + port + "_");
     _defaultLargeQueryLatencyMs = defaultLargeQueryLatencyMs;
-    _bossGroup = new NioEventLoopGroup(numThreadsForBossGroup);
-    _workerGroup = new NioEventLoopGroup(numThreadsForWorkerGroup);
+    if (nativeTransportEnabled && Epoll.isAvailable()) {
+      _nativeTransport = true;
+      _bossGroup = new EpollEventLoopGroup(numThreadsForBossGroup);
+      _workerGroup = new EpollEventLoopGroup(numThreadsForWorkerGroup);
+    } else {
+      if (nativeTransportEnabled) {
+        LOGGER.warn("Native epoll transport is not available, falling back to NIO", Epoll.unavailabilityCause());
+      }
+      _nativeTransport = false;
+      _bossGroup = new NioEventLoopGroup(numThreadsForBossGroup);
+      _workerGroup = new NioEventLoopGroup(numThreadsForWorkerGroup);
+    }
   }
 
   @Override